@@ -0,0 +1,309 @@
+package webScraper;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds any of a fixed set of patterns in text in a single pass, using the
+ * Aho-Corasick automaton. The automaton is built once, and searching does not
+ * allocate. Each state keeps its transitions in a sorted array, which stays
+ * small and fast for the short, mostly-ASCII patterns used when crawling, and
+ * unless there are very many states, a table of its transitions on every ASCII
+ * character, so most characters take a single lookup.
+ */
+public class AhoCorasick {
+    /** The most entries in the table of ASCII transitions, 4 MB of them. */
+    private static final int MAX_ASCII_TABLE = 1 << 20;
+
+    private final String[] patterns;
+    private final boolean ignoreCase;
+
+    /** For each state, the sorted characters it has transitions on. */
+    private char[][] keys;
+
+    /** For each state, the states reached by the characters in keys. */
+    private int[][] next;
+
+    /** For each state, the state for the longest proper suffix in the trie. */
+    private int[] fail;
+
+    /** For each state, the patterns that end there, including via fail links. */
+    private int[][] outputs;
+
+    /**
+     * The state reached from each state on each ASCII character, at
+     * {@code state * 128 + c}, with fail links already followed, or
+     * {@code null} if the automaton is too big for it.
+     */
+    private int[] ascii;
+
+    private int states;
+
+    /**
+     * Builds the automaton for the patterns.
+     *
+     * @param patterns   the patterns to find; empty patterns are ignored
+     * @param ignoreCase whether to match ASCII letters case-insensitively
+     */
+    public AhoCorasick(List<String> patterns, boolean ignoreCase) {
+        this.patterns = patterns.toArray(new String[0]);
+        this.ignoreCase = ignoreCase;
+
+        this.keys = new char[8][];
+        this.next = new int[8][];
+        this.outputs = new int[8][];
+        this.states = 0;
+        newState();
+
+        for (int p = 0; p < this.patterns.length; p++) {
+            String pattern = this.patterns[p];
+            if (pattern.isEmpty()) {
+                continue;
+            }
+
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = fold(pattern.charAt(i));
+                int target = transition(state, c);
+                if (target < 0) {
+                    target = newState();
+                    addTransition(state, c, target);
+                }
+                state = target;
+            }
+            outputs[state] = append(outputs[state], p);
+        }
+
+        buildFailLinks();
+        buildAsciiTable();
+    }
+
+    /**
+     * Returns the number of patterns.
+     *
+     * @return the number of patterns
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * Returns a pattern by its index.
+     *
+     * @param index the index of the pattern
+     * @return the pattern
+     */
+    public String pattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Finds the first pattern that occurs in the text between from (inclusive)
+     * and to (exclusive).
+     *
+     * @param text the text to search
+     * @param from the start of the range
+     * @param to   the end of the range
+     * @return the index of the pattern whose occurrence ends first, or -1 if none
+     */
+    public int find(CharSequence text, int from, int to) {
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            state = step(state, text.charAt(i));
+            if (outputs[state].length > 0) {
+                return outputs[state][0];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Continues matching from a state with one more character. This allows the
+     * text to be fed in several pieces without joining them.
+     *
+     * @param state the current state, 0 to start
+     * @param c     the next character
+     * @return the new state
+     */
+    public int step(int state, char c) {
+        if (c < 128 && ascii != null) {
+            return ascii[state << 7 | c];
+        }
+        return follow(state, c);
+    }
+
+    /**
+     * Finds the state reached from a state on a character, following fail
+     * links until one has a transition on it.
+     *
+     * @param state the current state
+     * @param c     the next character
+     * @return the new state
+     */
+    private int follow(int state, char c) {
+        c = fold(c);
+        while (true) {
+            int target = transition(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * Returns the patterns that end at the state.
+     *
+     * @param state the state
+     * @return the indexes of the patterns ending at the state; do not modify
+     */
+    public int[] matches(int state) {
+        return outputs[state];
+    }
+
+    /**
+     * Lowercases ASCII letters if matching case-insensitively.
+     *
+     * @param c the character
+     * @return the character to match on
+     */
+    private char fold(char c) {
+        return ignoreCase && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Looks up the transition from a state on a character.
+     *
+     * @param state the state
+     * @param c     the character
+     * @return the target state, or -1 if there is no transition
+     */
+    private int transition(int state, char c) {
+        char[] stateKeys = keys[state];
+        if (stateKeys.length < 8) {
+            for (int i = 0; i < stateKeys.length; i++) {
+                if (stateKeys[i] == c) {
+                    return next[state][i];
+                }
+            }
+            return -1;
+        }
+
+        int i = Arrays.binarySearch(stateKeys, c);
+        return i < 0 ? -1 : next[state][i];
+    }
+
+    /**
+     * Adds a transition, keeping the keys of the state sorted.
+     *
+     * @param state  the state
+     * @param c      the character
+     * @param target the target state
+     */
+    private void addTransition(int state, char c, int target) {
+        char[] stateKeys = keys[state];
+        int[] stateNext = next[state];
+        int at = -(Arrays.binarySearch(stateKeys, c) + 1);
+
+        char[] newKeys = new char[stateKeys.length + 1];
+        int[] newNext = new int[stateNext.length + 1];
+        System.arraycopy(stateKeys, 0, newKeys, 0, at);
+        System.arraycopy(stateNext, 0, newNext, 0, at);
+        newKeys[at] = c;
+        newNext[at] = target;
+        System.arraycopy(stateKeys, at, newKeys, at + 1, stateKeys.length - at);
+        System.arraycopy(stateNext, at, newNext, at + 1, stateNext.length - at);
+
+        keys[state] = newKeys;
+        next[state] = newNext;
+    }
+
+    /**
+     * Creates a new state with no transitions or outputs.
+     *
+     * @return the new state
+     */
+    private int newState() {
+        if (states == keys.length) {
+            keys = Arrays.copyOf(keys, states * 2);
+            next = Arrays.copyOf(next, states * 2);
+            outputs = Arrays.copyOf(outputs, states * 2);
+        }
+
+        keys[states] = new char[0];
+        next[states] = new int[0];
+        outputs[states] = new int[0];
+        return states++;
+    }
+
+    /**
+     * Computes the fail links breadth-first and merges the outputs of each fail
+     * state into the states that fall back to it.
+     */
+    private void buildFailLinks() {
+        fail = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+
+        for (int child : next[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < keys[state].length; i++) {
+                char c = keys[state][i];
+                int child = next[state][i];
+
+                int fallback = fail[state];
+                while (fallback != 0 && transition(fallback, c) < 0) {
+                    fallback = fail[fallback];
+                }
+                int target = transition(fallback, c);
+                fail[child] = target >= 0 && target != child ? target : 0;
+
+                for (int output : outputs[fail[child]]) {
+                    outputs[child] = append(outputs[child], output);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Precomputes the transitions on ASCII characters, so that stepping on them
+     * is one lookup instead of a search through the keys and fail links. Most
+     * crawled text is ASCII markup, so this is where the search spends its time.
+     */
+    private void buildAsciiTable() {
+        if ((long) states * 128 > MAX_ASCII_TABLE) {
+            return;
+        }
+
+        int[] table = new int[states * 128];
+        for (int state = 0; state < states; state++) {
+            for (char c = 0; c < 128; c++) {
+                table[state << 7 | c] = follow(state, c);
+            }
+        }
+        ascii = table;
+    }
+
+    /**
+     * Returns a copy of the array with the value added at the end.
+     *
+     * @param array the array
+     * @param value the value to add
+     * @return the new array
+     */
+    private static int[] append(int[] array, int value) {
+        int[] appended = Arrays.copyOf(array, array.length + 1);
+        appended[array.length] = value;
+        return appended;
+    }
+}
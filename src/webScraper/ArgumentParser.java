@@ -0,0 +1,117 @@
+package webScraper;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses optional command-line flags into flag/value pairs. A flag is any
+ * argument that starts with a dash followed by a letter, and its value is the
+ * argument right after it (if that argument is not itself a flag).
+ */
+public class ArgumentParser {
+    private final Map<String, String> map;
+
+    /**
+     * Parses the provided arguments.
+     *
+     * @param args the command-line arguments to parse
+     */
+    public ArgumentParser(String[] args) {
+        this.map = new HashMap<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (isFlag(args[i])) {
+                String flag = args[i];
+                String value = null;
+                if (i + 1 < args.length && !isFlag(args[i + 1])) {
+                    value = args[++i];
+                }
+                map.put(flag, value);
+            }
+        }
+    }
+
+    /**
+     * Determines whether the argument is a flag.
+     *
+     * @param arg the argument to test
+     * @return {@code true} if the argument is a flag
+     */
+    public static boolean isFlag(String arg) {
+        return arg != null && arg.length() > 1 && arg.charAt(0) == '-' && Character.isLetter(arg.charAt(1));
+    }
+
+    /**
+     * Determines whether the flag exists.
+     *
+     * @param flag the flag to find
+     * @return {@code true} if the flag was provided
+     */
+    public boolean hasFlag(String flag) {
+        return map.containsKey(flag);
+    }
+
+    /**
+     * Returns the value of the flag, or the default if the flag or its value is
+     * missing.
+     *
+     * @param flag         the flag to look up
+     * @param defaultValue the value to return if there is no value
+     * @return the value of the flag or the default value
+     */
+    public String getString(String flag, String defaultValue) {
+        String value = map.get(flag);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Returns the value of the flag as a path, or the default if the flag or its
+     * value is missing.
+     *
+     * @param flag         the flag to look up
+     * @param defaultValue the value to return if there is no value
+     * @return the value of the flag as a path or the default value
+     */
+    public Path getPath(String flag, Path defaultValue) {
+        String value = map.get(flag);
+        return value == null ? defaultValue : Path.of(value);
+    }
+
+    /**
+     * Returns the value of the flag as an integer, or the default if the flag or
+     * its value is missing or not a number.
+     *
+     * @param flag         the flag to look up
+     * @param defaultValue the value to return if there is no valid value
+     * @return the value of the flag as an integer or the default value
+     */
+    public int getInteger(String flag, int defaultValue) {
+        try {
+            return Integer.parseInt(map.get(flag));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns the value of the flag as a long, or the default if the flag or its
+     * value is missing or not a number.
+     *
+     * @param flag         the flag to look up
+     * @param defaultValue the value to return if there is no valid value
+     * @return the value of the flag as a long or the default value
+     */
+    public long getLong(String flag, long defaultValue) {
+        try {
+            return Long.parseLong(map.get(flag));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package webScraper;
+
+import java.util.ArrayDeque;
+
+/**
+ * Hands items from one stage of a crawl to the next while keeping the memory
+ * they hold under a budget. Each item is put with its size in bytes, and
+ * {@link #put(Object, long)} blocks while the items waiting would go over the
+ * budget, so a fast producer slows down to the pace of its consumers instead
+ * of filling the heap. An item larger than the whole budget is still accepted
+ * once the queue is empty, so nothing is stuck forever.
+ *
+ * @param <E> the type of the items
+ */
+public class ByteBudgetQueue<E> {
+    /**
+     * An item and its size.
+     *
+     * @param <E>   the type of the item
+     * @param item  the item
+     * @param bytes the size of the item in bytes
+     */
+    private record Entry<E>(E item, long bytes) {
+    }
+
+    private final long maxBytes;
+    private final ArrayDeque<Entry<E>> entries;
+    private long bytes;
+    private long peakBytes;
+    private long blockedPuts;
+    private boolean closed;
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param maxBytes the most bytes the waiting items may hold
+     */
+    public ByteBudgetQueue(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.entries = new ArrayDeque<>();
+    }
+
+    /**
+     * Adds an item, waiting until there is room for it in the budget.
+     *
+     * @param item the item to add
+     * @param size the size of the item in bytes
+     * @return {@code true} if added, or {@code false} if the queue was closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean put(E item, long size) throws InterruptedException {
+        if (!closed && !entries.isEmpty() && bytes + size > maxBytes) {
+            blockedPuts++;
+            do {
+                wait();
+            } while (!closed && !entries.isEmpty() && bytes + size > maxBytes);
+        }
+
+        if (closed) {
+            return false;
+        }
+
+        entries.add(new Entry<>(item, size));
+        bytes += size;
+        peakBytes = Math.max(peakBytes, bytes);
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Removes the oldest item, waiting until there is one.
+     *
+     * @return the item, or {@code null} if the queue is closed and empty
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized E take() throws InterruptedException {
+        while (entries.isEmpty() && !closed) {
+            wait();
+        }
+
+        Entry<E> entry = entries.poll();
+        if (entry == null) {
+            return null;
+        }
+
+        bytes -= entry.bytes();
+        notifyAll();
+        return entry.item();
+    }
+
+    /**
+     * Stops accepting items. Items already waiting can still be taken.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Returns the most bytes the waiting items have held at once.
+     *
+     * @return the peak number of bytes
+     */
+    public synchronized long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Returns the number of times a put had to wait for room.
+     *
+     * @return the number of blocked puts
+     */
+    public synchronized long getBlockedPuts() {
+        return blockedPuts;
+    }
+}
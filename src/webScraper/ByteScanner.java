@@ -0,0 +1,226 @@
+package webScraper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntSupplier;
+
+/**
+ * Finds delimiters like {@code <}, {@code >}, {@code &} and quotes in UTF-8
+ * bytes, which is where most of the time tokenizing a page goes. When the JVM
+ * is started with {@code --add-modules jdk.incubator.vector}, the search
+ * compares 32 bytes at once with SIMD instructions through
+ * {@link VectorByteScanner}. Otherwise, or on CPUs without vectors of at least
+ * 16 bytes, it falls back to a plain loop over the bytes.
+ *
+ * <p>
+ * Searches in a {@link String} already get the same treatment from
+ * {@link String#indexOf(int)}, which the JVM compiles to SIMD instructions, so
+ * this is only used where pages are kept as bytes, in {@link Utf8Text} and
+ * {@link StreamingLinkExtractor}.
+ */
+public class ByteScanner {
+    /**
+     * Searches bytes for delimiters.
+     */
+    interface Kernel {
+        /**
+         * Finds a byte.
+         *
+         * @param bytes the bytes to search
+         * @param from  the first position to search (inclusive)
+         * @param to    the last position to search (exclusive)
+         * @param b     the byte to find
+         * @return the position of the byte, or -1 if not found
+         */
+        int indexOf(byte[] bytes, int from, int to, byte b);
+
+        /**
+         * Finds the first of either of two bytes.
+         *
+         * @param bytes the bytes to search
+         * @param from  the first position to search (inclusive)
+         * @param to    the last position to search (exclusive)
+         * @param a     one byte to find
+         * @param b     the other byte to find
+         * @return the position of the first of them, or -1 if neither is found
+         */
+        int indexOfEither(byte[] bytes, int from, int to, byte a, byte b);
+    }
+
+    /** Searches one byte at a time. */
+    static final Kernel SCALAR = new Kernel() {
+        @Override
+        public int indexOf(byte[] bytes, int from, int to, byte b) {
+            for (int i = from; i < to; i++) {
+                if (bytes[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int indexOfEither(byte[] bytes, int from, int to, byte a, byte b) {
+            for (int i = from; i < to; i++) {
+                if (bytes[i] == a || bytes[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    };
+
+    /** The fastest kernel this JVM can run. */
+    private static final Kernel KERNEL = load();
+
+    /** Prevents instantiating this class of static methods. */
+    private ByteScanner() {
+    }
+
+    /**
+     * Loads the SIMD kernel if the Vector API module is present. The kernel is
+     * only referenced by name, so this class still loads without the module.
+     *
+     * @return the SIMD kernel, or {@link #SCALAR} if it cannot be used
+     */
+    private static Kernel load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR;
+        }
+
+        try {
+            return (Kernel) Class.forName("webScraper.VectorByteScanner").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            return SCALAR;
+        }
+    }
+
+    /**
+     * Finds a byte.
+     *
+     * @param bytes the bytes to search
+     * @param from  the first position to search (inclusive)
+     * @param to    the last position to search (exclusive)
+     * @param b     the byte to find
+     * @return the position of the byte, or -1 if not found
+     */
+    public static int indexOf(byte[] bytes, int from, int to, byte b) {
+        return KERNEL.indexOf(bytes, from, to, b);
+    }
+
+    /**
+     * Finds the first of either of two bytes.
+     *
+     * @param bytes the bytes to search
+     * @param from  the first position to search (inclusive)
+     * @param to    the last position to search (exclusive)
+     * @param a     one byte to find
+     * @param b     the other byte to find
+     * @return the position of the first of them, or -1 if neither is found
+     */
+    public static int indexOfEither(byte[] bytes, int from, int to, byte a, byte b) {
+        return KERNEL.indexOfEither(bytes, from, to, a, b);
+    }
+
+    /**
+     * Returns whether searches use SIMD instructions.
+     *
+     * @return {@code true} if the Vector API kernel is in use
+     */
+    public static boolean isVectorized() {
+        return KERNEL != SCALAR;
+    }
+
+    /**
+     * Measures how fast each kernel finds every tag in a page, and how fast
+     * links are extracted from it as bytes. Run with
+     * {@code --add-modules jdk.incubator.vector} to include the SIMD kernel.
+     *
+     * @param args an HTML file to scan; a generated recipe page by default
+     * @throws IOException if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        byte[] page = args.length > 0 ? Files.readAllBytes(Path.of(args[0])) : samplePage();
+        System.out.println("Page: " + page.length + " bytes, SIMD kernel: " + (isVectorized() ? KERNEL : "none"));
+
+        benchmark("scalar tags", page, () -> countTags(SCALAR, page));
+        if (isVectorized()) {
+            benchmark("vector tags", page, () -> countTags(KERNEL, page));
+        }
+        benchmark("links", page, () -> {
+            StreamingLinkExtractor links = new StreamingLinkExtractor(link -> {
+            });
+            links.feed(page, 0, page.length);
+            return links.getCount();
+        });
+    }
+
+    /**
+     * Counts the tags in a page by finding each {@code <} and then the next
+     * {@code >} or quote, the way a tokenizer walks a page.
+     *
+     * @param kernel the kernel to search with
+     * @param page   the page
+     * @return the number of tags
+     */
+    private static int countTags(Kernel kernel, byte[] page) {
+        int count = 0;
+        int i = kernel.indexOf(page, 0, page.length, (byte) '<');
+        while (i >= 0) {
+            int end = kernel.indexOfEither(page, i + 1, page.length, (byte) '>', (byte) '"');
+            if (end < 0) {
+                break;
+            }
+            count++;
+            i = kernel.indexOf(page, end + 1, page.length, (byte) '<');
+        }
+        return count;
+    }
+
+    /**
+     * Runs a benchmark after warming it up and prints its throughput, the best
+     * of several rounds.
+     *
+     * @param name  the name to print
+     * @param page  the page it scans
+     * @param round one pass over the page, returning a result that is printed
+     *              so the work is not optimized away
+     */
+    private static void benchmark(String name, byte[] page, IntSupplier round) {
+        int passes = Math.max(1, (int) (200_000_000L / page.length));
+        long result = 0;
+        for (int i = 0; i < passes; i++) {
+            result += round.getAsInt();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < passes; i++) {
+                result += round.getAsInt();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double gigabytes = (double) page.length * passes / best;
+        System.out.printf("%-12s %6.2f GB/s (%d)%n", name, gigabytes, result);
+    }
+
+    /**
+     * Generates a recipe page with mostly text between tags, like the step and
+     * comment sections of a real one.
+     *
+     * @return the page as UTF-8 bytes
+     */
+    private static byte[] samplePage() {
+        StringBuilder html = new StringBuilder("<html><head><title>레시피</title></head><body>");
+        for (int i = 0; i < 500; i++) {
+            html.append("<div class=\"step_list_txt_cont\">냄비에 물을 붓고 김치와 돼지고기를 넣어 중불에서 ")
+                    .append(i).append("분 동안 끓여 주세요. Stir occasionally and season to taste.</div>")
+                    .append("<a href=\"/recipe/").append(i).append("\">next</a>\n");
+        }
+        return html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+package webScraper;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Assigns hosts to workers by consistent hashing. Each worker is placed on the
+ * ring at several virtual points, and a host belongs to the worker at the first
+ * point at or after the hash of the host. Adding or removing a worker only moves
+ * the hosts next to its points.
+ */
+public class ConsistentHashRing {
+    /** The number of ring points per worker, which evens out the partitions. */
+    public static final int VIRTUAL_NODES = 64;
+
+    private final TreeMap<Long, Integer> ring;
+    private final int workers;
+
+    /**
+     * Creates a ring for the workers numbered {@code 0} to {@code workers - 1}.
+     *
+     * @param workers the number of workers
+     */
+    public ConsistentHashRing(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is required: " + workers);
+        }
+
+        this.ring = new TreeMap<>();
+        this.workers = workers;
+
+        for (int worker = 0; worker < workers; worker++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                ring.put(hash("worker-" + worker + "#" + node), worker);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of workers on the ring.
+     *
+     * @return the number of workers
+     */
+    public int size() {
+        return workers;
+    }
+
+    /**
+     * Returns the worker that owns the host. Hosts are compared
+     * case-insensitively, and a missing host belongs to worker 0.
+     *
+     * @param host the host to look up
+     * @return the owning worker
+     */
+    public int owner(String host) {
+        if (host == null || workers == 1) {
+            return 0;
+        }
+
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(host));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    /**
+     * Hashes the text case-insensitively with 64-bit FNV-1a followed by a
+     * finalizer that spreads similar inputs across the whole ring.
+     *
+     * @param text the text to hash
+     * @return the hash value
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= Character.toLowerCase(text.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
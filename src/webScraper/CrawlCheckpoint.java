@@ -0,0 +1,232 @@
+package webScraper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Periodically saves the state of a crawl to a local directory so that a crawl
+ * can be resumed after the JVM stops. The crawl thread only hands over what
+ * changed since the previous checkpoint; the visited set and index are
+ * accumulated, serialized and written on a background thread, and the finished
+ * file is moved into place with an atomic rename so a crash mid-write never
+ * leaves a corrupt checkpoint behind.
+ */
+public class CrawlCheckpoint {
+    /** The name of the latest complete checkpoint within the directory. */
+    public static final String FILE_NAME = "checkpoint.bin";
+
+    /**
+     * A copy of everything needed to continue a crawl.
+     *
+     * @param frontier     the URIs still waiting to be crawled, next one first
+     * @param visited      the URIs already taken from the frontier
+     * @param pagesCrawled the number of pages indexed so far
+     * @param domainUsage  the pages and bytes used by each domain, by host
+     * @param index        the index built so far
+     */
+    public record State(List<CrawlFrontier.Task> frontier, Set<URI> visited, int pagesCrawled,
+            Map<String, long[]> domainUsage, Map<String, InvertedIndex.Entry> index) implements Serializable {
+    }
+
+    /**
+     * The progress of a crawl since the previous update. The frontier and domain
+     * usage are small and given whole; the visited URIs and index entries only
+     * grow, so only the ones added since the previous update are given.
+     *
+     * @param frontier     the URIs still waiting to be crawled, next one first
+     * @param running      the URIs being crawled when the update was taken
+     * @param visited      the URIs finished since the previous update
+     * @param pagesCrawled the number of pages indexed so far
+     * @param domainUsage  the pages and bytes used by each domain, by host
+     * @param index        the index entries added since the previous update
+     */
+    public record Update(List<CrawlFrontier.Task> frontier, List<CrawlFrontier.Task> running, List<URI> visited,
+            int pagesCrawled,
+            Map<String, long[]> domainUsage, Map<String, InvertedIndex.Entry> index) {
+    }
+
+    private final Path directory;
+    private final int interval;
+    private final ExecutorService writer;
+    private final AtomicInteger pending;
+
+    /** Every URI finished so far, only touched by the writer thread. */
+    private final Set<URI> visited;
+
+    /** Every index entry saved so far, only touched by the writer thread. */
+    private final Map<String, InvertedIndex.Entry> index;
+
+    /**
+     * Creates a checkpoint writer.
+     *
+     * @param directory the directory to write checkpoints into
+     * @param interval  the number of pages between checkpoints
+     */
+    public CrawlCheckpoint(Path directory, int interval) {
+        this.directory = directory;
+        this.interval = Math.max(1, interval);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pending = new AtomicInteger();
+        this.visited = new HashSet<>();
+        this.index = new HashMap<>();
+    }
+
+    /**
+     * Starts from a state read back from a checkpoint, so that later updates
+     * are added to it. Must be called before the first update.
+     *
+     * @param state the restored state
+     */
+    public void resume(State state) {
+        writer.execute(() -> {
+            visited.addAll(state.visited());
+            index.putAll(state.index());
+        });
+    }
+
+    /**
+     * Determines whether a checkpoint is due after the given number of pages.
+     *
+     * @param pagesCrawled the number of pages indexed so far
+     * @return {@code true} if a checkpoint should be taken
+     */
+    public boolean isDue(int pagesCrawled) {
+        return pagesCrawled > 0 && pagesCrawled % interval == 0;
+    }
+
+    /**
+     * Adds the update to the saved state and writes it in the background. Every
+     * update is kept, but if newer ones are already waiting, the file is only
+     * written for the newest.
+     *
+     * @param update the progress since the previous update
+     */
+    public void save(Update update) {
+        pending.incrementAndGet();
+        writer.execute(() -> {
+            visited.addAll(update.visited());
+            index.putAll(update.index());
+
+            if (pending.decrementAndGet() > 0) {
+                return;
+            }
+
+            try {
+                write(state(update), directory);
+            } catch (IOException e) {
+                System.err.println("Unable to write checkpoint to: " + directory);
+            }
+        });
+    }
+
+    /**
+     * Saves the final update, then waits for it to be written and stops the
+     * background writer.
+     *
+     * @param update the progress since the previous update
+     */
+    public void finish(Update update) {
+        save(update);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Builds the state to write from the saved visited set and index and the
+     * newest frontier. Pages still being crawled when the update was taken are
+     * in the frontier, so they are saved as waiting rather than visited and are
+     * crawled again after a restore.
+     *
+     * @param update the newest update
+     * @return the state to write
+     */
+    private State state(Update update) {
+        Set<URI> saved = visited;
+        for (CrawlFrontier.Task task : update.running()) {
+            if (visited.contains(task.uri())) {
+                saved = new HashSet<>(visited);
+                for (CrawlFrontier.Task running : update.running()) {
+                    saved.remove(running.uri());
+                }
+                break;
+            }
+        }
+
+        return new State(update.frontier(), saved, update.pagesCrawled(), update.domainUsage(), index);
+    }
+
+    /**
+     * Writes the state to a temporary file and atomically renames it to
+     * {@link #FILE_NAME}.
+     *
+     * @param state     the state to write
+     * @param directory the directory to write into
+     * @throws IOException if an IO error occurs
+     */
+    public static void write(State state, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "checkpoint", ".tmp");
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeObject(state);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, directory.resolve(FILE_NAME), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the latest checkpoint from the directory.
+     *
+     * @param directory the directory to read from
+     * @return the saved state, or {@code null} if there is no checkpoint
+     * @throws IOException if the checkpoint exists but cannot be read
+     */
+    public static State read(Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        State state;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            state = (State) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unrecognized checkpoint: " + file, e);
+        }
+
+        // checkpoints written before index entries were typed hold maps instead
+        if (!InvertedIndex.isValid(state.index())) {
+            throw new IOException("Unrecognized checkpoint: " + file);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,358 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+
+/**
+ * Tracks the global page budget and detects when a distributed crawl has
+ * finished. Workers connect over TCP and send one request per line:
+ *
+ * <pre>
+ * ACQUIRE &lt;worker&gt; &lt;pages&gt;               -&gt; GRANT &lt;pages&gt;
+ * RELEASE &lt;pages&gt;                        -&gt; OK
+ * STATUS &lt;worker&gt; &lt;idle&gt; &lt;sent&gt; &lt;received&gt; -&gt; CONTINUE | DONE
+ * </pre>
+ *
+ * The crawl is done once the budget is used up and every worker is idle, or
+ * once every worker is idle and all forwarded links have been received. The
+ * second condition must hold with the same link counts over two rounds of
+ * reports, so a batch still in flight between two workers is never missed.
+ */
+public class CrawlCoordinator {
+    private final int totalPages;
+    private final int workers;
+
+    private int granted;
+    private boolean done;
+
+    private final boolean[] reported;
+    private final boolean[] idle;
+    private final long[] sent;
+    private final long[] received;
+
+    /** Link counts when all workers were last seen idle, or -1 if not. */
+    private long candidateSent;
+    private long candidateReceived;
+    private final boolean[] reportedSinceCandidate;
+
+    /** Workers that have been told the crawl is done. */
+    private final boolean[] notified;
+    private ServerSocket server;
+
+    /**
+     * Creates a coordinator for a crawl.
+     *
+     * @param totalPages the total number of pages to crawl across all workers
+     * @param workers    the number of workers taking part
+     */
+    public CrawlCoordinator(int totalPages, int workers) {
+        this.totalPages = totalPages;
+        this.workers = workers;
+        this.granted = 0;
+        this.done = false;
+        this.reported = new boolean[workers];
+        this.idle = new boolean[workers];
+        this.sent = new long[workers];
+        this.received = new long[workers];
+        this.reportedSinceCandidate = new boolean[workers];
+        this.notified = new boolean[workers];
+        this.candidateSent = -1;
+        this.candidateReceived = -1;
+    }
+
+    /**
+     * Grants up to the requested number of pages from the global budget. A
+     * worker that is granted pages is no longer idle until it reports again.
+     *
+     * @param worker the worker requesting pages
+     * @param pages  the number of pages requested
+     * @return the number of pages granted, 0 once the budget is used up
+     */
+    public synchronized int acquire(int worker, int pages) {
+        int grant = Math.max(0, Math.min(pages, totalPages - granted));
+        granted += grant;
+
+        if (grant > 0) {
+            idle[worker] = false;
+            candidateSent = -1;
+        }
+
+        return grant;
+    }
+
+    /**
+     * Returns granted pages that were not used.
+     *
+     * @param pages the number of unused pages
+     */
+    public synchronized void release(int pages) {
+        granted = Math.max(0, granted - pages);
+    }
+
+    /**
+     * Records the status of a worker and decides whether the crawl is done.
+     *
+     * @param worker        the worker reporting
+     * @param isIdle        whether the worker has nothing left to crawl
+     * @param linksSent     the number of links the worker has forwarded so far
+     * @param linksReceived the number of links the worker has received so far
+     * @return {@code true} if the crawl is done
+     */
+    public synchronized boolean status(int worker, boolean isIdle, long linksSent, long linksReceived) {
+        reported[worker] = true;
+        idle[worker] = isIdle;
+        sent[worker] = linksSent;
+        received[worker] = linksReceived;
+
+        if (done) {
+            return true;
+        }
+
+        boolean allIdle = true;
+        for (int i = 0; i < workers; i++) {
+            allIdle &= reported[i] && idle[i];
+        }
+
+        if (!allIdle) {
+            candidateSent = -1;
+            return false;
+        }
+
+        if (granted >= totalPages) {
+            done = true;
+            return true;
+        }
+
+        long totalSent = Arrays.stream(sent).sum();
+        long totalReceived = Arrays.stream(received).sum();
+
+        if (totalSent != totalReceived) {
+            candidateSent = -1;
+            return false;
+        }
+
+        if (candidateSent != totalSent || candidateReceived != totalReceived) {
+            candidateSent = totalSent;
+            candidateReceived = totalReceived;
+            Arrays.fill(reportedSinceCandidate, false);
+            reportedSinceCandidate[worker] = true;
+            return false;
+        }
+
+        reportedSinceCandidate[worker] = true;
+        for (boolean since : reportedSinceCandidate) {
+            if (!since) {
+                return false;
+            }
+        }
+
+        done = true;
+        return true;
+    }
+
+    /**
+     * Accepts worker connections until every worker has been told the crawl is
+     * done.
+     *
+     * @param port the port to listen on
+     * @throws IOException if unable to listen on the port
+     */
+    public void serve(int port) throws IOException {
+        ServerSocket listener = new ServerSocket(port);
+        synchronized (this) {
+            server = listener;
+        }
+
+        System.out.println("Coordinating " + workers + " workers on port " + port);
+
+        try (listener) {
+            while (true) {
+                Socket socket = listener.accept();
+                Thread handler = new Thread(() -> handle(socket), "coordinator-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (SocketException e) {
+            if (!isDone()) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Determines whether the crawl is done.
+     *
+     * @return {@code true} if the crawl is done
+     */
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Remembers that the worker was told the crawl is done, and stops accepting
+     * connections once every worker has been told.
+     *
+     * @param worker the worker that was told
+     */
+    private synchronized void notified(int worker) {
+        notified[worker] = true;
+
+        for (boolean told : notified) {
+            if (!told) {
+                return;
+            }
+        }
+
+        try {
+            server.close();
+        } catch (IOException e) {
+            System.err.println("Unable to stop coordinator: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Answers requests from one worker connection until it closes.
+     *
+     * @param socket the worker connection
+     */
+    private void handle(Socket socket) {
+        try (socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true, UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(" ");
+                switch (parts[0]) {
+                    case "ACQUIRE" -> out.println(
+                            "GRANT " + acquire(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                    case "RELEASE" -> {
+                        release(Integer.parseInt(parts[1]));
+                        out.println("OK");
+                    }
+                    case "STATUS" -> {
+                        int worker = Integer.parseInt(parts[1]);
+                        boolean finished = status(worker, parts[2].equals("1"), Long.parseLong(parts[3]),
+                                Long.parseLong(parts[4]));
+                        out.println(finished ? "DONE" : "CONTINUE");
+                        if (finished) {
+                            notified(worker);
+                        }
+                    }
+                    default -> out.println("ERROR " + line);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Worker connection failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The worker side of the coordinator protocol over one connection.
+     */
+    public static class Client implements Closeable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        /**
+         * Connects to a coordinator.
+         *
+         * @param host the coordinator host
+         * @param port the coordinator port
+         * @throws IOException if unable to connect
+         */
+        public Client(String host, int port) throws IOException {
+            this.socket = new Socket(host, port);
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            this.out = new PrintWriter(socket.getOutputStream(), true, UTF_8);
+        }
+
+        /**
+         * Requests pages from the global budget.
+         *
+         * @param worker this worker
+         * @param pages  the number of pages requested
+         * @return the number of pages granted
+         * @throws IOException if the coordinator cannot be reached
+         */
+        public int acquire(int worker, int pages) throws IOException {
+            return Integer.parseInt(request("ACQUIRE " + worker + " " + pages).substring("GRANT ".length()));
+        }
+
+        /**
+         * Returns unused pages to the global budget.
+         *
+         * @param pages the number of unused pages
+         * @throws IOException if the coordinator cannot be reached
+         */
+        public void release(int pages) throws IOException {
+            if (pages > 0) {
+                request("RELEASE " + pages);
+            }
+        }
+
+        /**
+         * Reports the status of this worker.
+         *
+         * @param worker   this worker
+         * @param idle     whether this worker has nothing left to crawl
+         * @param sent     the number of links forwarded so far
+         * @param received the number of links received so far
+         * @return {@code true} if the crawl is done
+         * @throws IOException if the coordinator cannot be reached
+         */
+        public boolean status(int worker, boolean idle, long sent, long received) throws IOException {
+            return request("STATUS " + worker + " " + (idle ? 1 : 0) + " " + sent + " " + received).equals("DONE");
+        }
+
+        /**
+         * Sends one request line and reads the response line.
+         *
+         * @param request the request to send
+         * @return the response
+         * @throws IOException if the connection is closed
+         */
+        private String request(String request) throws IOException {
+            out.println(request);
+            String response = in.readLine();
+            if (response == null) {
+                throw new IOException("Coordinator closed the connection");
+            }
+            return response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: java webScraper.CrawlCoordinator <port> <totalPages> <workers>");
+            System.exit(1);
+        }
+
+        try {
+            int port = Integer.parseInt(args[0]);
+            int totalPages = Integer.parseInt(args[1]);
+            int workers = Integer.parseInt(args[2]);
+
+            new CrawlCoordinator(totalPages, workers).serve(port);
+            System.out.println("Distributed crawl finished");
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Unable to run coordinator: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package webScraper;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Holds the URIs waiting to be crawled, one queue per domain, and hands them
+ * to crawl workers so that every domain gets its weighted share of the workers.
+ * Each domain can have its own page budget, byte budget and maximum link depth.
+ *
+ * <p>
+ * Domains are served by weighted fair queuing: each dispatch advances the
+ * domain's virtual time by one over its weight, and the domain with the lowest
+ * virtual time goes next. A domain may also hold at most its weighted share of
+ * the worker slots at once, so one large site cannot take every worker while
+ * smaller sites wait. Within a domain, URIs are crawled depth-first, or by
+ * priority if one is set. A URI already waiting is not added again.
+ *
+ * <p>
+ * When a crawl has a deadline, its urgency rises from 0 to 1 as the deadline
+ * nears. Past {@link #URGENT}, the domain expected to index the most pages
+ * per second of work goes next instead, judged by how often its pages were
+ * indexed and how long each took, so the remaining time goes to high-value,
+ * fast hosts. Worker shares and budgets still apply.
+ *
+ * <p>
+ * All methods synchronize on the frontier, and {@link #add(URI, int)} and
+ * {@link #done(Task, boolean, long, long)} notify waiting workers.
+ */
+public class CrawlFrontier {
+    /** The urgency past which domains are chosen by throughput instead of fairness. */
+    public static final double URGENT = 0.5;
+
+    /** The weight of the newest sample in the average time per page. */
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    /** The number of tasks at the front of a domain's queue compared by priority. */
+    public static final int PRIORITY_WINDOW = 256;
+
+    /**
+     * A URI waiting to be crawled.
+     *
+     * @param uri   the URI to crawl
+     * @param depth the number of links followed from a seed to reach it
+     */
+    public record Task(URI uri, int depth) implements Serializable {
+    }
+
+    /**
+     * The limits that apply to a domain.
+     *
+     * @param weight   the share of workers relative to other domains
+     * @param maxPages the maximum number of pages to index
+     * @param maxBytes the maximum number of characters of HTML to fetch
+     * @param maxDepth the maximum link depth from a seed
+     */
+    public record Limits(double weight, int maxPages, long maxBytes, int maxDepth) {
+        /** No limits and a weight of one. */
+        public static final Limits NONE = new Limits(1, Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The queue and usage of one domain.
+     */
+    private static class Domain {
+        private final Limits limits;
+        private final Deque<Task> pending;
+        private int inFlight;
+        private int pages;
+        private long bytes;
+        private double virtualTime;
+        private int finished;
+        private double latency;
+
+        /**
+         * Creates a domain.
+         *
+         * @param limits      the limits of the domain
+         * @param virtualTime the virtual time to start at
+         */
+        private Domain(Limits limits, double virtualTime) {
+            this.limits = limits;
+            this.pending = new ArrayDeque<>();
+            this.virtualTime = virtualTime;
+        }
+
+        /**
+         * Determines whether the domain has used up its budget, counting pages
+         * being crawled right now.
+         *
+         * @return {@code true} if no more pages may be crawled
+         */
+        private boolean isExhausted() {
+            return pages + inFlight >= limits.maxPages() || bytes >= limits.maxBytes();
+        }
+
+        /**
+         * Estimates the pages indexed per second of work. Domains not yet timed
+         * are rated highest, so each is tried at least once.
+         *
+         * @return the estimated pages per second
+         */
+        private double throughput() {
+            if (latency == 0) {
+                return Double.MAX_VALUE;
+            }
+            return (pages + 1.0) / (finished + 1.0) / latency * 1e9;
+        }
+    }
+
+    private final Map<String, Domain> domains;
+    private final Map<String, Limits> domainLimits;
+    private Limits defaultLimits;
+
+    /** The URIs waiting in any domain's queue. */
+    private final Set<URI> queued;
+
+    /** The tasks taken but not yet done, kept as a list so duplicates count twice. */
+    private final List<Task> running;
+    private int workers;
+    private int size;
+    private double urgency;
+    private ToDoubleFunction<URI> priority;
+
+    /**
+     * Creates an empty frontier without limits.
+     */
+    public CrawlFrontier() {
+        this.domains = new HashMap<>();
+        this.domainLimits = new HashMap<>();
+        this.defaultLimits = Limits.NONE;
+        this.queued = new HashSet<>();
+        this.running = new ArrayList<>();
+        this.workers = 1;
+    }
+
+    /**
+     * Sets the limits for domains without their own.
+     *
+     * @param limits the default limits
+     */
+    public synchronized void setDefaultLimits(Limits limits) {
+        this.defaultLimits = limits;
+    }
+
+    /**
+     * Sets the limits for one domain.
+     *
+     * @param host   the host of the domain
+     * @param limits the limits of the domain
+     */
+    public synchronized void setLimits(String host, Limits limits) {
+        domainLimits.put(host.toLowerCase(Locale.ROOT), limits);
+    }
+
+    /**
+     * Sets the limits for several domains.
+     *
+     * @param limits the limits, by host
+     */
+    public synchronized void setLimits(Map<String, Limits> limits) {
+        for (Map.Entry<String, Limits> entry : limits.entrySet()) {
+            setLimits(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Sets the number of workers to share between domains.
+     *
+     * @param workers the number of crawl workers
+     */
+    public synchronized void setWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Sets how close the crawl is to its deadline.
+     *
+     * @param urgency the elapsed fraction of the time limit, from 0 to 1
+     */
+    public synchronized void setUrgency(double urgency) {
+        this.urgency = urgency;
+    }
+
+    /**
+     * Crawls the URI with the highest priority among the first
+     * {@link #PRIORITY_WINDOW} of its domain's queue instead of the first one.
+     * Ties go to the one nearest the front. Only the window is compared so that
+     * polling stays cheap for large queues, and URIs added to the back of the
+     * queue stay behind the rest.
+     *
+     * @param priority the priority of each URI, such as its importance in the
+     *                 link graph, or {@code null} to crawl depth-first
+     */
+    public synchronized void setPriority(ToDoubleFunction<URI> priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Adds a URI to the front of its domain's queue unless it is already waiting
+     * or deeper than the domain allows.
+     *
+     * @param uri   the URI to add
+     * @param depth its link depth from a seed
+     * @return {@code true} if the URI was added
+     */
+    public synchronized boolean add(URI uri, int depth) {
+        Domain domain = domain(uri);
+        if (depth > domain.limits.maxDepth() || !queued.add(uri)) {
+            return false;
+        }
+
+        domain.pending.push(new Task(uri, depth));
+        size++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Adds a URI to the back of its domain's queue, so it is crawled after every
+     * other URI of the domain, unless it is already waiting or deeper than the
+     * domain allows.
+     *
+     * @param uri   the URI to add
+     * @param depth its link depth from a seed
+     * @return {@code true} if the URI was added
+     */
+    public synchronized boolean addLast(URI uri, int depth) {
+        Domain domain = domain(uri);
+        if (depth > domain.limits.maxDepth() || !queued.add(uri)) {
+            return false;
+        }
+
+        domain.pending.addLast(new Task(uri, depth));
+        size++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Takes the next URI to crawl from the domain with the lowest virtual time,
+     * or the highest throughput once urgent, that is within its budget and its
+     * share of workers. The caller must pass the task to
+     * {@link #done(Task, boolean, long, long)} when finished, or to
+     * {@link #skip(Task)} if it is not crawled.
+     *
+     * @return the next task, or {@code null} if no domain can be served now
+     */
+    public synchronized Task poll() {
+        double activeWeight = 0;
+        for (Domain domain : domains.values()) {
+            if (!domain.pending.isEmpty() || domain.inFlight > 0) {
+                activeWeight += domain.limits.weight();
+            }
+        }
+
+        Domain best = null;
+        for (Domain domain : domains.values()) {
+            if (domain.pending.isEmpty() || domain.isExhausted()) {
+                continue;
+            }
+
+            int share = (int) Math.max(1, Math.ceil(workers * domain.limits.weight() / activeWeight));
+            if (domain.inFlight >= share) {
+                continue;
+            }
+
+            if (best == null || (urgency >= URGENT ? domain.throughput() > best.throughput()
+                    : domain.virtualTime < best.virtualTime)) {
+                best = domain;
+            }
+        }
+
+        if (best == null) {
+            return null;
+        }
+
+        best.virtualTime += 1 / best.limits.weight();
+        best.inFlight++;
+        size--;
+
+        Task task = priority == null ? best.pending.pop() : takeHighest(best.pending);
+        queued.remove(task.uri());
+        running.add(task);
+        return task;
+    }
+
+    /**
+     * Removes the task with the highest priority from the front of a queue.
+     *
+     * @param pending the non-empty queue
+     * @return the task with the highest priority in the window
+     */
+    private Task takeHighest(Deque<Task> pending) {
+        Task best = null;
+        double bestPriority = Double.NEGATIVE_INFINITY;
+        int seen = 0;
+
+        for (Task task : pending) {
+            double value = priority.applyAsDouble(task.uri());
+            if (value > bestPriority) {
+                best = task;
+                bestPriority = value;
+            }
+            if (++seen == PRIORITY_WINDOW) {
+                break;
+            }
+        }
+
+        pending.removeFirstOccurrence(best);
+        return best;
+    }
+
+    /**
+     * Records that a task taken with {@link #poll()} is finished.
+     *
+     * @param task    the finished task
+     * @param indexed whether a page was indexed
+     * @param bytes   the number of characters of HTML fetched
+     * @param nanos   the time spent on the task, in nanoseconds
+     */
+    public synchronized void done(Task task, boolean indexed, long bytes, long nanos) {
+        Domain domain = domain(task.uri());
+        domain.inFlight--;
+        domain.bytes += bytes;
+        domain.finished++;
+        domain.latency = domain.latency == 0 ? Math.max(1, nanos)
+                : domain.latency + LATENCY_SMOOTHING * (nanos - domain.latency);
+        if (indexed) {
+            domain.pages++;
+        }
+        running.remove(task);
+        notifyAll();
+    }
+
+    /**
+     * Returns a task taken with {@link #poll()} that is not crawled after all,
+     * such as one whose URI was already visited. Nothing is counted against its
+     * domain, and the domain keeps its turn.
+     *
+     * @param task the skipped task
+     */
+    public synchronized void skip(Task task) {
+        Domain domain = domain(task.uri());
+        domain.inFlight--;
+        domain.virtualTime -= 1 / domain.limits.weight();
+        running.remove(task);
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of tasks taken but not yet done.
+     *
+     * @return the number of tasks in flight
+     */
+    public synchronized int inFlight() {
+        return running.size();
+    }
+
+    /**
+     * Copies the tasks taken but not yet done.
+     *
+     * @return the tasks in flight
+     */
+    public synchronized List<Task> running() {
+        return new ArrayList<>(running);
+    }
+
+    /**
+     * Determines whether no URIs are waiting.
+     *
+     * @return {@code true} if no URIs are waiting
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copies the tasks in flight followed by the waiting tasks, next task of each
+     * domain first, so that a restored crawl retries the pages that were being
+     * crawled.
+     *
+     * @return the tasks in flight and waiting
+     */
+    public synchronized List<Task> snapshot() {
+        List<Task> tasks = new ArrayList<>(running);
+        for (Domain domain : domains.values()) {
+            tasks.addAll(domain.pending);
+        }
+        return tasks;
+    }
+
+    /**
+     * Copies the pages and bytes used by each domain.
+     *
+     * @return the pages and bytes used, by host
+     */
+    public synchronized Map<String, long[]> usage() {
+        Map<String, long[]> usage = new HashMap<>();
+        for (Map.Entry<String, Domain> entry : domains.entrySet()) {
+            usage.put(entry.getKey(), new long[] { entry.getValue().pages, entry.getValue().bytes });
+        }
+        return usage;
+    }
+
+    /**
+     * Restores waiting tasks and domain usage from a snapshot.
+     *
+     * @param tasks the waiting tasks, next task of each domain first
+     * @param usage the pages and bytes used, by host
+     */
+    public synchronized void restore(List<Task> tasks, Map<String, long[]> usage) {
+        for (Map.Entry<String, long[]> entry : usage.entrySet()) {
+            Domain domain = domain(entry.getKey());
+            domain.pages = (int) entry.getValue()[0];
+            domain.bytes = entry.getValue()[1];
+        }
+
+        for (Task task : tasks) {
+            if (queued.add(task.uri())) {
+                domain(task.uri()).pending.addLast(task);
+                size++;
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Reads per-domain limits from a file with one domain per line, such as:
+     *
+     * <pre>
+     * www.10000recipe.com weight=2 pages=5000 bytes=500000000 depth=8
+     * </pre>
+     *
+     * Settings that are left out use the given default limits.
+     *
+     * @param path     the file to read
+     * @param defaults the limits to use for settings that are left out
+     * @return the limits, by host
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line cannot be parsed
+     */
+    public static Map<String, Limits> readLimits(Path path, Limits defaults) throws IOException {
+        Map<String, Limits> limits = new HashMap<>();
+
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String[] parts = line.strip().split("\\s+");
+            if (parts[0].isEmpty() || parts[0].startsWith("#")) {
+                continue;
+            }
+
+            double weight = defaults.weight();
+            int maxPages = defaults.maxPages();
+            long maxBytes = defaults.maxBytes();
+            int maxDepth = defaults.maxDepth();
+
+            for (int i = 1; i < parts.length; i++) {
+                String[] setting = parts[i].split("=", 2);
+                if (setting.length != 2) {
+                    throw new IllegalArgumentException("Invalid domain setting: " + line);
+                }
+
+                switch (setting[0]) {
+                    case "weight" -> weight = Double.parseDouble(setting[1]);
+                    case "pages" -> maxPages = Integer.parseInt(setting[1]);
+                    case "bytes" -> maxBytes = Long.parseLong(setting[1]);
+                    case "depth" -> maxDepth = Integer.parseInt(setting[1]);
+                    default -> throw new IllegalArgumentException("Unknown domain setting: " + line);
+                }
+            }
+
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight must be positive: " + line);
+            }
+
+            limits.put(parts[0].toLowerCase(Locale.ROOT), new Limits(weight, maxPages, maxBytes, maxDepth));
+        }
+
+        return limits;
+    }
+
+    /**
+     * Returns the domain of a URI, creating it if needed.
+     *
+     * @param uri the URI
+     * @return the domain
+     */
+    private Domain domain(URI uri) {
+        return domain(host(uri));
+    }
+
+    /**
+     * Returns the domain for a host, creating it if needed. A new domain starts
+     * at the lowest virtual time of the active domains, so it neither waits
+     * behind them nor jumps ahead of them for long.
+     *
+     * @param host the lowercase host
+     * @return the domain
+     */
+    private Domain domain(String host) {
+        Domain domain = domains.get(host);
+        if (domain == null) {
+            double start = Double.MAX_VALUE;
+            for (Domain other : domains.values()) {
+                if (!other.pending.isEmpty() || other.inFlight > 0) {
+                    start = Math.min(start, other.virtualTime);
+                }
+            }
+
+            domain = new Domain(domainLimits.getOrDefault(host, defaultLimits), start == Double.MAX_VALUE ? 0 : start);
+            domains.put(host, domain);
+        }
+        return domain;
+    }
+
+    /**
+     * Returns the lowercase host of a URI, or an empty string if it has none.
+     *
+     * @param uri the URI
+     * @return the host
+     */
+    private static String host(URI uri) {
+        String host = uri.getHost();
+        return host == null ? "" : host.toLowerCase(Locale.ROOT);
+    }
+}
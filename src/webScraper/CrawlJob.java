@@ -0,0 +1,180 @@
+package webScraper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A crawl submitted to a {@link CrawlService}, used to follow its progress,
+ * cancel it or wait for its index.
+ */
+public class CrawlJob {
+    /** The state of a job. */
+    public enum Status {
+        /** The job is crawling. */
+        RUNNING,
+        /** The job crawled its budget or ran out of links. */
+        DONE,
+        /** The job was cancelled before it finished. */
+        CANCELLED,
+        /** The job stopped because of an error. */
+        FAILED
+    }
+
+    /**
+     * What to crawl.
+     *
+     * @param seeds      the URIs to start from
+     * @param scope      the rules that decide which links are followed
+     * @param totalPages the total number of pages to crawl
+     * @param threads    the number of pages to fetch at the same time
+     * @param output     the file to write the index to, or {@code null}
+     */
+    public record Spec(List<URI> seeds, LinkFilter scope, int totalPages, int threads, Path output) {
+    }
+
+    private final int id;
+    private final Spec spec;
+    private final InvertedIndex index;
+    private final WebCrawler crawler;
+    private volatile Status status;
+    private Future<?> future;
+
+    /**
+     * Creates a job. The job does not start until {@link #start(ExecutorService)}
+     * is called.
+     *
+     * @param id      the number of the job within its service
+     * @param spec    what to crawl
+     * @param fetcher the fetcher shared by every job of the service
+     */
+    CrawlJob(int id, Spec spec, SharedFetcher fetcher) {
+        this.id = id;
+        this.spec = spec;
+        this.index = new InvertedIndex();
+        this.crawler = new WebCrawler(index, spec.totalPages(), new UrlCanonicalizer());
+        this.status = Status.RUNNING;
+
+        crawler.setThreads(spec.threads());
+        crawler.setFetcher(fetcher);
+        crawler.setTrapDetector(new CrawlTrapDetector(crawler.getMetrics()));
+        if (spec.scope() != null) {
+            crawler.setLinkFilter(spec.scope());
+        }
+        for (int i = spec.seeds().size() - 1; i >= 0; i--) {
+            crawler.addSeed(spec.seeds().get(i));
+        }
+    }
+
+    /**
+     * Starts the crawl. Its workers run on the same executor.
+     *
+     * @param executor the executor shared by every job of the service
+     */
+    synchronized void start(ExecutorService executor) {
+        crawler.setExecutor(executor);
+        future = executor.submit(this::run);
+    }
+
+    /**
+     * Crawls and writes the index, recording how the job ended.
+     */
+    private void run() {
+        try {
+            crawler.crawl();
+            if (spec.output() != null) {
+                JsonWriter.writeObject(index.getHtmlContentMap(), spec.output());
+            }
+            status = status == Status.CANCELLED ? Status.CANCELLED : Status.DONE;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Crawl job " + id + " failed: " + e.getMessage());
+            status = Status.FAILED;
+        }
+    }
+
+    /**
+     * Returns the number of the job within its service.
+     *
+     * @return the job number
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns what the job crawls.
+     *
+     * @return the job's spec
+     */
+    public Spec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Returns the state of the job.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of pages indexed so far.
+     *
+     * @return the number of pages indexed
+     */
+    public int getPagesCrawled() {
+        return crawler.getPagesCrawled();
+    }
+
+    /**
+     * Returns the metrics counted by the job's crawler.
+     *
+     * @return the crawl metrics
+     */
+    public CrawlMetrics getMetrics() {
+        return crawler.getMetrics();
+    }
+
+    /**
+     * Stops the job. Pages being fetched are finished, and the index built so far
+     * is still written.
+     */
+    public void cancel() {
+        if (status == Status.RUNNING) {
+            status = Status.CANCELLED;
+        }
+        crawler.cancel();
+    }
+
+    /**
+     * Waits for the job to end.
+     *
+     * @return the index built by the job
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public InvertedIndex await() throws InterruptedException {
+        Future<?> started;
+        synchronized (this) {
+            started = future;
+        }
+
+        try {
+            started.get();
+        } catch (ExecutionException e) {
+            System.err.println("Crawl job " + id + " failed: " + e.getCause());
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "Job " + id + " " + status + ": " + getPagesCrawled() + "/" + spec.totalPages() + " pages from "
+                + spec.seeds();
+    }
+}
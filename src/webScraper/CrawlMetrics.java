@@ -0,0 +1,70 @@
+package webScraper;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters describing a crawl, such as pages indexed and links rejected
+ * as crawler traps. Counters are created on first use and can be updated from
+ * several crawl workers at once.
+ */
+public class CrawlMetrics {
+    private final ConcurrentHashMap<String, LongAdder> counters;
+
+    /**
+     * Creates metrics with no counters.
+     */
+    public CrawlMetrics() {
+        this.counters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds one to a counter.
+     *
+     * @param name the name of the counter
+     */
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * Adds an amount to a counter.
+     *
+     * @param name   the name of the counter
+     * @param amount the amount to add
+     */
+    public void add(String name, long amount) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+    }
+
+    /**
+     * Returns the value of a counter.
+     *
+     * @param name the name of the counter
+     * @return the value, or 0 if the counter was never updated
+     */
+    public long get(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Copies the current value of every counter.
+     *
+     * @return the values, sorted by name
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "Crawl metrics: " + snapshot();
+    }
+}
@@ -0,0 +1,160 @@
+package webScraper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs several crawls at once in one long-running process. Every job gets its
+ * own frontier and index, but all jobs fetch through one {@link SharedFetcher},
+ * so together they stay within one connection cap, share host lookups and
+ * respect one politeness delay per host. Job and worker threads come from one
+ * shared pool.
+ */
+public class CrawlService implements Closeable {
+    /** The default maximum number of connections open at once. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+
+    /** The default minimum time between requests to one host, in milliseconds. */
+    public static final long DEFAULT_DELAY_MILLIS = 250;
+
+    private final SharedFetcher fetcher;
+    private final ExecutorService executor;
+    private final AtomicInteger nextId;
+    private final Map<Integer, CrawlJob> jobs;
+
+    /**
+     * Creates a service with the default limits.
+     */
+    public CrawlService() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_DELAY_MILLIS);
+    }
+
+    /**
+     * Creates a service.
+     *
+     * @param maxConnections the maximum number of connections open at once
+     * @param delayMillis    the minimum time between requests to one host, in
+     *                       milliseconds
+     */
+    public CrawlService(int maxConnections, long delayMillis) {
+        this.fetcher = new SharedFetcher(maxConnections, delayMillis);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-service");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.nextId = new AtomicInteger(1);
+        this.jobs = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Starts a crawl.
+     *
+     * @param spec what to crawl
+     * @return the handle of the new job
+     */
+    public CrawlJob submit(CrawlJob.Spec spec) {
+        CrawlJob job = new CrawlJob(nextId.getAndIncrement(), spec, fetcher);
+        jobs.put(job.getId(), job);
+        job.start(executor);
+        return job;
+    }
+
+    /**
+     * Returns a job by its number.
+     *
+     * @param id the job number
+     * @return the job, or {@code null} if there is none
+     */
+    public CrawlJob getJob(int id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Returns every job submitted, running or not.
+     *
+     * @return the jobs, in the order submitted
+     */
+    public List<CrawlJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Cancels every running job and stops the shared threads.
+     */
+    @Override
+    public void close() {
+        for (CrawlJob job : jobs.values()) {
+            job.cancel();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Runs the crawls listed in a file, one per line, and reports their progress
+     * until all are done. Each line holds the seed, the total number of pages,
+     * the output file and optionally a file of link rules:
+     *
+     * <pre>
+     * https://www.10000recipe.com/recipe/6912345 500 korean.json rules.txt
+     * </pre>
+     *
+     * @param args the jobs file, and optionally the number of threads per job
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java webScraper.CrawlService <jobs file> [threads per job]");
+            System.exit(1);
+        }
+
+        try (CrawlService service = new CrawlService()) {
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+            for (String line : Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8)) {
+                String[] parts = line.strip().split("\\s+");
+                if (parts[0].isEmpty() || parts[0].startsWith("#")) {
+                    continue;
+                }
+                if (parts.length < 3) {
+                    throw new IllegalArgumentException("Expected <seed> <totalPages> <output> [rules]: " + line);
+                }
+
+                LinkFilter scope = parts.length > 3 ? LinkFilter.read(Path.of(parts[3])) : null;
+                service.submit(new CrawlJob.Spec(List.of(new URI(parts[0])), scope, Integer.parseInt(parts[1]),
+                        threads, Path.of(parts[2])));
+            }
+
+            while (service.getJobs().stream().anyMatch(job -> job.getStatus() == CrawlJob.Status.RUNNING)) {
+                for (CrawlJob job : service.getJobs()) {
+                    System.out.println(job);
+                }
+                Thread.sleep(1000);
+            }
+
+            for (CrawlJob job : service.getJobs()) {
+                job.await();
+                System.out.println(job);
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to read jobs from: " + args[0]);
+        } catch (URISyntaxException e) {
+            System.err.println("Invalid URI: " + e.getInput());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid job: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package webScraper;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recognizes crawler traps among discovered links, such as paths that keep
+ * growing, repeating path segments, session IDs in the URL and endless
+ * pagination. Links are checked as they are found, and every decision is
+ * counted in the crawl metrics.
+ *
+ * <p>
+ * Links are grouped into patterns by masking the digits in the path and the
+ * values in the query, so {@code /recipe/list?page=9999} has the pattern
+ * {@code /recipe/list?page=*}. A pattern is not judged by how many of its pages
+ * are crawled, since a site's own catalog, like {@code /recipe/#}, is its most
+ * crawled pattern, but by what its pages yield. A crawled page is productive if
+ * it had new content, or added a new link of another pattern, as a listing
+ * page adds recipes; pages past the end of a pagination or calendar are
+ * neither, and only lead to the next page of the same pattern. Once more pages
+ * of a pattern have been unproductive than the pattern limit, and more than
+ * have been productive, its links are deprioritized behind the rest of the
+ * domain, and past ten times the limit they are quarantined. A path that is
+ * too deep or repeats its segments quarantines its whole pattern, so the rest
+ * of the subtree is rejected without checking it again.
+ */
+public class CrawlTrapDetector {
+    /** What to do with a discovered link. */
+    public enum Verdict {
+        /** Crawl the link as usual. */
+        ACCEPT,
+        /** Crawl the link only after the other links of its domain. */
+        DEPRIORITIZE,
+        /** Do not crawl the link. */
+        QUARANTINE
+    }
+
+    /** Query parameters that only identify the visitor's session. */
+    public static final List<String> DEFAULT_SESSION_PARAMETERS = List.of(
+            "jsessionid", "phpsessid", "aspsessionid", "sessionid", "session_id", "sid", "cfid", "cftoken");
+
+    /** The default maximum number of path segments. */
+    public static final int DEFAULT_MAX_PATH_DEPTH = 12;
+
+    /** The default maximum number of times the same path segment may appear. */
+    public static final int DEFAULT_MAX_REPEATED_SEGMENTS = 2;
+
+    /** The default maximum length of a URL. */
+    public static final int DEFAULT_MAX_URL_LENGTH = 512;
+
+    /**
+     * The default number of unproductive pages of one pattern before it is
+     * deprioritized.
+     */
+    public static final int DEFAULT_PATTERN_LIMIT = 100;
+
+    /**
+     * The number of productive and unproductive pages crawled for a pattern.
+     */
+    private static class Yield {
+        private final AtomicInteger productive = new AtomicInteger();
+        private final AtomicInteger unproductive = new AtomicInteger();
+
+        /**
+         * Returns the number of unproductive pages, if they outnumber the
+         * productive ones.
+         *
+         * @return the number of unproductive pages, or 0 if most were productive
+         */
+        private int wasted() {
+            int wasted = unproductive.get();
+            return wasted > productive.get() ? wasted : 0;
+        }
+    }
+
+    private final CrawlMetrics metrics;
+    private final String[] sessionParameters;
+    private int maxPathDepth;
+    private int maxRepeatedSegments;
+    private int maxUrlLength;
+    private int patternLimit;
+
+    /** The pages crawled for each pattern. */
+    private final ConcurrentHashMap<String, Yield> patternPages;
+
+    /** The patterns whose links are no longer crawled. */
+    private final Set<String> quarantined;
+
+    /**
+     * Creates a detector with the default limits.
+     *
+     * @param metrics the metrics to count decisions in
+     */
+    public CrawlTrapDetector(CrawlMetrics metrics) {
+        this.metrics = metrics;
+        this.sessionParameters = DEFAULT_SESSION_PARAMETERS.toArray(new String[0]);
+        this.maxPathDepth = DEFAULT_MAX_PATH_DEPTH;
+        this.maxRepeatedSegments = DEFAULT_MAX_REPEATED_SEGMENTS;
+        this.maxUrlLength = DEFAULT_MAX_URL_LENGTH;
+        this.patternLimit = DEFAULT_PATTERN_LIMIT;
+        this.patternPages = new ConcurrentHashMap<>();
+        this.quarantined = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Sets the maximum number of path segments.
+     *
+     * @param maxPathDepth the maximum number of path segments
+     */
+    public void setMaxPathDepth(int maxPathDepth) {
+        this.maxPathDepth = maxPathDepth;
+    }
+
+    /**
+     * Sets the maximum number of times the same path segment may appear.
+     *
+     * @param maxRepeatedSegments the maximum number of times a segment may appear
+     */
+    public void setMaxRepeatedSegments(int maxRepeatedSegments) {
+        this.maxRepeatedSegments = maxRepeatedSegments;
+    }
+
+    /**
+     * Sets the maximum length of a URL.
+     *
+     * @param maxUrlLength the maximum number of characters
+     */
+    public void setMaxUrlLength(int maxUrlLength) {
+        this.maxUrlLength = maxUrlLength;
+    }
+
+    /**
+     * Sets the number of unproductive pages of one pattern crawled before its
+     * links are deprioritized.
+     *
+     * @param patternLimit the number of unproductive pages per pattern
+     */
+    public void setPatternLimit(int patternLimit) {
+        this.patternLimit = patternLimit;
+    }
+
+    /**
+     * Removes session IDs from the query and from {@code ;jsessionid=} style path
+     * parameters, so the same page is not crawled once per session.
+     *
+     * @param uri the canonical URI
+     * @return the URI without session IDs, or the same URI if it had none
+     */
+    public URI stripSessionIds(URI uri) {
+        String path = uri.getRawPath();
+        String query = uri.getRawQuery();
+
+        String strippedPath = path == null ? null : stripPathParameters(path);
+        String strippedQuery = query == null ? null : stripQueryParameters(query);
+
+        if (strippedPath == path && strippedQuery == query) {
+            return uri;
+        }
+
+        metrics.increment("trap.session_stripped");
+
+        StringBuilder sb = new StringBuilder(uri.toString().length());
+        sb.append(uri.getScheme()).append("://").append(uri.getRawAuthority());
+        sb.append(strippedPath == null ? "" : strippedPath);
+        if (strippedQuery != null && !strippedQuery.isEmpty()) {
+            sb.append('?').append(strippedQuery);
+        }
+        return URI.create(sb.toString());
+    }
+
+    /**
+     * Decides whether a discovered link should be crawled.
+     *
+     * @param uri the canonical URI without session IDs
+     * @return the verdict for the link
+     */
+    public Verdict check(URI uri) {
+        String pattern = pattern(uri);
+        if (quarantined.contains(pattern)) {
+            metrics.increment("trap.quarantined_pattern");
+            return Verdict.QUARANTINE;
+        }
+
+        if (uri.toString().length() > maxUrlLength) {
+            metrics.increment("trap.url_length");
+            return Verdict.QUARANTINE;
+        }
+
+        String reason = checkPath(uri.getRawPath());
+        if (reason != null) {
+            metrics.increment(reason);
+            quarantine(pattern, reason);
+            return Verdict.QUARANTINE;
+        }
+
+        Yield pages = patternPages.get(pattern);
+        int wasted = pages == null ? 0 : pages.wasted();
+        if (wasted >= patternLimit * 10L) {
+            metrics.increment("trap.pattern_explosion");
+            quarantine(pattern, "trap.pattern_explosion");
+            return Verdict.QUARANTINE;
+        }
+
+        if (wasted >= patternLimit) {
+            metrics.increment("trap.deprioritized");
+            return Verdict.DEPRIORITIZE;
+        }
+
+        return Verdict.ACCEPT;
+    }
+
+    /**
+     * Records that a page was crawled, counting it towards its pattern as
+     * productive if it had new content or added a link of another pattern.
+     *
+     * @param uri        the URI of the crawled page
+     * @param newContent whether the page had content not seen before
+     * @param added      the links the page added to the frontier
+     */
+    public void recordPage(URI uri, boolean newContent, List<URI> added) {
+        String pattern = pattern(uri);
+        boolean productive = newContent;
+        for (int i = 0; i < added.size() && !productive; i++) {
+            productive = !pattern(added.get(i)).equals(pattern);
+        }
+
+        Yield pages = patternPages.computeIfAbsent(pattern, key -> new Yield());
+        (productive ? pages.productive : pages.unproductive).incrementAndGet();
+    }
+
+    /**
+     * Returns the patterns whose links are no longer crawled.
+     *
+     * @return the quarantined patterns
+     */
+    public Set<String> getQuarantined() {
+        return Set.copyOf(quarantined);
+    }
+
+    /**
+     * Checks the path against the depth and repeated segment limits.
+     *
+     * @param path the raw path
+     * @return the name of the broken limit, or {@code null} if none
+     */
+    private String checkPath(String path) {
+        if (path == null) {
+            return null;
+        }
+
+        Map<String, Integer> counts = new HashMap<>();
+        int depth = 0;
+        int start = 0;
+
+        while (start < path.length()) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = path.length();
+            }
+
+            if (end > start) {
+                if (++depth > maxPathDepth) {
+                    return "trap.path_depth";
+                }
+                if (counts.merge(path.substring(start, end), 1, Integer::sum) > maxRepeatedSegments) {
+                    return "trap.repeated_segment";
+                }
+            }
+
+            start = end + 1;
+        }
+
+        return null;
+    }
+
+    /**
+     * Stops crawling a pattern, logging it the first time.
+     *
+     * @param pattern the pattern to quarantine
+     * @param reason  the name of the broken limit
+     */
+    private void quarantine(String pattern, String reason) {
+        if (quarantined.add(pattern)) {
+            metrics.increment("trap.patterns_quarantined");
+            System.out.println("Quarantining crawler trap " + pattern + " (" + reason + ")");
+        }
+    }
+
+    /**
+     * Returns the pattern of a URI: the host and path with every run of digits
+     * replaced by {@code #}, and the query parameter names with every value
+     * replaced by {@code *}.
+     *
+     * @param uri the URI
+     * @return the pattern
+     */
+    private static String pattern(URI uri) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(uri.getRawAuthority());
+
+        String path = uri.getRawPath();
+        if (path != null) {
+            boolean inDigits = false;
+            for (int i = 0; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    if (!inDigits) {
+                        sb.append('#');
+                    }
+                    inDigits = true;
+                } else {
+                    sb.append(c);
+                    inDigits = false;
+                }
+            }
+        }
+
+        String query = uri.getRawQuery();
+        if (query != null) {
+            char separator = '?';
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                sb.append(separator).append(parameter, 0, equals == -1 ? parameter.length() : equals).append("=*");
+                separator = '&';
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Removes session parameters such as {@code ;jsessionid=...} from every path
+     * segment.
+     *
+     * @param path the raw path
+     * @return the path without session parameters, or the same string if none
+     */
+    private String stripPathParameters(String path) {
+        int semicolon = path.indexOf(';');
+        if (semicolon == -1) {
+            return path;
+        }
+
+        StringBuilder sb = new StringBuilder(path.length());
+        int start = 0;
+        boolean changed = false;
+
+        while (semicolon != -1) {
+            int end = path.indexOf('/', semicolon);
+            if (end == -1) {
+                end = path.length();
+            }
+
+            sb.append(path, start, semicolon);
+            String parameters = path.substring(semicolon + 1, end);
+            if (isSessionParameter(parameters, 0, parameters.length())) {
+                changed = true;
+            } else {
+                sb.append(';').append(parameters);
+            }
+
+            start = end;
+            semicolon = path.indexOf(';', start);
+        }
+
+        sb.append(path, start, path.length());
+        return changed ? sb.toString() : path;
+    }
+
+    /**
+     * Removes session parameters from the query.
+     *
+     * @param query the raw query
+     * @return the query without session parameters, or the same string if none
+     */
+    private String stripQueryParameters(String query) {
+        StringBuilder sb = new StringBuilder(query.length());
+        boolean changed = false;
+        int start = 0;
+
+        while (start <= query.length()) {
+            int end = query.indexOf('&', start);
+            if (end == -1) {
+                end = query.length();
+            }
+
+            if (isSessionParameter(query, start, end)) {
+                changed = true;
+            } else if (end > start) {
+                if (sb.length() > 0) {
+                    sb.append('&');
+                }
+                sb.append(query, start, end);
+            }
+
+            start = end + 1;
+        }
+
+        return changed ? sb.toString() : query;
+    }
+
+    /**
+     * Tests whether the parameter in {@code text[start, end)} is a session
+     * parameter, ignoring case.
+     *
+     * @param text  the text holding the parameter
+     * @param start the start of the parameter
+     * @param end   the end of the parameter
+     * @return {@code true} if the parameter name is a session parameter
+     */
+    private boolean isSessionParameter(String text, int start, int end) {
+        int equals = text.indexOf('=', start);
+        int nameEnd = equals == -1 || equals > end ? end : equals;
+        int nameLength = nameEnd - start;
+
+        for (String parameter : sessionParameters) {
+            if (parameter.length() == nameLength && text.regionMatches(true, start, parameter, 0, nameLength)) {
+                return true;
+            }
+        }
+
+        // ASP.NET appends the cookie name, such as ASPSESSIONIDQQGGQGPG
+        return nameLength > 12 && text.regionMatches(true, start, "aspsessionid", 0, 12);
+    }
+}
@@ -0,0 +1,337 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One worker of a distributed crawl. Each worker owns the hosts assigned to it
+ * by a {@link ConsistentHashRing}, crawls only those hosts, and forwards links
+ * to other hosts to their owners in batches over TCP. Pages are leased from a
+ * {@link CrawlCoordinator}, which also decides when the crawl is done.
+ *
+ * <p>
+ * A batch is sent over its own connection as one link per line, each preceded
+ * by its link depth and a space, followed by a blank line. The receiver answers
+ * with the number of links it accepted and adds them at that depth, so its
+ * depth limits and trap checks apply to them as to its own links.
+ *
+ * <p>
+ * Crawl threads only buffer the links they route elsewhere; the batches are
+ * sent between leases by the thread running {@link #crawl()}, so no crawl
+ * thread waits on a peer. A batch that cannot be sent, such as to a worker that
+ * has not started listening yet, stays buffered and is sent again on the next
+ * round, and a worker is not idle while it has links left to send.
+ */
+public class DistributedCrawler {
+    /** The most links sent to a worker over one connection. */
+    public static final int BATCH_SIZE = 100;
+
+    /** The number of pages leased from the coordinator at a time. */
+    public static final int LEASE_SIZE = 10;
+
+    /** How long to wait between status reports while idle. */
+    public static final long POLL_MILLIS = 200;
+
+    private final int worker;
+    private final List<InetSocketAddress> peers;
+    private final InetSocketAddress coordinator;
+    private final ConsistentHashRing ring;
+    private final WebCrawler crawler;
+
+    private final Queue<CrawlFrontier.Task> inbox;
+
+    /** The links to send to each worker; its monitor guards the lists. */
+    private final List<List<String>> outboxes;
+    private final AtomicLong sent;
+    private final AtomicLong received;
+
+    /**
+     * Creates a worker.
+     *
+     * @param worker      the number of this worker, an index into the peers
+     * @param peers       the addresses every worker listens on for links
+     * @param coordinator the address of the coordinator
+     * @param crawler     the crawler for this worker's shard, without a page
+     *                    limit of its own since the coordinator enforces it
+     */
+    public DistributedCrawler(int worker, List<InetSocketAddress> peers, InetSocketAddress coordinator,
+            WebCrawler crawler) {
+        this.worker = worker;
+        this.peers = peers;
+        this.coordinator = coordinator;
+        this.ring = new ConsistentHashRing(peers.size());
+        this.crawler = crawler;
+        this.crawler.setLinkRouter(this::route);
+
+        this.inbox = new ConcurrentLinkedQueue<>();
+        this.outboxes = new ArrayList<>();
+        for (int i = 0; i < peers.size(); i++) {
+            outboxes.add(new ArrayList<>());
+        }
+        this.sent = new AtomicLong();
+        this.received = new AtomicLong();
+    }
+
+    /**
+     * Adds a seed URI if this worker owns its host. Every worker can be given
+     * the same seeds.
+     *
+     * @param uri the seed URI
+     */
+    public void addSeed(URI uri) {
+        if (ring.owner(uri.getHost()) == worker) {
+            crawler.addSeed(uri);
+        }
+    }
+
+    /**
+     * Crawls until the coordinator reports that the whole crawl is done.
+     *
+     * @throws IOException if unable to listen for links or reach the coordinator
+     */
+    public void crawl() throws IOException {
+        try (ServerSocket listener = new ServerSocket(peers.get(worker).getPort());
+                CrawlCoordinator.Client client = new CrawlCoordinator.Client(coordinator.getHostString(),
+                        coordinator.getPort())) {
+            Thread receiver = new Thread(() -> receive(listener), "links-" + worker);
+            receiver.setDaemon(true);
+            receiver.start();
+
+            while (true) {
+                drainInbox();
+
+                if (crawler.hasPending()) {
+                    int grant = client.acquire(worker, LEASE_SIZE);
+                    if (grant > 0) {
+                        int used = crawler.crawlBatch(grant);
+                        client.release(grant - used);
+                        flush();
+                        continue;
+                    }
+                }
+
+                flush();
+
+                if (client.status(worker, inbox.isEmpty() && !hasUnsent(), sent.get(), received.get())) {
+                    break;
+                }
+
+                try {
+                    Thread.sleep(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        System.out.println("Worker " + worker + " crawled " + crawler.getPagesCrawled() + " pages, sent "
+                + sent.get() + " links and received " + received.get() + " links");
+        System.out.println(crawler.getMetrics());
+    }
+
+    /**
+     * Keeps links for hosts this worker owns and buffers the rest for their
+     * owners until the next {@link #flush()}.
+     *
+     * @param uri   the discovered link, canonicalized
+     * @param depth its link depth from a seed
+     * @return {@code true} if this worker owns the link
+     */
+    private boolean route(URI uri, int depth) {
+        int owner = ring.owner(uri.getHost());
+        if (owner == worker) {
+            return true;
+        }
+
+        synchronized (outboxes) {
+            outboxes.get(owner).add(depth + " " + uri);
+        }
+        return false;
+    }
+
+    /**
+     * Moves links received from other workers into the frontier at the depth
+     * they were found at.
+     */
+    private void drainInbox() {
+        CrawlFrontier.Task link;
+        while ((link = inbox.poll()) != null) {
+            crawler.addLink(link.uri(), link.depth());
+        }
+    }
+
+    /**
+     * Sends every buffered link, in batches of at most {@link #BATCH_SIZE}. The
+     * links are taken out of their outbox before sending, so crawl threads can
+     * keep buffering, and a batch that fails goes back to the front of its
+     * outbox with the links after it, to be sent on the next call.
+     */
+    private void flush() {
+        for (int owner = 0; owner < outboxes.size(); owner++) {
+            List<String> links;
+            synchronized (outboxes) {
+                List<String> outbox = outboxes.get(owner);
+                if (outbox.isEmpty()) {
+                    continue;
+                }
+                links = new ArrayList<>(outbox);
+                outbox.clear();
+            }
+
+            int start = 0;
+            while (start < links.size()) {
+                int end = Math.min(start + BATCH_SIZE, links.size());
+                if (!send(owner, links.subList(start, end))) {
+                    break;
+                }
+                start = end;
+            }
+
+            if (start < links.size()) {
+                synchronized (outboxes) {
+                    outboxes.get(owner).addAll(0, links.subList(start, links.size()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests whether any links are waiting to be sent.
+     *
+     * @return {@code true} if an outbox is not empty
+     */
+    private boolean hasUnsent() {
+        synchronized (outboxes) {
+            for (List<String> outbox : outboxes) {
+                if (!outbox.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Sends links to one worker as a single batch.
+     *
+     * @param owner the worker to send to
+     * @param links the links, each preceded by its depth and a space
+     * @return {@code true} if the worker answered, or {@code false} if the
+     *         links must be sent again
+     */
+    private boolean send(int owner, List<String> links) {
+        InetSocketAddress peer = peers.get(owner);
+
+        try (Socket socket = new Socket(peer.getHostString(), peer.getPort());
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), false, UTF_8);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8))) {
+            for (String link : links) {
+                out.println(link);
+            }
+            out.println();
+            out.flush();
+
+            String accepted = in.readLine();
+            if (accepted == null) {
+                throw new IOException("Connection closed before the links were accepted");
+            }
+            sent.addAndGet(Long.parseLong(accepted.trim()));
+            return true;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Unable to send " + links.size() + " links to worker " + owner + ", will retry: "
+                    + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Accepts batches from other workers until the listener is closed.
+     *
+     * @param listener the socket to accept batches on
+     */
+    private void receive(ServerSocket listener) {
+        while (!listener.isClosed()) {
+            try (Socket socket = listener.accept();
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+                    PrintWriter out = new PrintWriter(socket.getOutputStream(), true, UTF_8)) {
+                List<CrawlFrontier.Task> batch = new ArrayList<>();
+                String line;
+                while ((line = in.readLine()) != null && !line.isEmpty()) {
+                    CrawlFrontier.Task link = parseLink(line);
+                    if (link != null) {
+                        batch.add(link);
+                    }
+                }
+
+                inbox.addAll(batch);
+                received.addAndGet(batch.size());
+                out.println(batch.size());
+            } catch (IOException e) {
+                if (!listener.isClosed()) {
+                    System.err.println("Unable to receive links: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses a forwarded link, given as its depth, a space and the link.
+     *
+     * @param line the line to parse
+     * @return the link and its depth, or {@code null} if invalid
+     */
+    static CrawlFrontier.Task parseLink(String line) {
+        int space = line.indexOf(' ');
+        try {
+            int depth = Integer.parseInt(line.substring(0, space));
+            return new CrawlFrontier.Task(new URI(line.substring(space + 1)), depth);
+        } catch (URISyntaxException | NumberFormatException | IndexOutOfBoundsException e) {
+            System.out.println("Invalid forwarded link: " + line);
+            return null;
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of host:port addresses.
+     *
+     * @param addresses the addresses to parse
+     * @return the parsed addresses
+     */
+    public static List<InetSocketAddress> parseAddresses(String addresses) {
+        List<InetSocketAddress> parsed = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            parsed.add(parseAddress(address));
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses a single host:port address.
+     *
+     * @param address the address to parse
+     * @return the parsed address
+     */
+    public static InetSocketAddress parseAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port but got: " + address);
+        }
+        return InetSocketAddress.createUnresolved(address.substring(0, colon).trim(),
+                Integer.parseInt(address.substring(colon + 1).trim()));
+    }
+}
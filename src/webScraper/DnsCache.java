@@ -0,0 +1,75 @@
+package webScraper;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the address of each host for a while, so that crawls sharing this
+ * cache look up every host once instead of once per page. Failed lookups are
+ * not cached.
+ */
+public class DnsCache {
+    /** The default time to keep an address, in milliseconds. */
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+
+    /**
+     * A cached address.
+     *
+     * @param address the address of the host
+     * @param expires the time the address stops being used, in milliseconds
+     */
+    private record Entry(InetAddress address, long expires) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final long ttlMillis;
+
+    /**
+     * Creates a cache that keeps addresses for {@link #DEFAULT_TTL_MILLIS}.
+     */
+    public DnsCache() {
+        this(DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param ttlMillis the time to keep an address, in milliseconds
+     */
+    public DnsCache(long ttlMillis) {
+        this.entries = new ConcurrentHashMap<>();
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the address of a host, looking it up if it is not cached or has
+     * expired.
+     *
+     * @param host the host name
+     * @return the address of the host
+     * @throws UnknownHostException if the host cannot be resolved
+     */
+    public InetAddress resolve(String host) throws UnknownHostException {
+        String key = host.toLowerCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expires() < now) {
+            entry = new Entry(InetAddress.getByName(host), now + ttlMillis);
+            entries.put(key, entry);
+        }
+        return entry.address();
+    }
+
+    /**
+     * Returns the number of cached hosts, including expired ones not yet looked
+     * up again.
+     *
+     * @return the number of cached hosts
+     */
+    public int size() {
+        return entries.size();
+    }
+}
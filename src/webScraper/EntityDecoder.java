@@ -0,0 +1,276 @@
+package webScraper;
+
+/**
+ * Decodes HTML 4 entities the same way as {@link HtmlCleaner#stripEntities(String)}
+ * used to with {@code StringEscapeUtils.unescapeHtml4} and a regex, but in one
+ * pass and without copying text that has none. Named entities are looked up in
+ * an open-addressing table by the characters of the page, without cutting the
+ * name out first, and numeric ones are parsed in place.
+ *
+ * <p>
+ * As before, named entities need their {@code ;}, as do numeric ones like
+ * {@code &#8211;} and {@code &#x2013;}, and code points that are not valid are
+ * not decoded. Anything left that looks like an entity, from a {@code &} to the
+ * next {@code ;} with no whitespace in between, is then removed, including one
+ * made by decoding, like the {@code &lt;} from {@code &amp;lt;}.
+ */
+public class EntityDecoder {
+    /** The HTML 4 entities, as names and code points. */
+    private static final String ENTITIES = """
+            quot 34 amp 38 lt 60 gt 62 nbsp 160 iexcl 161 cent 162 pound 163 curren 164 yen 165
+            brvbar 166 sect 167 uml 168 copy 169 ordf 170 laquo 171 not 172 shy 173 reg 174 macr 175
+            deg 176 plusmn 177 sup2 178 sup3 179 acute 180 micro 181 para 182 middot 183 cedil 184
+            sup1 185 ordm 186 raquo 187 frac14 188 frac12 189 frac34 190 iquest 191 Agrave 192
+            Aacute 193 Acirc 194 Atilde 195 Auml 196 Aring 197 AElig 198 Ccedil 199 Egrave 200
+            Eacute 201 Ecirc 202 Euml 203 Igrave 204 Iacute 205 Icirc 206 Iuml 207 ETH 208
+            Ntilde 209 Ograve 210 Oacute 211 Ocirc 212 Otilde 213 Ouml 214 times 215 Oslash 216
+            Ugrave 217 Uacute 218 Ucirc 219 Uuml 220 Yacute 221 THORN 222 szlig 223 agrave 224
+            aacute 225 acirc 226 atilde 227 auml 228 aring 229 aelig 230 ccedil 231 egrave 232
+            eacute 233 ecirc 234 euml 235 igrave 236 iacute 237 icirc 238 iuml 239 eth 240
+            ntilde 241 ograve 242 oacute 243 ocirc 244 otilde 245 ouml 246 divide 247 oslash 248
+            ugrave 249 uacute 250 ucirc 251 uuml 252 yacute 253 thorn 254 yuml 255 OElig 338
+            oelig 339 Scaron 352 scaron 353 Yuml 376 fnof 402 circ 710 tilde 732 Alpha 913 Beta 914
+            Gamma 915 Delta 916 Epsilon 917 Zeta 918 Eta 919 Theta 920 Iota 921 Kappa 922 Lambda 923
+            Mu 924 Nu 925 Xi 926 Omicron 927 Pi 928 Rho 929 Sigma 931 Tau 932 Upsilon 933 Phi 934
+            Chi 935 Psi 936 Omega 937 alpha 945 beta 946 gamma 947 delta 948 epsilon 949 zeta 950
+            eta 951 theta 952 iota 953 kappa 954 lambda 955 mu 956 nu 957 xi 958 omicron 959 pi 960
+            rho 961 sigmaf 962 sigma 963 tau 964 upsilon 965 phi 966 chi 967 psi 968 omega 969
+            thetasym 977 upsih 978 piv 982 ensp 8194 emsp 8195 thinsp 8201 zwnj 8204 zwj 8205
+            lrm 8206 rlm 8207 ndash 8211 mdash 8212 lsquo 8216 rsquo 8217 sbquo 8218 ldquo 8220
+            rdquo 8221 bdquo 8222 dagger 8224 Dagger 8225 bull 8226 hellip 8230 permil 8240
+            prime 8242 Prime 8243 lsaquo 8249 rsaquo 8250 oline 8254 frasl 8260 euro 8364 image 8465
+            weierp 8472 real 8476 trade 8482 alefsym 8501 larr 8592 uarr 8593 rarr 8594 darr 8595
+            harr 8596 crarr 8629 lArr 8656 uArr 8657 rArr 8658 dArr 8659 hArr 8660 forall 8704
+            part 8706 exist 8707 empty 8709 nabla 8711 isin 8712 notin 8713 ni 8715 prod 8719
+            sum 8721 minus 8722 lowast 8727 radic 8730 prop 8733 infin 8734 ang 8736 and 8743
+            or 8744 cap 8745 cup 8746 int 8747 there4 8756 sim 8764 cong 8773 asymp 8776 ne 8800
+            equiv 8801 le 8804 ge 8805 sub 8834 sup 8835 nsub 8836 sube 8838 supe 8839 oplus 8853
+            otimes 8855 perp 8869 sdot 8901 lceil 8968 rceil 8969 lfloor 8970 rfloor 8971 lang 9001
+            rang 9002 loz 9674 spades 9824 clubs 9827 hearts 9829 diams 9830
+            """;
+
+    /** The length of the longest entity name. */
+    private static final int LONGEST_NAME = 8;
+
+    /** The entity names, at the slot of their hash or the next free one after it. */
+    private static final String[] NAMES = new String[512];
+
+    /** The characters of the entities in {@link #NAMES}. */
+    private static final char[] VALUES = new char[NAMES.length];
+
+    /** The most characters kept in a thread's buffer between calls. */
+    private static final int MAX_KEPT_BUFFER = 1 << 16;
+
+    /** A buffer for each thread, reused so that decoding only allocates the result. */
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+
+    static {
+        String[] fields = ENTITIES.strip().split("\\s+");
+        for (int i = 0; i < fields.length; i += 2) {
+            String name = fields[i];
+            int slot = hash(name, 0, name.length());
+            while (NAMES[slot] != null) {
+                slot = (slot + 1) & (NAMES.length - 1);
+            }
+            NAMES[slot] = name;
+            VALUES[slot] = (char) Integer.parseInt(fields[i + 1]);
+        }
+    }
+
+    /** Prevents instantiating this class of static methods. */
+    private EntityDecoder() {
+    }
+
+    /**
+     * Decodes the entities in text and removes the unrecognized ones.
+     *
+     * @param text the text
+     * @return the decoded text, or the same text if it has no {@code &}
+     */
+    public static String decode(String text) {
+        int amp = text.indexOf('&');
+        if (amp < 0) {
+            return text;
+        }
+
+        StringBuilder decoded = BUFFER.get();
+        decoded.setLength(0);
+
+        // whether a & is left in the result, so that the removal pass is needed
+        boolean left = false;
+        int copied = 0;
+        while (amp >= 0) {
+            decoded.append(text, copied, amp);
+            int end = decodeAt(text, amp, decoded);
+            if (end < 0) {
+                decoded.append('&');
+                left = true;
+                copied = amp + 1;
+            } else {
+                left |= decoded.charAt(decoded.length() - 1) == '&';
+                copied = end;
+            }
+            amp = text.indexOf('&', copied);
+        }
+        decoded.append(text, copied, text.length());
+
+        if (left) {
+            removeUnrecognized(decoded);
+        }
+
+        String result = decoded.toString();
+        if (decoded.capacity() > MAX_KEPT_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the entity at a {@code &}, if there is one.
+     *
+     * @param text    the text
+     * @param amp     the position of the {@code &}
+     * @param decoded where to append the character of the entity
+     * @return the position after the entity, or -1 if there is none
+     */
+    private static int decodeAt(String text, int amp, StringBuilder decoded) {
+        if (amp + 2 < text.length() && text.charAt(amp + 1) == '#') {
+            return decodeNumber(text, amp, decoded);
+        }
+
+        int limit = Math.min(text.length(), amp + 2 + LONGEST_NAME);
+        for (int i = amp + 1; i < limit; i++) {
+            if (text.charAt(i) == ';') {
+                char value = lookup(text, amp + 1, i);
+                if (value == 0) {
+                    return -1;
+                }
+                decoded.append(value);
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes a numeric entity, in decimal or in hex after an {@code x}.
+     *
+     * @param text    the text
+     * @param amp     the position of the {@code &} before the {@code #}
+     * @param decoded where to append the character of the entity
+     * @return the position after the entity, or -1 if it is not valid
+     */
+    private static int decodeNumber(String text, int amp, StringBuilder decoded) {
+        int start = amp + 2;
+        boolean hex = text.charAt(start) == 'x' || text.charAt(start) == 'X';
+        if (hex) {
+            start++;
+        }
+
+        // as in unescapeHtml4, hex digits are read even for a decimal entity, which then fails
+        int radix = hex ? 16 : 10;
+        long value = 0;
+        int end = start;
+        while (end < text.length()) {
+            int digit = Character.digit(text.charAt(end), 16);
+            if (digit < 0 || text.charAt(end) > 'f') {
+                break;
+            }
+            if (digit >= radix) {
+                value = Long.MAX_VALUE;
+            } else if (value <= Character.MAX_CODE_POINT) {
+                value = value * radix + digit;
+            }
+            end++;
+        }
+
+        if (end == start || end == text.length() || text.charAt(end) != ';' || value > Character.MAX_CODE_POINT) {
+            return -1;
+        }
+
+        decoded.appendCodePoint((int) value);
+        return end + 1;
+    }
+
+    /**
+     * Finds the character of a named entity.
+     *
+     * @param text  the text
+     * @param start the start of the name
+     * @param end   the end of the name
+     * @return the character, or 0 if there is no entity by that name
+     */
+    private static char lookup(String text, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return 0;
+        }
+
+        for (int slot = hash(text, start, end); NAMES[slot] != null; slot = (slot + 1) & (NAMES.length - 1)) {
+            String name = NAMES[slot];
+            if (name.length() == length && text.regionMatches(start, name, 0, length)) {
+                return VALUES[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Hashes a name to its slot in the table.
+     *
+     * @param text  the text of the name
+     * @param start the start of the name
+     * @param end   the end of the name
+     * @return the slot
+     */
+    private static int hash(String text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return (hash ^ hash >>> 9) & (NAMES.length - 1);
+    }
+
+    /**
+     * Removes everything that looks like an entity, from a {@code &} to the
+     * next {@code ;} with at least one character and no whitespace in between.
+     *
+     * @param text the text to remove them from
+     */
+    private static void removeUnrecognized(StringBuilder text) {
+        int kept = 0;
+        int i = 0;
+        while (i < text.length()) {
+            if (text.charAt(i) == '&') {
+                int end = i + 1;
+                while (end < text.length() && text.charAt(end) != ';' && !isSpace(text.charAt(end))) {
+                    end++;
+                }
+
+                if (end < text.length() && text.charAt(end) == ';' && end > i + 1) {
+                    i = end + 1;
+                    continue;
+                }
+
+                // no & before the end can start an entity either, so they are all kept
+                while (i < end) {
+                    text.setCharAt(kept++, text.charAt(i++));
+                }
+                continue;
+            }
+            text.setCharAt(kept++, text.charAt(i++));
+        }
+        text.setLength(kept);
+    }
+
+    /**
+     * Tests whether a character is whitespace as matched by {@code \s} in a
+     * regex.
+     *
+     * @param c the character
+     * @return {@code true} if it is whitespace
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
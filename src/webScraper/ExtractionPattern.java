@@ -0,0 +1,189 @@
+package webScraper;
+
+import java.util.regex.Pattern;
+
+/**
+ * A pattern that extracts a field from a page, matched within the page's
+ * {@link MatchBudget}. Patterns that {@link LinearRegex} supports are matched
+ * by it, in time linear in the page. Any other pattern is matched by
+ * {@link Pattern} over a view of the page that spends a step of the budget on
+ * every character read, so that however much it backtracks, it gives up once
+ * the budget is spent.
+ */
+public class ExtractionPattern {
+    /**
+     * Matches a pattern anchored at positions of one page.
+     */
+    public interface Matcher {
+        /**
+         * Tries the pattern anchored at a position, like
+         * {@link java.util.regex.Matcher#lookingAt()} on a region from the
+         * position to the end of the page.
+         *
+         * @param position the position
+         * @return {@code true} if the pattern matches there, or {@code false} if
+         *         it does not or the budget ran out
+         */
+        boolean matchAt(int position);
+
+        /**
+         * Returns the start of a group of the last match.
+         *
+         * @param group the group, or 0 for the whole match
+         * @return the start, or -1 if the group did not match
+         */
+        int start(int group);
+
+        /**
+         * Returns the end of a group of the last match.
+         *
+         * @param group the group, or 0 for the whole match
+         * @return the end, or -1 if the group did not match
+         */
+        int end(int group);
+
+        /**
+         * Returns the end of the last match.
+         *
+         * @return the end
+         */
+        default int end() {
+            return end(0);
+        }
+    }
+
+    /**
+     * Thrown by a page view when the budget runs out, to stop
+     * {@link java.util.regex.Matcher}. It is only ever caught, so it is
+     * shared and has no stack trace.
+     */
+    private static final RuntimeException EXHAUSTED = new RuntimeException("Match budget exhausted", null,
+            false, false) {
+        private static final long serialVersionUID = 1L;
+    };
+
+    private final Pattern pattern;
+    private final LinearRegex linear;
+
+    /**
+     * Creates a pattern.
+     *
+     * @param pattern the compiled regex
+     * @param linear  the same regex for {@link LinearRegex}, or {@code null}
+     */
+    private ExtractionPattern(Pattern pattern, LinearRegex linear) {
+        this.pattern = pattern;
+        this.linear = linear;
+    }
+
+    /**
+     * Compiles a regex, for {@link LinearRegex} if it supports it.
+     *
+     * @param regex the regex
+     * @param flags the {@link Pattern} flags
+     * @return the pattern
+     */
+    public static ExtractionPattern compile(String regex, int flags) {
+        Pattern pattern = Pattern.compile(regex, flags);
+        LinearRegex linear;
+        try {
+            linear = new LinearRegex(regex, flags);
+        } catch (IllegalArgumentException e) {
+            linear = null;
+        }
+        return new ExtractionPattern(pattern, linear);
+    }
+
+    /**
+     * Compiles a regex without flags.
+     *
+     * @param regex the regex
+     * @return the pattern
+     */
+    public static ExtractionPattern compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Creates a matcher of the pattern over a page.
+     *
+     * @param text   the page
+     * @param budget the budget of the page
+     * @return the matcher
+     */
+    public Matcher matcher(CharSequence text, MatchBudget budget) {
+        return linear != null ? linear.matcher(text, budget) : new Backtracking(text, budget);
+    }
+
+    @Override
+    public String toString() {
+        return pattern.pattern();
+    }
+
+    /**
+     * Matches with {@link java.util.regex.Matcher} over a view of the page
+     * that spends the budget.
+     */
+    private class Backtracking implements Matcher {
+        private final java.util.regex.Matcher matcher;
+        private boolean matched;
+
+        /**
+         * Creates a matcher.
+         *
+         * @param text   the page
+         * @param budget the budget of the page
+         */
+        private Backtracking(CharSequence text, MatchBudget budget) {
+            CharSequence counted = new CharSequence() {
+                @Override
+                public int length() {
+                    return text.length();
+                }
+
+                @Override
+                public char charAt(int index) {
+                    if (!budget.spend(1)) {
+                        throw EXHAUSTED;
+                    }
+                    return text.charAt(index);
+                }
+
+                @Override
+                public CharSequence subSequence(int start, int end) {
+                    return text.subSequence(start, end);
+                }
+
+                @Override
+                public String toString() {
+                    return text.toString();
+                }
+            };
+            this.matcher = pattern.matcher(counted);
+        }
+
+        @Override
+        public boolean matchAt(int position) {
+            try {
+                matcher.region(position, matcher.regionEnd());
+                matched = matcher.lookingAt();
+            } catch (RuntimeException e) {
+                if (e != EXHAUSTED) {
+                    throw e;
+                }
+                matched = false;
+            }
+            return matched;
+        }
+
+        @Override
+        public int start(int group) {
+            return matched ? matcher.start(group) : -1;
+        }
+
+        @Override
+        public int end(int group) {
+            return matched ? matcher.end(group) : -1;
+        }
+    }
+}
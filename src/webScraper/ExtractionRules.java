@@ -0,0 +1,734 @@
+package webScraper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts recipes with selectors read from a file, so that a new site only
+ * needs new rules instead of new code. Rules are grouped by site, and each
+ * page is extracted with the rules of the first site whose host glob matches
+ * its host. Pages of other sites are extracted by {@link RecipeExtractor}.
+ * Rules are read one per line:
+ *
+ * <pre>
+ * site www.10000recipe.com *.10000recipe.com
+ * title      div.view3_top_tit
+ * info       div.view3_top_info
+ * ingredient div.ingre_list_name a
+ * quantity   span.ingre_list_ea
+ * step       div.step_list_txt_cont
+ * image      .step_list_img img @src
+ *
+ * site *.example.com
+ * title      h1.entry-title
+ * ingredient .wprm-recipe-ingredient-name
+ * quantity   .wprm-recipe-ingredient-amount
+ * step       #wprm-recipe-container-9068 .wprm-recipe-instruction-text
+ * </pre>
+ *
+ * <p>
+ * A {@code #} followed by a space, or at the end of a line, starts a comment
+ * that runs to the end of the line, so it is not mistaken for an id.
+ *
+ * <p>
+ * A selector is a list of elements separated by spaces, each ancestor of the
+ * next, where an element is a tag name, {@code *}, {@code #id},
+ * {@code .class} or a combination like {@code div.a.b}. The text of every
+ * matching element becomes one value of the field, with tags removed, entities
+ * decoded, line breaks kept and other whitespace collapsed; a trailing
+ * {@code @attribute} takes the value of that attribute instead. The fields are
+ * {@link #FIELDS}: the title is the first value, the serving size and time are
+ * their first values or else the first two numbers in the info, each
+ * ingredient is followed by the quantity in the same position, and each step
+ * goes with the image in the same position.
+ *
+ * <p>
+ * The rules are compiled once into selectors indexed by the tag name they end
+ * with, and a page is extracted in one pass over the events of an
+ * {@link HtmlTokenizer}, keeping a stack of open elements. Only the rules
+ * ending with the tag name of an element, or with no tag name, are tried when
+ * it opens, and their ancestors are checked against the stack.
+ */
+public class ExtractionRules {
+    /** The fields rules can extract. */
+    public static final Set<String> FIELDS = Set.of("title", "info", "serving_size", "time", "ingredient",
+            "quantity", "step", "image");
+
+    /** A comment, which is a {@code #} on its own or at the start of a line, and the rest of the line. */
+    private static final Pattern COMMENT = Pattern.compile("(^|\\s)#(\\s.*|$)");
+
+    /** The elements whose content is never extracted. */
+    private static final Set<String> SKIPPED = Set.of("style", "script", "noscript", "iframe", "svg");
+
+    /** The elements that never have an end tag. */
+    private static final Set<String> VOID = Set.of("area", "base", "br", "col", "embed", "hr", "img", "input",
+            "link", "meta", "source", "track", "wbr");
+
+    /** The elements whose end tag may be left out before another of the same name. */
+    private static final Set<String> IMPLIED_END = Set.of("li", "p", "dt", "dd", "option", "tr", "td", "th");
+
+    /** The elements that an implied end never reaches past. */
+    private static final Set<String> CONTAINERS = Set.of("ul", "ol", "dl", "table", "select", "div");
+
+    /**
+     * One element of a selector.
+     *
+     * @param tag     the lowercase tag name, or {@code null} for any
+     * @param id      the id, or {@code null} for any
+     * @param classes the classes the element must all have
+     */
+    private record Step(String tag, String id, String[] classes) {
+        /**
+         * Tests an open element against this part of the selector.
+         *
+         * @param element the element
+         * @return {@code true} if it matches
+         */
+        private boolean matches(Element element) {
+            if (tag != null && !tag.equals(element.name)) {
+                return false;
+            }
+            if (id != null && !element.hasId(id)) {
+                return false;
+            }
+            for (String name : classes) {
+                if (!element.hasClass(name)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A compiled rule.
+     *
+     * @param field     the field to extract
+     * @param steps     the selector, outermost element first
+     * @param attribute the attribute to take, or {@code null} to take the text
+     */
+    private record Rule(String field, Step[] steps, String attribute) {
+    }
+
+    /**
+     * An open element. Its id and classes are only read from its start tag if a
+     * rule needs them, since most elements are never tested against one.
+     */
+    private static class Element {
+        private final String name;
+        private final String html;
+        private final int start;
+        private final int end;
+        private String id;
+        private String classes;
+
+        /**
+         * Creates an element from its start tag.
+         *
+         * @param name  the lowercase tag name
+         * @param html  the page
+         * @param start the start of the start tag
+         * @param end   the end of the start tag
+         */
+        private Element(String name, String html, int start, int end) {
+            this.name = name;
+            this.html = html;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Tests whether the element has an id.
+         *
+         * @param id the id
+         * @return {@code true} if the id attribute is the id
+         */
+        private boolean hasId(String id) {
+            if (this.id == null) {
+                String value = HtmlTokenizer.attribute(html, start, end, "id");
+                this.id = value == null ? "" : value.strip();
+            }
+            return id.equals(this.id);
+        }
+
+        /**
+         * Returns the value of the class attribute.
+         *
+         * @return the classes, or an empty string if there are none
+         */
+        private String classes() {
+            if (classes == null) {
+                String value = HtmlTokenizer.attribute(html, start, end, "class");
+                classes = value == null ? "" : value;
+            }
+            return classes;
+        }
+
+        /**
+         * Tests whether the element has a class.
+         *
+         * @param name the class name
+         * @return {@code true} if the class attribute lists it
+         */
+        private boolean hasClass(String name) {
+            return indexOfClass(classes(), name) >= 0;
+        }
+    }
+
+    /**
+     * The compiled rules of one site.
+     */
+    private static class Site {
+        private final String[] hosts;
+        private final Map<String, List<Rule>> byTag;
+        private final Map<String, List<Rule>> byClass;
+        private final List<Rule> anyTag;
+
+        /**
+         * Creates a site without rules.
+         *
+         * @param hosts the host globs of the site
+         */
+        private Site(String[] hosts) {
+            this.hosts = hosts;
+            this.byTag = new HashMap<>();
+            this.byClass = new HashMap<>();
+            this.anyTag = new ArrayList<>();
+        }
+
+        /**
+         * Adds a rule, indexed by the tag name its selector ends with, or else by
+         * the first class it ends with.
+         *
+         * @param rule the rule
+         */
+        private void add(Rule rule) {
+            Step last = rule.steps()[rule.steps().length - 1];
+            if (last.tag() != null) {
+                byTag.computeIfAbsent(last.tag(), key -> new ArrayList<>()).add(rule);
+            } else if (last.classes().length > 0) {
+                byClass.computeIfAbsent(last.classes()[0], key -> new ArrayList<>()).add(rule);
+            } else {
+                anyTag.add(rule);
+            }
+        }
+
+        /**
+         * Tests whether a host belongs to the site.
+         *
+         * @param host the host
+         * @return {@code true} if a host glob matches
+         */
+        private boolean matches(String host) {
+            for (String glob : hosts) {
+                if (LinkFilter.globMatches(glob, 0, host, 0, host.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A value being collected from the text of an open element.
+     */
+    private static class Capture {
+        private final String field;
+        private final int depth;
+        private final StringBuilder text;
+
+        /**
+         * Starts collecting.
+         *
+         * @param field the field the value belongs to
+         * @param depth the number of open elements, including the matched one
+         */
+        private Capture(String field, int depth) {
+            this.field = field;
+            this.depth = depth;
+            this.text = new StringBuilder();
+        }
+    }
+
+    /**
+     * Extracts the fields of one page from the tokenizer's events.
+     */
+    private static class Extraction implements HtmlTokenizer.Handler {
+        private final Site site;
+        private final List<Element> open;
+        private final List<Capture> captures;
+        private final Map<String, List<String>> fields;
+
+        /**
+         * Creates an extraction for one page.
+         *
+         * @param site the rules to extract with
+         */
+        private Extraction(Site site) {
+            this.site = site;
+            this.open = new ArrayList<>();
+            this.captures = new ArrayList<>();
+            this.fields = new HashMap<>();
+        }
+
+        @Override
+        public void text(String html, int start, int end) {
+            for (Capture capture : captures) {
+                capture.text.append(html, start, end);
+            }
+        }
+
+        @Override
+        public void startTag(String name, String html, int start, int end) {
+            if (name.equals("br")) {
+                for (Capture capture : captures) {
+                    capture.text.append('\n');
+                }
+            }
+
+            closeImplied(name);
+
+            Element element = new Element(name, html, start, end);
+            boolean empty = VOID.contains(name) || html.charAt(end - 2) == '/';
+            if (!empty) {
+                open.add(element);
+            }
+
+            tryRules(site.byTag.get(name), element, empty, html, start, end);
+            if (!site.byClass.isEmpty()) {
+                tryClassRules(element, empty, html, start, end);
+            }
+            tryRules(site.anyTag, element, empty, html, start, end);
+        }
+
+        @Override
+        public void endTag(String name) {
+            for (int i = open.size() - 1; i >= 0; i--) {
+                if (open.get(i).name.equals(name)) {
+                    close(i);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Closes the element a start tag ends without an end tag, like the
+         * previous item of a list when the next one starts.
+         *
+         * @param name the lowercase name of the starting element
+         */
+        private void closeImplied(String name) {
+            if (!IMPLIED_END.contains(name)) {
+                return;
+            }
+
+            for (int i = open.size() - 1; i >= 0; i--) {
+                String other = open.get(i).name;
+                if (other.equals(name)) {
+                    close(i);
+                    return;
+                }
+                if (CONTAINERS.contains(other)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Tries the rules indexed by each class of an element that just opened,
+         * once per class even if it is listed twice.
+         *
+         * @param element the element
+         * @param empty   whether the element has no content
+         * @param html    the page
+         * @param start   the start of its start tag
+         * @param end     the end of its start tag
+         */
+        private void tryClassRules(Element element, boolean empty, String html, int start, int end) {
+            String classes = element.classes();
+            int i = 0;
+            while (i < classes.length()) {
+                if (Character.isWhitespace(classes.charAt(i))) {
+                    i++;
+                    continue;
+                }
+
+                int nameEnd = i;
+                while (nameEnd < classes.length() && !Character.isWhitespace(classes.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+
+                String name = classes.substring(i, nameEnd);
+                if (indexOfClass(classes, name) == i) {
+                    tryRules(site.byClass.get(name), element, empty, html, start, end);
+                }
+                i = nameEnd;
+            }
+        }
+
+        /**
+         * Tries rules against an element that just opened.
+         *
+         * @param rules   the rules to try, or {@code null}
+         * @param element the element
+         * @param empty   whether the element has no content
+         * @param html    the page
+         * @param start   the start of its start tag
+         * @param end     the end of its start tag
+         */
+        private void tryRules(List<Rule> rules, Element element, boolean empty, String html, int start, int end) {
+            if (rules == null) {
+                return;
+            }
+
+            for (Rule rule : rules) {
+                if (!matches(rule.steps(), element, empty ? open.size() : open.size() - 1)) {
+                    continue;
+                }
+
+                if (rule.attribute() != null) {
+                    String value = HtmlTokenizer.attribute(html, start, end, rule.attribute());
+                    if (value != null) {
+                        add(rule.field(), clean(value));
+                    }
+                } else if (!empty) {
+                    captures.add(new Capture(rule.field(), open.size()));
+                }
+            }
+        }
+
+        /**
+         * Tests a selector against an element and the open elements around it.
+         * Each earlier step must match some ancestor above the one matched by the
+         * step after it, so matching the nearest ancestor first never misses.
+         *
+         * @param steps     the selector
+         * @param element   the element
+         * @param ancestors the number of open elements that are its ancestors
+         * @return {@code true} if the selector matches
+         */
+        private boolean matches(Step[] steps, Element element, int ancestors) {
+            int s = steps.length - 1;
+            if (!steps[s].matches(element)) {
+                return false;
+            }
+
+            s--;
+            for (int i = ancestors - 1; i >= 0 && s >= 0; i--) {
+                if (steps[s].matches(open.get(i))) {
+                    s--;
+                }
+            }
+            return s < 0;
+        }
+
+        /**
+         * Closes an open element and every element opened inside it, finishing
+         * their values.
+         *
+         * @param index the position of the element in the stack
+         */
+        private void close(int index) {
+            while (open.size() > index) {
+                open.remove(open.size() - 1);
+            }
+
+            for (int i = captures.size() - 1; i >= 0; i--) {
+                Capture capture = captures.get(i);
+                if (capture.depth > index) {
+                    captures.remove(i);
+                    add(capture.field, clean(capture.text.toString()));
+                }
+            }
+        }
+
+        /**
+         * Finishes the values of elements never closed and returns every field.
+         *
+         * @return the values of each field, in page order
+         */
+        private Map<String, List<String>> finish() {
+            List<Capture> unclosed = new ArrayList<>(captures);
+            captures.clear();
+            for (Capture capture : unclosed) {
+                add(capture.field, clean(capture.text.toString()));
+            }
+            return fields;
+        }
+
+        /**
+         * Adds a value to a field.
+         *
+         * @param field the field
+         * @param value the value
+         */
+        private void add(String field, String value) {
+            fields.computeIfAbsent(field, key -> new ArrayList<>()).add(value);
+        }
+    }
+
+    private final List<Site> sites;
+
+    /**
+     * Compiles rules.
+     *
+     * @param lines the rules, one per line
+     * @throws IllegalArgumentException if a rule cannot be parsed
+     */
+    public ExtractionRules(List<String> lines) {
+        this.sites = new ArrayList<>();
+        Site site = null;
+
+        for (String line : lines) {
+            String rule = COMMENT.matcher(line).replaceFirst("").strip();
+            if (rule.isEmpty() || rule.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = rule.split("\\s+");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Invalid extraction rule: " + line);
+            }
+
+            if (parts[0].equals("site")) {
+                site = new Site(Arrays.copyOfRange(parts, 1, parts.length));
+                sites.add(site);
+                continue;
+            }
+
+            if (site == null) {
+                throw new IllegalArgumentException("Expected a site before: " + line);
+            }
+            if (!FIELDS.contains(parts[0])) {
+                throw new IllegalArgumentException("Unknown field: " + line);
+            }
+
+            int last = parts.length;
+            String attribute = null;
+            if (parts[last - 1].startsWith("@")) {
+                attribute = parts[--last].substring(1).toLowerCase(Locale.ROOT);
+                if (attribute.isEmpty() || last < 2) {
+                    throw new IllegalArgumentException("Invalid extraction rule: " + line);
+                }
+            }
+
+            Step[] steps = new Step[last - 1];
+            for (int i = 1; i < last; i++) {
+                steps[i - 1] = parseStep(parts[i], line);
+            }
+            site.add(new Rule(parts[0], steps, attribute));
+        }
+    }
+
+    /**
+     * Reads and compiles rules from a file.
+     *
+     * @param path the rules file
+     * @return the compiled rules
+     * @throws IOException if the file cannot be read
+     */
+    public static ExtractionRules read(Path path) throws IOException {
+        return new ExtractionRules(Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Extracts a recipe page like
+     * {@link RecipeExtractor#extract(String)}, using the rules of the page's
+     * site if there are any.
+     *
+     * @param html   valid HTML text
+     * @param uri    the URI of the page
+     * @param budget the budget of the page, for {@link RecipeExtractor}
+     * @return the recipe
+     */
+    public Recipe extract(String html, URI uri, MatchBudget budget) {
+        Site site = site(uri);
+        return site == null ? RecipeExtractor.extract(html, budget) : extract(html, site);
+    }
+
+    /**
+     * Extracts a recipe page fetched as UTF-8 bytes like
+     * {@link #extract(String, URI, MatchBudget)}. The page is only decoded if
+     * its site has rules.
+     *
+     * @param html   the UTF-8 bytes of the page
+     * @param uri    the URI of the page
+     * @param budget the budget of the page, for {@link RecipeExtractor}
+     * @return the recipe
+     */
+    public Recipe extract(Utf8Text html, URI uri, MatchBudget budget) {
+        Site site = site(uri);
+        return site == null ? RecipeExtractor.extract(html, budget) : extract(html.decode(), site);
+    }
+
+    /**
+     * Finds the site a page belongs to.
+     *
+     * @param uri the URI of the page
+     * @return the first site whose host globs match, or {@code null} if none do
+     */
+    private Site site(URI uri) {
+        String host = uri.getHost() == null ? "" : uri.getHost();
+        for (Site site : sites) {
+            if (site.matches(host)) {
+                return site;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extracts a page with the rules of its site.
+     *
+     * @param html the page
+     * @param site the site
+     * @return the recipe
+     */
+    private static Recipe extract(String html, Site site) {
+        Extraction extraction = new Extraction(site);
+        HtmlTokenizer.tokenize(html, SKIPPED, extraction);
+        return toRecipe(extraction.finish());
+    }
+
+    /**
+     * Builds a recipe from extracted fields.
+     *
+     * @param fields the values of each field
+     * @return the recipe
+     */
+    private static Recipe toRecipe(Map<String, List<String>> fields) {
+        List<String> numbers = RecipeExtractor.infoNumbers(first(fields, "info", null));
+        String servingSize = first(fields, "serving_size", numbers.size() >= 2 ? numbers.get(0) : "");
+        String time = first(fields, "time", numbers.size() >= 2 ? numbers.get(1) : "");
+
+        List<String> names = fields.getOrDefault("ingredient", List.of());
+        List<String> quantities = fields.getOrDefault("quantity", List.of());
+        List<String> ingredients = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            ingredients.add(i < quantities.size() ? names.get(i) + " " + quantities.get(i) : names.get(i));
+        }
+
+        return Recipe.of(first(fields, "title", ""), servingSize, time, ingredients,
+                fields.getOrDefault("step", List.of()), fields.getOrDefault("image", List.of()));
+    }
+
+    /**
+     * Returns the first value of a field.
+     *
+     * @param fields       the values of each field
+     * @param field        the field
+     * @param defaultValue the value to return if the field has none
+     * @return the first value or the default
+     */
+    private static String first(Map<String, List<String>> fields, String field, String defaultValue) {
+        List<String> values = fields.get(field);
+        return values == null || values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    /**
+     * Finds a class in the value of a class attribute.
+     *
+     * @param classes the value of the class attribute
+     * @param name    the class name
+     * @return the position of the first time it is listed, or -1 if it is not
+     */
+    private static int indexOfClass(String classes, String name) {
+        int i = classes.indexOf(name);
+        while (i >= 0) {
+            int end = i + name.length();
+            if ((i == 0 || Character.isWhitespace(classes.charAt(i - 1)))
+                    && (end == classes.length() || Character.isWhitespace(classes.charAt(end)))) {
+                return i;
+            }
+            i = classes.indexOf(name, i + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Parses one element of a selector, like {@code div.a#b}.
+     *
+     * @param text the element
+     * @param line the rule, for errors
+     * @return the parsed element
+     */
+    private static Step parseStep(String text, String line) {
+        String tag = null;
+        String id = null;
+        List<String> classes = new ArrayList<>();
+
+        int i = 0;
+        while (i < text.length()) {
+            char kind = text.charAt(i);
+            int start = kind == '.' || kind == '#' ? i + 1 : i;
+            int end = start;
+            while (end < text.length() && text.charAt(end) != '.' && text.charAt(end) != '#') {
+                end++;
+            }
+
+            String name = text.substring(start, end);
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Invalid selector: " + line);
+            }
+
+            if (kind == '.') {
+                classes.add(name);
+            } else if (kind == '#') {
+                id = name;
+            } else if (i == 0) {
+                tag = name.equals("*") ? null : name.toLowerCase(Locale.ROOT);
+            } else {
+                throw new IllegalArgumentException("Invalid selector: " + line);
+            }
+            i = end;
+        }
+
+        return new Step(tag, id, classes.toArray(new String[0]));
+    }
+
+    /**
+     * Turns raw text into a value: entities are decoded, whitespace around line
+     * breaks is removed and other runs of whitespace become one space.
+     *
+     * @param text the raw text
+     * @return the cleaned value
+     */
+    private static String clean(String text) {
+        text = HtmlCleaner.stripEntities(text);
+
+        StringBuilder value = new StringBuilder(text.length());
+        boolean space = false;
+        boolean newline = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                newline = true;
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if (newline && !value.isEmpty()) {
+                    value.append('\n');
+                } else if (space && !value.isEmpty()) {
+                    value.append(' ');
+                }
+                value.append(c);
+                space = false;
+                newline = false;
+            }
+        }
+
+        return value.toString();
+    }
+}
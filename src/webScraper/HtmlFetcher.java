@@ -1,13 +1,23 @@
 package webScraper;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.net.InetAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import java.util.List;
 import java.util.Map;
@@ -131,6 +141,38 @@ public class HtmlFetcher {
 	 * @see #getRedirect(Map)
 	 */
 	public static String fetch(URI uri, int redirects) {
+		return fetch(uri, redirects, null);
+	}
+
+	/**
+	 * Fetches HTML like {@link #fetch(URI, int)}, feeding the body to a link
+	 * extractor line by line as it is read, so links are found before the whole
+	 * page has arrived.
+	 *
+	 * @param uri       the URI to fetch
+	 * @param redirects the number of times to follow redirects
+	 * @param links     the extractor to feed the body to, or {@code null}
+	 * @return the HTML or {@code null} if unable to fetch valid HTML
+	 *
+	 * @see #fetch(URI, int)
+	 */
+	public static String fetch(URI uri, int redirects, StreamingLinkExtractor links) {
+		return fetch(uri, redirects, links, null);
+	}
+
+	/**
+	 * Fetches HTML like {@link #fetch(URI, int, StreamingLinkExtractor)}, looking
+	 * up hosts in the given cache instead of resolving them for every request.
+	 *
+	 * @param uri       the URI to fetch
+	 * @param redirects the number of times to follow redirects
+	 * @param links     the extractor to feed the body to, or {@code null}
+	 * @param dns       the cache to look up hosts in, or {@code null}
+	 * @return the HTML or {@code null} if unable to fetch valid HTML
+	 *
+	 * @see HttpsFetcher#openConnection(URI, java.net.InetAddress)
+	 */
+	public static String fetch(URI uri, int redirects, StreamingLinkExtractor links, DnsCache dns) {
 		// Check if the URI has a valid scheme
 		if (!isValidURL(uri)) {
 			return null;
@@ -143,7 +185,8 @@ public class HtmlFetcher {
 		try {
 			while (remainingRedirects >= 0) {
 				try (// create socket and open connection using the uri
-						Socket socket = HttpsFetcher.openConnection(currentUri);
+						Socket socket = dns == null ? HttpsFetcher.openConnection(currentUri)
+								: HttpsFetcher.openConnection(currentUri, dns.resolve(currentUri.getHost()));
 						PrintWriter request = new PrintWriter(socket.getOutputStream());
 						InputStreamReader input = new InputStreamReader(socket.getInputStream(), UTF_8);
 						BufferedReader response = new BufferedReader(input);) {
@@ -163,7 +206,11 @@ public class HtmlFetcher {
 						StringBuilder sb = new StringBuilder();
 						String line;
 						while ((line = response.readLine()) != null) {
+							int start = sb.length();
 							sb.append(line).append(System.lineSeparator());
+							if (links != null) {
+								links.feed(sb, start, sb.length());
+							}
 						}
 						html = sb.toString();
 						break; // Successfully fetched HTML
@@ -186,6 +233,326 @@ public class HtmlFetcher {
 		return html;
 	}
 
+	/**
+	 * Fetches HTML like {@link #fetch(URI, int, StreamingLinkExtractor, DnsCache)}
+	 * but returns the body as the bytes received instead of decoding it, so the
+	 * page can be extracted without a copy of it as a {@link String}. The body is
+	 * fed to the link extractor as bytes as it arrives.
+	 *
+	 * <p>
+	 * A chunked body is decoded as it is read. A page in a charset other than
+	 * UTF-8, as given by its content type, is converted to UTF-8 once it has
+	 * arrived, and only then fed to the link extractor. Pages in a charset Java
+	 * does not support, or with another transfer coding, are not fetched.
+	 *
+	 * @param uri       the URI to fetch
+	 * @param redirects the number of times to follow redirects
+	 * @param links     the extractor to feed the body to, or {@code null}
+	 * @param dns       the cache to look up hosts in, or {@code null}
+	 * @return the UTF-8 bytes of the HTML or {@code null} if unable to fetch
+	 *         valid HTML
+	 *
+	 * @see Utf8Text
+	 * @see #getCharset(Map)
+	 */
+	public static byte[] fetchBytes(URI uri, int redirects, StreamingLinkExtractor links, DnsCache dns) {
+		return fetchBytes(uri, redirects, links, dns, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Fetches HTML as bytes like
+	 * {@link #fetchBytes(URI, int, StreamingLinkExtractor, DnsCache)}, giving up
+	 * once the deadline has passed. Connecting and every read wait no longer than
+	 * {@link HttpsFetcher#TIMEOUT_MILLIS} or the time left, whichever is shorter,
+	 * so a server that stops answering cannot hold the fetch past the deadline.
+	 *
+	 * @param uri            the URI to fetch
+	 * @param redirects      the number of times to follow redirects
+	 * @param links          the extractor to feed the body to, or {@code null}
+	 * @param dns            the cache to look up hosts in, or {@code null}
+	 * @param deadlineMillis when to give up, as a {@link System#currentTimeMillis()}
+	 *                       time, or {@link Long#MAX_VALUE} for no deadline
+	 * @return the UTF-8 bytes of the HTML or {@code null} if unable to fetch
+	 *         valid HTML in time
+	 */
+	public static byte[] fetchBytes(URI uri, int redirects, StreamingLinkExtractor links, DnsCache dns,
+			long deadlineMillis) {
+		if (!isValidURL(uri)) {
+			return null;
+		}
+
+		URI currentUri = uri;
+		int remainingRedirects = redirects;
+
+		byte[] html = null;
+		try {
+			while (remainingRedirects >= 0) {
+				InetAddress address = dns == null ? InetAddress.getByName(currentUri.getHost())
+						: dns.resolve(currentUri.getHost());
+				try (Socket socket = HttpsFetcher.openConnection(currentUri, address, timeout(deadlineMillis));
+						PrintWriter request = new PrintWriter(socket.getOutputStream());
+						InputStream response = new BufferedInputStream(
+								new DeadlineInputStream(socket, deadlineMillis));) {
+					HttpsFetcher.printGetRequest(request, currentUri);
+
+					// headers are read up to the blank line so the body stays in the stream
+					Map<String, List<String>> headers = HttpsFetcher
+							.processHttpHeaders(new BufferedReader(new StringReader(readHeaders(response))));
+
+					int statusCode = getStatusCode(headers);
+
+					if (isHtml(headers) && statusCode == 200) {
+						Charset charset = getCharset(headers);
+						boolean chunked = isChunked(headers);
+						if (charset == null || !chunked && headers.containsKey("transfer-encoding")) {
+							System.err.println("Unsupported encoding: " + headers.get("content-type").get(0) + " "
+									+ headers.getOrDefault("transfer-encoding", List.of()));
+							break;
+						}
+
+						// a page in another charset is only fed to the extractor once it is converted
+						boolean utf8 = charset.equals(UTF_8) || charset.equals(US_ASCII);
+						StreamingLinkExtractor feed = utf8 ? links : null;
+						byte[] body = chunked ? readChunkedBody(response, feed) : readBody(response, feed);
+
+						if (!utf8) {
+							body = new String(body, charset).getBytes(UTF_8);
+							if (links != null) {
+								links.feed(body, 0, body.length);
+							}
+						}
+						html = body;
+						break;
+					} else if (getRedirect(headers) != null && remainingRedirects > 0) {
+						currentUri = new URI(getRedirect(headers));
+						remainingRedirects--;
+						System.out.println("Redirecting to: " + currentUri);
+					} else {
+						break;
+					}
+				}
+			}
+		} catch (IOException | URISyntaxException e) {
+			System.err.println("Error fetching URL: " + e.getMessage());
+		}
+		if (html == null) {
+			System.err.println("Failed to fetch valid HTML content from URL: " + uri);
+		}
+
+		return html;
+	}
+
+	/**
+	 * Returns how long the next connect or read may wait.
+	 *
+	 * @param deadlineMillis when to give up, as a {@link System#currentTimeMillis()}
+	 *                       time
+	 * @return the timeout, in milliseconds
+	 * @throws SocketTimeoutException if the deadline has passed
+	 */
+	private static int timeout(long deadlineMillis) throws SocketTimeoutException {
+		long remaining = deadlineMillis - System.currentTimeMillis();
+		if (remaining <= 0) {
+			throw new SocketTimeoutException("Deadline passed");
+		}
+		return (int) Math.min(HttpsFetcher.TIMEOUT_MILLIS, remaining);
+	}
+
+	/**
+	 * Reads from a socket, shortening its read timeout before every read so that
+	 * no read waits past the deadline.
+	 */
+	private static class DeadlineInputStream extends FilterInputStream {
+		private final Socket socket;
+		private final long deadlineMillis;
+
+		/**
+		 * Wraps the input of a socket.
+		 *
+		 * @param socket         the socket to read from
+		 * @param deadlineMillis when to give up, as a
+		 *                       {@link System#currentTimeMillis()} time
+		 * @throws IOException if unable to get the socket's input
+		 */
+		private DeadlineInputStream(Socket socket, long deadlineMillis) throws IOException {
+			super(socket.getInputStream());
+			this.socket = socket;
+			this.deadlineMillis = deadlineMillis;
+		}
+
+		@Override
+		public int read() throws IOException {
+			socket.setSoTimeout(timeout(deadlineMillis));
+			return super.read();
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			socket.setSoTimeout(timeout(deadlineMillis));
+			return super.read(buffer, offset, length);
+		}
+	}
+
+	/**
+	 * Returns the charset given by the "content-type" header, or UTF-8 if it does
+	 * not give one.
+	 *
+	 * @param headers the HTTP/1.1 headers to parse
+	 * @return the charset, or {@code null} if it is not supported
+	 *
+	 * @see HttpsFetcher#processHttpHeaders(BufferedReader)
+	 */
+	public static Charset getCharset(Map<String, List<String>> headers) {
+		if (!headers.containsKey("content-type")) {
+			return UTF_8;
+		}
+
+		for (String parameter : headers.get("content-type").get(0).split(";")) {
+			String[] split = parameter.strip().split("\\s*=\\s*", 2);
+			if (split.length == 2 && split[0].equalsIgnoreCase("charset")) {
+				String name = split[1].replace("\"", "");
+				try {
+					return Charset.forName(name);
+				} catch (IllegalArgumentException e) {
+					return null;
+				}
+			}
+		}
+		return UTF_8;
+	}
+
+	/**
+	 * Returns {@code true} if and only if the "transfer-encoding" header is
+	 * "chunked" (case-insensitive), the only transfer coding that is decoded.
+	 *
+	 * @param headers the HTTP/1.1 headers to parse
+	 * @return {@code true} if the body is chunked
+	 *
+	 * @see HttpsFetcher#processHttpHeaders(BufferedReader)
+	 */
+	public static boolean isChunked(Map<String, List<String>> headers) {
+		List<String> encoding = headers.get("transfer-encoding");
+		return encoding != null && encoding.size() == 1 && encoding.get(0).strip().equalsIgnoreCase("chunked");
+	}
+
+	/**
+	 * Reads a body up to the end of the stream.
+	 *
+	 * @param response the response stream, after the headers
+	 * @param links    the extractor to feed the body to, or {@code null}
+	 * @return the body
+	 * @throws IOException if unable to read from the stream
+	 */
+	private static byte[] readBody(InputStream response, StreamingLinkExtractor links) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = response.read(buffer)) >= 0) {
+			body.write(buffer, 0, read);
+			if (links != null) {
+				links.feed(buffer, 0, read);
+			}
+		}
+		return body.toByteArray();
+	}
+
+	/**
+	 * Reads a chunked body: each chunk is its size in hex on a line of its own,
+	 * followed by that many bytes and a line break, and a chunk of size 0 ends
+	 * the body. Chunk extensions and trailers are ignored.
+	 *
+	 * @param response the response stream, after the headers
+	 * @param links    the extractor to feed the body to, or {@code null}
+	 * @return the body without the chunk sizes
+	 * @throws IOException if unable to read from the stream or the body is not
+	 *                     validly chunked
+	 */
+	private static byte[] readChunkedBody(InputStream response, StreamingLinkExtractor links) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+
+		while (true) {
+			String line = readLine(response);
+			if (line == null) {
+				throw new IOException("Chunked body ended early");
+			}
+
+			int semicolon = line.indexOf(';');
+			long size;
+			try {
+				size = Long.parseLong((semicolon < 0 ? line : line.substring(0, semicolon)).strip(), 16);
+			} catch (NumberFormatException e) {
+				size = -1;
+			}
+			if (size < 0) {
+				throw new IOException("Invalid chunk size: " + line);
+			}
+			if (size == 0) {
+				return body.toByteArray();
+			}
+
+			while (size > 0) {
+				int read = response.read(buffer, 0, (int) Math.min(buffer.length, size));
+				if (read < 0) {
+					throw new IOException("Chunked body ended early");
+				}
+				body.write(buffer, 0, read);
+				if (links != null) {
+					links.feed(buffer, 0, read);
+				}
+				size -= read;
+			}
+
+			// the line break after the chunk
+			readLine(response);
+		}
+	}
+
+	/**
+	 * Reads one line of a response, without its line break.
+	 *
+	 * @param response the response stream
+	 * @return the line, decoded as ISO-8859-1, or {@code null} at the end of the
+	 *         stream
+	 * @throws IOException if unable to read from the stream
+	 */
+	private static String readLine(InputStream response) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+		while ((b = response.read()) >= 0 && b != '\n') {
+			if (b != '\r') {
+				line.write(b);
+			}
+		}
+		return b < 0 && line.size() == 0 ? null : line.toString(ISO_8859_1);
+	}
+
+	/**
+	 * Reads the status line and headers of a response, up to and including the
+	 * blank line after them.
+	 *
+	 * @param response the response stream
+	 * @return the headers, decoded as ISO-8859-1
+	 * @throws IOException if unable to read from the stream
+	 */
+	private static String readHeaders(InputStream response) throws IOException {
+		ByteArrayOutputStream headers = new ByteArrayOutputStream();
+		int lineLength = 0;
+		int b;
+		while ((b = response.read()) >= 0) {
+			headers.write(b);
+			if (b == '\n') {
+				if (lineLength == 0) {
+					break;
+				}
+				lineLength = 0;
+			} else if (b != '\r') {
+				lineLength++;
+			}
+		}
+		return headers.toString(ISO_8859_1);
+	}
+
 	/**
 	 * Converts the {@link String} into a {@link URI} object and then calls
 	 * {@link #fetch(URI, int)}.
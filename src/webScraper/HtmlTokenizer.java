@@ -0,0 +1,391 @@
+package webScraper;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits HTML into text, start tags, end tags and comments in one pass from
+ * start to end. Events point into the page instead of copying it, and whole
+ * elements whose content is never text, like scripts and styles, are skipped
+ * without reporting anything inside them.
+ *
+ * <p>
+ * Markup is recognized the same way as the patterns in {@link HtmlCleaner}:
+ * a comment runs from {@code <!--} to the next {@code -->}, a tag from
+ * {@code <} to the next {@code >} with no {@code <} in between, and a skipped
+ * element from its start tag to the first matching end tag. A {@code <} that
+ * starts none of these is text, and so is a comment or skipped element that is
+ * never closed, apart from its tags.
+ */
+public class HtmlTokenizer {
+    /**
+     * Receives the pieces of a page in order.
+     */
+    public interface Handler {
+        /**
+         * Receives text between markup, from start (inclusive) to end
+         * (exclusive). Entities are not decoded.
+         *
+         * @param html  the page
+         * @param start the start of the text
+         * @param end   the end of the text
+         */
+        void text(String html, int start, int end);
+
+        /**
+         * Receives a start tag, from its {@code <} (inclusive) to after its
+         * {@code >} (exclusive).
+         *
+         * @param name  the lowercase tag name
+         * @param html  the page
+         * @param start the start of the tag
+         * @param end   the end of the tag
+         */
+        default void startTag(String name, String html, int start, int end) {
+        }
+
+        /**
+         * Receives an end tag.
+         *
+         * @param name the lowercase tag name
+         */
+        default void endTag(String name) {
+        }
+
+        /**
+         * Receives the inside of a comment, without {@code <!--} and
+         * {@code -->}.
+         *
+         * @param html  the page
+         * @param start the start of the comment text
+         * @param end   the end of the comment text
+         */
+        default void comment(String html, int start, int end) {
+        }
+    }
+
+    /** The elements skipped by default, as in {@link HtmlCleaner#stripBlockElements(String)}. */
+    public static final Set<String> SKIPPED = Set.of("head", "style", "script", "noscript", "iframe", "svg");
+
+    private final String html;
+    private final Set<String> skipped;
+    private final Handler handler;
+
+    /** The start of the text not yet passed to the handler. */
+    private int text;
+
+    /** The position after which no comment is closed, so none need be looked for. */
+    private int lastCommentEnd;
+
+    /** The skipped elements not closed after this point. */
+    private final Set<String> unclosed;
+
+    /**
+     * Creates a tokenizer for one page.
+     *
+     * @param html    the page
+     * @param skipped the lowercase names of the elements to skip
+     * @param handler the handler to pass the pieces to
+     */
+    private HtmlTokenizer(String html, Set<String> skipped, Handler handler) {
+        this.html = html;
+        this.skipped = skipped;
+        this.handler = handler;
+        this.unclosed = new HashSet<>();
+        this.lastCommentEnd = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Passes the pieces of a page to the handler, skipping the elements in
+     * {@link #SKIPPED}.
+     *
+     * @param html    the page
+     * @param handler the handler to pass the pieces to
+     */
+    public static void tokenize(String html, Handler handler) {
+        tokenize(html, SKIPPED, handler);
+    }
+
+    /**
+     * Passes the pieces of a page to the handler.
+     *
+     * @param html    the page
+     * @param skipped the lowercase names of the elements to skip
+     * @param handler the handler to pass the pieces to
+     */
+    public static void tokenize(String html, Set<String> skipped, Handler handler) {
+        new HtmlTokenizer(html, skipped, handler).run();
+    }
+
+    /**
+     * Scans the page from start to end. Every search only looks ahead as far as
+     * the next {@code <}, or is done at most once per kind when it fails, so the
+     * scan is linear in the length of the page.
+     */
+    private void run() {
+        int i = html.indexOf('<');
+
+        while (i >= 0) {
+            int next = comment(i);
+            if (next < 0) {
+                next = skippedElement(i);
+            }
+            if (next < 0) {
+                next = tag(i);
+            }
+
+            i = html.indexOf('<', next < 0 ? i + 1 : next);
+        }
+
+        flush(html.length());
+    }
+
+    /**
+     * Reads a comment starting at the given {@code <}.
+     *
+     * @param start the position of the {@code <}
+     * @return the position after the comment, or -1 if there is none
+     */
+    private int comment(int start) {
+        if (start + 4 >= lastCommentEnd || !html.startsWith("<!--", start)) {
+            return -1;
+        }
+
+        int close = html.indexOf("-->", start + 4);
+        if (close < 0) {
+            lastCommentEnd = start + 4;
+            return -1;
+        }
+
+        flush(start);
+        handler.comment(html, start + 4, close);
+        text = close + 3;
+        return text;
+    }
+
+    /**
+     * Reads a whole skipped element starting at the given {@code <}.
+     *
+     * @param start the position of the {@code <}
+     * @return the position after the element's end tag, or -1 if there is no
+     *         closed skipped element
+     */
+    private int skippedElement(int start) {
+        int nameStart = skipWhitespace(start + 1);
+        int nameEnd = nameStart;
+        while (nameEnd < html.length() && isWordChar(html.charAt(nameEnd))) {
+            nameEnd++;
+        }
+
+        String name = null;
+        for (String candidate : skipped) {
+            if (candidate.length() == nameEnd - nameStart
+                    && html.regionMatches(true, nameStart, candidate, 0, candidate.length())) {
+                name = candidate;
+                break;
+            }
+        }
+
+        if (name == null || unclosed.contains(name)) {
+            return -1;
+        }
+
+        int openEnd = html.indexOf('>', nameEnd);
+        int end = openEnd < 0 ? -1 : endTag(name, openEnd + 1);
+        if (end < 0) {
+            unclosed.add(name);
+            return -1;
+        }
+
+        flush(start);
+        text = end;
+        return end;
+    }
+
+    /**
+     * Finds the first end tag of a skipped element, ignoring any inside
+     * comments.
+     *
+     * @param name the lowercase element name
+     * @param from the position to search from
+     * @return the position after the end tag, or -1 if there is none
+     */
+    private int endTag(String name, int from) {
+        int i = html.indexOf('<', from);
+
+        while (i >= 0) {
+            if (i + 4 < lastCommentEnd && html.startsWith("<!--", i)) {
+                int close = html.indexOf("-->", i + 4);
+                if (close >= 0) {
+                    i = html.indexOf('<', close + 3);
+                    continue;
+                }
+                lastCommentEnd = i + 4;
+            }
+
+            if (i + 1 < html.length() && html.charAt(i + 1) == '/') {
+                int nameStart = skipWhitespace(i + 2);
+                if (html.regionMatches(true, nameStart, name, 0, name.length())) {
+                    int close = skipWhitespace(nameStart + name.length());
+                    if (close < html.length() && html.charAt(close) == '>') {
+                        return close + 1;
+                    }
+                }
+            }
+
+            i = html.indexOf('<', i + 1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Reads a tag starting at the given {@code <}.
+     *
+     * @param start the position of the {@code <}
+     * @return the position after the tag, or -1 if the {@code <} is text
+     */
+    private int tag(int start) {
+        int end = start + 1;
+        while (end < html.length() && html.charAt(end) != '>' && html.charAt(end) != '<') {
+            end++;
+        }
+
+        if (end == start + 1 || end == html.length() || html.charAt(end) == '<') {
+            return -1;
+        }
+
+        flush(start);
+        text = end + 1;
+
+        int nameStart = skipWhitespace(start + 1);
+        boolean closing = nameStart < end && html.charAt(nameStart) == '/';
+        if (closing) {
+            nameStart = skipWhitespace(nameStart + 1);
+        }
+
+        int nameEnd = nameStart;
+        while (nameEnd < end && (isWordChar(html.charAt(nameEnd)) || html.charAt(nameEnd) == '-'
+                || html.charAt(nameEnd) == ':')) {
+            nameEnd++;
+        }
+
+        // declarations like <!DOCTYPE html> and processing instructions have no name
+        if (nameEnd > nameStart) {
+            String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+            if (closing) {
+                handler.endTag(name);
+            } else {
+                handler.startTag(name, html, start, end + 1);
+            }
+        }
+
+        return end + 1;
+    }
+
+    /**
+     * Reads the value of an attribute of a tag passed to
+     * {@link Handler#startTag(String, String, int, int)}. Values may be double
+     * quoted, single quoted or unquoted, and entities in them are not decoded.
+     *
+     * @param html  the page
+     * @param start the start of the tag
+     * @param end   the end of the tag
+     * @param name  the lowercase attribute name
+     * @return the value, an empty string if the attribute has none, or
+     *         {@code null} if the tag does not have the attribute
+     */
+    public static String attribute(String html, int start, int end, String name) {
+        // skip the < and the tag name
+        int i = start + 1;
+        while (i < end && !Character.isWhitespace(html.charAt(i)) && html.charAt(i) != '>') {
+            i++;
+        }
+
+        while (i < end) {
+            char c = html.charAt(i);
+            if (Character.isWhitespace(c) || c == '/' || c == '>') {
+                i++;
+                continue;
+            }
+
+            int nameStart = i;
+            while (i < end && "=/> \t\n\r\f".indexOf(html.charAt(i)) < 0) {
+                i++;
+            }
+            int nameEnd = i;
+
+            while (i < end && Character.isWhitespace(html.charAt(i))) {
+                i++;
+            }
+
+            int valueStart = i;
+            int valueEnd = i;
+            if (i < end && html.charAt(i) == '=') {
+                i++;
+                while (i < end && Character.isWhitespace(html.charAt(i))) {
+                    i++;
+                }
+
+                char quote = i < end ? html.charAt(i) : 0;
+                if (quote == '"' || quote == '\'') {
+                    valueStart = i + 1;
+                    valueEnd = html.indexOf(quote, valueStart);
+                    if (valueEnd < 0 || valueEnd > end) {
+                        valueEnd = end - 1;
+                    }
+                    i = valueEnd + 1;
+                } else {
+                    valueStart = i;
+                    while (i < end && !Character.isWhitespace(html.charAt(i)) && html.charAt(i) != '>') {
+                        i++;
+                    }
+                    valueEnd = i;
+                }
+            }
+
+            if (nameEnd - nameStart == name.length() && html.regionMatches(true, nameStart, name, 0, name.length())) {
+                return html.substring(valueStart, valueEnd);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Passes the text before the given position to the handler, if there is any.
+     *
+     * @param end the end of the text
+     */
+    private void flush(int end) {
+        if (end > text) {
+            handler.text(html, text, end);
+        }
+        text = end;
+    }
+
+    /**
+     * Returns the position of the first non-whitespace character at or after
+     * the given one.
+     *
+     * @param i the position to start at
+     * @return the first non-whitespace position, or the length of the page
+     */
+    private int skipWhitespace(int i) {
+        while (i < html.length() && Character.isWhitespace(html.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks whether a character is a word character, as in {@code \w}.
+     *
+     * @param c the character
+     * @return {@code true} if it is a letter, digit or underscore
+     */
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+}
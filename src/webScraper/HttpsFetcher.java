@@ -7,6 +7,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -34,6 +36,12 @@ import javax.net.ssl.SSLSocketFactory;
  * @version Spring 2024
  */
 public class HttpsFetcher {
+	/**
+	 * The longest to wait for a connection or for any one read from it, in
+	 * milliseconds, so a server that stops answering cannot hold a fetch forever.
+	 */
+	public static final int TIMEOUT_MILLIS = 30_000;
+
 	/**
 	 * Fetches the headers and content for the specified URI. The content is placed
 	 * as a list of all the lines fetched under the "Content" key.
@@ -69,7 +77,8 @@ public class HttpsFetcher {
 
 	/**
 	 * Uses a {@link Socket} to open a connection to the web server associated with
-	 * the provided URI. Supports HTTP and HTTPS connections.
+	 * the provided URI. Supports HTTP and HTTPS connections. Connecting and every
+	 * read time out after {@link #TIMEOUT_MILLIS}.
 	 *
 	 * @param uri the URI to connect
 	 * @return a socket connection for that URI
@@ -89,7 +98,65 @@ public class HttpsFetcher {
 		int port = uri.getPort() < 0 ? defaultPort : uri.getPort();
 
 		SocketFactory factory = https ? SSLSocketFactory.getDefault() : SocketFactory.getDefault();
-		return factory.createSocket(host, port);
+		Socket socket = factory.createSocket();
+		try {
+			socket.connect(new InetSocketAddress(host, port), TIMEOUT_MILLIS);
+			socket.setSoTimeout(TIMEOUT_MILLIS);
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+		return socket;
+	}
+
+	/**
+	 * Opens a connection like {@link #openConnection(URI)} to an address that has
+	 * already been looked up. For HTTPS, the host name is still sent to the server
+	 * so it can pick the right certificate.
+	 *
+	 * @param uri     the URI to connect
+	 * @param address the address of the host
+	 * @return a socket connection for that URI
+	 * @throws IOException if an I/O error occurs when creating the socket
+	 */
+	public static Socket openConnection(URI uri, InetAddress address) throws IOException {
+		return openConnection(uri, address, TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * Opens a connection like {@link #openConnection(URI, InetAddress)} that gives
+	 * up on connecting, and on every read, after the given time.
+	 *
+	 * @param uri           the URI to connect
+	 * @param address       the address of the host
+	 * @param timeoutMillis the connect and read timeout, in milliseconds
+	 * @return a socket connection for that URI
+	 * @throws IOException if an I/O error occurs when creating the socket, or it
+	 *                     takes longer than the timeout to connect
+	 *
+	 * @see Socket#setSoTimeout(int)
+	 */
+	public static Socket openConnection(URI uri, InetAddress address, int timeoutMillis) throws IOException {
+		String protocol = uri.getScheme();
+		boolean https = protocol != null && protocol.equalsIgnoreCase("https");
+		int port = uri.getPort() < 0 ? (https ? 443 : 80) : uri.getPort();
+
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(address, port), timeoutMillis);
+			socket.setSoTimeout(timeoutMillis);
+			if (!https) {
+				return socket;
+			}
+
+			SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+			Socket secure = factory.createSocket(socket, uri.getHost(), port, true);
+			secure.setSoTimeout(timeoutMillis);
+			return secure;
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
 	}
 
 	/**
@@ -0,0 +1,224 @@
+package webScraper;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Crawls pages with numeric IDs, such as {@code /recipe/6912345}, by filling
+ * the IDs of a range into a URL template and fetching each page directly. No
+ * links are extracted, so this is much faster than following links when the
+ * whole catalog is needed.
+ *
+ * <p>
+ * The range is split into blocks that workers claim one at a time. Within a
+ * block, IDs are fetched in order until a run of missing pages is found; from
+ * there the worker probes ahead with a doubling stride, up to the gap
+ * threshold, instead of fetching every ID. When a probe finds a page, the
+ * worker scans back from it to the previous probe, so the start of the dense
+ * run after the gap is not lost. Runs of pages at least as long as the gap
+ * threshold are always found; shorter runs inside a gap may be skipped.
+ */
+public class IdRangeCrawler {
+    /** The placeholder in the URL template that is replaced by the ID. */
+    public static final String ID_PLACEHOLDER = "{id}";
+
+    /** The number of IDs each worker claims at a time. */
+    public static final int BLOCK_SIZE = 1000;
+
+    /** The default number of missing pages in a row that starts a gap. */
+    public static final int DEFAULT_GAP_THRESHOLD = 50;
+
+    private final String prefix;
+    private final String suffix;
+    private final InvertedIndex index;
+    private final CrawlMetrics metrics;
+    private int threads;
+    private int gapThreshold;
+
+    /**
+     * Creates a crawler for a URL template.
+     *
+     * @param template the URL with {@link #ID_PLACEHOLDER} where the ID goes
+     * @param index    the index to add pages to
+     * @throws IllegalArgumentException if the template has no placeholder
+     */
+    public IdRangeCrawler(String template, InvertedIndex index) {
+        int placeholder = template.indexOf(ID_PLACEHOLDER);
+        if (placeholder < 0) {
+            throw new IllegalArgumentException("URL template must contain " + ID_PLACEHOLDER + ": " + template);
+        }
+
+        this.prefix = template.substring(0, placeholder);
+        this.suffix = template.substring(placeholder + ID_PLACEHOLDER.length());
+        this.index = index;
+        this.metrics = new CrawlMetrics();
+        this.threads = 1;
+        this.gapThreshold = DEFAULT_GAP_THRESHOLD;
+    }
+
+    /**
+     * Sets the number of pages fetched at the same time.
+     *
+     * @param threads the number of worker threads
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the number of missing pages in a row after which IDs are probed
+     * instead of fetched one by one.
+     *
+     * @param gapThreshold the number of missing pages that starts a gap
+     */
+    public void setGapThreshold(int gapThreshold) {
+        this.gapThreshold = Math.max(1, gapThreshold);
+    }
+
+    /**
+     * Returns the metrics counted during the crawl.
+     *
+     * @return the crawl metrics
+     */
+    public CrawlMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Crawls every ID from first to last, inclusive, until the total number of
+     * pages is reached.
+     *
+     * @param first      the first ID
+     * @param last       the last ID
+     * @param totalPages the total number of pages to index
+     * @return the number of pages indexed
+     */
+    public int crawl(long first, long last, int totalPages) {
+        AtomicLong nextBlock = new AtomicLong(first);
+        AtomicInteger pages = new AtomicInteger();
+
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(() -> {
+                long start;
+                while ((start = nextBlock.getAndAdd(BLOCK_SIZE)) <= last && pages.get() < totalPages) {
+                    crawlBlock(start, Math.min(last, start + BLOCK_SIZE - 1), pages, totalPages);
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(workers)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("ID range worker failed: " + e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.println(metrics);
+        return Math.min(pages.get(), totalPages);
+    }
+
+    /**
+     * Crawls one block of IDs, skipping ahead through gaps.
+     *
+     * @param first      the first ID of the block
+     * @param last       the last ID of the block
+     * @param pages      the number of pages indexed by every worker
+     * @param totalPages the total number of pages to index
+     */
+    private void crawlBlock(long first, long last, AtomicInteger pages, int totalPages) {
+        long id = first;
+        long previous = first - 1;
+        int misses = 0;
+        long stride = 1;
+
+        while (pages.get() < totalPages) {
+            if (fetch(id, pages, totalPages)) {
+                if (id - previous > 1) {
+                    int scanned = scanBack(id - 1, previous + 1, pages, totalPages);
+                    metrics.add("ids.skipped", -scanned);
+                }
+                misses = 0;
+                stride = 1;
+            } else if (++misses >= gapThreshold) {
+                if (stride == 1) {
+                    metrics.increment("ids.gaps");
+                }
+                stride = Math.min(stride * 2, gapThreshold);
+            }
+
+            if (id >= last) {
+                break;
+            }
+
+            // always probe the last ID so a run starting near the end is found
+            previous = id;
+            id = Math.min(id + stride, last);
+            metrics.add("ids.skipped", id - previous - 1);
+        }
+    }
+
+    /**
+     * Scans back from a page found by a probe until a run of missing pages or
+     * the previous probe is reached.
+     *
+     * @param from       the ID to scan back from
+     * @param to         the ID after the previous probe
+     * @param pages      the number of pages indexed by every worker
+     * @param totalPages the total number of pages to index
+     * @return the number of IDs fetched
+     */
+    private int scanBack(long from, long to, AtomicInteger pages, int totalPages) {
+        int scanned = 0;
+        int misses = 0;
+        for (long id = from; id >= to && misses < gapThreshold && pages.get() < totalPages; id--) {
+            misses = fetch(id, pages, totalPages) ? 0 : misses + 1;
+            scanned++;
+        }
+        metrics.add("ids.scanned_back", scanned);
+        return scanned;
+    }
+
+    /**
+     * Fetches and indexes the page with the given ID. Redirects are not followed,
+     * since sites often redirect missing IDs to a listing page.
+     *
+     * @param id         the ID to fetch
+     * @param pages      the number of pages indexed by every worker
+     * @param totalPages the total number of pages to index
+     * @return {@code true} if the page exists
+     */
+    private boolean fetch(long id, AtomicInteger pages, int totalPages) {
+        URI uri = URI.create(prefix + id + suffix);
+        String html = HtmlFetcher.fetch(uri, 0);
+        metrics.increment("ids.fetched");
+
+        if (html == null) {
+            metrics.increment("ids.missing");
+            return false;
+        }
+
+        if (pages.getAndIncrement() < totalPages) {
+            if (!index.indexPage(html, uri)) {
+                metrics.increment("extract.aborted");
+            }
+            metrics.increment("pages.indexed");
+        }
+        return true;
+    }
+}
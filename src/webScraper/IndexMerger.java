@@ -0,0 +1,89 @@
+package webScraper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes and reads the index shards produced by the workers of a distributed
+ * crawl, and merges the shards into a single JSON index. Every page is crawled
+ * by exactly one worker, so the shards never overlap.
+ */
+public class IndexMerger {
+
+    /**
+     * Writes the index entries as a shard.
+     *
+     * @param htmlContent the index entries to write
+     * @param path        the shard file to write
+     * @throws IOException if an IO error occurs
+     */
+    public static void writeShard(Map<String, InvertedIndex.Entry> htmlContent, Path path) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeObject(new TreeMap<>(htmlContent));
+        }
+    }
+
+    /**
+     * Reads the index entries from a shard.
+     *
+     * @param path the shard file to read
+     * @return the index entries in the shard
+     * @throws IOException if the shard cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, InvertedIndex.Entry> readShard(Path path) throws IOException {
+        Map<String, InvertedIndex.Entry> shard;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            shard = (Map<String, InvertedIndex.Entry>) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unrecognized index shard: " + path, e);
+        }
+
+        // shards written before entries were typed hold maps instead
+        if (!InvertedIndex.isValid(shard)) {
+            throw new IOException("Unrecognized index shard: " + path);
+        }
+        return shard;
+    }
+
+    /**
+     * Merges the shards into a single index.
+     *
+     * @param shards the shard files to merge
+     * @return the merged index
+     * @throws IOException if a shard cannot be read
+     */
+    public static InvertedIndex merge(List<Path> shards) throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        for (Path shard : shards) {
+            index.addAll(readShard(shard));
+        }
+        return index;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java webScraper.IndexMerger <output.json> <shard>...");
+            System.exit(1);
+        }
+
+        Path output = Path.of(args[0]);
+        List<Path> shards = List.of(args).subList(1, args.length).stream().map(Path::of).toList();
+
+        try {
+            InvertedIndex index = merge(shards);
+            new Scraper(index).writeIndex(output);
+            System.out.println("Merged " + shards.size() + " shards into: " + output);
+        } catch (IOException e) {
+            System.err.println("Unable to merge shards: " + e.getMessage());
+        }
+    }
+}
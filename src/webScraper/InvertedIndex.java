@@ -1,96 +1,160 @@
 package webScraper;
 
+import java.io.Serializable;
 import java.net.URI;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.ArrayList;
 
 /**
- * Class to handle creation and modification of inverted index and HTML content
+ * Class to handle creation and modification of inverted index and HTML content.
+ * Access to the index is synchronized so that several crawl workers can share
+ * one index.
  */
 public class InvertedIndex {
+    /**
+     * What the index holds for a page: its recipe, or the page it duplicates.
+     */
+    public sealed interface Entry extends Serializable permits Recipe, Duplicate {
+    }
 
-    private final TreeMap<String, Map<String, Object>> invertedIndex;
+    /**
+     * Marks a page as a near-duplicate of another page.
+     *
+     * @param original the location of the page it duplicates
+     */
+    public record Duplicate(String original) implements Entry {
+    }
+
+    private final TreeMap<String, Entry> invertedIndex;
+    private volatile ExtractionRules extractionRules;
 
     public InvertedIndex() {
         this.invertedIndex = new TreeMap<>();
     }
 
-    public Map<String, Map<String, Object>> getHtmlContentMap() {
+    /**
+     * Extracts the recipes of the sites listed in the given rules with those
+     * rules instead of {@link RecipeExtractor}, when a page has no JSON-LD
+     * recipe.
+     *
+     * @param extractionRules the compiled rules, or {@code null} for none
+     */
+    public void setExtractionRules(ExtractionRules extractionRules) {
+        this.extractionRules = extractionRules;
+    }
+
+    public Map<String, Entry> getHtmlContentMap() {
         return Collections.unmodifiableMap(this.invertedIndex);
     }
 
-    public boolean hasLocation(String location) {
+    /**
+     * Copies the index. Only the map is copied; the per-page entries are never
+     * modified once added and are shared.
+     *
+     * @return a copy of the index
+     */
+    public synchronized Map<String, Entry> copy() {
+        return new TreeMap<>(this.invertedIndex);
+    }
+
+    public synchronized boolean hasLocation(String location) {
         return this.invertedIndex.containsKey(location);
     }
 
-    public Map<String, Object> getHtmlContent(String location) {
+    public synchronized Entry getHtmlContent(String location) {
         return this.invertedIndex.get(location);
     }
 
+    /**
+     * Adds all entries of a previously built index, such as one restored from a
+     * checkpoint.
+     *
+     * @param htmlContent the index entries to add
+     */
+    public synchronized void addAll(Map<String, Entry> htmlContent) {
+        this.invertedIndex.putAll(htmlContent);
+    }
+
+    /**
+     * Checks that entries read back from a file, whose types cannot be checked
+     * when they are cast, are all index entries.
+     *
+     * @param htmlContent the entries read
+     * @return {@code true} if every value is an {@link Entry}
+     */
+    static boolean isValid(Map<?, ?> htmlContent) {
+        for (Object entry : htmlContent.values()) {
+            if (!(entry instanceof Entry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks a page as a near-duplicate of a page already in the index, without
+     * indexing its content again.
+     *
+     * @param uri      the URI of the duplicate page
+     * @param original the location of the page it duplicates
+     */
+    public synchronized void markDuplicate(URI uri, String original) {
+        invertedIndex.put(uri.toString(), new Duplicate(original));
+    }
+
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "HTML Content:\n" + this.invertedIndex.toString();
     }
 
     /**
-     * Processes the HTML content of a page by cleaning it and adding it to the
-     * index.
+     * Processes the HTML content of a page by extracting its recipe from its
+     * JSON-LD with {@link JsonLdExtractor}, or if it has none, with the
+     * extraction rules for its site, or else with {@link RecipeExtractor}, and
+     * adding it to the index. The patterns of {@link RecipeExtractor} are
+     * matched within a {@link MatchBudget} for the page; if it runs out, what
+     * was extracted before it did is indexed.
      * 
      * @param html the HTML content to process
      * @param uri  the URI of the page
+     * @return {@code false} if matching ran out of budget, {@code true} otherwise
      */
-    public void indexPage(String html, URI uri) {
-        String title = HtmlCleaner.extractTitle(html);
-        String info = HtmlCleaner.extractInfo(html); // assuming it includes serving size and time
-        String ingredients = HtmlCleaner.extractIngredients(html);
-        String steps = HtmlCleaner.extractSteps(html);
-
-        Map<String, Object> recipeJson = new HashMap<>();
-        recipeJson.put("title", title);
-
-        // Assuming info contains serving size and time in a specific format
-        String[] infoParts = info.split(" ");
-        if (infoParts.length >= 2) {
-            recipeJson.put("serving_size", infoParts[0]);
-            recipeJson.put("time", infoParts[1]);
-        } else {
-            recipeJson.put("serving_size", "");
-            recipeJson.put("time", "");
+    public boolean indexPage(String html, URI uri) {
+        MatchBudget budget = MatchBudget.forPage(html.length());
+        Recipe recipe = JsonLdExtractor.extract(html);
+        if (recipe == null) {
+            ExtractionRules rules = extractionRules;
+            recipe = rules != null ? rules.extract(html, uri, budget) : RecipeExtractor.extract(html, budget);
         }
 
-        // Add ingredients as a list
-        List<String> ingredientsList = new ArrayList<>();
-        for (String ingredient : ingredients.split("\n")) {
-            ingredientsList.add(ingredient);
+        synchronized (this) {
+            invertedIndex.put(uri.toString(), recipe);
         }
-        recipeJson.put("ingredients", ingredientsList);
-
-        // Add steps as a list of maps
-        List<Map<String, String>> stepsList = new ArrayList<>();
-        String[] stepsArray = steps.split("Step ");
-        for (int i = 1; i < stepsArray.length; i++) {
-            String step = stepsArray[i];
-            String[] parts = step.split("\n");
-            if (parts.length >= 2 && !parts[1].trim().isEmpty()) {
-                Map<String, String> stepMap = new HashMap<>();
-                stepMap.put("step", "Step " + parts[0].trim());
-                stepMap.put("description", parts[1].trim());
-
-                if (parts.length >= 3 && parts[2].contains("Link:")) {
-                    stepMap.put("link", parts[2].split("Link:")[1].trim());
-                } else {
-                    stepMap.put("link", "");
-                }
-
-                stepsList.add(stepMap);
-            }
+        return !budget.isExhausted();
+    }
+
+    /**
+     * Processes a page fetched as UTF-8 bytes like
+     * {@link #indexPage(String, URI)}. {@link JsonLdExtractor} and
+     * {@link RecipeExtractor} read the bytes directly and decode only the fields
+     * they extract; only pages of sites with extraction rules are decoded whole.
+     *
+     * @param html the UTF-8 bytes of the page
+     * @param uri  the URI of the page
+     * @return {@code false} if matching ran out of budget, {@code true} otherwise
+     */
+    public boolean indexPage(Utf8Text html, URI uri) {
+        MatchBudget budget = MatchBudget.forPage(html.length());
+        Recipe recipe = JsonLdExtractor.extract(html);
+        if (recipe == null) {
+            ExtractionRules rules = extractionRules;
+            recipe = rules != null ? rules.extract(html, uri, budget) : RecipeExtractor.extract(html, budget);
         }
-        recipeJson.put("steps", stepsList);
 
-        invertedIndex.put(uri.toString(), recipeJson);
+        synchronized (this) {
+            invertedIndex.put(uri.toString(), recipe);
+        }
+        return !budget.isExhausted();
     }
 }
\ No newline at end of file
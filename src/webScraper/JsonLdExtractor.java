@@ -0,0 +1,516 @@
+package webScraper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts a recipe from the schema.org {@code Recipe} data many recipe sites
+ * embed in a {@code <script type="application/ld+json">} block, which
+ * {@link HtmlCleaner#stripBlockElements(String)} would otherwise throw away.
+ * Structured data names its fields the same on every site, so this works where
+ * no selectors were written for the markup, and it is faster than matching the
+ * markup: the script is found with one search through the page, and the JSON
+ * is read with a {@link JsonReader}, skipping everything but the recipe fields.
+ *
+ * <p>
+ * The recipe may be the top-level object, an element of a top-level array or
+ * of an {@code @graph}, or nested in another object, as in
+ * {@code mainEntity}. Its fields go into a {@link Recipe} like
+ * {@link RecipeExtractor#extract(String)}:
+ * <ul>
+ * <li>the title from {@code name}</li>
+ * <li>the serving size from {@code recipeYield}</li>
+ * <li>the time from {@code totalTime}, {@code cookTime} or
+ * {@code prepTime}, as the ISO 8601 duration given, like {@code PT30M}</li>
+ * <li>the ingredients from {@code recipeIngredient}</li>
+ * <li>the steps from {@code recipeInstructions}, whether a string, a list of
+ * strings, or a list of {@code HowToStep} objects, which may be grouped in
+ * {@code HowToSection} objects. Each step object's {@code text} becomes the step
+ * description, and its {@code image} becomes the step link.</li>
+ * </ul>
+ */
+public class JsonLdExtractor {
+    /** The type of the script elements holding JSON-LD. */
+    private static final String SCRIPT_TYPE = "application/ld+json";
+
+    /** Where the {@code +} is in the type. */
+    private static final int TYPE_PLUS = SCRIPT_TYPE.indexOf('+');
+
+    /**
+     * Creates a reader for JSON in part of the page.
+     */
+    @FunctionalInterface
+    private interface ReaderFactory {
+        /**
+         * Creates a reader for part of the page.
+         *
+         * @param start the start of the JSON
+         * @param end   the end of the JSON
+         * @return the reader
+         */
+        JsonReader create(int start, int end);
+    }
+
+    /**
+     * The fields of a recipe as they are read.
+     */
+    private static class Fields {
+        private String title;
+        private String servingSize;
+        private String time;
+        private String cookTime;
+        private String prepTime;
+        private List<String> ingredients = new ArrayList<>();
+        private final List<String> steps = new ArrayList<>();
+        private final List<String> images = new ArrayList<>();
+    }
+
+    /** Prevents instantiating this class of static methods. */
+    private JsonLdExtractor() {
+    }
+
+    /**
+     * Extracts the recipe from the JSON-LD of a page.
+     *
+     * @param html the page
+     * @return the recipe, or {@code null} if the page has no
+     *         JSON-LD recipe
+     */
+    public static Recipe extract(String html) {
+        return extract(html, (start, end) -> new JsonReader(html, start, end));
+    }
+
+    /**
+     * Extracts the recipe from the JSON-LD of a page fetched as UTF-8 bytes,
+     * decoding only the fields.
+     *
+     * @param page the page
+     * @return the recipe, or {@code null} if the page has no
+     *         JSON-LD recipe
+     */
+    public static Recipe extract(Utf8Text page) {
+        return extract(page, (start, end) -> new JsonReader(page, start, end));
+    }
+
+    /**
+     * Extracts the recipe from the JSON-LD of a page, as a string or as bytes.
+     *
+     * @param html   the page
+     * @param reader creates a reader for the JSON in part of the page
+     * @return the recipe, or {@code null} if the page has no
+     *         JSON-LD recipe
+     */
+    private static Recipe extract(CharSequence html, ReaderFactory reader) {
+        int type = findType(html, 0);
+        while (type >= 0) {
+            int start = scriptStart(html, type);
+            int end = start < 0 ? -1 : indexOf(html, "</script", start);
+            if (end >= 0) {
+                Fields recipe = read(reader.create(start, end));
+                if (recipe != null) {
+                    return toRecipe(recipe);
+                }
+            }
+            type = findType(html, type + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Finds the JSON-LD script type. Most pages have none, so instead of
+     * searching for the whole type, which starts with a common letter, this
+     * searches for its {@code +}, which is rare in a page.
+     *
+     * @param html the page
+     * @param from the position to search from
+     * @return the position of the type, or -1 if not found
+     */
+    private static int findType(CharSequence html, int from) {
+        int plus = indexOf(html, '+', from + TYPE_PLUS);
+        while (plus >= 0) {
+            if (startsWith(html, SCRIPT_TYPE, plus - TYPE_PLUS)) {
+                return plus - TYPE_PLUS;
+            }
+            plus = indexOf(html, '+', plus + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds where the content of a script starts, given where its type was
+     * found.
+     *
+     * @param html the page
+     * @param type the position of the type
+     * @return the position after the script tag, or -1 if the type was not in
+     *         a script tag
+     */
+    private static int scriptStart(CharSequence html, int type) {
+        int open = type;
+        while (open >= 0 && html.charAt(open) != '<' && html.charAt(open) != '>') {
+            open--;
+        }
+        if (open < 0 || html.charAt(open) != '<' || !isScriptTag(html, open)) {
+            return -1;
+        }
+
+        for (int i = type + SCRIPT_TYPE.length(); i < html.length(); i++) {
+            if (html.charAt(i) == '>') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tests whether a tag is a script start tag.
+     *
+     * @param html the page
+     * @param open the position of the tag's {@code <}
+     * @return {@code true} if it is a script tag, in any case
+     */
+    private static boolean isScriptTag(CharSequence html, int open) {
+        String name = "<script";
+        if (open + name.length() >= html.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.toLowerCase(html.charAt(open + i)) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return Character.isWhitespace(html.charAt(open + name.length()));
+    }
+
+    /**
+     * Reads the first recipe in the JSON of a script.
+     *
+     * @param json the JSON
+     * @return the recipe, or {@code null} if there is none or the JSON is
+     *         malformed before it
+     */
+    private static Fields read(JsonReader json) {
+        try {
+            return findRecipe(json);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Consumes a value and returns the first recipe in it.
+     *
+     * @param json the JSON, at the value
+     * @return the recipe, or {@code null} if the value has none
+     */
+    private static Fields findRecipe(JsonReader json) {
+        switch (json.peek()) {
+            case BEGIN_OBJECT -> {
+                return readObject(json);
+            }
+            case BEGIN_ARRAY -> {
+                Fields found = null;
+                json.beginArray();
+                while (json.hasNext()) {
+                    if (found == null) {
+                        found = findRecipe(json);
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endArray();
+                return found;
+            }
+            default -> {
+                json.skipValue();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Consumes an object, keeping its recipe fields in case it turns out to be
+     * a recipe, since its type can come after them.
+     *
+     * @param json the JSON, at the object
+     * @return the object if it is a recipe, or else the first recipe nested in
+     *         it, or {@code null} if there is none
+     */
+    private static Fields readObject(JsonReader json) {
+        Fields recipe = new Fields();
+        boolean isRecipe = false;
+        Fields nested = null;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "@type" -> isRecipe = isRecipeType(json);
+                case "name" -> recipe.title = text(json);
+                case "recipeYield" -> recipe.servingSize = text(json);
+                case "totalTime" -> recipe.time = text(json);
+                case "cookTime" -> recipe.cookTime = text(json);
+                case "prepTime" -> recipe.prepTime = text(json);
+                case "recipeIngredient", "ingredients" -> recipe.ingredients = texts(json);
+                case "recipeInstructions" -> readInstructions(json, recipe);
+                default -> {
+                    if (nested == null) {
+                        nested = findRecipe(json);
+                    } else {
+                        json.skipValue();
+                    }
+                }
+            }
+        }
+        json.endObject();
+
+        return isRecipe ? recipe : nested;
+    }
+
+    /**
+     * Consumes an {@code @type} and tests whether it is, or includes,
+     * {@code Recipe}.
+     *
+     * @param json the JSON, at the type
+     * @return {@code true} if it is a recipe
+     */
+    private static boolean isRecipeType(JsonReader json) {
+        for (String type : texts(json)) {
+            // the type may be a full IRI, like https://schema.org/Recipe
+            int name = Math.max(type.lastIndexOf('/'), type.lastIndexOf(':')) + 1;
+            if (type.startsWith("Recipe", name) && type.length() == name + "Recipe".length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Consumes recipe instructions, adding each step and its image to the
+     * recipe.
+     *
+     * @param json   the JSON, at the instructions
+     * @param recipe the recipe
+     */
+    private static void readInstructions(JsonReader json, Fields recipe) {
+        switch (json.peek()) {
+            case STRING -> {
+                for (String line : json.nextString().split("\n")) {
+                    addStep(recipe, line, null);
+                }
+            }
+            case BEGIN_ARRAY -> {
+                json.beginArray();
+                while (json.hasNext()) {
+                    readInstructions(json, recipe);
+                }
+                json.endArray();
+            }
+            case BEGIN_OBJECT -> {
+                String text = null;
+                String name = null;
+                String image = null;
+                boolean section = false;
+
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "text" -> text = text(json);
+                        case "name" -> name = text(json);
+                        case "image" -> image = imageUrl(json);
+                        case "itemListElement" -> {
+                            // a section, whose name is a heading rather than a step
+                            section = true;
+                            readInstructions(json, recipe);
+                        }
+                        default -> json.skipValue();
+                    }
+                }
+                json.endObject();
+
+                if (!section) {
+                    addStep(recipe, text != null ? text : name, image);
+                }
+            }
+            default -> json.skipValue();
+        }
+    }
+
+    /**
+     * Adds a step to a recipe, unless it is empty.
+     *
+     * @param recipe the recipe
+     * @param text   the text of the step, or {@code null}
+     * @param image  the link of the step's image, or {@code null}
+     */
+    private static void addStep(Fields recipe, String text, String image) {
+        String description = clean(text);
+        if (!description.isEmpty()) {
+            recipe.steps.add(description);
+            recipe.images.add(image == null ? "" : image.strip());
+        }
+    }
+
+    /**
+     * Consumes an image, which may be a URL, an {@code ImageObject} or a list of
+     * either.
+     *
+     * @param json the JSON, at the image
+     * @return the URL of the first image, or {@code null} if there is none
+     */
+    private static String imageUrl(JsonReader json) {
+        switch (json.peek()) {
+            case STRING -> {
+                return json.nextString();
+            }
+            case BEGIN_ARRAY -> {
+                String url = null;
+                json.beginArray();
+                while (json.hasNext()) {
+                    if (url == null) {
+                        url = imageUrl(json);
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endArray();
+                return url;
+            }
+            case BEGIN_OBJECT -> {
+                String url = null;
+                json.beginObject();
+                while (json.hasNext()) {
+                    if (json.nextName().equals("url") && url == null) {
+                        url = imageUrl(json);
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+                return url;
+            }
+            default -> {
+                json.skipValue();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Consumes a value that should be text, taking the first element of a list.
+     *
+     * @param json the JSON, at the value
+     * @return the text, or {@code null} if there is none
+     */
+    private static String text(JsonReader json) {
+        List<String> texts = texts(json);
+        return texts.isEmpty() ? null : texts.get(0);
+    }
+
+    /**
+     * Consumes a value that should be text or a list of text, leaving out
+     * anything else.
+     *
+     * @param json the JSON, at the value
+     * @return the texts
+     */
+    private static List<String> texts(JsonReader json) {
+        List<String> texts = new ArrayList<>();
+        switch (json.peek()) {
+            case STRING, NUMBER -> texts.add(json.nextString());
+            case BEGIN_ARRAY -> {
+                json.beginArray();
+                while (json.hasNext()) {
+                    JsonReader.Token token = json.peek();
+                    if (token == JsonReader.Token.STRING || token == JsonReader.Token.NUMBER) {
+                        texts.add(json.nextString());
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endArray();
+            }
+            default -> json.skipValue();
+        }
+        return texts;
+    }
+
+    /**
+     * Turns text from the JSON into a field value. Sites often put HTML in
+     * their JSON-LD, so tags are removed and entities decoded.
+     *
+     * @param text the text, or {@code null}
+     * @return the cleaned text, empty if there is none
+     */
+    private static String clean(String text) {
+        if (text == null) {
+            return "";
+        }
+        return (text.indexOf('<') >= 0 ? HtmlCleaner.stripHtml(text) : HtmlCleaner.stripEntities(text)).strip();
+    }
+
+    /**
+     * Finds ASCII text in the page.
+     *
+     * @param html the page, as a string or as bytes
+     * @param text the text to find
+     * @param from the position to search from
+     * @return the position of the text, or -1 if not found
+     */
+    private static int indexOf(CharSequence html, String text, int from) {
+        if (html instanceof Utf8Text page) {
+            return page.indexOf(text, from);
+        }
+        return html.toString().indexOf(text, from);
+    }
+
+    /**
+     * Finds an ASCII character in the page.
+     *
+     * @param html the page, as a string or as bytes
+     * @param c    the character to find
+     * @param from the position to search from
+     * @return the position of the character, or -1 if not found
+     */
+    private static int indexOf(CharSequence html, char c, int from) {
+        if (html instanceof Utf8Text page) {
+            return page.indexOf(c, from);
+        }
+        return html.toString().indexOf(c, from);
+    }
+
+    /**
+     * Tests whether ASCII text is found at a position of the page.
+     *
+     * @param html     the page, as a string or as bytes
+     * @param text     the text
+     * @param position the position
+     * @return {@code true} if the text is there
+     */
+    private static boolean startsWith(CharSequence html, String text, int position) {
+        if (html instanceof Utf8Text page) {
+            return page.startsWith(text, position);
+        }
+        return html.toString().startsWith(text, position);
+    }
+
+    /**
+     * Builds the recipe from its fields.
+     *
+     * @param recipe the fields of the recipe
+     * @return the recipe
+     */
+    private static Recipe toRecipe(Fields recipe) {
+        String time = recipe.time != null ? recipe.time : recipe.cookTime != null ? recipe.cookTime : recipe.prepTime;
+
+        List<String> ingredients = new ArrayList<>();
+        for (String ingredient : recipe.ingredients) {
+            String line = clean(ingredient);
+            if (!line.isEmpty()) {
+                ingredients.add(line);
+            }
+        }
+
+        return Recipe.of(clean(recipe.title), clean(recipe.servingSize), clean(time), ingredients,
+                recipe.steps, recipe.images);
+    }
+}
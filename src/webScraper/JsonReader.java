@@ -0,0 +1,478 @@
+package webScraper;
+
+import java.util.Arrays;
+
+/**
+ * Reads JSON one token at a time, the counterpart of {@link JsonWriter}. Values
+ * that are not needed are skipped without building anything, so a caller can
+ * pick a few fields out of a large document like the JSON-LD of a page without
+ * first turning all of it into maps and lists.
+ *
+ * <p>
+ * The JSON can be part of a {@link String} or of a page kept as
+ * {@link Utf8Text}, whose strings are decoded from UTF-8 as they are read.
+ * Malformed JSON throws an {@link IllegalArgumentException} at the first token
+ * that is out of place. So does JSON nested more than {@link #MAX_DEPTH} arrays
+ * and objects deep, which no real document is, so that a caller reading nested
+ * values recursively cannot be made to run out of stack by a page.
+ */
+public class JsonReader {
+    /**
+     * The kinds of tokens.
+     */
+    public enum Token {
+        /** The start of an object. */
+        BEGIN_OBJECT,
+        /** The end of an object. */
+        END_OBJECT,
+        /** The start of an array. */
+        BEGIN_ARRAY,
+        /** The end of an array. */
+        END_ARRAY,
+        /** The name of an object member. */
+        NAME,
+        /** A string value. */
+        STRING,
+        /** A number value. */
+        NUMBER,
+        /** {@code true} or {@code false}. */
+        BOOLEAN,
+        /** {@code null}. */
+        NULL,
+        /** The end of the JSON. */
+        END
+    }
+
+    /** The most arrays and objects that can be nested in each other. */
+    public static final int MAX_DEPTH = 64;
+
+    /** The scopes the reader can be in, kept on a stack. */
+    private static final int EMPTY_ARRAY = 0;
+    private static final int NONEMPTY_ARRAY = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_DOCUMENT = 5;
+    private static final int NONEMPTY_DOCUMENT = 6;
+
+    private final CharSequence json;
+    private final Utf8Text page;
+    private final int end;
+    private int position;
+
+    private int[] scopes = new int[16];
+    private int depth;
+
+    /** The next token, once peeked and until it is consumed. */
+    private Token peeked;
+
+    /**
+     * Reads JSON from part of a string.
+     *
+     * @param json  the string
+     * @param start the start of the JSON
+     * @param end   the end of the JSON
+     */
+    public JsonReader(String json, int start, int end) {
+        this(json, null, start, end);
+    }
+
+    /**
+     * Reads JSON from part of a page fetched as UTF-8 bytes.
+     *
+     * @param page  the page
+     * @param start the start of the JSON
+     * @param end   the end of the JSON
+     */
+    public JsonReader(Utf8Text page, int start, int end) {
+        this(page, page, start, end);
+    }
+
+    /**
+     * Reads JSON from characters, decoding strings from UTF-8 if a page is given.
+     *
+     * @param json  the characters
+     * @param page  the same characters as a page, or {@code null}
+     * @param start the start of the JSON
+     * @param end   the end of the JSON
+     */
+    private JsonReader(CharSequence json, Utf8Text page, int start, int end) {
+        this.json = json;
+        this.page = page;
+        this.position = start;
+        this.end = end;
+        this.scopes[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Returns the kind of the next token without consuming it.
+     *
+     * @return the kind of the next token
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public Token peek() {
+        if (peeked == null) {
+            peeked = readToken();
+        }
+        return peeked;
+    }
+
+    /**
+     * Tests whether the current array or object has another element.
+     *
+     * @return {@code true} if there is another element
+     */
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END;
+    }
+
+    /**
+     * Consumes the start of an object.
+     */
+    public void beginObject() {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object.
+     */
+    public void endObject() {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    /**
+     * Consumes the start of an array.
+     */
+    public void beginArray() {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array.
+     */
+    public void endArray() {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /**
+     * Consumes the name of an object member.
+     *
+     * @return the name
+     */
+    public String nextName() {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * Consumes a string, number or boolean and returns its text.
+     *
+     * @return the text of the value, or {@code null} for {@code null}
+     */
+    public String nextString() {
+        Token token = peek();
+        peeked = null;
+        return switch (token) {
+            case STRING -> readString();
+            case NUMBER, BOOLEAN -> readLiteral();
+            case NULL -> {
+                readLiteral();
+                yield null;
+            }
+            default -> throw malformed("Expected a value but found " + token);
+        };
+    }
+
+    /**
+     * Consumes the next value, with everything nested in it.
+     */
+    public void skipValue() {
+        int nested = 0;
+        do {
+            Token token = peek();
+            peeked = null;
+            switch (token) {
+                case BEGIN_OBJECT -> {
+                    push(EMPTY_OBJECT);
+                    nested++;
+                }
+                case BEGIN_ARRAY -> {
+                    push(EMPTY_ARRAY);
+                    nested++;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    depth--;
+                    nested--;
+                }
+                case NAME, STRING -> skipString();
+                case NUMBER, BOOLEAN, NULL -> readLiteral();
+                case END -> throw malformed("Expected a value but found the end");
+            }
+        } while (nested > 0);
+    }
+
+    /**
+     * Consumes the next token if it is of the expected kind.
+     *
+     * @param expected the expected kind
+     */
+    private void expect(Token expected) {
+        Token token = peek();
+        if (token != expected) {
+            throw malformed("Expected " + expected + " but found " + token);
+        }
+        peeked = null;
+    }
+
+    /**
+     * Opens a nested array or object.
+     *
+     * @param scope the scope of the new array or object
+     * @throws IllegalArgumentException if it would be nested too deep
+     */
+    private void push(int scope) {
+        // the document itself is the first scope
+        if (depth > MAX_DEPTH) {
+            throw malformed("Nested more than " + MAX_DEPTH + " deep");
+        }
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+    }
+
+    /**
+     * Reads the punctuation before the next token and finds its kind. Strings
+     * and names are left after their opening quote, and numbers and literals
+     * at their first character.
+     *
+     * @return the kind of the next token
+     */
+    private Token readToken() {
+        int scope = scopes[depth - 1];
+        switch (scope) {
+            case EMPTY_ARRAY -> scopes[depth - 1] = NONEMPTY_ARRAY;
+            case NONEMPTY_ARRAY -> {
+                char c = nextNonSpace();
+                if (c == ']') {
+                    return Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw malformed("Expected , or ] in array");
+                }
+            }
+            case EMPTY_OBJECT, NONEMPTY_OBJECT -> {
+                scopes[depth - 1] = DANGLING_NAME;
+                char c = nextNonSpace();
+                if (c == '}') {
+                    return Token.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw malformed("Expected , or } in object");
+                    }
+                    c = nextNonSpace();
+                }
+                if (c != '"') {
+                    throw malformed("Expected a name in object");
+                }
+                return Token.NAME;
+            }
+            case DANGLING_NAME -> {
+                scopes[depth - 1] = NONEMPTY_OBJECT;
+                if (nextNonSpace() != ':') {
+                    throw malformed("Expected : after name");
+                }
+            }
+            case EMPTY_DOCUMENT -> scopes[depth - 1] = NONEMPTY_DOCUMENT;
+            default -> {
+                // anything after the value, like the ; some pages end their JSON-LD with, is ignored
+                return Token.END;
+            }
+        }
+
+        char c = nextNonSpace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                if (scope == EMPTY_ARRAY) {
+                    return Token.END_ARRAY;
+                }
+                throw malformed("Expected a value in array");
+            case '"':
+                return Token.STRING;
+            case 't':
+                return literal("true", Token.BOOLEAN);
+            case 'f':
+                return literal("false", Token.BOOLEAN);
+            case 'n':
+                return literal("null", Token.NULL);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    position--;
+                    return Token.NUMBER;
+                }
+                throw malformed(position > end ? "Unexpected end of JSON" : "Unexpected character " + c);
+        }
+    }
+
+    /**
+     * Checks that a literal is spelled out, and goes back to its start.
+     *
+     * @param word  the literal
+     * @param token the kind of the literal
+     * @return the kind of the literal
+     */
+    private Token literal(String word, Token token) {
+        position--;
+        for (int i = 0; i < word.length(); i++) {
+            if (position + i >= end || json.charAt(position + i) != word.charAt(i)) {
+                throw malformed("Expected " + word);
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Consumes whitespace and the character after it.
+     *
+     * @return the character, or 0 at the end of the JSON
+     */
+    private char nextNonSpace() {
+        while (position < end) {
+            char c = json.charAt(position++);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        position = end + 1;
+        return 0;
+    }
+
+    /**
+     * Reads the rest of a string after its opening quote, decoding escapes.
+     *
+     * @return the string
+     */
+    private String readString() {
+        StringBuilder escaped = null;
+        int start = position;
+        while (position < end) {
+            char c = json.charAt(position);
+            if (c == '"') {
+                String text = slice(start, position++);
+                return escaped == null ? text : escaped.append(text).toString();
+            }
+            if (c == '\\') {
+                if (escaped == null) {
+                    escaped = new StringBuilder();
+                }
+                escaped.append(slice(start, position));
+                escaped.append(readEscape());
+                start = position;
+            } else {
+                position++;
+            }
+        }
+        throw malformed("Unterminated string");
+    }
+
+    /**
+     * Reads an escape sequence from its backslash.
+     *
+     * @return the character it stands for
+     */
+    private char readEscape() {
+        if (position + 1 >= end) {
+            throw malformed("Unterminated escape");
+        }
+
+        char c = json.charAt(position + 1);
+        position += 2;
+        return switch (c) {
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'u' -> {
+                if (position + 4 > end) {
+                    throw malformed("Unterminated escape");
+                }
+
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(json.charAt(position++), 16);
+                    if (digit < 0) {
+                        throw malformed("Invalid \\u escape");
+                    }
+                    value = value * 16 + digit;
+                }
+                yield (char) value;
+            }
+            default -> c;
+        };
+    }
+
+    /**
+     * Skips the rest of a string after its opening quote.
+     */
+    private void skipString() {
+        while (position < end) {
+            char c = json.charAt(position++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                position++;
+            }
+        }
+        throw malformed("Unterminated string");
+    }
+
+    /**
+     * Reads a number, boolean or null up to the punctuation after it.
+     *
+     * @return its text
+     */
+    private String readLiteral() {
+        int start = position;
+        while (position < end) {
+            char c = json.charAt(position);
+            if (c == ',' || c == ']' || c == '}' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                break;
+            }
+            position++;
+        }
+        return json.subSequence(start, position).toString();
+    }
+
+    /**
+     * Returns the text of part of the JSON.
+     *
+     * @param start the start of the part
+     * @param end   the end of the part
+     * @return the text, decoded from UTF-8 if read from a page
+     */
+    private String slice(int start, int end) {
+        return page != null ? page.decode(start, end) : json.subSequence(start, end).toString();
+    }
+
+    /**
+     * Creates the exception for malformed JSON.
+     *
+     * @param message what was wrong
+     * @return the exception
+     */
+    private IllegalArgumentException malformed(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
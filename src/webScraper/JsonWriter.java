@@ -50,17 +50,52 @@ public class JsonWriter {
 
     /**
      * Indents and then writes the text element surrounded by {@code " "} quotation
-     * marks.
+     * marks, escaped as a JSON string.
      *
      * @param element the element to write
      * @param writer  the writer to use
      * @param indent  the number of times to indent
      * @throws IOException if an IO error occurs
+     * @see #writeString(String, Writer)
      */
     public static void writeQuote(String element, Writer writer, int indent) throws IOException {
         writeIndent(writer, indent);
+        writeString(element, writer);
+    }
+
+    /**
+     * Writes text as a JSON string: surrounded by {@code " "} quotation marks,
+     * with quotation marks and backslashes escaped, and control characters such
+     * as the line breaks kept in step descriptions written as escapes. Any
+     * other character is written as it is.
+     *
+     * @param element the text to write
+     * @param writer  the writer to use
+     * @throws IOException if an IO error occurs
+     */
+    public static void writeString(String element, Writer writer) throws IOException {
         writer.write('"');
-        writer.write(element);
+        int start = 0;
+        for (int i = 0; i < element.length(); i++) {
+            char c = element.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            writer.write(element, start, i - start);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                case '\b' -> writer.write("\\b");
+                case '\f' -> writer.write("\\f");
+                default -> writer.write(String.format("\\u%04x", (int) c));
+            }
+            start = i + 1;
+        }
+        writer.write(element, start, element.length() - start);
         writer.write('"');
     }
 
@@ -107,16 +142,63 @@ public class JsonWriter {
      */
     private static void writeValue(Object value, Writer writer, int indent) throws IOException {
         if (value instanceof String) {
-            writer.write("\"" + value.toString() + "\"");
+            writeString((String) value, writer);
         } else if (value instanceof Map) {
             writeObject((Map<?, ?>) value, writer, indent + 1);
         } else if (value instanceof List) {
             writeArray((List<?>) value, writer, indent + 1);
+        } else if (value instanceof Recipe recipe) {
+            writeRecipe(recipe, writer, indent + 1);
+        } else if (value instanceof Recipe.Step step) {
+            writeMembers(writer, indent + 1, "link", step.image(), "description", step.description(), "step",
+                    "Step " + step.number());
+        } else if (value instanceof InvertedIndex.Duplicate duplicate) {
+            writeMembers(writer, indent + 1, "duplicate_of", duplicate.original());
         } else {
             writer.write(value.toString());
         }
     }
 
+    /**
+     * Writes a recipe as a pretty JSON object, with the same members in the
+     * same order as the maps the index used to hold. A recipe without
+     * ingredients has a single empty one, as it always has.
+     *
+     * @param recipe the recipe to write
+     * @param writer the writer to use
+     * @param indent the initial indent level, as in
+     *               {@link #writeObject(Map, Writer, int)}
+     * @throws IOException if an IO error occurs
+     */
+    private static void writeRecipe(Recipe recipe, Writer writer, int indent) throws IOException {
+        List<String> ingredients = recipe.ingredients().isEmpty() ? List.of("") : recipe.ingredients();
+        writeMembers(writer, indent, "serving_size", recipe.servings(), "ingredients", ingredients, "time",
+                recipe.time(), "title", recipe.title(), "steps", recipe.steps());
+    }
+
+    /**
+     * Writes names and values as a pretty JSON object, like
+     * {@link #writeObject(Map, Writer, int)} but without a map.
+     *
+     * @param writer  the writer to use
+     * @param indent  the initial indent level, as in
+     *                {@link #writeObject(Map, Writer, int)}
+     * @param members each name followed by its value
+     * @throws IOException if an IO error occurs
+     */
+    private static void writeMembers(Writer writer, int indent, Object... members) throws IOException {
+        writer.write("{");
+        for (int i = 0; i < members.length; i += 2) {
+            writer.write(i == 0 ? "\n" : ",\n");
+            writeQuote(members[i].toString(), writer, indent);
+            writer.write(": ");
+            writeValue(members[i + 1], writer, indent);
+        }
+        writer.write("\n");
+        writeIndent(writer, indent - 1);
+        writer.write("}");
+    }
+
     /**
      * Writes a list as a pretty JSON array.
      *
@@ -0,0 +1,1125 @@
+package webScraper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Matches the simple regexes used to extract recipes in time linear in the
+ * text, however the pattern is written. A {@link Pattern} backtracks, so a lazy
+ * {@code .*?} that never finds what follows it tries every position to the end
+ * of the page, and several of them in a row can take much longer. This
+ * compiles the regex into a Thompson NFA instead and runs every path through
+ * it at once, one character at a time, keeping for each state only the path a
+ * backtracking matcher would have tried first. That path's match and groups
+ * are the ones {@link java.util.regex.Matcher#lookingAt()} finds.
+ *
+ * <p>
+ * Most tries do not match, and fail within a few characters, so whether a try
+ * matches and where the match ends is first found with a DFA built from the
+ * NFA when compiling, which reads each character with one table lookup. Only
+ * the characters of a match are then read again to find the groups, by a
+ * backtracking matcher that marks each state it has tried at each position
+ * and never tries it there again, or if the match is long, by the NFA.
+ *
+ * <p>
+ * Only a subset of the syntax is supported: literal characters and escapes,
+ * {@code .}, the classes {@code \d \D \s \S \w \W} and bracketed classes with
+ * ranges, capturing and {@code (?:)} groups, alternation, and the greedy and
+ * lazy quantifiers {@code * + ?}. The only flag is {@link Pattern#DOTALL}.
+ * Anything else, like anchors, counted repetition, lookaround or
+ * backreferences, is rejected when compiling, and so is repeating a
+ * capturing group or something that can match nothing, where the two kinds of
+ * matcher can disagree.
+ */
+public class LinearRegex {
+    /** Matches one character, the argument. */
+    private static final int CHAR = 0;
+
+    /** Matches one character of the class numbered by the argument. */
+    private static final int CLASS = 1;
+
+    /** Matches any character. */
+    private static final int ANY = 2;
+
+    /** Continues with the argument first and the jump second. */
+    private static final int SPLIT = 3;
+
+    /** Continues with the jump. */
+    private static final int JUMP = 4;
+
+    /** Records the position in the group slot numbered by the argument. */
+    private static final int SAVE = 5;
+
+    /** Ends a match. */
+    private static final int MATCH = 6;
+
+    /** The most states a DFA is built with; a regex that needs more is only run as an NFA. */
+    private static final int MAX_DFA_STATES = 1024;
+
+    /** The most instructions times positions the backtracking matcher marks. */
+    private static final int MAX_BACKTRACK_MARKS = 256 * 1024;
+
+    /**
+     * A set of characters, as ranges that may be negated.
+     *
+     * @param ranges  the first and last character of each range
+     * @param negated whether the set is every character not in the ranges
+     */
+    private record CharClass(int[] ranges, boolean negated) {
+        /**
+         * Tests whether a character is in the set.
+         *
+         * @param c the character
+         * @return {@code true} if it is in the set
+         */
+        private boolean contains(int c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return !negated;
+                }
+            }
+            return negated;
+        }
+    }
+
+    private static final int[] DIGITS = { '0', '9' };
+    private static final int[] SPACES = { '\t', '\r', ' ', ' ' };
+    private static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+
+    /** What {@code .} matches without {@link Pattern#DOTALL}. */
+    private static final CharClass NOT_LINE_TERMINATOR = new CharClass(
+            new int[] { '\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029' }, true);
+
+    /**
+     * A parsed regex.
+     */
+    private sealed interface Node {
+    }
+
+    /**
+     * One character of a class, or any character if the class is {@code null}.
+     *
+     * @param chars the class
+     */
+    private record Chars(CharClass chars) implements Node {
+    }
+
+    /**
+     * One literal character.
+     *
+     * @param c the character
+     */
+    private record Literal(int c) implements Node {
+    }
+
+    /**
+     * A group.
+     *
+     * @param number the group number, or 0 if it does not capture
+     * @param body   what the group matches
+     */
+    private record Group(int number, Node body) implements Node {
+    }
+
+    /**
+     * Nodes matched one after the other.
+     *
+     * @param nodes the nodes, which may be none
+     */
+    private record Sequence(List<Node> nodes) implements Node {
+    }
+
+    /**
+     * Alternatives, tried in order.
+     *
+     * @param alternatives the alternatives
+     */
+    private record Alternation(List<Node> alternatives) implements Node {
+    }
+
+    /**
+     * A quantified node.
+     *
+     * @param body     the node
+     * @param optional whether it may be left out
+     * @param repeated whether it may be repeated
+     * @param lazy     whether as few are matched as possible
+     */
+    private record Repeat(Node body, boolean optional, boolean repeated, boolean lazy) implements Node {
+    }
+
+    private final String regex;
+
+    /** The program: each instruction's operation, argument and jump. */
+    private final int[] ops;
+    private final int[] args;
+    private final int[] jumps;
+    private final CharClass[] classes;
+
+    /** The number of capturing groups, not counting the whole match. */
+    private final int groups;
+
+    /** The DFA, or {@code null} if it would have too many states. */
+    private final Dfa dfa;
+
+    /**
+     * Compiles a regex.
+     *
+     * @param regex the regex
+     * @param flags the flags, of which only {@link Pattern#DOTALL} is supported
+     * @throws IllegalArgumentException if the regex or a flag is not supported
+     */
+    public LinearRegex(String regex, int flags) {
+        if ((flags & ~Pattern.DOTALL) != 0) {
+            throw new IllegalArgumentException("Unsupported flags " + flags + " for " + regex);
+        }
+
+        Parser parser = new Parser(regex, (flags & Pattern.DOTALL) != 0);
+        Node root = parser.parse();
+
+        Program program = new Program();
+        program.emit(SAVE, 0, 0);
+        program.compile(root);
+        program.emit(SAVE, 1, 0);
+        program.emit(MATCH, 0, 0);
+
+        this.regex = regex;
+        this.ops = program.ops.stream().mapToInt(Integer::intValue).toArray();
+        this.args = program.args.stream().mapToInt(Integer::intValue).toArray();
+        this.jumps = program.jumps.stream().mapToInt(Integer::intValue).toArray();
+        this.classes = program.classes.toArray(new CharClass[0]);
+        this.groups = parser.groups;
+        this.dfa = Dfa.build(this);
+    }
+
+    /**
+     * Creates a matcher of this regex over a text.
+     *
+     * @param text   the text
+     * @param budget the work the matcher may do
+     * @return the matcher
+     */
+    public ExtractionPattern.Matcher matcher(CharSequence text, MatchBudget budget) {
+        return new Matcher(text, budget);
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+
+    /**
+     * Adds the states that read a character or match, reachable from an
+     * instruction without reading a character, in priority order.
+     *
+     * @param pc     the instruction
+     * @param states the states to add to
+     * @param seen   the instructions already followed
+     */
+    private void closure(int pc, List<Integer> states, boolean[] seen) {
+        if (seen[pc]) {
+            return;
+        }
+        seen[pc] = true;
+
+        switch (ops[pc]) {
+            case JUMP -> closure(jumps[pc], states, seen);
+            case SPLIT -> {
+                closure(args[pc], states, seen);
+                closure(jumps[pc], states, seen);
+            }
+            case SAVE -> closure(pc + 1, states, seen);
+            default -> states.add(pc);
+        }
+    }
+
+    /**
+     * Tests whether an instruction that reads a character accepts one.
+     *
+     * @param pc the instruction
+     * @param c  the character
+     * @return {@code true} if it accepts it
+     */
+    private boolean accepts(int pc, int c) {
+        return switch (ops[pc]) {
+            case CHAR -> c == args[pc];
+            case CLASS -> classes[args[pc]].contains(c);
+            default -> true;
+        };
+    }
+
+    /**
+     * Runs the program over a text. The states reached after each character
+     * are kept in priority order, each with the group positions of the path
+     * that reached it, and a state already reached by a path of higher
+     * priority is not added again, so each character is read once per state.
+     */
+    private class Matcher implements ExtractionPattern.Matcher {
+        private final CharSequence text;
+        private final MatchBudget budget;
+        private final int slots;
+
+        /** The states before the current character, with their group positions. */
+        private int[] current;
+        private int[] currentGroups;
+        private int currentSize;
+
+        /** The states after the current character, with their group positions. */
+        private int[] next;
+        private int[] nextGroups;
+        private int nextSize;
+
+        /** The step each instruction was last added in, to add it once per step. */
+        private final int[] added;
+        private int step;
+
+        /** The group positions of the path being followed. */
+        private final int[] path;
+
+        /** The group positions of the last match. */
+        private final int[] found;
+
+        /** The instructions and positions the backtracking matcher has tried. */
+        private long[] tried = new long[0];
+
+        /**
+         * The instructions and positions the backtracking matcher has left to
+         * try, and the group positions to restore on the way back, as a negative
+         * instruction for the slot.
+         */
+        private int[] jobs = new int[64];
+
+        /**
+         * Creates a matcher.
+         *
+         * @param text   the text
+         * @param budget the work the matcher may do
+         */
+        private Matcher(CharSequence text, MatchBudget budget) {
+            this.text = text;
+            this.budget = budget;
+            this.slots = 2 * (groups + 1);
+
+            this.current = new int[ops.length];
+            this.currentGroups = new int[ops.length * slots];
+            this.next = new int[ops.length];
+            this.nextGroups = new int[ops.length * slots];
+            this.added = new int[ops.length];
+            this.path = new int[slots];
+            this.found = new int[slots];
+        }
+
+        @Override
+        public boolean matchAt(int position) {
+            Arrays.fill(found, -1);
+            int end = Integer.MAX_VALUE;
+            if (dfa != null) {
+                end = dfa.end(text, position, budget);
+                if (end < 0) {
+                    return false;
+                }
+            }
+
+            Arrays.fill(path, -1);
+            if (end != Integer.MAX_VALUE && (long) ops.length * (end - position + 1) <= MAX_BACKTRACK_MARKS) {
+                return backtrack(position, end);
+            }
+            boolean matched = false;
+
+            nextSize = 0;
+            step++;
+            add(0, position);
+            swap();
+
+            // the match the DFA found is the last one, so no path needs to be followed past it
+            int i = position;
+            while (currentSize > 0 && i <= end) {
+                if (!budget.spend(currentSize)) {
+                    Arrays.fill(found, -1);
+                    return false;
+                }
+
+                boolean more = i < text.length();
+                int c = more ? Character.codePointAt(text, i) : -1;
+                int after = more ? i + Character.charCount(c) : i;
+                nextSize = 0;
+                step++;
+
+                for (int t = 0; t < currentSize; t++) {
+                    int pc = current[t];
+                    int op = ops[pc];
+                    if (op == MATCH) {
+                        // the paths after this one have a lower priority, so they are dropped
+                        System.arraycopy(currentGroups, t * slots, found, 0, slots);
+                        matched = true;
+                        break;
+                    }
+
+                    if (more && accepts(pc, c)) {
+                        System.arraycopy(currentGroups, t * slots, path, 0, slots);
+                        add(pc + 1, after);
+                    }
+                }
+
+                swap();
+                i = after;
+            }
+            return matched;
+        }
+
+        /**
+         * Finds the groups of a match whose end is known by backtracking,
+         * trying paths in priority order. A state that was already tried at a
+         * position is not tried there again, since it failed the first time,
+         * so each is tried at most once at each position of the match.
+         *
+         * @param position the start of the match
+         * @param end      the end of the match
+         * @return {@code true} once the match is found, or {@code false} if the
+         *         budget ran out
+         */
+        private boolean backtrack(int position, int end) {
+            int width = end - position + 1;
+            int words = (ops.length * width + 63) >>> 6;
+            if (tried.length < words) {
+                tried = new long[Math.max(words, tried.length * 2)];
+            } else {
+                Arrays.fill(tried, 0, words, 0);
+            }
+
+            int count = 0;
+            int jobCount = push(0, 0, position);
+            boolean matched = false;
+            while (jobCount > 0 && !matched) {
+                jobCount -= 2;
+                int pc = jobs[jobCount];
+                int i = jobs[jobCount + 1];
+                if (pc < 0) {
+                    path[-pc - 1] = i;
+                    continue;
+                }
+
+                while (true) {
+                    int mark = pc * width + i - position;
+                    if ((tried[mark >>> 6] & 1L << mark) != 0) {
+                        break;
+                    }
+                    tried[mark >>> 6] |= 1L << mark;
+                    count++;
+
+                    int op = ops[pc];
+                    if (op == SPLIT) {
+                        // a branch that would read a character it does not accept is not taken
+                        int c = i < end ? Character.codePointAt(text, i) : -1;
+                        int first = args[pc];
+                        int second = jumps[pc];
+                        if (ops[first] <= ANY && (c < 0 || !accepts(first, c))) {
+                            pc = second;
+                            continue;
+                        }
+                        if (ops[second] > ANY || (c >= 0 && accepts(second, c))) {
+                            jobCount = push(jobCount, second, i);
+                        }
+                        pc = first;
+                    } else if (op == JUMP) {
+                        pc = jumps[pc];
+                    } else if (op == SAVE) {
+                        jobCount = push(jobCount, -args[pc] - 1, path[args[pc]]);
+                        path[args[pc]] = i;
+                        pc++;
+                    } else if (op == MATCH) {
+                        // the first path to match is the one with the highest priority, which ends at the end
+                        if (i == end) {
+                            System.arraycopy(path, 0, found, 0, slots);
+                            matched = true;
+                        }
+                        break;
+                    } else {
+                        // no path reads past the end, where it could not end at it
+                        int c = i < end ? Character.codePointAt(text, i) : -1;
+                        if (c < 0 || !accepts(pc, c)) {
+                            break;
+                        }
+                        i += Character.charCount(c);
+                        pc++;
+                    }
+                }
+            }
+
+            if (!budget.spend(count)) {
+                Arrays.fill(found, -1);
+                return false;
+            }
+            return matched;
+        }
+
+        /**
+         * Adds a job for the backtracking matcher.
+         *
+         * @param jobCount the number of ints of jobs so far
+         * @param pc       the instruction, or a negative slot to restore
+         * @param position the position, or the position to restore
+         * @return the new number of ints of jobs
+         */
+        private int push(int jobCount, int pc, int position) {
+            if (jobCount + 2 > jobs.length) {
+                jobs = Arrays.copyOf(jobs, jobs.length * 2);
+            }
+            jobs[jobCount] = pc;
+            jobs[jobCount + 1] = position;
+            return jobCount + 2;
+        }
+
+        /**
+         * Adds the states reachable from an instruction without reading a
+         * character to the next states, following jumps and splits in priority
+         * order and recording group positions on the way.
+         *
+         * @param pc       the instruction
+         * @param position the position in the text
+         */
+        private void add(int pc, int position) {
+            if (added[pc] == step) {
+                return;
+            }
+            added[pc] = step;
+
+            switch (ops[pc]) {
+                case JUMP -> add(jumps[pc], position);
+                case SPLIT -> {
+                    add(args[pc], position);
+                    add(jumps[pc], position);
+                }
+                case SAVE -> {
+                    int slot = args[pc];
+                    int previous = path[slot];
+                    path[slot] = position;
+                    add(pc + 1, position);
+                    path[slot] = previous;
+                }
+                default -> {
+                    next[nextSize] = pc;
+                    System.arraycopy(path, 0, nextGroups, nextSize * slots, slots);
+                    nextSize++;
+                }
+            }
+        }
+
+        /**
+         * Makes the next states the current ones.
+         */
+        private void swap() {
+            int[] states = current;
+            current = next;
+            next = states;
+
+            int[] positions = currentGroups;
+            currentGroups = nextGroups;
+            nextGroups = positions;
+
+            currentSize = nextSize;
+        }
+
+        @Override
+        public int start(int group) {
+            return found[2 * group];
+        }
+
+        @Override
+        public int end(int group) {
+            return found[2 * group + 1];
+        }
+    }
+
+    /**
+     * A DFA whose states are the lists of NFA states a {@link Matcher} can be
+     * in, in the same priority order and cut off after a match the same way,
+     * but without group positions. Characters the program cannot tell apart
+     * are put in one class, so that the table of transitions has a column for
+     * each class rather than each character.
+     */
+    private static class Dfa {
+        /** The dead state, which no match can be reached from. */
+        private static final int DEAD = 0;
+
+        /** The first character of each class, in order. */
+        private final int[] classStarts;
+
+        /** The class of each ASCII character. */
+        private final int[] asciiClasses;
+
+        /** The state after each state and class, by state times class count plus class. */
+        private final int[] transitions;
+
+        /** Whether each state has a match. */
+        private final boolean[] matching;
+
+        /**
+         * Creates a DFA.
+         *
+         * @param classStarts the first character of each class
+         * @param transitions the state after each state and class
+         * @param matching    whether each state has a match
+         */
+        private Dfa(int[] classStarts, int[] transitions, boolean[] matching) {
+            this.classStarts = classStarts;
+            this.transitions = transitions;
+            this.matching = matching;
+            this.asciiClasses = new int[128];
+            for (int c = 0; c < 128; c++) {
+                asciiClasses[c] = classOf(c);
+            }
+        }
+
+        /**
+         * Builds the DFA of a regex by following every state list it can reach
+         * from the start.
+         *
+         * @param regex the regex
+         * @return the DFA, or {@code null} if it would have too many states
+         */
+        private static Dfa build(LinearRegex regex) {
+            int[] classStarts = classStarts(regex);
+
+            // state 0 is dead, and state 1 is the start
+            List<int[]> states = new ArrayList<>();
+            Map<List<Integer>, Integer> ids = new HashMap<>();
+            states.add(new int[0]);
+            ids.put(List.of(), DEAD);
+            List<Integer> start = new ArrayList<>();
+            regex.closure(0, start, new boolean[regex.ops.length]);
+            states.add(cut(regex, start));
+            ids.put(start, 1);
+
+            List<Integer> transitions = new ArrayList<>();
+            for (int s = 0; s < states.size(); s++) {
+                for (int first : classStarts) {
+                    List<Integer> next = new ArrayList<>();
+                    boolean[] seen = new boolean[regex.ops.length];
+                    for (int pc : states.get(s)) {
+                        if (regex.ops[pc] == MATCH) {
+                            break;
+                        }
+                        if (regex.accepts(pc, first)) {
+                            regex.closure(pc + 1, next, seen);
+                        }
+                    }
+
+                    int[] list = cut(regex, next);
+                    List<Integer> key = Arrays.stream(list).boxed().toList();
+                    Integer id = ids.get(key);
+                    if (id == null) {
+                        if (states.size() == MAX_DFA_STATES) {
+                            return null;
+                        }
+                        id = states.size();
+                        states.add(list);
+                        ids.put(key, id);
+                    }
+                    transitions.add(id);
+                }
+            }
+
+            boolean[] matching = new boolean[states.size()];
+            for (int s = 0; s < states.size(); s++) {
+                int[] list = states.get(s);
+                matching[s] = list.length > 0 && regex.ops[list[list.length - 1]] == MATCH;
+            }
+            return new Dfa(classStarts, transitions.stream().mapToInt(Integer::intValue).toArray(), matching);
+        }
+
+        /**
+         * Splits the characters into classes the program cannot tell apart, at
+         * the ends of every character and range it matches.
+         *
+         * @param regex the regex
+         * @return the first character of each class, in order
+         */
+        private static int[] classStarts(LinearRegex regex) {
+            TreeSet<Integer> starts = new TreeSet<>();
+            starts.add(0);
+            for (int pc = 0; pc < regex.ops.length; pc++) {
+                if (regex.ops[pc] == CHAR) {
+                    starts.add(regex.args[pc]);
+                    starts.add(regex.args[pc] + 1);
+                } else if (regex.ops[pc] == CLASS) {
+                    int[] ranges = regex.classes[regex.args[pc]].ranges();
+                    for (int i = 0; i < ranges.length; i += 2) {
+                        starts.add(ranges[i]);
+                        starts.add(ranges[i + 1] + 1);
+                    }
+                }
+            }
+            starts.remove(Character.MAX_CODE_POINT + 1);
+            return starts.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Drops the states after a match, which have a lower priority.
+         *
+         * @param regex  the regex
+         * @param states the NFA states in priority order
+         * @return the states up to and including the first match
+         */
+        private static int[] cut(LinearRegex regex, List<Integer> states) {
+            int end = 0;
+            while (end < states.size() && regex.ops[states.get(end)] != MATCH) {
+                end++;
+            }
+            if (end < states.size()) {
+                states.subList(end + 1, states.size()).clear();
+            }
+            return states.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Finds the class of a character.
+         *
+         * @param c the character
+         * @return its class
+         */
+        private int classOf(int c) {
+            int i = Arrays.binarySearch(classStarts, c);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        /**
+         * Finds where the match at a position ends. The characters read are
+         * spent from the budget, once the DFA stops: one try reads no more
+         * than the text.
+         *
+         * @param text     the text
+         * @param position the position to match at
+         * @param budget   the budget
+         * @return the end of the match, or -1 if there is none or the budget
+         *         ran out
+         */
+        private int end(CharSequence text, int position, MatchBudget budget) {
+            int classCount = classStarts.length;
+            int state = 1;
+            int end = matching[state] ? position : -1;
+
+            int i = position;
+            int length = text.length();
+            while (i < length) {
+                int c = Character.codePointAt(text, i);
+                state = transitions[state * classCount + (c < 128 ? asciiClasses[c] : classOf(c))];
+                if (state == DEAD) {
+                    break;
+                }
+                i += Character.charCount(c);
+                if (matching[state]) {
+                    end = i;
+                }
+            }
+            return budget.spend(i - position + 1) ? end : -1;
+        }
+    }
+
+    /**
+     * Compiles parsed regexes into instructions.
+     */
+    private static class Program {
+        private final List<Integer> ops = new ArrayList<>();
+        private final List<Integer> args = new ArrayList<>();
+        private final List<Integer> jumps = new ArrayList<>();
+        private final List<CharClass> classes = new ArrayList<>();
+
+        /**
+         * Adds the instructions of a node.
+         *
+         * @param node the node
+         */
+        private void compile(Node node) {
+            switch (node) {
+                case Literal literal -> emit(CHAR, literal.c(), 0);
+                case Chars chars -> {
+                    if (chars.chars() == null) {
+                        emit(ANY, 0, 0);
+                    } else {
+                        classes.add(chars.chars());
+                        emit(CLASS, classes.size() - 1, 0);
+                    }
+                }
+                case Group group -> {
+                    if (group.number() > 0) {
+                        emit(SAVE, 2 * group.number(), 0);
+                    }
+                    compile(group.body());
+                    if (group.number() > 0) {
+                        emit(SAVE, 2 * group.number() + 1, 0);
+                    }
+                }
+                case Sequence sequence -> sequence.nodes().forEach(this::compile);
+                case Alternation alternation -> {
+                    List<Integer> exits = new ArrayList<>();
+                    List<Node> alternatives = alternation.alternatives();
+                    for (int i = 0; i < alternatives.size() - 1; i++) {
+                        int split = emit(SPLIT, 0, 0);
+                        compile(alternatives.get(i));
+                        exits.add(emit(JUMP, 0, 0));
+                        branch(split, split + 1, ops.size(), false);
+                    }
+                    compile(alternatives.get(alternatives.size() - 1));
+                    for (int exit : exits) {
+                        jumps.set(exit, ops.size());
+                    }
+                }
+                case Repeat repeat -> {
+                    if (repeat.optional()) {
+                        // split into the node or past it, and jump back to the split if it repeats
+                        int split = emit(SPLIT, 0, 0);
+                        compile(repeat.body());
+                        if (repeat.repeated()) {
+                            emit(JUMP, 0, split);
+                        }
+                        branch(split, split + 1, ops.size(), repeat.lazy());
+                    } else {
+                        // the node, then split back to it or on
+                        int start = ops.size();
+                        compile(repeat.body());
+                        int split = emit(SPLIT, 0, 0);
+                        branch(split, start, split + 1, repeat.lazy());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sets where a split goes.
+         *
+         * @param split the split
+         * @param more  where it goes to match more
+         * @param fewer where it goes to match less
+         * @param lazy  whether to try matching less first
+         */
+        private void branch(int split, int more, int fewer, boolean lazy) {
+            args.set(split, lazy ? fewer : more);
+            jumps.set(split, lazy ? more : fewer);
+        }
+
+        /**
+         * Adds an instruction.
+         *
+         * @param op   the operation
+         * @param arg  its argument
+         * @param jump where it jumps to
+         * @return the position of the instruction
+         */
+        private int emit(int op, int arg, int jump) {
+            ops.add(op);
+            args.add(arg);
+            jumps.add(jump);
+            return ops.size() - 1;
+        }
+    }
+
+    /**
+     * Parses a regex by recursive descent.
+     */
+    private static class Parser {
+        private final String regex;
+        private final boolean dotAll;
+        private int position;
+        private int groups;
+
+        /**
+         * Creates a parser.
+         *
+         * @param regex  the regex
+         * @param dotAll whether {@code .} matches line terminators
+         */
+        private Parser(String regex, boolean dotAll) {
+            this.regex = regex;
+            this.dotAll = dotAll;
+        }
+
+        /**
+         * Parses the whole regex.
+         *
+         * @return the parsed regex
+         */
+        private Node parse() {
+            Node node = alternation();
+            if (position < regex.length()) {
+                throw unsupported("Unmatched )");
+            }
+            return node;
+        }
+
+        /**
+         * Parses alternatives separated by {@code |}.
+         *
+         * @return the alternation, or the only alternative
+         */
+        private Node alternation() {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(sequence());
+            while (at('|')) {
+                position++;
+                alternatives.add(sequence());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+        }
+
+        /**
+         * Parses quantified atoms up to the end of an alternative.
+         *
+         * @return the sequence
+         */
+        private Node sequence() {
+            List<Node> nodes = new ArrayList<>();
+            while (position < regex.length() && !at('|') && !at(')')) {
+                nodes.add(quantifier(atom()));
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new Sequence(nodes);
+        }
+
+        /**
+         * Parses the quantifier after an atom, if there is one.
+         *
+         * @param atom the atom
+         * @return the quantified atom
+         */
+        private Node quantifier(Node atom) {
+            if (!at('*') && !at('+') && !at('?')) {
+                return atom;
+            }
+
+            char quantifier = regex.charAt(position++);
+            boolean lazy = at('?');
+            if (lazy) {
+                position++;
+            }
+            if (at('*') || at('+') || at('?') || at('{')) {
+                throw unsupported("Quantifier");
+            }
+            if (quantifier != '?' && nullable(atom)) {
+                throw unsupported("Repeating what can match nothing");
+            }
+            if (captures(atom)) {
+                // a backtracking matcher keeps groups from iterations it backtracked out of
+                throw unsupported("Repeating a capturing group");
+            }
+            return new Repeat(atom, quantifier != '+', quantifier != '?', lazy);
+        }
+
+        /**
+         * Parses one atom: a character, class, group or {@code .}.
+         *
+         * @return the atom
+         */
+        private Node atom() {
+            int c = regex.codePointAt(position);
+            position += Character.charCount(c);
+            switch (c) {
+                case '(' -> {
+                    int number = 0;
+                    if (regex.startsWith("?:", position)) {
+                        position += 2;
+                    } else if (at('?')) {
+                        throw unsupported("Group construct");
+                    } else {
+                        number = ++groups;
+                    }
+
+                    Node body = alternation();
+                    if (!at(')')) {
+                        throw unsupported("Unclosed group");
+                    }
+                    position++;
+                    return new Group(number, body);
+                }
+                case '[' -> {
+                    return new Chars(bracketClass());
+                }
+                case '.' -> {
+                    return new Chars(dotAll ? null : NOT_LINE_TERMINATOR);
+                }
+                case '\\' -> {
+                    CharClass escaped = escapeClass();
+                    return escaped != null ? new Chars(escaped) : new Literal(escapeChar());
+                }
+                case '^', '$', '*', '+', '?', '{' -> throw unsupported("Unexpected " + (char) c);
+                default -> {
+                    return new Literal(c);
+                }
+            }
+        }
+
+        /**
+         * Parses a bracketed class after its {@code [}.
+         *
+         * @return the class
+         */
+        private CharClass bracketClass() {
+            boolean negated = at('^');
+            if (negated) {
+                position++;
+            }
+            if (at(']')) {
+                throw unsupported("Empty class");
+            }
+
+            List<Integer> ranges = new ArrayList<>();
+            while (position < regex.length() && !at(']')) {
+                if (at('[') || regex.startsWith("&&", position)) {
+                    throw unsupported("Nested class");
+                }
+
+                int first = classChar(ranges);
+                if (first < 0) {
+                    continue;
+                }
+                int last = first;
+                if (at('-') && position + 1 < regex.length() && regex.charAt(position + 1) != ']') {
+                    position++;
+                    last = classChar(null);
+                    if (last < first) {
+                        throw unsupported("Illegal range");
+                    }
+                }
+                ranges.add(first);
+                ranges.add(last);
+            }
+            if (!at(']')) {
+                throw unsupported("Unclosed class");
+            }
+            position++;
+            return new CharClass(ranges.stream().mapToInt(Integer::intValue).toArray(), negated);
+        }
+
+        /**
+         * Parses a character of a bracketed class, or a class escape in it.
+         *
+         * @param ranges the ranges to add a class escape to, or {@code null} if
+         *               one is not allowed
+         * @return the character, or -1 if it was a class escape
+         */
+        private int classChar(List<Integer> ranges) {
+            int c = regex.codePointAt(position);
+            position += Character.charCount(c);
+            if (c != '\\') {
+                return c;
+            }
+
+            CharClass escaped = escapeClass();
+            if (escaped == null) {
+                return escapeChar();
+            }
+            if (ranges == null || escaped.negated()) {
+                throw unsupported("Class escape");
+            }
+            for (int range : escaped.ranges()) {
+                ranges.add(range);
+            }
+            return -1;
+        }
+
+        /**
+         * Parses a class escape after its backslash, if it is one.
+         *
+         * @return the class, or {@code null} if the escape is a character
+         */
+        private CharClass escapeClass() {
+            if (position >= regex.length()) {
+                throw unsupported("Trailing backslash");
+            }
+
+            CharClass escaped = switch (regex.charAt(position)) {
+                case 'd' -> new CharClass(DIGITS, false);
+                case 'D' -> new CharClass(DIGITS, true);
+                case 's' -> new CharClass(SPACES, false);
+                case 'S' -> new CharClass(SPACES, true);
+                case 'w' -> new CharClass(WORD, false);
+                case 'W' -> new CharClass(WORD, true);
+                default -> null;
+            };
+            if (escaped != null) {
+                position++;
+            }
+            return escaped;
+        }
+
+        /**
+         * Parses a character escape after its backslash.
+         *
+         * @return the character
+         */
+        private int escapeChar() {
+            int c = regex.codePointAt(position);
+            position += Character.charCount(c);
+            return switch (c) {
+                case 't' -> '\t';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 'f' -> '\f';
+                default -> {
+                    if (Character.isLetterOrDigit(c)) {
+                        throw unsupported("Escape");
+                    }
+                    yield c;
+                }
+            };
+        }
+
+        /**
+         * Tests whether a node can match nothing.
+         *
+         * @param node the node
+         * @return {@code true} if it can match the empty string
+         */
+        private static boolean nullable(Node node) {
+            return switch (node) {
+                case Chars chars -> false;
+                case Literal literal -> false;
+                case Group group -> nullable(group.body());
+                case Sequence sequence -> sequence.nodes().stream().allMatch(Parser::nullable);
+                case Alternation alternation -> alternation.alternatives().stream().anyMatch(Parser::nullable);
+                case Repeat repeat -> repeat.optional() || nullable(repeat.body());
+            };
+        }
+
+        /**
+         * Tests whether a node has a capturing group.
+         *
+         * @param node the node
+         * @return {@code true} if it has one
+         */
+        private static boolean captures(Node node) {
+            return switch (node) {
+                case Chars chars -> false;
+                case Literal literal -> false;
+                case Group group -> group.number() > 0 || captures(group.body());
+                case Sequence sequence -> sequence.nodes().stream().anyMatch(Parser::captures);
+                case Alternation alternation -> alternation.alternatives().stream().anyMatch(Parser::captures);
+                case Repeat repeat -> captures(repeat.body());
+            };
+        }
+
+        /**
+         * Tests the character at the current position.
+         *
+         * @param c the character
+         * @return {@code true} if it is there
+         */
+        private boolean at(char c) {
+            return position < regex.length() && regex.charAt(position) == c;
+        }
+
+        /**
+         * Creates the exception for a regex that is not supported.
+         *
+         * @param message what is not supported
+         * @return the exception
+         */
+        private IllegalArgumentException unsupported(String message) {
+            return new IllegalArgumentException(message + " at index " + position + " is not supported: " + regex);
+        }
+    }
+}
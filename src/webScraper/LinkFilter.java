@@ -0,0 +1,462 @@
+package webScraper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which links to follow using configurable include and exclude rules.
+ * A link is followed if it matches no exclude rule and, when there are include
+ * rules, at least one include rule. Rules are read one per line:
+ *
+ * <pre>
+ * include contains /recipe       # the raw link contains the text
+ * include path /recipe/          # the path starts with the prefix
+ * include host *.10000recipe.com # the host matches the glob
+ * exclude ext .jpg .png .pdf     # the path ends with an extension
+ * exclude regex [?&amp;]page=\d{3,}  # the raw link matches the regex
+ * </pre>
+ *
+ * <p>
+ * The rules are compiled once: path prefixes into a trie and contained texts
+ * into an {@link AhoCorasick} automaton. Links are tested on the raw string
+ * before any {@link URI} is created, using index ranges instead of substrings,
+ * so only regex rules allocate and they run last.
+ */
+public class LinkFilter {
+    /** The rules used when none are configured: follow links with "/recipe". */
+    public static final List<String> DEFAULT_RULES = List.of("include contains /recipe");
+
+    /**
+     * One compiled set of rules, either the includes or the excludes.
+     */
+    private static class RuleSet {
+        private final PrefixTrie paths;
+        private final AhoCorasick contains;
+        private final String[] hosts;
+        private final String[] extensions;
+        private final Pattern regex;
+        private final ThreadLocal<Matcher> matcher;
+        private final boolean empty;
+
+        /**
+         * Compiles the rules.
+         *
+         * @param paths      the path prefixes
+         * @param contains   the texts contained in the link
+         * @param hosts      the host globs
+         * @param extensions the path extensions
+         * @param regexes    the regexes
+         */
+        private RuleSet(List<String> paths, List<String> contains, List<String> hosts, List<String> extensions,
+                List<String> regexes) {
+            this.paths = new PrefixTrie(paths);
+            this.contains = new AhoCorasick(contains, false);
+            this.hosts = hosts.toArray(new String[0]);
+            this.extensions = extensions.toArray(new String[0]);
+
+            if (regexes.isEmpty()) {
+                this.regex = null;
+                this.matcher = null;
+            } else {
+                this.regex = Pattern.compile("(?:" + String.join(")|(?:", regexes) + ")");
+                this.matcher = ThreadLocal.withInitial(() -> regex.matcher(""));
+            }
+
+            this.empty = paths.isEmpty() && contains.isEmpty() && hosts.isEmpty() && extensions.isEmpty()
+                    && regexes.isEmpty();
+        }
+
+        /**
+         * Tests the link against every rule in the set, cheapest first.
+         *
+         * @param link the link
+         * @param p    the parsed ranges of the link
+         * @return {@code true} if any rule matches
+         */
+        private boolean matches(String link, Parts p) {
+            for (String extension : extensions) {
+                int length = extension.length();
+                if (p.pathEnd - p.pathStart >= length
+                        && link.regionMatches(true, p.pathEnd - length, extension, 0, length)) {
+                    return true;
+                }
+            }
+
+            for (String host : hosts) {
+                if (globMatches(host, 0, p.host, p.hostStart, p.hostEnd)) {
+                    return true;
+                }
+            }
+
+            if (p.pathStart < p.pathEnd || p.basePath != null) {
+                if (paths.matchesPrefix(p.basePath, p.basePathEnd, link, p.pathStart, p.pathEnd)) {
+                    return true;
+                }
+            }
+
+            if (contains.size() > 0 && contains.find(link, 0, link.length()) >= 0) {
+                return true;
+            }
+
+            return regex != null && matcher.get().reset(link).find();
+        }
+    }
+
+    /**
+     * Index ranges of the parts of a raw link, reused between links.
+     */
+    private static class Parts {
+        /** The string holding the host: the link or the base host. */
+        private String host;
+        private int hostStart;
+        private int hostEnd;
+
+        /** The range of the path within the link. */
+        private int pathStart;
+        private int pathEnd;
+
+        /** For relative links, the part of the base path before theirs, else null. */
+        private String basePath;
+        private int basePathEnd;
+    }
+
+    /**
+     * A trie of path prefixes over characters.
+     */
+    private static class PrefixTrie {
+        private char[] keys = new char[0];
+        private PrefixTrie[] children = new PrefixTrie[0];
+        private boolean terminal;
+
+        /**
+         * Builds the trie.
+         *
+         * @param prefixes the prefixes to add
+         */
+        private PrefixTrie(List<String> prefixes) {
+            for (String prefix : prefixes) {
+                PrefixTrie node = this;
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = node.child(prefix.charAt(i), true);
+                }
+                node.terminal = true;
+            }
+        }
+
+        /**
+         * Creates an empty node.
+         */
+        private PrefixTrie() {
+        }
+
+        /**
+         * Returns the child for a character.
+         *
+         * @param c      the character
+         * @param create whether to create a missing child
+         * @return the child, or {@code null} if missing and not created
+         */
+        private PrefixTrie child(char c, boolean create) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            if (!create) {
+                return null;
+            }
+
+            int at = -(i + 1);
+            char[] newKeys = new char[keys.length + 1];
+            PrefixTrie[] newChildren = new PrefixTrie[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new PrefixTrie();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+
+        /**
+         * Tests whether any prefix in the trie starts the path made of the first
+         * part (if any) followed by the second part.
+         *
+         * @param first    the first part, or {@code null}
+         * @param firstEnd the end of the first part
+         * @param second   the string holding the second part
+         * @param start    the start of the second part
+         * @param end      the end of the second part
+         * @return {@code true} if a prefix matches
+         */
+        private boolean matchesPrefix(String first, int firstEnd, String second, int start, int end) {
+            if (terminal || keys.length == 0) {
+                return terminal;
+            }
+
+            PrefixTrie node = this;
+
+            if (first != null) {
+                for (int i = 0; i < firstEnd && node != null; i++) {
+                    node = node.child(first.charAt(i), false);
+                    if (node != null && node.terminal) {
+                        return true;
+                    }
+                }
+            }
+
+            for (int i = start; i < end && node != null; i++) {
+                node = node.child(second.charAt(i), false);
+                if (node != null && node.terminal) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    private final RuleSet include;
+    private final RuleSet exclude;
+
+    /** The parsed ranges of the current link, reused by each thread. */
+    private final ThreadLocal<Parts> parts = ThreadLocal.withInitial(Parts::new);
+
+    /**
+     * Compiles the include and exclude rules.
+     *
+     * @param rules the rules, one per line as described above
+     * @throws IllegalArgumentException if a rule cannot be parsed
+     */
+    public LinkFilter(List<String> rules) {
+        List<List<List<String>>> parsed = new ArrayList<>();
+        for (int set = 0; set < 2; set++) {
+            List<List<String>> kinds = new ArrayList<>();
+            for (int kind = 0; kind < 5; kind++) {
+                kinds.add(new ArrayList<>());
+            }
+            parsed.add(kinds);
+        }
+
+        for (String line : rules) {
+            int comment = line.indexOf(" #");
+            String rule = (comment >= 0 ? line.substring(0, comment) : line).strip();
+            if (rule.isEmpty() || rule.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = rule.split("\\s+", 3);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("Invalid link rule: " + line);
+            }
+
+            int set = switch (parts[0]) {
+                case "include" -> 0;
+                case "exclude" -> 1;
+                default -> throw new IllegalArgumentException("Expected include or exclude: " + line);
+            };
+
+            int kind = switch (parts[1]) {
+                case "path" -> 0;
+                case "contains" -> 1;
+                case "host" -> 2;
+                case "ext" -> 3;
+                case "regex" -> 4;
+                default -> throw new IllegalArgumentException("Unknown link rule type: " + line);
+            };
+
+            List<String> values = parsed.get(set).get(kind);
+            if (kind == 1 || kind == 4) {
+                values.add(parts[2]);
+            } else {
+                values.addAll(Arrays.asList(parts[2].split("\\s+")));
+            }
+        }
+
+        this.include = compile(parsed.get(0));
+        this.exclude = compile(parsed.get(1));
+    }
+
+    /**
+     * Compiles one set of parsed rules.
+     *
+     * @param kinds the rule values by kind
+     * @return the compiled rules
+     */
+    private static RuleSet compile(List<List<String>> kinds) {
+        return new RuleSet(kinds.get(0), kinds.get(1), kinds.get(2), kinds.get(3), kinds.get(4));
+    }
+
+    /**
+     * Reads and compiles rules from a file.
+     *
+     * @param path the rules file
+     * @return the compiled filter
+     * @throws IOException if the file cannot be read
+     */
+    public static LinkFilter read(Path path) throws IOException {
+        return new LinkFilter(Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a filter with the {@link #DEFAULT_RULES}.
+     *
+     * @return the default filter
+     */
+    public static LinkFilter defaultFilter() {
+        return new LinkFilter(DEFAULT_RULES);
+    }
+
+    /**
+     * Tests whether a raw link found on a page should be followed.
+     *
+     * @param link the raw value of the href attribute
+     * @param base the URI of the page the link was found on
+     * @return {@code true} if the link should be followed
+     */
+    public boolean accepts(String link, URI base) {
+        Parts p = parts.get();
+        if (!parse(link, base, p)) {
+            return false;
+        }
+
+        if (!exclude.empty && exclude.matches(link, p)) {
+            return false;
+        }
+
+        return include.empty || include.matches(link, p);
+    }
+
+    /**
+     * Finds the host and path ranges of a raw link. Relative links take their
+     * host from the base URI, relative paths are matched after the base
+     * directory, and links without a path, such as {@code ?page=2}, are matched
+     * as the base path.
+     *
+     * @param link  the raw link
+     * @param base  the URI of the page
+     * @param parts the parts to fill in
+     * @return {@code false} if the link cannot be crawled, such as mailto links
+     */
+    private static boolean parse(String link, URI base, Parts parts) {
+        int length = link.length();
+        int i = 0;
+
+        // skip a scheme, which must be http or https
+        int colon = -1;
+        for (int j = 0; j < length; j++) {
+            char c = link.charAt(j);
+            if (c == ':') {
+                colon = j;
+                break;
+            }
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+        }
+
+        if (colon >= 0) {
+            boolean http = (colon == 4 && link.regionMatches(true, 0, "http", 0, 4))
+                    || (colon == 5 && link.regionMatches(true, 0, "https", 0, 5));
+            if (!http) {
+                return false;
+            }
+            i = colon + 1;
+        }
+
+        boolean relative = !link.startsWith("//", i);
+        if (!relative) {
+            int authorityStart = i + 2;
+            int authorityEnd = authorityStart;
+            while (authorityEnd < length && "/?#".indexOf(link.charAt(authorityEnd)) < 0) {
+                authorityEnd++;
+            }
+
+            int hostStart = authorityStart;
+            int at = link.lastIndexOf('@', authorityEnd - 1);
+            if (at >= authorityStart) {
+                hostStart = at + 1;
+            }
+
+            int hostEnd = authorityEnd;
+            int portColon = link.lastIndexOf(':', authorityEnd - 1);
+            if (portColon >= hostStart && link.indexOf(']', portColon) < 0) {
+                hostEnd = portColon;
+            }
+
+            parts.host = link;
+            parts.hostStart = hostStart;
+            parts.hostEnd = hostEnd;
+            i = authorityEnd;
+        } else {
+            String baseHost = base.getHost();
+            parts.host = baseHost == null ? "" : baseHost;
+            parts.hostStart = 0;
+            parts.hostEnd = parts.host.length();
+        }
+
+        int pathEnd = i;
+        while (pathEnd < length && link.charAt(pathEnd) != '?' && link.charAt(pathEnd) != '#') {
+            pathEnd++;
+        }
+
+        parts.pathStart = i;
+        parts.pathEnd = pathEnd;
+        parts.basePath = null;
+
+        if (relative && (i == pathEnd || link.charAt(i) != '/')) {
+            // a relative path is matched after the directory of the base path, and
+            // an empty one, as in a query-only link, keeps the whole base path
+            String basePath = base.getRawPath();
+            if (basePath != null && !basePath.isEmpty()) {
+                parts.basePath = basePath;
+                parts.basePathEnd = i == pathEnd ? basePath.length() : basePath.lastIndexOf('/') + 1;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Matches a glob where {@code *} stands for any run of characters against a
+     * range of text, ignoring case.
+     *
+     * @param glob  the glob
+     * @param g     the position in the glob
+     * @param text  the text
+     * @param start the position in the text
+     * @param end   the end of the text range
+     * @return {@code true} if the glob matches the whole range
+     */
+    static boolean globMatches(String glob, int g, String text, int start, int end) {
+        while (g < glob.length()) {
+            char c = glob.charAt(g);
+            if (c == '*') {
+                for (int i = end; i >= start; i--) {
+                    if (globMatches(glob, g + 1, text, i, end)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            if (start >= end || Character.toLowerCase(text.charAt(start)) != Character.toLowerCase(c)) {
+                return false;
+            }
+
+            g++;
+            start++;
+        }
+
+        return start == end;
+    }
+}
@@ -0,0 +1,66 @@
+package webScraper;
+
+/**
+ * Limits the work of matching extraction patterns against one page, so that a
+ * page that makes a pattern slow cannot hold up a crawl worker. The work is
+ * counted in steps rather than time: one step for each state a matcher tries
+ * at each character, which is what the time of matching grows with and,
+ * unlike time, is the same on every run. A page is given steps in proportion
+ * to its length, about thirty times what the pages of the crawled sites take,
+ * and once they are spent every match on the page fails.
+ */
+public class MatchBudget {
+    /** The steps every page is given, however short. */
+    private static final long MINIMUM = 100_000;
+
+    /** The steps given for each character of a page. */
+    private static final long PER_CHARACTER = 16;
+
+    private long remaining;
+    private boolean exhausted;
+
+    /**
+     * Creates a budget.
+     *
+     * @param steps the number of steps
+     */
+    public MatchBudget(long steps) {
+        this.remaining = steps;
+    }
+
+    /**
+     * Creates the budget for a page.
+     *
+     * @param length the length of the page
+     * @return the budget
+     */
+    public static MatchBudget forPage(int length) {
+        return new MatchBudget(MINIMUM + PER_CHARACTER * length);
+    }
+
+    /**
+     * Spends steps, if there are enough left.
+     *
+     * @param steps the number of steps
+     * @return {@code true} if they were spent, or {@code false} if the budget
+     *         is exhausted
+     */
+    public boolean spend(long steps) {
+        if (steps > remaining) {
+            remaining = 0;
+            exhausted = true;
+            return false;
+        }
+        remaining -= steps;
+        return true;
+    }
+
+    /**
+     * Tests whether a match ever ran out of steps.
+     *
+     * @return {@code true} if the budget is exhausted
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
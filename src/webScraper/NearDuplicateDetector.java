@@ -0,0 +1,197 @@
+package webScraper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds pages whose text is nearly the same as a page seen before, such as
+ * print views, mobile paths and parameter variants of the same recipe. Each page
+ * is reduced to a 64-bit SimHash fingerprint of its word shingles, and two
+ * pages are near-duplicates if their fingerprints differ in at most a few bits.
+ *
+ * <p>
+ * To avoid comparing against every earlier page, the fingerprint is split into
+ * one more band than the allowed distance. Two fingerprints within the distance
+ * must agree exactly on at least one band, so only pages sharing a band value
+ * are compared.
+ */
+public class NearDuplicateDetector {
+    /** The default number of bits two near-duplicate fingerprints may differ in. */
+    public static final int DEFAULT_MAX_DISTANCE = 3;
+
+    /** The number of words in each shingle. */
+    public static final int SHINGLE_SIZE = 3;
+
+    private final int maxDistance;
+    private final int bands;
+
+    /** The fingerprints and locations of every unique page, by position. */
+    private long[] fingerprints;
+    private final List<String> locations;
+
+    /** For each band, maps a band value to the positions of pages with it. */
+    private final List<HashMap<Integer, int[]>> tables;
+
+    /**
+     * Creates a detector that allows {@link #DEFAULT_MAX_DISTANCE} differing bits.
+     */
+    public NearDuplicateDetector() {
+        this(DEFAULT_MAX_DISTANCE);
+    }
+
+    /**
+     * Creates a detector.
+     *
+     * @param maxDistance the number of bits two near-duplicate fingerprints may
+     *                    differ in, from 0 to 15
+     */
+    public NearDuplicateDetector(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > 15) {
+            throw new IllegalArgumentException("Distance must be between 0 and 15: " + maxDistance);
+        }
+
+        this.maxDistance = maxDistance;
+        this.bands = maxDistance + 1;
+        this.fingerprints = new long[64];
+        this.locations = new ArrayList<>();
+        this.tables = new ArrayList<>();
+        for (int band = 0; band < bands; band++) {
+            tables.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Returns the number of unique pages seen.
+     *
+     * @return the number of unique pages
+     */
+    public synchronized int size() {
+        return locations.size();
+    }
+
+    /**
+     * Computes the SimHash fingerprint of the text from its word shingles.
+     *
+     * @param text the plain text of a page
+     * @return the fingerprint
+     */
+    public static long fingerprint(String text) {
+        String[] words = FileStemmer.parse(text);
+        int[] weights = new int[64];
+
+        int shingles = Math.max(1, words.length - SHINGLE_SIZE + 1);
+        for (int start = 0; start < shingles; start++) {
+            long hash = hash(words, start, Math.min(words.length, start + SHINGLE_SIZE));
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((hash >>> bit) & 1) == 1 ? 1 : -1;
+            }
+        }
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns the location of an earlier page whose fingerprint is within the
+     * maximum distance, or adds the page as unique if there is none.
+     *
+     * @param location    the location of the page
+     * @param fingerprint the fingerprint of the page
+     * @return the location of the earlier page, or {@code null} if unique
+     */
+    public synchronized String addIfUnique(String location, long fingerprint) {
+        for (int band = 0; band < bands; band++) {
+            int[] positions = tables.get(band).get(bandValue(fingerprint, band));
+            if (positions == null) {
+                continue;
+            }
+
+            for (int i = 1; i <= positions[0]; i++) {
+                if (Long.bitCount(fingerprints[positions[i]] ^ fingerprint) <= maxDistance) {
+                    return locations.get(positions[i]);
+                }
+            }
+        }
+
+        int position = locations.size();
+        if (position == fingerprints.length) {
+            fingerprints = Arrays.copyOf(fingerprints, position * 2);
+        }
+        fingerprints[position] = fingerprint;
+        locations.add(location);
+
+        for (int band = 0; band < bands; band++) {
+            tables.get(band).merge(bandValue(fingerprint, band), new int[] { 1, position }, NearDuplicateDetector::append);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the bits of the fingerprint in the given band as a table key. The
+     * 64 bits are split into bands as evenly as possible; bands wider than 32
+     * bits are folded, which only adds candidates that are then rejected.
+     *
+     * @param fingerprint the fingerprint
+     * @param band        the band
+     * @return the table key for the band
+     */
+    private int bandValue(long fingerprint, int band) {
+        int from = band * 64 / bands;
+        int to = (band + 1) * 64 / bands;
+        long mask = to - from == 64 ? -1L : (1L << (to - from)) - 1;
+        return Long.hashCode((fingerprint >>> from) & mask);
+    }
+
+    /**
+     * Appends the position in a new single-entry list to an existing list, where
+     * the first element of a list holds its size.
+     *
+     * @param list  the existing list
+     * @param added the new single-entry list
+     * @return the combined list
+     */
+    private static int[] append(int[] list, int[] added) {
+        int size = list[0] + 1;
+        if (size == list.length) {
+            list = Arrays.copyOf(list, list.length * 2);
+        }
+        list[size] = added[1];
+        list[0] = size;
+        return list;
+    }
+
+    /**
+     * Hashes the words from start (inclusive) to end (exclusive) with 64-bit
+     * FNV-1a and a final bit mixer, without joining them into a new string.
+     *
+     * @param words the words
+     * @param start the first word
+     * @param end   the word after the last
+     * @return the hash of the words
+     */
+    private static long hash(String[] words, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int w = start; w < end; w++) {
+            String word = words[w];
+            for (int i = 0; i < word.length(); i++) {
+                hash ^= word.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= ' ';
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,57 @@
+package webScraper;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out requests to the same host, no matter which crawl makes them. Each
+ * request reserves the next free slot for its host and waits for it, so
+ * requests to one host are at least the delay apart while requests to other
+ * hosts go ahead.
+ */
+public class PolitenessScheduler {
+    private final long delayNanos;
+
+    /** The earliest time the next request to each host may start. */
+    private final Map<String, Long> nextSlot;
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param delayMillis the minimum time between requests to one host, in
+     *                    milliseconds
+     */
+    public PolitenessScheduler(long delayMillis) {
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        this.nextSlot = new HashMap<>();
+    }
+
+    /**
+     * Waits until a request to the host may start.
+     *
+     * @param host the host to request
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void await(String host) throws InterruptedException {
+        if (delayNanos == 0) {
+            return;
+        }
+
+        String key = host == null ? "" : host.toLowerCase(Locale.ROOT);
+        long slot;
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            Long next = nextSlot.get(key);
+            slot = next == null || next - now < 0 ? now : next;
+            nextSlot.put(key, slot + delayNanos);
+        }
+
+        long wait = slot - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
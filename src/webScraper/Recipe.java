@@ -0,0 +1,69 @@
+package webScraper;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recipe as extracted from a page and stored in the {@link InvertedIndex}.
+ * Extractors build it directly from the fields they find, and
+ * {@link JsonWriter} writes it out as the same JSON object the index has always
+ * had. It is immutable, so the index, its copies and checkpoints can share it.
+ *
+ * @param title       the title, empty if none was found
+ * @param servings    the serving size, empty if none was found
+ * @param time        the time, empty if none was found
+ * @param ingredients the ingredient lines
+ * @param steps       the steps with a description, in page order
+ */
+public record Recipe(String title, String servings, String time, List<String> ingredients, List<Step> steps)
+        implements InvertedIndex.Entry {
+    /**
+     * A step of a recipe.
+     *
+     * @param number      the number of the step, counting the steps without a
+     *                    description that were left out
+     * @param description the description
+     * @param image       the link of the step's image, empty if it has none
+     */
+    public record Step(int number, String description, String image) implements Serializable {
+    }
+
+    /**
+     * Creates a recipe with copies of the lists.
+     *
+     * @param title       the title, empty if none was found
+     * @param servings    the serving size, empty if none was found
+     * @param time        the time, empty if none was found
+     * @param ingredients the ingredient lines
+     * @param steps       the steps with a description, in page order
+     */
+    public Recipe {
+        ingredients = List.copyOf(ingredients);
+        steps = List.copyOf(steps);
+    }
+
+    /**
+     * Builds a recipe from extracted fields. Steps are numbered in page order,
+     * steps without a description are left out, and the n-th image goes with
+     * the n-th step.
+     *
+     * @param title       the title
+     * @param servings    the serving size
+     * @param time        the time
+     * @param ingredients the ingredient lines
+     * @param steps       the step descriptions
+     * @param images      the step image URLs
+     * @return the recipe
+     */
+    static Recipe of(String title, String servings, String time, List<String> ingredients, List<String> steps,
+            List<String> images) {
+        List<Step> numbered = new ArrayList<>();
+        for (int n = 0; n < steps.size(); n++) {
+            if (!steps.get(n).isEmpty()) {
+                numbered.add(new Step(n + 1, steps.get(n), n < images.size() ? images.get(n) : ""));
+            }
+        }
+        return new Recipe(title, servings, time, ingredients, numbered);
+    }
+}
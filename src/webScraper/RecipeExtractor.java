@@ -0,0 +1,268 @@
+package webScraper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the title, serving size, time, ingredients and steps of a recipe
+ * page in one scan. The patterns of {@link HtmlCleaner#extractTitle(String)},
+ * {@link HtmlCleaner#extractInfo(String)},
+ * {@link HtmlCleaner#extractIngredients(String)},
+ * {@link HtmlCleaner#extractSteps(String)} and
+ * {@link HtmlCleaner#findImages(String)} are compiled once, and instead of each
+ * searching the whole page, the page is read from one {@code <} to the next
+ * and only the patterns for that tag name are tried, anchored at the tag. The
+ * step list markers are only looked up if the page has steps.
+ *
+ * <p>
+ * A page fetched as UTF-8 bytes can be extracted without decoding it first:
+ * the patterns are all ASCII, so they match the bytes of a {@link Utf8Text}
+ * where they would match the decoded page, and only the text of the fields
+ * found is decoded.
+ *
+ * <p>
+ * The patterns are {@link ExtractionPattern}s, matched in time linear in the
+ * page and within a {@link MatchBudget}, so that a malformed page, such as one
+ * with many step numbers but no step text for the lazy {@code .*?} to stop
+ * at, cannot make extraction take quadratic time.
+ */
+public class RecipeExtractor {
+    private static final ExtractionPattern TITLE = ExtractionPattern.compile(
+            "<div\\s+class=\"view3_top_tit\">(.*?)</div>", Pattern.DOTALL);
+
+    private static final ExtractionPattern INFO = ExtractionPattern.compile(
+            "<div\\s+class=\"view3_top_info\">(.*?)</div>", Pattern.DOTALL);
+
+    private static final ExtractionPattern INGREDIENT = ExtractionPattern.compile("<div class=\"ingre_list_name\">"
+            + "\\s*<a [^>]+>([^<]+)</a>\\s*</div>\\s*<span class=\"ingre_list_ea\">([^<]+)</span>");
+
+    private static final ExtractionPattern STEP = ExtractionPattern.compile(
+            "<li[^>]*>\\s*<div class=\"step_list_num\">.*?</div>\\s*"
+                    + "<div class=\"step_list_txt\">\\s*<div class=\"step_list_txt_cont\">(.*?)</div>",
+            Pattern.DOTALL);
+
+    private static final ExtractionPattern IMAGE = ExtractionPattern.compile(
+            "<img[^>]*src=[\"']([^\"']*)[\"'][^>]*>", Pattern.DOTALL);
+
+    /** Marks the start of the step list. */
+    private static final String STEPS_START = "class=\"step_list st_thumb\"";
+
+    /** Marks the comments after the step list. */
+    private static final String STEPS_END = "class=\"reply_mn_tab\"";
+
+    /** Tags removed from the info section before its numbers are read. */
+    private static final Pattern INFO_TAGS = Pattern.compile("<img[^>]*>|<span[^>]*>|</span>");
+
+    /** A number in the info section, with its unit. */
+    private static final Pattern INFO_NUMBER = Pattern.compile("\\d+[^\\s]*");
+
+    /** A line break within a step. */
+    private static final Pattern LINE_BREAK = Pattern.compile("<br\\s*/?>");
+
+    /**
+     * A step and where it was found.
+     *
+     * @param text     the raw step text
+     * @param position the position of its match in the page
+     */
+    private record Found(String text, int position) {
+    }
+
+    /**
+     * Turns part of the page into a field value.
+     */
+    @FunctionalInterface
+    private interface Slicer {
+        /**
+         * Returns the text of part of the page.
+         *
+         * @param start the start of the part
+         * @param end   the end of the part
+         * @return the text
+         */
+        String slice(int start, int end);
+    }
+
+    /** Prevents instantiating this class of static methods. */
+    private RecipeExtractor() {
+    }
+
+    /**
+     * Extracts a recipe page into a {@link Recipe}: a title, serving size and
+     * time, a list of ingredient lines, and a list of steps, each with its
+     * number, description and image link. Like {@link HtmlCleaner#extractSteps(String)}, steps and
+     * images are only taken from between the step list and the comments if the
+     * page has both, and the n-th image goes with the n-th step.
+     *
+     * @param html valid HTML text
+     * @return the recipe
+     */
+    public static Recipe extract(String html) {
+        return extract(html, MatchBudget.forPage(html.length()));
+    }
+
+    /**
+     * Extracts a recipe page like {@link #extract(String)} within a budget. The
+     * fields whose patterns ran out of budget are left out.
+     *
+     * @param html   valid HTML text
+     * @param budget the budget of the page
+     * @return the recipe
+     */
+    public static Recipe extract(String html, MatchBudget budget) {
+        return extract(html, html::substring, budget);
+    }
+
+    /**
+     * Extracts a recipe page like {@link #extract(String)} from its UTF-8
+     * bytes, decoding only the fields.
+     *
+     * @param page the page
+     * @return the recipe
+     */
+    public static Recipe extract(Utf8Text page) {
+        return extract(page, MatchBudget.forPage(page.length()));
+    }
+
+    /**
+     * Extracts a recipe page like {@link #extract(Utf8Text)} within a budget.
+     *
+     * @param page   the page
+     * @param budget the budget of the page
+     * @return the recipe
+     */
+    public static Recipe extract(Utf8Text page, MatchBudget budget) {
+        return extract(page, page::decode, budget);
+    }
+
+    /**
+     * Extracts a recipe page, as a string or as bytes.
+     *
+     * @param html   the page
+     * @param slicer turns the part of the page a field was found in into text
+     * @param budget the budget of the page
+     * @return the recipe
+     */
+    private static Recipe extract(CharSequence html, Slicer slicer, MatchBudget budget) {
+        ExtractionPattern.Matcher title = TITLE.matcher(html, budget);
+        ExtractionPattern.Matcher info = INFO.matcher(html, budget);
+        ExtractionPattern.Matcher ingredient = INGREDIENT.matcher(html, budget);
+        ExtractionPattern.Matcher step = STEP.matcher(html, budget);
+        ExtractionPattern.Matcher image = IMAGE.matcher(html, budget);
+
+        String titleText = null;
+        String infoText = null;
+        List<String> ingredients = new ArrayList<>();
+        List<Found> steps = new ArrayList<>();
+        List<Integer> images = new ArrayList<>();
+
+        // once the budget is spent no pattern can match, so the rest of the page is not read
+        int i = indexOf(html, "<", 0);
+        while (i >= 0 && !budget.isExhausted()) {
+            int next = i + 1;
+
+            if (startsWith(html, "<div", i)) {
+                if (titleText == null && title.matchAt(i)) {
+                    titleText = slicer.slice(title.start(1), title.end(1)).trim();
+                    next = title.end();
+                } else if (infoText == null && info.matchAt(i)) {
+                    infoText = slicer.slice(info.start(1), info.end(1));
+                    next = info.end();
+                } else if (ingredient.matchAt(i)) {
+                    ingredients.add(slicer.slice(ingredient.start(1), ingredient.end(1)).trim() + " "
+                            + slicer.slice(ingredient.start(2), ingredient.end(2)).trim());
+                    next = ingredient.end();
+                }
+            } else if (startsWith(html, "<li", i)) {
+                if (step.matchAt(i)) {
+                    steps.add(new Found(slicer.slice(step.start(1), step.end(1)), i));
+                    next = step.end();
+                }
+            } else if (startsWith(html, "<img", i)) {
+                // most images are not step images, so only their position is kept for now
+                images.add(i);
+            }
+
+            i = indexOf(html, "<", next);
+        }
+
+        // only keep the steps and images of the step list, if it can be found. The two
+        // markers are found with indexOf rather than one AhoCorasick pass: both are
+        // SIMD searches that only run on pages with steps, and stepping the automaton
+        // over every character of a recipe page measured slower than the two of them
+        int start = steps.isEmpty() ? -1 : indexOf(html, STEPS_START, 0);
+        int end = start < 0 ? -1 : indexOf(html, STEPS_END, 0);
+        if (start >= 0 && end > start) {
+            steps.removeIf(found -> found.position() < start || found.position() >= end);
+            images.removeIf(position -> position < start || position >= end);
+        }
+
+        List<String> descriptions = new ArrayList<>();
+        for (Found found : steps) {
+            String text = LINE_BREAK.matcher(found.text().trim()).replaceAll("\n");
+            descriptions.add(HtmlCleaner.stripHtml(text).strip());
+        }
+
+        // image tags without a source are not counted, and no more are read than there are steps
+        List<String> sources = new ArrayList<>();
+        for (int n = 0; n < images.size() && sources.size() < steps.size(); n++) {
+            if (image.matchAt(images.get(n))) {
+                sources.add(slicer.slice(image.start(1), image.end(1)).trim());
+            }
+        }
+
+        List<String> numbers = infoNumbers(infoText);
+        return Recipe.of(titleText == null ? "" : titleText, numbers.size() >= 2 ? numbers.get(0) : "",
+                numbers.size() >= 2 ? numbers.get(1) : "", ingredients, descriptions, sources);
+    }
+
+    /**
+     * Reads the numbers and their units from an info section, such as the
+     * serving size and time.
+     *
+     * @param info the HTML of the info section, or {@code null}
+     * @return the numbers in page order
+     */
+    static List<String> infoNumbers(String info) {
+        List<String> numbers = new ArrayList<>();
+        if (info != null) {
+            Matcher number = INFO_NUMBER.matcher(INFO_TAGS.matcher(info).replaceAll(""));
+            while (number.find()) {
+                numbers.add(number.group());
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Finds ASCII text in the page.
+     *
+     * @param html the page, as a string or as bytes
+     * @param text the text to find
+     * @param from the position to search from
+     * @return the position of the text, or -1 if not found
+     */
+    private static int indexOf(CharSequence html, String text, int from) {
+        if (html instanceof Utf8Text page) {
+            return text.length() == 1 ? page.indexOf(text.charAt(0), from) : page.indexOf(text, from);
+        }
+        return html.toString().indexOf(text, from);
+    }
+
+    /**
+     * Tests whether ASCII text is found at a position of the page.
+     *
+     * @param html     the page, as a string or as bytes
+     * @param text     the text
+     * @param position the position
+     * @return {@code true} if the text is there
+     */
+    private static boolean startsWith(CharSequence html, String text, int position) {
+        if (html instanceof Utf8Text page) {
+            return page.startsWith(text, position);
+        }
+        return html.toString().startsWith(text, position);
+    }
+}
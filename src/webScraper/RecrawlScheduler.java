@@ -0,0 +1,251 @@
+package webScraper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which pages to revisit in an incremental recrawl. For every URL it
+ * remembers when the page was last fetched and a hash of what was indexed, and
+ * estimates how often the page changes from how many of its revisits found a
+ * change.
+ *
+ * <p>
+ * Pages that changed are revisited sooner, and pages that did not change back
+ * off exponentially up to {@link #MAX_INTERVAL}. When more pages are due than
+ * the refresh budget allows, the pages most likely to have changed since their
+ * last fetch are revisited first, since those are the revisits that actually
+ * improve the freshness of the index.
+ */
+public class RecrawlScheduler {
+    /** The shortest time between two visits of a page. */
+    public static final long MIN_INTERVAL = 60 * 60 * 1000L;
+
+    /** The time between the first two visits of a page. */
+    public static final long INITIAL_INTERVAL = 24 * MIN_INTERVAL;
+
+    /** The longest time between two visits of a page. */
+    public static final long MAX_INTERVAL = 30 * INITIAL_INTERVAL;
+
+    /**
+     * What is known about one page.
+     */
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** When the page was last fetched, in epoch milliseconds. */
+        private long lastFetch;
+
+        /** The hash of what was indexed for the page on the last fetch. */
+        private long contentHash;
+
+        /** The number of revisits, and how many of those found a change. */
+        private int revisits;
+        private int changes;
+
+        /** The total time between revisits, in milliseconds. */
+        private long observed;
+
+        /** The current time until the next revisit, in milliseconds. */
+        private long interval;
+
+        /**
+         * Estimates the change rate per millisecond using the estimator by Cho and
+         * Garcia-Molina, which corrects for changes missed between two revisits.
+         *
+         * @return the estimated change rate
+         */
+        private double changeRate() {
+            if (revisits == 0 || observed <= 0) {
+                return 1.0 / INITIAL_INTERVAL;
+            }
+
+            double unchanged = (revisits - changes + 0.5) / (revisits + 0.5);
+            return -Math.log(unchanged) / ((double) observed / revisits);
+        }
+
+        /**
+         * Returns the probability that the page changed since its last fetch.
+         *
+         * @param now the current time
+         * @return the probability of a change
+         */
+        private double staleness(long now) {
+            return 1 - Math.exp(-changeRate() * (now - lastFetch));
+        }
+    }
+
+    private final HashMap<String, Entry> entries;
+
+    /**
+     * Creates an empty scheduler.
+     */
+    public RecrawlScheduler() {
+        this.entries = new HashMap<>();
+    }
+
+    /**
+     * Determines whether no pages have been recorded yet.
+     *
+     * @return {@code true} if no pages have been recorded
+     */
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns the number of recorded pages.
+     *
+     * @return the number of recorded pages
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Determines whether a known page has not changed since it was last fetched,
+     * according to a last-modified time reported elsewhere, such as a sitemap.
+     * Pages without a reported time are left to the schedule.
+     *
+     * @param uri          the canonical URI of the page
+     * @param lastModified the reported last-modified time, or -1 if unknown
+     * @return {@code true} if the page is known and has not changed since
+     */
+    public synchronized boolean isUnchanged(URI uri, long lastModified) {
+        Entry entry = entries.get(uri.toString());
+        return entry != null && (lastModified < 0 || lastModified <= entry.lastFetch);
+    }
+
+    /**
+     * Records a fetch of a page and schedules its next visit.
+     *
+     * @param uri         the canonical URI of the page
+     * @param contentHash the hash of what was indexed for the page
+     * @param now         the time of the fetch
+     * @return {@code true} if the page is new or changed since the last fetch
+     */
+    public synchronized boolean record(URI uri, long contentHash, long now) {
+        Entry entry = entries.get(uri.toString());
+
+        if (entry == null) {
+            entry = new Entry();
+            entry.lastFetch = now;
+            entry.contentHash = contentHash;
+            entry.interval = INITIAL_INTERVAL;
+            entries.put(uri.toString(), entry);
+            return true;
+        }
+
+        boolean changed = entry.contentHash != contentHash;
+
+        entry.revisits++;
+        entry.observed += Math.max(0, now - entry.lastFetch);
+        entry.lastFetch = now;
+        entry.contentHash = contentHash;
+
+        if (changed) {
+            entry.changes++;
+            long estimate = (long) Math.min(MAX_INTERVAL, 1 / entry.changeRate());
+            entry.interval = Math.max(MIN_INTERVAL, Math.min(entry.interval / 2, estimate));
+        } else {
+            entry.interval = Math.min(MAX_INTERVAL, entry.interval * 2);
+        }
+
+        return changed;
+    }
+
+    /**
+     * Returns the pages due for a revisit, most likely changed first.
+     *
+     * @param max the maximum number of pages to return
+     * @param now the current time
+     * @return up to {@code max} pages to revisit
+     */
+    public synchronized List<URI> due(int max, long now) {
+        List<Map.Entry<String, Entry>> due = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (now - entry.getValue().lastFetch >= entry.getValue().interval) {
+                due.add(entry);
+            }
+        }
+
+        due.sort(Comparator.comparingDouble((Map.Entry<String, Entry> e) -> e.getValue().staleness(now)).reversed());
+
+        List<URI> uris = new ArrayList<>();
+        for (int i = 0; i < due.size() && i < max; i++) {
+            uris.add(URI.create(due.get(i).getKey()));
+        }
+        return uris;
+    }
+
+    /**
+     * Hashes text with 64-bit FNV-1a.
+     *
+     * @param text the text to hash
+     * @return the hash value
+     */
+    public static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the schedule to a file, replacing the old one atomically.
+     *
+     * @param path the file to write
+     * @throws IOException if an IO error occurs
+     */
+    public synchronized void write(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "recrawl", ".tmp");
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeObject(entries);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a schedule from a file.
+     *
+     * @param path the file to read
+     * @return the schedule, or an empty schedule if the file does not exist
+     * @throws IOException if the file exists but cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    public static RecrawlScheduler read(Path path) throws IOException {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+        if (!Files.exists(path)) {
+            return scheduler;
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            scheduler.entries.putAll((Map<String, Entry>) in.readObject());
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unrecognized recrawl schedule: " + path, e);
+        }
+
+        return scheduler;
+    }
+}
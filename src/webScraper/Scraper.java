@@ -1,15 +1,199 @@
 package webScraper;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 public class Scraper {
     private final InvertedIndex index;
+    private URI sitemap;
+    private NearDuplicateDetector duplicates;
+    private boolean skipDuplicateLinks;
+    private LinkFilter linkFilter;
+    private int threads;
+    private CrawlFrontier.Limits defaultLimits;
+    private Map<String, CrawlFrontier.Limits> domainLimits;
+    private boolean detectTraps;
+    private long timeLimitMillis;
+    private int processThreads;
+    private long maxPageBytes;
+    private LinkGraph linkGraph;
+    private int trapPatternLimit;
 
     public Scraper(InvertedIndex index) {
         this.index = index;
+        this.threads = 1;
+        this.defaultLimits = CrawlFrontier.Limits.NONE;
+        this.domainLimits = Map.of();
+        this.detectTraps = true;
+        this.trapPatternLimit = CrawlTrapDetector.DEFAULT_PATTERN_LIMIT;
+    }
+
+    /**
+     * Seeds every crawl with the URLs listed in the given sitemap or sitemap
+     * index, in addition to the seed URL.
+     *
+     * @param sitemap the URI of the sitemap
+     */
+    public void setSitemap(URI sitemap) {
+        this.sitemap = sitemap;
+    }
+
+    /**
+     * Marks near-duplicate pages in the index instead of indexing them in full.
+     *
+     * @param maxDistance        the number of fingerprint bits near-duplicates
+     *                           may differ in
+     * @param skipDuplicateLinks whether to skip the links on near-duplicate pages
+     */
+    public void setDuplicateDetection(int maxDistance, boolean skipDuplicateLinks) {
+        this.duplicates = new NearDuplicateDetector(maxDistance);
+        this.skipDuplicateLinks = skipDuplicateLinks;
+    }
+
+    /**
+     * Sets the rules that decide which links are followed.
+     *
+     * @param linkFilter the rules to use
+     */
+    public void setLinkFilter(LinkFilter linkFilter) {
+        this.linkFilter = linkFilter;
+    }
+
+    /**
+     * Sets the number of pages fetched at the same time.
+     *
+     * @param threads the number of worker threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the budgets, maximum depth and worker share of each domain.
+     *
+     * @param defaultLimits the limits for domains without their own
+     * @param domainLimits  the limits of specific domains, by host
+     */
+    public void setDomainLimits(CrawlFrontier.Limits defaultLimits, Map<String, CrawlFrontier.Limits> domainLimits) {
+        this.defaultLimits = defaultLimits;
+        this.domainLimits = domainLimits;
+    }
+
+    /**
+     * Indexes pages on separate threads from the ones fetching them, keeping at
+     * most the given number of bytes of fetched pages waiting in between.
+     *
+     * @param processThreads the number of threads that index pages, or 0 to
+     *                       fetch and index on the same threads
+     * @param maxPageBytes   the most bytes of fetched pages waiting to be
+     *                       indexed
+     */
+    public void setPipeline(int processThreads, long maxPageBytes) {
+        this.processThreads = processThreads;
+        this.maxPageBytes = maxPageBytes;
+    }
+
+    /**
+     * Records the links between crawled pages in the given graph and crawls the
+     * most important pages of each domain first.
+     *
+     * @param linkGraph the graph to record links in
+     */
+    public void setLinkGraph(LinkGraph linkGraph) {
+        this.linkGraph = linkGraph;
+    }
+
+    /**
+     * Limits every crawl to a wall-clock time instead of only a number of pages.
+     * Pages in flight at the cutoff are finished and the index is still written.
+     *
+     * @param timeLimitMillis the time limit in milliseconds, or 0 for none
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Sets whether discovered links are checked for crawler traps. Detection is
+     * enabled by default.
+     *
+     * @param detectTraps  whether to check links for crawler traps
+     * @param patternLimit the number of unproductive pages of one URL pattern
+     *                     crawled before its links are deprioritized
+     */
+    public void setTrapDetection(boolean detectTraps, int patternLimit) {
+        this.detectTraps = detectTraps;
+        this.trapPatternLimit = patternLimit;
+    }
+
+    /**
+     * Creates a crawler with the options set on this scraper.
+     *
+     * @param totalPages the total number of pages to crawl
+     * @return the new crawler
+     */
+    private WebCrawler createCrawler(int totalPages) {
+        WebCrawler crawler = new WebCrawler(index, totalPages, new UrlCanonicalizer());
+        crawler.setThreads(threads);
+        crawler.setPipeline(processThreads, maxPageBytes);
+        if (timeLimitMillis > 0) {
+            crawler.setTimeLimit(timeLimitMillis);
+        }
+        crawler.getFrontier().setDefaultLimits(defaultLimits);
+        crawler.getFrontier().setLimits(domainLimits);
+        if (duplicates != null) {
+            crawler.setDuplicateDetector(duplicates, skipDuplicateLinks);
+        }
+        if (linkFilter != null) {
+            crawler.setLinkFilter(linkFilter);
+        }
+        if (linkGraph != null) {
+            crawler.setLinkGraph(linkGraph);
+        }
+        if (detectTraps) {
+            CrawlTrapDetector traps = new CrawlTrapDetector(crawler.getMetrics());
+            traps.setPatternLimit(trapPatternLimit);
+            crawler.setTrapDetector(traps);
+        }
+        return crawler;
+    }
+
+    /**
+     * Adds the URLs listed in the sitemap, if there is one, to the crawler. Pages
+     * the scheduler already knows are skipped unless the sitemap reports they
+     * changed since they were last fetched.
+     *
+     * @param crawler   the crawler to add seeds to
+     * @param scheduler the recrawl schedule, or {@code null} if not recrawling
+     */
+    private void addSitemapSeeds(WebCrawler crawler, RecrawlScheduler scheduler) {
+        if (sitemap == null) {
+            return;
+        }
+
+        UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+        int[] skipped = { 0 };
+
+        try {
+            int count = new SitemapReader().read(sitemap, (loc, lastModified) -> {
+                URI uri = canonicalizer.canonicalize(loc);
+                if (scheduler != null && scheduler.isUnchanged(uri, lastModified)) {
+                    skipped[0]++;
+                } else {
+                    crawler.addSeed(uri);
+                }
+            });
+            System.out.println("Read " + count + " URLs from sitemap, skipped " + skipped[0] + " unchanged");
+        } catch (IOException e) {
+            System.err.println("Unable to read sitemap: " + sitemap);
+        }
     }
 
     /**
@@ -27,6 +211,154 @@ public class Scraper {
         System.out.println(index.toString());
     }
 
+    /**
+     * Builds the index like {@link #buildWebCrawl(URI, int)}, periodically saving
+     * checkpoints to the given directory. If resuming, the crawl continues from
+     * the latest checkpoint in that directory instead of starting over.
+     *
+     * @param seedUrl       the seed URL to start web crawling from
+     * @param totalPages    the total number of pages to crawl
+     * @param checkpointDir the directory to save checkpoints in, or {@code null}
+     *                      to crawl without checkpoints
+     * @param interval      the number of pages between checkpoints
+     * @param resume        whether to continue from the latest checkpoint
+     */
+    public void buildWebCrawl(URI seedUrl, int totalPages, Path checkpointDir, int interval, boolean resume) {
+        WebCrawler crawler = createCrawler(totalPages);
+        if (checkpointDir != null) {
+            crawler.setCheckpoint(new CrawlCheckpoint(checkpointDir, interval));
+        }
+
+        CrawlCheckpoint.State state = null;
+        if (checkpointDir != null && resume) {
+            try {
+                state = CrawlCheckpoint.read(checkpointDir);
+            } catch (IOException e) {
+                System.err.println("Unable to read checkpoint from: " + checkpointDir);
+            }
+        }
+
+        if (state != null) {
+            System.out.println("Resuming web crawling at page " + state.pagesCrawled() + " from: " + checkpointDir);
+            crawler.restore(state);
+        } else {
+            System.out.println("Starting web crawling from seed URL: " + seedUrl);
+            addSitemapSeeds(crawler, null);
+            crawler.addSeed(seedUrl);
+        }
+
+        crawler.crawl();
+
+        System.out.println(index.toString());
+    }
+
+    /**
+     * Refreshes a previously built index. The schedule and index from the last
+     * run are loaded from the state directory, and up to the total number of
+     * pages that are due are revisited without following their links. If there
+     * is no earlier run, a full crawl from the seed URL is done instead. The
+     * updated schedule and index are saved back to the state directory.
+     *
+     * @param seedUrl    the seed URL to use if there is no earlier run
+     * @param totalPages the maximum number of pages to fetch
+     * @param stateDir   the directory holding the schedule and index
+     */
+    public void buildRecrawl(URI seedUrl, int totalPages, Path stateDir) {
+        Path schedulePath = stateDir.resolve("recrawl.bin");
+        Path shardPath = stateDir.resolve("index.bin");
+
+        try {
+            RecrawlScheduler scheduler = RecrawlScheduler.read(schedulePath);
+            if (Files.exists(shardPath)) {
+                index.addAll(IndexMerger.readShard(shardPath));
+            }
+
+            WebCrawler crawler = createCrawler(totalPages);
+            crawler.setRecrawlScheduler(scheduler);
+
+            if (scheduler.isEmpty()) {
+                System.out.println("Starting web crawling from seed URL: " + seedUrl);
+                addSitemapSeeds(crawler, null);
+                crawler.addSeed(seedUrl);
+            } else {
+                List<URI> due = scheduler.due(totalPages, System.currentTimeMillis());
+                System.out.println("Revisiting " + due.size() + " of " + scheduler.size() + " known pages");
+
+                crawler.setFollowLinks(false);
+                addSitemapSeeds(crawler, scheduler);
+                for (int i = due.size() - 1; i >= 0; i--) {
+                    crawler.addSeed(due.get(i));
+                }
+            }
+
+            crawler.crawl();
+
+            scheduler.write(schedulePath);
+            IndexMerger.writeShard(index.getHtmlContentMap(), shardPath);
+        } catch (IOException e) {
+            System.err.println("Unable to recrawl with state from: " + stateDir);
+        }
+    }
+
+    /**
+     * Builds the index by fetching every page in a range of numeric IDs directly,
+     * without following links.
+     *
+     * @param template   the URL with {@link IdRangeCrawler#ID_PLACEHOLDER} where
+     *                   the ID goes
+     * @param first      the first ID
+     * @param last       the last ID
+     * @param totalPages the total number of pages to index
+     */
+    public void buildIdRangeCrawl(String template, long first, long last, int totalPages) {
+        System.out.println("Fetching IDs " + first + " to " + last + " from: " + template);
+
+        IdRangeCrawler crawler = new IdRangeCrawler(template, index);
+        crawler.setThreads(threads);
+        int pages = crawler.crawl(first, last, totalPages);
+
+        System.out.println("Indexed " + pages + " pages");
+    }
+
+    /**
+     * Builds this worker's shard of a distributed crawl. Every worker is started
+     * with the same seed and peer list; links are partitioned between workers by
+     * host, and the page budget is shared through the coordinator.
+     *
+     * @param seedUrl     the seed URL to start web crawling from
+     * @param worker      the number of this worker
+     * @param peers       the addresses every worker listens on for links
+     * @param coordinator the address of the coordinator
+     */
+    public void buildDistributedCrawl(URI seedUrl, int worker, List<InetSocketAddress> peers,
+            InetSocketAddress coordinator) {
+        System.out.println("Starting worker " + worker + " of " + peers.size() + " from seed URL: " + seedUrl);
+
+        DistributedCrawler crawler = new DistributedCrawler(worker, peers, coordinator,
+                createCrawler(Integer.MAX_VALUE));
+        crawler.addSeed(seedUrl);
+
+        try {
+            crawler.crawl();
+        } catch (IOException e) {
+            System.err.println("Distributed crawl failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the index as a shard that can later be merged with
+     * {@link IndexMerger}.
+     *
+     * @param shardPath the path to write the shard
+     */
+    public void writeShard(Path shardPath) {
+        try {
+            IndexMerger.writeShard(index.getHtmlContentMap(), shardPath);
+        } catch (IOException e) {
+            System.err.println("Unable to write index shard to file: " + shardPath);
+        }
+    }
+
     /**
      * Writes the index to the specified path.
      *
@@ -40,12 +372,42 @@ public class Scraper {
         }
     }
 
+    /**
+     * Writes the link graph, if one was recorded, next to the given base path.
+     *
+     * @param base the path of the graph files without an extension
+     */
+    public void writeLinkGraph(Path base) {
+        if (linkGraph == null) {
+            return;
+        }
+
+        try {
+            linkGraph.write(base);
+            System.out.println("Link graph: " + linkGraph.size() + " pages, " + linkGraph.edges() + " links in "
+                    + linkGraph.bytes() + " bytes, " + linkGraph.memory() + " bytes in memory");
+        } catch (IOException e) {
+            System.err.println("Unable to write link graph to: " + base);
+        }
+    }
+
     public static void main(String[] args) {
-        if (args.length != 2) {
-            System.err.println("Usage: java webScraper.Scraper <URI> <totalPages>");
+        if (args.length < 2) {
+            System.err.println("Usage: java webScraper.Scraper <URI> <totalPages> "
+                    + "[-output <file>] [-checkpoint <dir>] [-checkpointEvery <pages>] [-resume] [-recrawl <dir>] "
+                    + "[-sitemap <URI>] "
+                    + "[-dedup [bits]] [-skipDuplicateLinks] [-rules <file>] [-extractRules <file>] [-threads <n>] "
+                    + "[-domainPages <pages>] [-domainBytes <bytes>] [-maxDepth <depth>] [-domains <file>] "
+                    + "[-noTraps] [-trapPatternLimit <pages>] [-timeLimit <seconds>] "
+                    + "[-processThreads <n>] [-pageMemory <MB>] "
+                    + "[-linkGraph <base path>] "
+                    + "[-ids <first>-<last> -template <URL with {id}>] "
+                    + "[-worker <id> -peers <host:port,...> -coordinator <host:port> [-shard <file>]]");
             System.exit(1);
         }
 
+        ArgumentParser parser = new ArgumentParser(Arrays.copyOfRange(args, 2, args.length));
+
         try {
             URI seedUrl = new URI(args[0]);
             int totalPages = Integer.parseInt(args[1]);
@@ -53,16 +415,112 @@ public class Scraper {
             InvertedIndex index = new InvertedIndex();
             Scraper scraper = new Scraper(index);
 
-            scraper.buildWebCrawl(seedUrl, totalPages);
+            if (parser.hasFlag("-sitemap")) {
+                scraper.setSitemap(new URI(parser.getString("-sitemap", "")));
+            }
+
+            if (parser.hasFlag("-dedup")) {
+                scraper.setDuplicateDetection(parser.getInteger("-dedup", NearDuplicateDetector.DEFAULT_MAX_DISTANCE),
+                        parser.hasFlag("-skipDuplicateLinks"));
+            }
+
+            if (parser.hasFlag("-rules")) {
+                Path rules = parser.getPath("-rules", null);
+                try {
+                    scraper.setLinkFilter(LinkFilter.read(rules));
+                } catch (IOException e) {
+                    System.err.println("Unable to read link rules from: " + rules);
+                    return;
+                }
+            }
+
+            if (parser.hasFlag("-extractRules")) {
+                Path rules = parser.getPath("-extractRules", null);
+                try {
+                    index.setExtractionRules(ExtractionRules.read(rules));
+                } catch (IOException e) {
+                    System.err.println("Unable to read extraction rules from: " + rules);
+                    return;
+                }
+            }
+
+            Path output = parser.getPath("-output", Path.of("index.json"));
+            scraper.setThreads(parser.getInteger("-threads", 1));
+            scraper.setTimeLimit(parser.getLong("-timeLimit", 0) * 1000);
+            scraper.setPipeline(parser.getInteger("-processThreads", 0),
+                    parser.getLong("-pageMemory", 64) * 1024 * 1024);
+            Path graphPath = parser.hasFlag("-linkGraph") ? parser.getPath("-linkGraph", Path.of("links")) : null;
+            if (graphPath != null) {
+                scraper.setLinkGraph(new LinkGraph());
+            }
+            scraper.setTrapDetection(!parser.hasFlag("-noTraps"),
+                    parser.getInteger("-trapPatternLimit", CrawlTrapDetector.DEFAULT_PATTERN_LIMIT));
+
+            CrawlFrontier.Limits defaults = new CrawlFrontier.Limits(1,
+                    parser.getInteger("-domainPages", Integer.MAX_VALUE),
+                    parser.getLong("-domainBytes", Long.MAX_VALUE),
+                    parser.getInteger("-maxDepth", Integer.MAX_VALUE));
+            Map<String, CrawlFrontier.Limits> domains = Map.of();
+            if (parser.hasFlag("-domains")) {
+                Path domainsPath = parser.getPath("-domains", null);
+                try {
+                    domains = CrawlFrontier.readLimits(domainsPath, defaults);
+                } catch (IOException e) {
+                    System.err.println("Unable to read domain limits from: " + domainsPath);
+                    return;
+                }
+            }
+            scraper.setDomainLimits(defaults, domains);
+
+            if (parser.hasFlag("-ids")) {
+                String range = parser.getString("-ids", "");
+                int dash = range.indexOf('-', 1);
+                if (dash < 0) {
+                    throw new IllegalArgumentException("Expected <first>-<last> but got: " + range);
+                }
+
+                scraper.buildIdRangeCrawl(parser.getString("-template", ""), Long.parseLong(range.substring(0, dash)),
+                        Long.parseLong(range.substring(dash + 1)), totalPages);
+                scraper.writeIndex(output);
+                return;
+            }
+
+            if (parser.hasFlag("-worker")) {
+                int worker = parser.getInteger("-worker", 0);
+                List<InetSocketAddress> peers = DistributedCrawler.parseAddresses(parser.getString("-peers", ""));
+                InetSocketAddress coordinator = DistributedCrawler.parseAddress(parser.getString("-coordinator", ""));
+
+                scraper.buildDistributedCrawl(seedUrl, worker, peers, coordinator);
+                scraper.writeShard(parser.getPath("-shard", Path.of("index-shard-" + worker + ".bin")));
+                return;
+            }
+
+            if (parser.hasFlag("-recrawl")) {
+                scraper.buildRecrawl(seedUrl, totalPages, parser.getPath("-recrawl", Path.of("recrawl")));
+                scraper.writeIndex(output);
+                scraper.writeLinkGraph(graphPath);
+                return;
+            }
+
+            // checkpoints are only saved when asked for, as they cost every crawl time and disk
+            boolean resume = parser.hasFlag("-resume");
+            Path checkpointDir = parser.hasFlag("-checkpoint") || resume
+                    ? parser.getPath("-checkpoint", Path.of("checkpoints"))
+                    : null;
+            int interval = parser.getInteger("-checkpointEvery", 1000);
+
+            scraper.buildWebCrawl(seedUrl, totalPages, checkpointDir, interval, resume);
 
             // Write the index to a file
-            Path indexPath = Path.of("index.json");
-            scraper.writeIndex(indexPath);
+            scraper.writeIndex(output);
+            scraper.writeLinkGraph(graphPath);
 
         } catch (URISyntaxException e) {
-            System.err.println("Invalid URI: " + args[0]);
+            System.err.println("Invalid URI: " + e.getInput());
         } catch (NumberFormatException e) {
-            System.err.println("Invalid number for totalPages: " + args[1]);
+            System.err.println("Invalid number: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid crawl settings: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package webScraper;
+
+import java.net.URI;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches pages for any number of crawls through one set of resources: a cap
+ * on open connections, a {@link DnsCache} and a {@link PolitenessScheduler}.
+ * Crawls sharing a fetcher together never open more connections than the cap
+ * or request the same host more often than the politeness delay allows.
+ */
+public class SharedFetcher {
+    private final Semaphore connections;
+    private final DnsCache dns;
+    private final PolitenessScheduler politeness;
+
+    /**
+     * Creates a fetcher.
+     *
+     * @param maxConnections the maximum number of connections open at once
+     * @param delayMillis    the minimum time between requests to one host, in
+     *                       milliseconds
+     */
+    public SharedFetcher(int maxConnections, long delayMillis) {
+        this.connections = new Semaphore(Math.max(1, maxConnections), true);
+        this.dns = new DnsCache();
+        this.politeness = new PolitenessScheduler(delayMillis);
+    }
+
+    /**
+     * Fetches HTML like {@link HtmlFetcher#fetch(URI, int, StreamingLinkExtractor)}
+     * once the host's politeness delay has passed and a connection is free.
+     *
+     * @param uri       the URI to fetch
+     * @param redirects the number of times to follow redirects
+     * @param links     the extractor to feed the body to, or {@code null}
+     * @return the HTML or {@code null} if unable to fetch valid HTML
+     */
+    public String fetch(URI uri, int redirects, StreamingLinkExtractor links) {
+        try {
+            politeness.await(uri.getHost());
+            connections.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        try {
+            return HtmlFetcher.fetch(uri, redirects, links, dns);
+        } finally {
+            connections.release();
+        }
+    }
+
+    /**
+     * Fetches HTML as bytes like
+     * {@link HtmlFetcher#fetchBytes(URI, int, StreamingLinkExtractor, DnsCache)}
+     * once the host's politeness delay has passed and a connection is free.
+     *
+     * @param uri       the URI to fetch
+     * @param redirects the number of times to follow redirects
+     * @param links     the extractor to feed the body to, or {@code null}
+     * @return the UTF-8 bytes of the HTML or {@code null} if unable to fetch
+     *         valid HTML
+     */
+    public byte[] fetchBytes(URI uri, int redirects, StreamingLinkExtractor links) {
+        return fetchBytes(uri, redirects, links, Long.MAX_VALUE);
+    }
+
+    /**
+     * Fetches HTML as bytes like
+     * {@link #fetchBytes(URI, int, StreamingLinkExtractor)}, giving up if no
+     * connection frees up or the page does not arrive before the deadline.
+     *
+     * @param uri            the URI to fetch
+     * @param redirects      the number of times to follow redirects
+     * @param links          the extractor to feed the body to, or {@code null}
+     * @param deadlineMillis when to give up, as a
+     *                       {@link System#currentTimeMillis()} time, or
+     *                       {@link Long#MAX_VALUE} for no deadline
+     * @return the UTF-8 bytes of the HTML or {@code null} if unable to fetch
+     *         valid HTML in time
+     *
+     * @see HtmlFetcher#fetchBytes(URI, int, StreamingLinkExtractor, DnsCache, long)
+     */
+    public byte[] fetchBytes(URI uri, int redirects, StreamingLinkExtractor links, long deadlineMillis) {
+        try {
+            politeness.await(uri.getHost());
+            long remaining = deadlineMillis - System.currentTimeMillis();
+            if (!connections.tryAcquire(Math.max(0, remaining), TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        try {
+            return HtmlFetcher.fetchBytes(uri, redirects, links, dns, deadlineMillis);
+        } finally {
+            connections.release();
+        }
+    }
+}
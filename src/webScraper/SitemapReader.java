@@ -0,0 +1,207 @@
+package webScraper;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams the URLs listed in a {@code sitemap.xml} file so they can be used as
+ * crawl seeds. Sitemap index files are followed to the sitemaps they list, and
+ * gzipped sitemaps are detected from their first bytes. The XML is read with a
+ * StAX pull parser, so the whole sitemap is never held in memory.
+ *
+ * @see <a href="https://www.sitemaps.org/protocol.html">Sitemaps XML format</a>
+ */
+public class SitemapReader {
+    /** How many levels of sitemap index files are followed. */
+    public static final int MAX_DEPTH = 3;
+
+    /**
+     * Receives each URL listed in a sitemap.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called for each URL in the sitemap.
+         *
+         * @param loc          the URL of the page
+         * @param lastModified when the page last changed in epoch milliseconds, or
+         *                     -1 if the sitemap does not say
+         */
+        void url(URI loc, long lastModified);
+    }
+
+    private final HttpClient client;
+    private final XMLInputFactory factory;
+
+    /**
+     * Creates a sitemap reader.
+     */
+    public SitemapReader() {
+        this.client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+        this.factory = XMLInputFactory.newFactory();
+        this.factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Fetches the sitemap and passes every URL it lists to the listener.
+     *
+     * @param sitemap  the URI of the sitemap or sitemap index
+     * @param listener the listener to pass URLs to
+     * @return the number of URLs passed to the listener
+     * @throws IOException if the sitemap cannot be fetched or parsed
+     */
+    public int read(URI sitemap, Listener listener) throws IOException {
+        return read(sitemap, listener, 0);
+    }
+
+    /**
+     * Fetches the sitemap and passes every URL it lists to the listener,
+     * following sitemap indexes up to {@link #MAX_DEPTH} levels.
+     *
+     * @param sitemap  the URI of the sitemap or sitemap index
+     * @param listener the listener to pass URLs to
+     * @param depth    the current sitemap index depth
+     * @return the number of URLs passed to the listener
+     * @throws IOException if the sitemap cannot be fetched or parsed
+     */
+    private int read(URI sitemap, Listener listener, int depth) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(sitemap).GET().build();
+        HttpResponse<InputStream> response;
+
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching sitemap: " + sitemap, e);
+        }
+
+        List<URI> children = new ArrayList<>();
+        int count;
+
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Unable to fetch sitemap " + sitemap + ": " + response.statusCode());
+            }
+            count = parse(body, listener, children);
+        }
+
+        if (depth < MAX_DEPTH) {
+            for (URI child : children) {
+                try {
+                    count += read(child, listener, depth + 1);
+                } catch (IOException e) {
+                    System.err.println("Unable to read sitemap: " + child);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Parses a sitemap or sitemap index, gzipped or not. URLs are passed to the
+     * listener as they are read, and the sitemaps listed by an index are added to
+     * the children for the caller to read.
+     *
+     * @param input    the sitemap content
+     * @param listener the listener to pass URLs to
+     * @param children the list to add listed sitemaps to
+     * @return the number of URLs passed to the listener
+     * @throws IOException if the content cannot be parsed
+     */
+    public int parse(InputStream input, Listener listener, List<URI> children) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input);
+        buffered.mark(2);
+        boolean gzipped = buffered.read() == 0x1f && buffered.read() == 0x8b;
+        buffered.reset();
+
+        InputStream xml = gzipped ? new GZIPInputStream(buffered) : buffered;
+
+        String loc = null;
+        long lastModified = -1;
+        int count = 0;
+
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(xml);
+
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "loc" -> loc = reader.getElementText().trim();
+                            case "lastmod" -> lastModified = parseLastModified(reader.getElementText().trim());
+                            default -> {
+                                // other elements are not needed
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ((name.equals("url") || name.equals("sitemap")) && loc != null) {
+                            try {
+                                URI uri = new URI(loc);
+                                if (name.equals("url")) {
+                                    listener.url(uri, lastModified);
+                                    count++;
+                                } else {
+                                    children.add(uri);
+                                }
+                            } catch (URISyntaxException e) {
+                                System.out.println("Invalid URI syntax: " + loc);
+                            }
+                        }
+
+                        if (name.equals("url") || name.equals("sitemap")) {
+                            loc = null;
+                            lastModified = -1;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to parse sitemap: " + e.getMessage(), e);
+        }
+
+        return count;
+    }
+
+    /**
+     * Parses a W3C datetime as used by {@code lastmod}, either a date or a full
+     * date and time with a time zone.
+     *
+     * @param text the text to parse
+     * @return the time in epoch milliseconds, or -1 if it cannot be parsed
+     */
+    public static long parseLastModified(String text) {
+        try {
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+            }
+            return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package webScraper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the hyperlinks in HTML while it is still being downloaded. Text is fed
+ * in pieces as it arrives, and each link is passed on as soon as its anchor tag
+ * is complete, so the pages it points to can be fetched before the rest of the
+ * page has been read.
+ *
+ * <p>
+ * Only anchor tags are buffered; everything else is skipped one character at a
+ * time. Each complete tag is matched with the same pattern as
+ * {@link HtmlCleaner#extractHyperlinks(String)}, so both find the same links.
+ */
+public class StreamingLinkExtractor {
+    /** Matches a complete anchor tag, like {@link HtmlCleaner#extractHyperlinks(String)}. */
+    private static final Pattern ANCHOR = Pattern.compile("<a\\s+[^>]*href\\s*=\\s*\"([^\"]*)\"[^>]*>",
+            Pattern.CASE_INSENSITIVE);
+
+    /** Tags longer than this are not anchors worth following and are dropped. */
+    private static final int MAX_TAG_LENGTH = 8192;
+
+    private static final int TEXT = 0;
+    private static final int TAG_OPEN = 1;
+    private static final int TAG_NAME = 2;
+    private static final int ANCHOR_TAG = 3;
+
+    private final Consumer<String> links;
+    private final StringBuilder tag;
+    private final Matcher matcher;
+    private int state;
+    private boolean quoted;
+    private boolean utf8;
+    private int count;
+
+    /**
+     * Creates an extractor that passes every link it finds to the consumer.
+     *
+     * @param links the consumer to pass the raw links to, in page order
+     */
+    public StreamingLinkExtractor(Consumer<String> links) {
+        this.links = links;
+        this.tag = new StringBuilder();
+        this.matcher = ANCHOR.matcher("");
+        this.state = TEXT;
+    }
+
+    /**
+     * Feeds the next piece of the page, from start (inclusive) to end
+     * (exclusive). Links in a {@link Utf8Text} are decoded.
+     *
+     * @param html  the text holding the piece
+     * @param start the start of the piece
+     * @param end   the end of the piece
+     */
+    public void feed(CharSequence html, int start, int end) {
+        if (html instanceof Utf8Text page) {
+            page.feedTo(this, start, end);
+            return;
+        }
+
+        for (int i = start; i < end; i++) {
+            next(html.charAt(i));
+        }
+    }
+
+    /**
+     * Feeds the next piece of a page being downloaded as UTF-8 bytes, from
+     * start (inclusive) to end (exclusive). The bytes are read one per
+     * character, and only the links found are decoded. Text between tags is
+     * skipped with {@link ByteScanner}.
+     *
+     * @param bytes the bytes holding the piece
+     * @param start the start of the piece
+     * @param end   the end of the piece
+     */
+    public void feed(byte[] bytes, int start, int end) {
+        utf8 = true;
+        for (int i = start; i < end; i++) {
+            // skip straight to the next tag with a vectorized search
+            if (state == TEXT) {
+                i = ByteScanner.indexOf(bytes, i, end, (byte) '<');
+                if (i < 0) {
+                    return;
+                }
+            }
+            next((char) (bytes[i] & 0xff));
+        }
+    }
+
+    /**
+     * Reads the next character of the page.
+     *
+     * @param c the character
+     */
+    private void next(char c) {
+        switch (state) {
+            case TEXT -> {
+                if (c == '<') {
+                    state = TAG_OPEN;
+                }
+            }
+            case TAG_OPEN -> state = c == 'a' || c == 'A' ? TAG_NAME : c == '<' ? TAG_OPEN : TEXT;
+            case TAG_NAME -> {
+                if (Character.isWhitespace(c)) {
+                    tag.setLength(0);
+                    tag.append("<a").append(c);
+                    quoted = false;
+                    state = ANCHOR_TAG;
+                } else {
+                    state = c == '<' ? TAG_OPEN : TEXT;
+                }
+            }
+            default -> {
+                tag.append(c);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == '>' && !quoted) {
+                    emit();
+                    state = TEXT;
+                } else if (tag.length() > MAX_TAG_LENGTH) {
+                    state = TEXT;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of links found so far.
+     *
+     * @return the number of links found
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Passes on the link in the buffered anchor tag, if it has one.
+     */
+    private void emit() {
+        matcher.reset(tag);
+        if (matcher.find()) {
+            count++;
+            String link = matcher.group(1);
+            links.accept(utf8 ? new String(link.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8) : link);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package webScraper;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rewrites URIs into a single canonical form so that different spellings of
+ * the same page are only fetched and indexed once. The scheme and host are
+ * lowercased, the default port and fragment are dropped, dot segments are
+ * removed from the path, and tracking query parameters are stripped.
+ *
+ * <p>
+ * The canonical form is built in a single {@link StringBuilder} pass over the
+ * raw URI components, and the original URI is returned as-is when it is already
+ * canonical.
+ */
+public class UrlCanonicalizer {
+
+    /** Query parameters that only track the visitor and never change the page. */
+    public static final List<String> DEFAULT_TRACKING_PARAMETERS = List.of(
+            "utm_source", "utm_medium", "utm_campaign", "utm_term", "utm_content",
+            "gclid", "fbclid", "mc_cid", "mc_eid");
+
+    /** Tracking parameter names, kept as an array for allocation-free matching. */
+    private final String[] trackingParameters;
+
+    /**
+     * Creates a canonicalizer that strips the
+     * {@link #DEFAULT_TRACKING_PARAMETERS}.
+     */
+    public UrlCanonicalizer() {
+        this(DEFAULT_TRACKING_PARAMETERS);
+    }
+
+    /**
+     * Creates a canonicalizer that strips the given query parameters.
+     *
+     * @param trackingParameters the parameter names to remove (case-sensitive)
+     */
+    public UrlCanonicalizer(Collection<String> trackingParameters) {
+        this.trackingParameters = trackingParameters.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the canonical form of the URI. Non-HTTP(S) and opaque URIs are
+     * returned unchanged.
+     *
+     * @param uri the absolute URI to canonicalize
+     * @return the canonical URI
+     */
+    public URI canonicalize(URI uri) {
+        if (!HtmlFetcher.isValidURL(uri) || uri.isOpaque() || uri.getRawAuthority() == null) {
+            return uri;
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        String host = uri.getHost();
+        int port = uri.getPort();
+        boolean https = scheme.equals("https");
+
+        StringBuilder sb = new StringBuilder(uri.toString().length());
+        sb.append(scheme).append("://");
+
+        String userInfo = uri.getRawUserInfo();
+        if (userInfo != null) {
+            sb.append(userInfo).append('@');
+        }
+
+        if (host != null) {
+            appendLowerCase(sb, host);
+        } else {
+            // registry-based authority, keep it as given
+            appendLowerCase(sb, uri.getRawAuthority());
+        }
+
+        if (port != -1 && port != (https ? 443 : 80)) {
+            sb.append(':').append(port);
+        }
+
+        appendNormalizedPath(sb, uri.getRawPath());
+        appendFilteredQuery(sb, uri.getRawQuery());
+
+        String canonical = sb.toString();
+        return canonical.equals(uri.toString()) ? uri : URI.create(canonical);
+    }
+
+    /**
+     * Appends the text lowercased, without allocating when already lowercase.
+     *
+     * @param sb   the builder to append to
+     * @param text the text to append
+     */
+    private static void appendLowerCase(StringBuilder sb, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+    }
+
+    /**
+     * Appends the path with "." and ".." segments resolved and empty segments
+     * collapsed. An empty path becomes "/".
+     *
+     * @param sb   the builder to append to
+     * @param path the raw path
+     */
+    private static void appendNormalizedPath(StringBuilder sb, String path) {
+        int base = sb.length();
+        sb.append('/');
+
+        if (path == null || path.isEmpty()) {
+            return;
+        }
+
+        int length = path.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+
+            int segment = end - start;
+            if (segment == 0 || (segment == 1 && path.charAt(start) == '.')) {
+                // empty or current-directory segment, nothing to add
+            } else if (segment == 2 && path.charAt(start) == '.' && path.charAt(start + 1) == '.') {
+                // parent-directory segment, drop the last segment written so far
+                int last = sb.length() - 1;
+                if (last > base) {
+                    int previous = sb.lastIndexOf("/", last - 1);
+                    sb.setLength(Math.max(previous, base) + 1);
+                }
+            } else {
+                sb.append(path, start, end);
+                if (end < length) {
+                    sb.append('/');
+                }
+            }
+
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Appends the query without any tracking parameters. Nothing is appended if
+     * no parameters remain.
+     *
+     * @param sb    the builder to append to
+     * @param query the raw query
+     */
+    private void appendFilteredQuery(StringBuilder sb, String query) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+
+        int length = query.length();
+        int start = 0;
+        boolean first = true;
+
+        while (start < length) {
+            int end = query.indexOf('&', start);
+            if (end == -1) {
+                end = length;
+            }
+
+            if (end > start && !isTrackingParameter(query, start, end)) {
+                sb.append(first ? '?' : '&').append(query, start, end);
+                first = false;
+            }
+
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Tests whether the parameter in {@code query[start, end)} is a tracking
+     * parameter, comparing in place without creating substrings.
+     *
+     * @param query the raw query
+     * @param start the start of the parameter
+     * @param end   the end of the parameter
+     * @return {@code true} if the parameter name is a tracking parameter
+     */
+    private boolean isTrackingParameter(String query, int start, int end) {
+        int equals = query.indexOf('=', start);
+        int nameEnd = equals == -1 || equals > end ? end : equals;
+        int nameLength = nameEnd - start;
+
+        for (String parameter : trackingParameters) {
+            if (parameter.length() == nameLength && query.regionMatches(start, parameter, 0, nameLength)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
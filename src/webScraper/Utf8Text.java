@@ -0,0 +1,183 @@
+package webScraper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A page fetched as UTF-8 bytes, read one byte per character without decoding
+ * it. Markup is ASCII, and every byte of a multi-byte UTF-8 character is at
+ * least 0x80, so ASCII text and patterns match the bytes exactly where they
+ * would match the decoded page, and a match never starts or ends inside a
+ * character. Only the pieces extracted from the page need to be decoded, with
+ * {@link #decode(int, int)}, instead of the whole page being copied into a
+ * {@link String} of twice its size.
+ *
+ * <p>
+ * As a {@link CharSequence}, each character is one byte, so non-ASCII text
+ * reads as several characters from U+0080 to U+00FF.
+ */
+public class Utf8Text implements CharSequence {
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Wraps bytes without copying them.
+     *
+     * @param bytes the UTF-8 bytes
+     */
+    public Utf8Text(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Wraps part of an array without copying it.
+     *
+     * @param bytes  the array
+     * @param offset the start of the UTF-8 bytes
+     * @param length the number of bytes
+     */
+    public Utf8Text(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Wraps the remaining bytes of a buffer, without copying them if it is
+     * backed by an array.
+     *
+     * @param buffer the buffer of UTF-8 bytes
+     * @return the text
+     */
+    public static Utf8Text of(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new Utf8Text(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        return new Utf8Text(copy);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes[offset + index] & 0xff);
+    }
+
+    @Override
+    public Utf8Text subSequence(int start, int end) {
+        return new Utf8Text(bytes, offset + start, end - start);
+    }
+
+    /**
+     * Returns the byte at a position.
+     *
+     * @param index the position
+     * @return the byte
+     */
+    public byte byteAt(int index) {
+        return bytes[offset + index];
+    }
+
+    /**
+     * Passes part of the page to a link extractor as bytes.
+     *
+     * @param links the link extractor
+     * @param start the start of the part (inclusive)
+     * @param end   the end of the part (exclusive)
+     */
+    void feedTo(StreamingLinkExtractor links, int start, int end) {
+        links.feed(bytes, offset + start, offset + end);
+    }
+
+    /**
+     * Finds an ASCII character.
+     *
+     * @param c    the character
+     * @param from the position to search from
+     * @return the position of the character, or -1 if not found
+     */
+    public int indexOf(char c, int from) {
+        int i = ByteScanner.indexOf(bytes, offset + Math.max(from, 0), offset + length, (byte) c);
+        return i < 0 ? -1 : i - offset;
+    }
+
+    /**
+     * Finds ASCII text.
+     *
+     * @param text the text
+     * @param from the position to search from
+     * @return the position of the text, or -1 if not found
+     */
+    public int indexOf(String text, int from) {
+        if (text.isEmpty()) {
+            return Math.min(Math.max(from, 0), length);
+        }
+
+        int i = indexOf(text.charAt(0), from);
+        while (i >= 0 && i + text.length() <= length) {
+            if (startsWith(text, i)) {
+                return i;
+            }
+            i = indexOf(text.charAt(0), i + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Tests whether ASCII text is found at a position.
+     *
+     * @param text     the text
+     * @param position the position
+     * @return {@code true} if the bytes there are the text
+     */
+    public boolean startsWith(String text, int position) {
+        if (position < 0 || position + text.length() > length) {
+            return false;
+        }
+
+        for (int i = 0; i < text.length(); i++) {
+            if (bytes[offset + position + i] != (byte) text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes part of the page.
+     *
+     * @param start the start of the part (inclusive)
+     * @param end   the end of the part (exclusive)
+     * @return the decoded text
+     */
+    public String decode(int start, int end) {
+        return new String(bytes, offset + start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the whole page.
+     *
+     * @return the decoded text
+     */
+    public String decode() {
+        return decode(0, length);
+    }
+
+    /**
+     * Returns the bytes one per character, as a {@link CharSequence} must. Use
+     * {@link #decode()} for the text of the page.
+     *
+     * @return the bytes as characters
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,77 @@
+package webScraper;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Searches bytes 32 at a time with the Vector API. Only loaded by
+ * {@link ByteScanner} when the {@code jdk.incubator.vector} module is present.
+ *
+ * <p>
+ * In markup the next delimiter is often only a few bytes away, where setting
+ * up a vector costs more than it saves, so the first bytes are checked one at
+ * a time, as are the bytes left over after the last full vector. 256-bit
+ * vectors are used even where 512-bit ones are available, since measured on
+ * recipe pages they were as fast on long runs of text and faster on short ones.
+ */
+class VectorByteScanner implements ByteScanner.Kernel {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() >= 32
+            ? ByteVector.SPECIES_256
+            : ByteVector.SPECIES_PREFERRED;
+
+    /** The number of bytes checked one at a time before using vectors. */
+    private static final int PREFIX = 16;
+
+    /**
+     * Creates the kernel.
+     *
+     * @throws UnsupportedOperationException if the CPU has no vectors of at
+     *                                       least 16 bytes, where the Vector API
+     *                                       would be slower than a plain loop
+     */
+    VectorByteScanner() {
+        if (SPECIES.length() < 16) {
+            throw new UnsupportedOperationException("No SIMD support for " + SPECIES);
+        }
+    }
+
+    @Override
+    public int indexOf(byte[] bytes, int from, int to, byte b) {
+        int i = Math.min(to, from + PREFIX);
+        int found = ByteScanner.SCALAR.indexOf(bytes, from, i, b);
+        if (found >= 0) {
+            return found;
+        }
+
+        for (int bound = i + SPECIES.loopBound(to - i); i < bound; i += SPECIES.length()) {
+            long matches = ByteVector.fromArray(SPECIES, bytes, i).eq(b).toLong();
+            if (matches != 0) {
+                return i + Long.numberOfTrailingZeros(matches);
+            }
+        }
+        return ByteScanner.SCALAR.indexOf(bytes, i, to, b);
+    }
+
+    @Override
+    public int indexOfEither(byte[] bytes, int from, int to, byte a, byte b) {
+        int i = Math.min(to, from + PREFIX);
+        int found = ByteScanner.SCALAR.indexOfEither(bytes, from, i, a, b);
+        if (found >= 0) {
+            return found;
+        }
+
+        for (int bound = i + SPECIES.loopBound(to - i); i < bound; i += SPECIES.length()) {
+            ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i);
+            long matches = vector.eq(a).or(vector.eq(b)).toLong();
+            if (matches != 0) {
+                return i + Long.numberOfTrailingZeros(matches);
+            }
+        }
+        return ByteScanner.SCALAR.indexOfEither(bytes, i, to, a, b);
+    }
+
+    @Override
+    public String toString() {
+        return SPECIES.vectorBitSize() + "-bit vectors";
+    }
+}
@@ -2,51 +2,948 @@ package webScraper;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Crawls pages depth-first from one or more seeds, following the links
+ * accepted by a {@link LinkFilter} and adding every fetched page to an
+ * {@link InvertedIndex}.
+ * The pending URIs are kept in a {@link CrawlFrontier} so the crawl can be
+ * checkpointed and resumed, and so that several worker threads can share it
+ * with per-domain budgets and a fair share of workers for every domain.
+ */
 public class WebCrawler {
-    private static final Set<URI> visitedUris = new HashSet<>();
-    private static int pagesCrawled = 0;
+    /**
+     * Decides where discovered links are crawled, such as by another worker in a
+     * distributed crawl.
+     */
+    public interface LinkRouter {
+        /**
+         * Routes a discovered link.
+         *
+         * @param uri   the discovered link, canonicalized
+         * @param depth its link depth from a seed
+         * @return {@code true} if this crawler should crawl the link itself,
+         *         {@code false} if the router has taken care of it
+         */
+        boolean accept(URI uri, int depth);
+    }
 
-    public static void crawl(URI uri, InvertedIndex index, int totalPages) {
-        if (pagesCrawled >= totalPages) {
-            return;
+    /**
+     * A page fetched but not yet indexed.
+     *
+     * @param task     the URI of the page and its link depth
+     * @param html     the UTF-8 bytes of the page
+     * @param streamed the extractor that added its links during the download, or
+     *                 {@code null}
+     * @param links    the links added during the download, if recorded in the
+     *                 link graph, or {@code null}
+     * @param enqueued the links the download added to the frontier, if
+     *                 checked for traps, or {@code null}
+     * @param start    when the fetch started, in nanoseconds
+     */
+    private record Fetched(CrawlFrontier.Task task, Utf8Text html, StreamingLinkExtractor streamed, List<URI> links,
+            List<URI> enqueued, long start) {
+    }
+
+    private final InvertedIndex index;
+    private final int totalPages;
+    private final UrlCanonicalizer canonicalizer;
+
+    /** URIs waiting to be crawled; its monitor also guards pagesCrawled. */
+    private final CrawlFrontier frontier;
+    private final Set<URI> visitedUris;
+    private int pagesCrawled;
+
+    /** URIs finished since the last checkpoint, guarded by the frontier. */
+    private List<URI> finished;
+
+    /**
+     * URIs of pages counted as crawled whose tasks are not finished yet, and the
+     * number of counted pages whose tasks are, guarded by the frontier. Only
+     * finished pages are counted in checkpoints, as running tasks are crawled
+     * again on resume.
+     */
+    private final Set<URI> counting;
+    private int pagesFinished;
+
+    private int threads;
+    private ExecutorService workers;
+    private SharedFetcher fetcher;
+    private volatile boolean cancelled;
+    private long startMillis;
+    private long deadlineMillis;
+    private int processThreads;
+    private long maxPageBytes;
+
+    private CrawlCheckpoint checkpoint;
+    private LinkRouter router;
+    private RecrawlScheduler scheduler;
+    private boolean followLinks;
+    private NearDuplicateDetector duplicates;
+    private boolean skipDuplicateLinks;
+    private LinkFilter linkFilter;
+    private CrawlTrapDetector traps;
+    private LinkGraph graph;
+    private final CrawlMetrics metrics;
+
+    /**
+     * Creates a crawler that adds pages to the index until it reaches the total.
+     *
+     * @param index         the index to add pages to
+     * @param totalPages    the total number of pages to crawl
+     * @param canonicalizer the canonicalizer to apply to every URI
+     */
+    public WebCrawler(InvertedIndex index, int totalPages, UrlCanonicalizer canonicalizer) {
+        this.index = index;
+        this.totalPages = totalPages;
+        this.canonicalizer = canonicalizer;
+        this.frontier = new CrawlFrontier();
+        this.visitedUris = ConcurrentHashMap.newKeySet();
+        this.pagesCrawled = 0;
+        this.finished = new ArrayList<>();
+        this.counting = new HashSet<>();
+        this.pagesFinished = 0;
+        this.threads = 1;
+        this.deadlineMillis = Long.MAX_VALUE;
+        this.metrics = new CrawlMetrics();
+        this.followLinks = true;
+        this.linkFilter = LinkFilter.defaultFilter();
+    }
+
+    /**
+     * Saves the crawl state with the given checkpoint writer as pages are crawled.
+     *
+     * @param checkpoint the checkpoint writer to use
+     */
+    public void setCheckpoint(CrawlCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Routes every discovered link through the given router before it is added
+     * to the frontier. Routed links are still recorded in the link graph.
+     *
+     * @param router the router to use
+     */
+    public void setLinkRouter(LinkRouter router) {
+        this.router = router;
+    }
+
+    /**
+     * Records every fetched page with the given scheduler so that it can be
+     * revisited in a later recrawl.
+     *
+     * @param scheduler the scheduler to record fetches with
+     */
+    public void setRecrawlScheduler(RecrawlScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets whether links found on crawled pages are followed. When disabled, only
+     * the URIs added with {@link #addSeed(URI)} are crawled.
+     *
+     * @param followLinks whether to follow links
+     */
+    public void setFollowLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+    }
+
+    /**
+     * Sets the rules that decide which links are followed. By default, links
+     * containing "/recipe" are followed.
+     *
+     * @param linkFilter the rules to use
+     */
+    public void setLinkFilter(LinkFilter linkFilter) {
+        this.linkFilter = linkFilter;
+    }
+
+    /**
+     * Checks every discovered link for crawler traps before it is added to the
+     * frontier. Session IDs are stripped from seeds too, but seeds are never
+     * rejected.
+     *
+     * @param traps the detector to check links with
+     */
+    public void setTrapDetector(CrawlTrapDetector traps) {
+        this.traps = traps;
+    }
+
+    /**
+     * Records the links of every crawled page in the given graph and crawls the
+     * pages it rates most important first within each domain.
+     *
+     * @param graph the graph to record links in
+     */
+    public void setLinkGraph(LinkGraph graph) {
+        this.graph = graph;
+        frontier.setPriority(graph::priority);
+    }
+
+    /**
+     * Returns the metrics counted during the crawl.
+     *
+     * @return the crawl metrics
+     */
+    public CrawlMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the number of pages fetched at the same time. The workers are shared
+     * fairly between domains by the frontier.
+     *
+     * @param threads the number of worker threads
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        frontier.setWorkers(this.threads);
+    }
+
+    /**
+     * Runs the worker threads on the given executor instead of a pool owned by
+     * this crawler, such as one shared by several crawls.
+     *
+     * @param executor the executor to run workers on
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.workers = executor;
+    }
+
+    /**
+     * Fetches pages through the given fetcher, such as one shared by several
+     * crawls so that they share connections, host lookups and politeness delays.
+     *
+     * @param fetcher the fetcher to use
+     */
+    public void setFetcher(SharedFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Splits the crawl into a fetch stage and a process stage on separate
+     * threads. Fetched pages wait between the stages in a queue that holds at
+     * most the given number of bytes; once it is full, fetchers block until the
+     * processors catch up, so slow indexing cannot fill memory with pages.
+     *
+     * @param processThreads the number of threads that index pages, or 0 to
+     *                       fetch and index on the same threads
+     * @param maxPageBytes   the most bytes of fetched pages waiting to be
+     *                       indexed
+     */
+    public void setPipeline(int processThreads, long maxPageBytes) {
+        this.processThreads = Math.max(0, processThreads);
+        this.maxPageBytes = maxPageBytes;
+    }
+
+    /**
+     * Stops taking new pages once the time limit has passed, counted from now.
+     * Pages still downloading at the cutoff are given up on, and pages already
+     * downloaded are still indexed. As the deadline nears, the frontier favors
+     * the domains that index the most pages per second.
+     *
+     * @param timeLimitMillis the time limit, in milliseconds
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        this.startMillis = System.currentTimeMillis();
+        this.deadlineMillis = startMillis + timeLimitMillis;
+    }
+
+    /**
+     * Stops the crawl. Pages being fetched are finished, but no new ones are
+     * started.
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized (frontier) {
+            frontier.notifyAll();
         }
+    }
 
-        if (!HtmlFetcher.isValidURL(uri) || visitedUris.contains(uri)) {
-            return;
+    /**
+     * Returns the frontier so that per-domain limits can be set on it.
+     *
+     * @return the frontier
+     */
+    public CrawlFrontier getFrontier() {
+        return frontier;
+    }
+
+    /**
+     * Checks every page against the pages crawled before and marks near-duplicates
+     * in the index instead of indexing them in full.
+     *
+     * @param duplicates         the detector to check pages with
+     * @param skipDuplicateLinks whether to skip the links on near-duplicate pages
+     */
+    public void setDuplicateDetector(NearDuplicateDetector duplicates, boolean skipDuplicateLinks) {
+        this.duplicates = duplicates;
+        this.skipDuplicateLinks = skipDuplicateLinks;
+    }
+
+    /**
+     * Restores the frontier, visited set, page counter, domain usage and index
+     * from a checkpoint. If a checkpoint writer is set, later checkpoints add to
+     * the restored state.
+     *
+     * @param state the saved crawl state
+     */
+    public void restore(CrawlCheckpoint.State state) {
+        synchronized (frontier) {
+            frontier.restore(state.frontier(), state.domainUsage());
+            visitedUris.addAll(state.visited());
+            pagesCrawled = state.pagesCrawled();
+            pagesFinished = state.pagesCrawled();
         }
+        index.addAll(state.index());
 
-        visitedUris.add(uri);
-        String html = HtmlFetcher.fetch(uri);
+        if (checkpoint != null) {
+            checkpoint.resume(state);
+        }
+    }
 
-        if (html == null || html.startsWith("Error") || html.startsWith("Non-HTML") || html.startsWith("Invalid")) {
-            return;
+    /**
+     * Adds a URI to crawl next, at a link depth of zero.
+     *
+     * @param uri the URI to add
+     */
+    public void addSeed(URI uri) {
+        enqueue(uri, 0, null);
+    }
+
+    /**
+     * Adds a link found on a page at the given link depth, such as one forwarded
+     * by another worker. It is checked like the links this crawler finds itself,
+     * so it may be dropped as a trap or for being too deep.
+     *
+     * @param uri   the link to add
+     * @param depth its link depth from a seed
+     */
+    public void addLink(URI uri, int depth) {
+        enqueue(uri, depth, null);
+    }
+
+    /**
+     * Returns the number of pages indexed so far.
+     *
+     * @return the number of pages indexed
+     */
+    public int getPagesCrawled() {
+        synchronized (frontier) {
+            return pagesCrawled;
         }
+    }
 
-        index.indexPage(html, uri);
-        pagesCrawled++;
+    /**
+     * Determines whether there are URIs left in the frontier.
+     *
+     * @return {@code true} if the frontier is not empty
+     */
+    public boolean hasPending() {
+        return !frontier.isEmpty();
+    }
 
-        if (pagesCrawled >= totalPages) {
-            return;
+    /**
+     * Crawls until the frontier is empty or the total number of pages is reached.
+     */
+    public void crawl() {
+        crawlBatch(totalPages);
+
+        if (checkpoint != null) {
+            checkpoint.finish(snapshot());
+        }
+
+        System.out.println(metrics);
+    }
+
+    /**
+     * Crawls until the frontier is empty, the total number of pages is reached,
+     * or the given number of additional pages have been indexed.
+     *
+     * @param maxPages the maximum number of pages to index in this batch
+     * @return the number of pages indexed in this batch
+     */
+    public int crawlBatch(int maxPages) {
+        int start = getPagesCrawled();
+        int limit = (int) Math.min(totalPages, (long) start + maxPages);
+
+        if (threads == 1 && processThreads == 0) {
+            work(limit);
+            return getPagesCrawled() - start;
+        }
+
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(threads + processThreads, runnable -> {
+                Thread thread = new Thread(runnable, "crawl-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        ByteBudgetQueue<Fetched> pages = null;
+
+        if (processThreads == 0) {
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    work(limit);
+                    return null;
+                });
+            }
+        } else {
+            ByteBudgetQueue<Fetched> queue = new ByteBudgetQueue<>(maxPageBytes);
+            AtomicInteger fetching = new AtomicInteger(threads);
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    try {
+                        fetchPages(limit, queue);
+                    } finally {
+                        // the last fetcher out lets the processors drain and stop
+                        if (fetching.decrementAndGet() == 0) {
+                            queue.close();
+                        }
+                    }
+                    return null;
+                });
+            }
+            AtomicInteger processing = new AtomicInteger(processThreads);
+            for (int i = 0; i < processThreads; i++) {
+                tasks.add(() -> {
+                    try {
+                        processPages(queue);
+                    } finally {
+                        // the last processor out stops the fetchers, which would block on a full queue
+                        if (processing.decrementAndGet() == 0) {
+                            dropPages(queue);
+                        }
+                    }
+                    return null;
+                });
+            }
+            pages = queue;
+        }
+
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Crawl worker failed: " + e.getCause());
+        }
+
+        if (pages != null) {
+            metrics.add("pipeline.blocked", pages.getBlockedPuts());
+            long peak = pages.getPeakBytes() - metrics.get("pipeline.peak_bytes");
+            if (peak > 0) {
+                metrics.add("pipeline.peak_bytes", peak);
+            }
+        }
+
+        return getPagesCrawled() - start;
+    }
+
+    /**
+     * Visits tasks from the frontier until there are none left that fit within
+     * the limit.
+     *
+     * @param limit the number of pages to stop at
+     */
+    private void work(int limit) {
+        CrawlFrontier.Task task;
+        while ((task = next(limit)) != null) {
+            Fetched page = null;
+            long start = System.nanoTime();
+            try {
+                page = fetch(task, start);
+                if (page != null) {
+                    process(page);
+                }
+            } finally {
+                done(task, page, start);
+            }
         }
+    }
 
-        List<String> hyperlinks = HtmlCleaner.extractHyperlinks(html);
+    /**
+     * Fetches tasks from the frontier and hands the pages to the process stage
+     * until there are none left that fit within the limit. A task stays in
+     * flight until its page is processed, so pages waiting in the queue still
+     * count against the limit and domain shares.
+     *
+     * @param limit the number of pages to stop at
+     * @param pages the queue to hand fetched pages to, which is only closed
+     *              early if every processor has stopped
+     */
+    private void fetchPages(int limit, ByteBudgetQueue<Fetched> pages) {
+        CrawlFrontier.Task task;
+        boolean open = true;
+        while (open && (task = next(limit)) != null) {
+            Fetched page = null;
+            long start = System.nanoTime();
+            try {
+                page = fetch(task, start);
+                if (page != null && !pages.put(page, page.html().length())) {
+                    page = null;
+                    open = false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                page = null;
+            } finally {
+                if (page == null) {
+                    done(task, null, start);
+                }
+            }
+        }
+    }
 
-        for (String link : hyperlinks) {
-            if (link.contains("/recipe")) { // Check if the link contains "/recipe"
+    /**
+     * Processes pages handed over by the fetch stage until it is finished. A
+     * page that fails to process, even by overflowing the stack, is logged and
+     * counted, and the next page is processed as usual.
+     *
+     * @param pages the queue to take fetched pages from
+     */
+    private void processPages(ByteBudgetQueue<Fetched> pages) {
+        try {
+            Fetched page;
+            while ((page = pages.take()) != null) {
                 try {
-                    URI linkUri = new URI(link);
-                    if (!linkUri.isAbsolute()) {
-                        linkUri = uri.resolve(linkUri);
+                    process(page);
+                } catch (RuntimeException | StackOverflowError e) {
+                    System.err.println("Unable to process " + page.task().uri() + ": " + e);
+                    metrics.increment("pages.process_failed");
+                } finally {
+                    done(page.task(), page, page.start());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes the queue once no processor is left to take from it, and finishes
+     * the tasks of the pages still waiting in it without indexing them, so that
+     * fetchers neither block on the queue nor wait for those tasks.
+     *
+     * @param pages the queue between the stages
+     */
+    private void dropPages(ByteBudgetQueue<Fetched> pages) {
+        pages.close();
+        try {
+            Fetched page;
+            while ((page = pages.take()) != null) {
+                metrics.increment("pages.dropped");
+                done(page.task(), null, page.start());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Tells the frontier a task is finished, waking workers waiting for it, and
+     * takes a checkpoint if one is due. Checkpoints are only taken here, once
+     * the page is no longer running, so it is never saved both as crawled and
+     * as a task to crawl again.
+     *
+     * @param task  the finished task
+     * @param page  the fetched page, or {@code null} if nothing was fetched
+     * @param start when the fetch started, in nanoseconds
+     */
+    private void done(CrawlFrontier.Task task, Fetched page, long start) {
+        long bytes = page == null ? 0 : page.html().length();
+        int saved = 0;
+        synchronized (frontier) {
+            if (checkpoint != null) {
+                finished.add(task.uri());
+                if (counting.remove(task.uri())) {
+                    saved = ++pagesFinished;
+                }
+            }
+            frontier.done(task, page != null, bytes, System.nanoTime() - start);
+        }
+
+        if (saved > 0 && checkpoint.isDue(saved)) {
+            checkpoint.save(snapshot());
+        }
+    }
+
+    /**
+     * Takes the next task from the frontier. Every task in flight may still index
+     * a page, so no more are taken than could fit within the limit. If nothing can
+     * be taken yet but other workers may still add links or free a domain's
+     * share, this waits for them. A task is marked visited when taken, and tasks
+     * whose URI was visited already are skipped.
+     *
+     * @param limit the number of pages to stop at
+     * @return the next task, or {@code null} if the crawl is finished, cancelled
+     *         or out of time
+     */
+    private CrawlFrontier.Task next(int limit) {
+        synchronized (frontier) {
+            while (!cancelled) {
+                long remaining = deadlineMillis - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    if (metrics.get("deadline.reached") == 0) {
+                        metrics.increment("deadline.reached");
+                        System.out.println("Time limit reached, finishing " + frontier.inFlight() + " pages in flight");
+                    }
+                    return null;
+                }
+
+                if (deadlineMillis != Long.MAX_VALUE) {
+                    frontier.setUrgency(1 - (double) remaining / (deadlineMillis - startMillis));
+                }
+
+                if (pagesCrawled + frontier.inFlight() < limit) {
+                    CrawlFrontier.Task task = frontier.poll();
+                    if (task != null) {
+                        if (visitedUris.add(task.uri())) {
+                            return task;
+                        }
+
+                        // queued again by a worker that checked before it was taken
+                        frontier.skip(task);
+                        continue;
                     }
-                    crawl(linkUri, index, totalPages);
-                } catch (URISyntaxException e) {
-                    System.out.println("Invalid URI syntax: " + link);
                 }
+
+                if (frontier.inFlight() == 0) {
+                    return null;
+                }
+
+                try {
+                    frontier.wait(Math.min(remaining, Integer.MAX_VALUE));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Fetches a single URI. With several workers, links are added while the page
+     * is still downloading so that idle workers can start on them, unless links
+     * on near-duplicate pages must be skipped, which is only known once the whole
+     * page has arrived.
+     *
+     * @param task  the URI to visit and its link depth
+     * @param start when the fetch started, in nanoseconds
+     * @return the fetched page, or {@code null} if unable to fetch valid HTML
+     */
+    private Fetched fetch(CrawlFrontier.Task task, long start) {
+        URI uri = task.uri();
+
+        StreamingLinkExtractor streamed = null;
+        List<URI> links = null;
+        List<URI> enqueued = null;
+        if (followLinks && threads > 1 && (duplicates == null || !skipDuplicateLinks)) {
+            List<URI> added = graph == null ? null : new ArrayList<>();
+            List<URI> newLinks = traps == null ? null : new ArrayList<>();
+            streamed = new StreamingLinkExtractor(link -> {
+                URI linkUri = resolveLink(uri, link);
+                if (linkUri != null) {
+                    linkUri = enqueue(linkUri, task.depth() + 1, newLinks);
+                }
+                if (linkUri != null && added != null) {
+                    added.add(linkUri);
+                }
+            });
+            links = added;
+            enqueued = newLinks;
+        }
+
+        // the page stays as bytes, and only what is extracted from it is decoded
+        // a server that stops answering is given up on at the deadline rather than waited out
+        byte[] html = fetcher == null ? HtmlFetcher.fetchBytes(uri, 3, streamed, null, deadlineMillis)
+                : fetcher.fetchBytes(uri, 3, streamed, deadlineMillis);
+
+        if (html == null) {
+            metrics.increment("pages.failed");
+            return null;
+        }
+
+        return new Fetched(task, new Utf8Text(html), streamed, links, enqueued, start);
+    }
+
+    /**
+     * Indexes a fetched page and adds its links to the frontier.
+     *
+     * @param page the fetched page
+     */
+    private void process(Fetched page) {
+        CrawlFrontier.Task task = page.task();
+        URI uri = task.uri();
+        Utf8Text html = page.html();
+        StreamingLinkExtractor streamed = page.streamed();
+
+        String original = duplicates == null ? null : findDuplicate(uri, html.decode());
+        if (original == null) {
+            if (!index.indexPage(html, uri)) {
+                metrics.increment("extract.aborted");
+            }
+            metrics.increment("pages.indexed");
+        } else {
+            index.markDuplicate(uri, original);
+            metrics.increment("pages.duplicate");
+        }
+
+        int crawled;
+        synchronized (frontier) {
+            crawled = ++pagesCrawled;
+            if (checkpoint != null) {
+                counting.add(uri);
+            }
+        }
+
+        if (scheduler != null) {
+            String indexed = String.valueOf(index.getHtmlContent(uri.toString()));
+            scheduler.record(uri, RecrawlScheduler.hash(indexed), System.currentTimeMillis());
+        }
+
+        if (crawled >= totalPages) {
+            return;
+        }
+
+        List<URI> enqueued = page.enqueued();
+        if (streamed != null) {
+            metrics.add("links.streamed", streamed.getCount());
+            if (graph != null) {
+                graph.addPage(uri, page.links());
+            }
+        } else if (followLinks && (original == null || !skipDuplicateLinks)) {
+            enqueued = pushLinks(uri, html, task.depth() + 1);
+        }
+
+        if (traps != null) {
+            boolean newContent = original == null && hasContent(index.getHtmlContent(uri.toString()));
+            traps.recordPage(uri, newContent, enqueued == null ? List.of() : enqueued);
+        }
+    }
+
+    /**
+     * Adds a URI to the frontier. URIs are canonicalized before the visited
+     * check so that different spellings of the same page are only fetched and
+     * indexed once. Links routed elsewhere are not added, and links that look
+     * like crawler traps are dropped or added behind the rest of their domain.
+     *
+     * @param uri      the URI to add
+     * @param depth    its link depth from a seed
+     * @param enqueued the list to add the canonical URI to if it is added to
+     *                 the frontier, or {@code null}
+     * @return the canonical URI, whether added or not, or {@code null} if it
+     *         is not a valid URL
+     */
+    private URI enqueue(URI uri, int depth, List<URI> enqueued) {
+        if (!HtmlFetcher.isValidURL(uri)) {
+            return null;
+        }
+
+        uri = canonicalizer.canonicalize(uri);
+        if (traps != null) {
+            uri = traps.stripSessionIds(uri);
+        }
+
+        if (router != null && !router.accept(uri, depth)) {
+            return uri;
+        }
+
+        if (visitedUris.contains(uri)) {
+            return uri;
+        }
+
+        CrawlTrapDetector.Verdict verdict = traps == null || depth == 0
+                ? CrawlTrapDetector.Verdict.ACCEPT
+                : traps.check(uri);
+
+        boolean added = switch (verdict) {
+            case ACCEPT -> frontier.add(uri, depth);
+            case DEPRIORITIZE -> frontier.addLast(uri, depth);
+            case QUARANTINE -> false;
+        };
+        if (added) {
+            metrics.increment("links.enqueued");
+            if (enqueued != null) {
+                enqueued.add(uri);
+            }
+        }
+        return uri;
+    }
+
+    /**
+     * Tests whether anything was extracted for a page, for the trap detector.
+     *
+     * @param entry the index entry of the page
+     * @return {@code true} if it is a recipe with any field
+     */
+    private static boolean hasContent(InvertedIndex.Entry entry) {
+        return entry instanceof Recipe recipe && (!recipe.title().isBlank() || !recipe.ingredients().isEmpty()
+                || !recipe.steps().isEmpty());
+    }
+
+    /**
+     * Checks whether the page is a near-duplicate of a page crawled before.
+     * Pages without any text are never treated as duplicates.
+     *
+     * @param uri  the URI of the page
+     * @param html the HTML of the page
+     * @return the location of the earlier page, or {@code null} if unique
+     */
+    private String findDuplicate(URI uri, String html) {
+        if (duplicates == null) {
+            return null;
+        }
+
+        String text = HtmlCleaner.stripHtml(html);
+        if (text.isBlank()) {
+            return null;
+        }
+
+        String original = duplicates.addIfUnique(uri.toString(), NearDuplicateDetector.fingerprint(text));
+        if (original != null) {
+            System.out.println("Skipping near-duplicate of " + original + ": " + uri);
+        }
+        return original;
+    }
+
+    /**
+     * Extracts the links to follow from a page, adds them to the frontier and
+     * records them in the link graph.
+     *
+     * @param uri   the URI of the page
+     * @param html  the UTF-8 bytes of the page
+     * @param depth the link depth of the links
+     * @return the links that were added to the frontier
+     */
+    private List<URI> pushLinks(URI uri, Utf8Text html, int depth) {
+        List<URI> links = new ArrayList<>();
+
+        // finds the same links as HtmlCleaner.extractHyperlinks without decoding the page
+        StreamingLinkExtractor extractor = new StreamingLinkExtractor(link -> {
+            URI linkUri = resolveLink(uri, link);
+            if (linkUri != null) {
+                links.add(linkUri);
+            }
+        });
+        extractor.feed(html, 0, html.length());
+
+        // push in reverse so the first link on the page is crawled next
+        List<URI> added = new ArrayList<>();
+        List<URI> enqueued = new ArrayList<>();
+        for (int i = links.size() - 1; i >= 0; i--) {
+            URI link = enqueue(links.get(i), depth, enqueued);
+            if (link != null) {
+                added.add(link);
+            }
+        }
+
+        if (graph != null) {
+            graph.addPage(uri, added);
+        }
+        return enqueued;
+    }
+
+    /**
+     * Resolves a raw link found on a page if it should be followed.
+     *
+     * @param uri  the URI of the page
+     * @param link the raw link
+     * @return the absolute link, or {@code null} if it should not be followed
+     */
+    private URI resolveLink(URI uri, String link) {
+        if (!linkFilter.accepts(link, uri)) {
+            return null;
+        }
+
+        try {
+            URI linkUri = new URI(link);
+            if (!linkUri.isAbsolute()) {
+                linkUri = uri.resolve(linkUri);
             }
+            return linkUri;
+        } catch (URISyntaxException e) {
+            System.out.println("Invalid URI syntax: " + link);
+            return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Collects the progress since the last checkpoint. Only the frontier and
+     * domain usage are copied while other workers wait; the index entries of
+     * the finished pages are looked up after the frontier is released, as they
+     * are never modified once added.
+     *
+     * @return the progress since the last checkpoint
+     */
+    private CrawlCheckpoint.Update snapshot() {
+        List<CrawlFrontier.Task> waiting;
+        List<CrawlFrontier.Task> running;
+        List<URI> visited;
+        Map<String, long[]> usage;
+        int crawled;
+        synchronized (frontier) {
+            waiting = frontier.snapshot();
+            running = frontier.running();
+            usage = frontier.usage();
+            crawled = pagesFinished;
+            visited = finished;
+            finished = new ArrayList<>();
+        }
+
+        Map<String, InvertedIndex.Entry> entries = new HashMap<>();
+        for (URI uri : visited) {
+            InvertedIndex.Entry entry = index.getHtmlContent(uri.toString());
+            if (entry != null) {
+                entries.put(uri.toString(), entry);
+            }
+        }
+
+        return new CrawlCheckpoint.Update(waiting, running, visited, crawled, usage, entries);
+    }
+
+    /**
+     * Crawls from the given URI.
+     *
+     * @param uri        the URI to crawl
+     * @param index      the index to add pages to
+     * @param totalPages the total number of pages to crawl
+     */
+    public static void crawl(URI uri, InvertedIndex index, int totalPages) {
+        crawl(uri, index, totalPages, new UrlCanonicalizer());
+    }
+
+    /**
+     * Crawls from the given URI, canonicalizing every URI before it is checked
+     * against the visited set.
+     *
+     * @param uri           the URI to crawl
+     * @param index         the index to add pages to
+     * @param totalPages    the total number of pages to crawl
+     * @param canonicalizer the canonicalizer to apply to every URI
+     */
+    public static void crawl(URI uri, InvertedIndex index, int totalPages, UrlCanonicalizer canonicalizer) {
+        WebCrawler crawler = new WebCrawler(index, totalPages, canonicalizer);
+        crawler.addSeed(uri);
+        crawler.crawl();
+    }
+}
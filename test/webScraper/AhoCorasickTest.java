@@ -0,0 +1,154 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link AhoCorasick} against searching for each pattern on its own.
+ */
+public class AhoCorasickTest {
+    /**
+     * Finds the pattern whose first occurrence ends first, the way
+     * {@link AhoCorasick#find(CharSequence, int, int)} reports it, by searching
+     * for each pattern on its own.
+     *
+     * @param patterns   the patterns
+     * @param text       the text
+     * @param ignoreCase whether to ignore the case of ASCII letters
+     * @return the index of the pattern, or -1 if none occurs
+     */
+    private static int naiveFind(List<String> patterns, String text, boolean ignoreCase) {
+        int best = -1;
+        int bestEnd = Integer.MAX_VALUE;
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            if (pattern.isEmpty()) {
+                continue;
+            }
+
+            int i = ignoreCase ? lower(text).indexOf(lower(pattern)) : text.indexOf(pattern);
+            int end = i < 0 ? Integer.MAX_VALUE : i + pattern.length();
+            if (end < bestEnd) {
+                best = p;
+                bestEnd = end;
+            }
+        }
+        return best;
+    }
+
+    private static String lower(String text) {
+        StringBuilder lower = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            lower.append(c >= 'A' && c <= 'Z' ? (char) (c + 32) : c);
+        }
+        return lower.toString();
+    }
+
+    @Test
+    public void findsPatternEndingFirst() {
+        AhoCorasick automaton = new AhoCorasick(List.of("session", "sid=", "ess"), false);
+
+        assertEquals(2, automaton.find("/a?session=1", 0, 12));
+        assertEquals(1, automaton.find("/a?sid=1", 0, 8));
+        assertEquals(-1, automaton.find("/a?sid=1", 0, 6));
+        assertEquals(-1, automaton.find("/a?sid=1", 4, 8));
+        assertEquals("sid=", automaton.pattern(1));
+        assertEquals(3, automaton.size());
+    }
+
+    @Test
+    public void reportsEveryPatternEndingAtAState() {
+        AhoCorasick automaton = new AhoCorasick(List.of("he", "she", "his", "hers", ""), false);
+
+        int state = 0;
+        for (char c : "ushe".toCharArray()) {
+            state = automaton.step(state, c);
+        }
+        int[] matches = automaton.matches(state).clone();
+        Arrays.sort(matches);
+        assertArrayEquals(new int[] { 0, 1 }, matches);
+    }
+
+    @Test
+    public void ignoresAsciiCase() {
+        AhoCorasick automaton = new AhoCorasick(List.of("PhpSessId", "ÉTÉ"), true);
+
+        assertEquals(0, automaton.find("?PHPSESSID=1", 0, 12));
+        assertEquals(-1, automaton.find("été", 0, 3));
+        assertEquals(1, automaton.find("ÉTÉ", 0, 3));
+    }
+
+    @Test
+    public void continuesAcrossPieces() {
+        AhoCorasick automaton = new AhoCorasick(List.of("step_list"), false);
+
+        int state = 0;
+        for (String piece : List.of("<ul class=\"st", "ep_", "list")) {
+            for (char c : piece.toCharArray()) {
+                state = automaton.step(state, c);
+            }
+        }
+        assertArrayEquals(new int[] { 0 }, automaton.matches(state));
+    }
+
+    @Test
+    public void agreesWithNaiveSearch() {
+        Random random = new Random(5);
+        String alphabet = "abcAB/?=é김";
+
+        for (int round = 0; round < 500; round++) {
+            List<String> patterns = new ArrayList<>();
+            for (int p = random.nextInt(6) + 1; p > 0; p--) {
+                patterns.add(randomText(random, alphabet, random.nextInt(5)));
+            }
+            String text = randomText(random, alphabet, random.nextInt(40));
+            boolean ignoreCase = random.nextBoolean();
+
+            AhoCorasick automaton = new AhoCorasick(patterns, ignoreCase);
+            int found = automaton.find(text, 0, text.length());
+            int expected = naiveFind(patterns, text, ignoreCase);
+            if (expected < 0 || found < 0) {
+                assertEquals(expected, found, patterns + " in " + text);
+            } else {
+                // patterns ending at the same place may be reported in either order
+                String end = ignoreCase ? text.toLowerCase(Locale.ROOT) : text;
+                assertEquals(endOf(patterns.get(expected), end, ignoreCase), endOf(patterns.get(found), end,
+                        ignoreCase), patterns + " in " + text);
+            }
+        }
+    }
+
+    private static int endOf(String pattern, String text, boolean ignoreCase) {
+        return (ignoreCase ? lower(text).indexOf(lower(pattern)) : text.indexOf(pattern)) + pattern.length();
+    }
+
+    @Test
+    public void worksWithoutAsciiTable() {
+        // enough states that the table of ASCII transitions is not built
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            patterns.add("/p" + i + "/");
+        }
+        AhoCorasick automaton = new AhoCorasick(patterns, false);
+
+        assertEquals(2999, automaton.find("/x/p2999/y", 0, 10));
+        assertEquals(-1, automaton.find("/p3000/", 0, 7));
+        assertEquals(12, automaton.find("/p1x/p12/", 0, 9));
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ByteBudgetQueue}.
+ */
+public class ByteBudgetQueueTest {
+    @Test
+    public void takesItemsInOrder() throws InterruptedException {
+        ByteBudgetQueue<String> queue = new ByteBudgetQueue<>(100);
+        queue.put("a", 10);
+        queue.put("b", 20);
+
+        assertEquals("a", queue.take());
+        assertEquals("b", queue.take());
+        assertEquals(30, queue.getPeakBytes());
+        assertEquals(0, queue.getBlockedPuts());
+    }
+
+    @Test
+    public void acceptsOversizedItemWhenEmpty() throws InterruptedException {
+        ByteBudgetQueue<String> queue = new ByteBudgetQueue<>(10);
+
+        assertTrue(queue.put("big", 1000));
+        assertEquals("big", queue.take());
+        assertEquals(0, queue.getBlockedPuts());
+    }
+
+    @Test
+    public void putWaitsForRoom() throws InterruptedException {
+        ByteBudgetQueue<String> queue = new ByteBudgetQueue<>(100);
+        queue.put("a", 60);
+
+        AtomicBoolean added = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                added.set(queue.put("b", 60));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+
+        assertEquals("a", queue.take());
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertTrue(added.get());
+        assertEquals(1, queue.getBlockedPuts());
+        assertEquals(60, queue.getPeakBytes());
+    }
+
+    @Test
+    public void closeReleasesWaitingProducer() throws InterruptedException {
+        ByteBudgetQueue<String> queue = new ByteBudgetQueue<>(100);
+        queue.put("a", 100);
+
+        AtomicBoolean added = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> {
+            try {
+                added.set(queue.put("b", 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(100);
+
+        queue.close();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertFalse(added.get());
+
+        // items already waiting can still be taken
+        assertEquals("a", queue.take());
+        assertNull(queue.take());
+    }
+
+    @Test
+    public void closeReleasesWaitingConsumer() throws InterruptedException {
+        ByteBudgetQueue<String> queue = new ByteBudgetQueue<>(100);
+        List<String> taken = new ArrayList<>();
+
+        Thread consumer = new Thread(() -> {
+            try {
+                String item;
+                while ((item = queue.take()) != null) {
+                    taken.add(item);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        queue.put("a", 1);
+        queue.close();
+        consumer.join(5000);
+
+        assertFalse(consumer.isAlive());
+        assertEquals(List.of("a"), taken);
+    }
+
+    @Test
+    public void waitingBytesStayWithinBudget() throws InterruptedException {
+        ByteBudgetQueue<Long> queue = new ByteBudgetQueue<>(1000);
+        AtomicLong sum = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < 3; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (long i = 1; i <= 2000; i++) {
+                        queue.put(i, i % 300 + 1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int c = 0; c < 2; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    Long item;
+                    while ((item = queue.take()) != null) {
+                        sum.addAndGet(item);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (Thread producer : threads.subList(0, 3)) {
+            producer.join();
+        }
+        queue.close();
+        for (Thread consumer : threads.subList(3, 5)) {
+            consumer.join();
+        }
+
+        assertEquals(3 * 2000L * 2001 / 2, sum.get());
+        assertTrue(queue.getPeakBytes() <= 1000, "peak " + queue.getPeakBytes());
+    }
+}
@@ -0,0 +1,111 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ByteScanner} and {@link VectorByteScanner} against the plain
+ * loop of {@link ByteScanner#SCALAR}.
+ */
+public class ByteScannerTest {
+    /**
+     * Returns the kernels to compare with the plain loop: the SIMD kernel if
+     * this CPU can run it, and whichever kernel {@link ByteScanner} chose.
+     *
+     * @return the kernels
+     */
+    private static List<ByteScanner.Kernel> kernels() {
+        List<ByteScanner.Kernel> kernels = new ArrayList<>();
+        try {
+            kernels.add(new VectorByteScanner());
+        } catch (UnsupportedOperationException e) {
+            // no vectors of at least 16 bytes
+        }
+
+        kernels.add(new ByteScanner.Kernel() {
+            @Override
+            public int indexOf(byte[] bytes, int from, int to, byte b) {
+                return ByteScanner.indexOf(bytes, from, to, b);
+            }
+
+            @Override
+            public int indexOfEither(byte[] bytes, int from, int to, byte a, byte b) {
+                return ByteScanner.indexOfEither(bytes, from, to, a, b);
+            }
+        });
+        return kernels;
+    }
+
+    @Test
+    public void findsFirstMatchAtEveryPosition() {
+        List<ByteScanner.Kernel> kernels = kernels();
+
+        // a single match at each position of arrays around the prefix and vector lengths
+        for (int length = 0; length <= 140; length++) {
+            for (int match = -1; match < length; match++) {
+                byte[] bytes = new byte[length];
+                if (match >= 0) {
+                    bytes[match] = '<';
+                }
+
+                for (ByteScanner.Kernel kernel : kernels) {
+                    assertEquals(match, kernel.indexOf(bytes, 0, length, (byte) '<'), kernel + " " + length);
+                    assertEquals(match, kernel.indexOfEither(bytes, 0, length, (byte) '&', (byte) '<'),
+                            kernel + " " + length);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void respectsBounds() {
+        byte[] bytes = "<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<".getBytes();
+        byte[] empty = new byte[bytes.length];
+
+        for (ByteScanner.Kernel kernel : kernels()) {
+            for (int from = 0; from <= bytes.length; from++) {
+                int expected = from < bytes.length ? from : -1;
+                assertEquals(expected, kernel.indexOf(bytes, from, bytes.length, (byte) '<'));
+                assertEquals(expected, kernel.indexOfEither(bytes, from, bytes.length, (byte) '>', (byte) '<'));
+                assertEquals(-1, kernel.indexOf(bytes, from, from, (byte) '<'));
+            }
+
+            // a match just past the end is not found
+            for (int to = 0; to < empty.length; to++) {
+                empty[to] = '<';
+                assertEquals(-1, kernel.indexOf(empty, 0, to, (byte) '<'));
+                empty[to] = 0;
+            }
+        }
+    }
+
+    @Test
+    public void agreesWithPlainLoopOnRandomBytes() {
+        Random random = new Random(11);
+        List<ByteScanner.Kernel> kernels = kernels();
+
+        for (int round = 0; round < 2000; round++) {
+            byte[] bytes = new byte[random.nextInt(300)];
+            // mostly text, with multi-byte UTF-8 and a few delimiters
+            for (int i = 0; i < bytes.length; i++) {
+                int kind = random.nextInt(40);
+                bytes[i] = kind == 0 ? (byte) '<' : kind == 1 ? (byte) '"' : kind < 10 ? (byte) (0x80 | kind)
+                        : (byte) ('a' + kind % 26);
+            }
+            int from = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+            int to = from + random.nextInt(bytes.length - from + 1);
+
+            int expected = ByteScanner.SCALAR.indexOf(bytes, from, to, (byte) '<');
+            int expectedEither = ByteScanner.SCALAR.indexOfEither(bytes, from, to, (byte) '"', (byte) 0x85);
+            for (ByteScanner.Kernel kernel : kernels) {
+                assertEquals(expected, kernel.indexOf(bytes, from, to, (byte) '<'));
+                assertEquals(expectedEither, kernel.indexOfEither(bytes, from, to, (byte) '"', (byte) 0x85));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ConsistentHashRing}.
+ */
+public class ConsistentHashRingTest {
+    @Test
+    public void singleWorkerOwnsEveryHost() {
+        ConsistentHashRing ring = new ConsistentHashRing(1);
+
+        assertEquals(0, ring.owner("example.com"));
+        assertEquals(0, ring.owner("allrecipes.com"));
+    }
+
+    @Test
+    public void missingHostBelongsToFirstWorker() {
+        assertEquals(0, new ConsistentHashRing(4).owner(null));
+    }
+
+    @Test
+    public void ownerIgnoresCase() {
+        ConsistentHashRing ring = new ConsistentHashRing(4);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(ring.owner("host" + i + ".example.com"), ring.owner("HOST" + i + ".Example.COM"));
+        }
+    }
+
+    @Test
+    public void ownerIsStableAcrossRings() {
+        ConsistentHashRing first = new ConsistentHashRing(3);
+        ConsistentHashRing second = new ConsistentHashRing(3);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.owner("host" + i + ".com"), second.owner("host" + i + ".com"));
+        }
+    }
+
+    @Test
+    public void hostsAreSpreadOverEveryWorker() {
+        ConsistentHashRing ring = new ConsistentHashRing(4);
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 4000; i++) {
+            counts[ring.owner("host" + i + ".com")]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 500, "uneven partition: " + count);
+        }
+    }
+
+    @Test
+    public void addingWorkerOnlyMovesHostsToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(4);
+        ConsistentHashRing after = new ConsistentHashRing(5);
+        int moved = 0;
+
+        for (int i = 0; i < 4000; i++) {
+            String host = "host" + i + ".com";
+            int owner = after.owner(host);
+            if (owner != before.owner(host)) {
+                assertEquals(4, owner);
+                moved++;
+            }
+        }
+
+        assertTrue(moved < 4000 / 2, "too many hosts moved: " + moved);
+    }
+
+    @Test
+    public void rejectsNoWorkers() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0));
+    }
+}
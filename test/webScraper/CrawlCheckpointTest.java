@@ -0,0 +1,123 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link CrawlCheckpoint}.
+ */
+public class CrawlCheckpointTest {
+    private static final URI A = URI.create("https://example.com/recipe/a");
+    private static final URI B = URI.create("https://example.com/recipe/b");
+    private static final URI C = URI.create("https://example.com/recipe/c");
+
+    @TempDir
+    Path directory;
+
+    private static CrawlFrontier.Task task(URI uri, int depth) {
+        return new CrawlFrontier.Task(uri, depth);
+    }
+
+    @Test
+    public void writeThenReadRoundTrips() throws IOException {
+        CrawlCheckpoint.State state = new CrawlCheckpoint.State(List.of(task(B, 1), task(C, 2)), Set.of(A), 1,
+                Map.of("example.com", new long[] { 1, 512 }),
+                Map.of(A.toString(), new InvertedIndex.Duplicate("https://example.com/")));
+
+        CrawlCheckpoint.write(state, directory);
+        CrawlCheckpoint.State read = CrawlCheckpoint.read(directory);
+
+        assertEquals(state.frontier(), read.frontier());
+        assertEquals(state.visited(), read.visited());
+        assertEquals(1, read.pagesCrawled());
+        assertArrayEquals(new long[] { 1, 512 }, read.domainUsage().get("example.com"));
+        assertEquals(state.index(), read.index());
+    }
+
+    @Test
+    public void readWithoutCheckpointReturnsNull() throws IOException {
+        assertNull(CrawlCheckpoint.read(directory));
+    }
+
+    @Test
+    public void readRejectsOtherObjects() throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                Files.newOutputStream(directory.resolve(CrawlCheckpoint.FILE_NAME)))) {
+            out.writeObject("not a checkpoint");
+        }
+
+        assertThrows(IOException.class, () -> CrawlCheckpoint.read(directory));
+    }
+
+    @Test
+    public void isDueEveryInterval() {
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 3);
+
+        assertFalse(checkpoint.isDue(0));
+        assertFalse(checkpoint.isDue(2));
+        assertTrue(checkpoint.isDue(3));
+        assertTrue(checkpoint.isDue(6));
+    }
+
+    @Test
+    public void updatesAccumulateVisitedAndIndex() throws IOException {
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 1);
+        InvertedIndex.Entry a = new InvertedIndex.Duplicate("https://example.com/a");
+        InvertedIndex.Entry b = new InvertedIndex.Duplicate("https://example.com/b");
+
+        checkpoint.save(new CrawlCheckpoint.Update(List.of(task(B, 1), task(C, 1)), List.of(), List.of(A), 1,
+                Map.of(), Map.of(A.toString(), a)));
+        checkpoint.finish(new CrawlCheckpoint.Update(List.of(task(C, 1)), List.of(), List.of(B), 2, Map.of(),
+                Map.of(B.toString(), b)));
+
+        CrawlCheckpoint.State read = CrawlCheckpoint.read(directory);
+        assertEquals(List.of(task(C, 1)), read.frontier());
+        assertEquals(Set.of(A, B), read.visited());
+        assertEquals(2, read.pagesCrawled());
+        assertEquals(Map.of(A.toString(), a, B.toString(), b), read.index());
+    }
+
+    @Test
+    public void runningUrisAreNotSavedAsVisited() throws IOException {
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 1);
+
+        // a page still being crawled is in the frontier, so it is crawled again after a restore
+        checkpoint.finish(new CrawlCheckpoint.Update(List.of(task(A, 0)), List.of(task(A, 0)), List.of(A, B), 1,
+                Map.of(), Map.of()));
+
+        CrawlCheckpoint.State read = CrawlCheckpoint.read(directory);
+        assertEquals(Set.of(B), read.visited());
+    }
+
+    @Test
+    public void resumeKeepsRestoredState() throws IOException {
+        InvertedIndex.Entry a = new InvertedIndex.Duplicate("https://example.com/a");
+        CrawlCheckpoint.State restored = new CrawlCheckpoint.State(List.of(task(B, 1)), Set.of(A), 1, Map.of(),
+                Map.of(A.toString(), a));
+
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 1);
+        checkpoint.resume(restored);
+        checkpoint.finish(new CrawlCheckpoint.Update(List.of(), List.of(), List.of(B), 2, Map.of(), Map.of()));
+
+        CrawlCheckpoint.State read = CrawlCheckpoint.read(directory);
+        assertEquals(Set.of(A, B), read.visited());
+        assertEquals(Map.of(A.toString(), a), read.index());
+        assertEquals(2, read.pagesCrawled());
+    }
+}
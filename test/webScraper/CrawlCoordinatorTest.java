@@ -0,0 +1,157 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link CrawlCoordinator}.
+ */
+public class CrawlCoordinatorTest {
+    @Test
+    public void grantsPagesUpToTheBudget() {
+        CrawlCoordinator coordinator = new CrawlCoordinator(25, 2);
+
+        assertEquals(10, coordinator.acquire(0, 10));
+        assertEquals(10, coordinator.acquire(1, 10));
+        assertEquals(5, coordinator.acquire(0, 10));
+        assertEquals(0, coordinator.acquire(1, 10));
+
+        coordinator.release(3);
+        assertEquals(3, coordinator.acquire(1, 10));
+    }
+
+    @Test
+    public void notDoneUntilEveryWorkerHasReported() {
+        CrawlCoordinator coordinator = new CrawlCoordinator(100, 3);
+
+        // a worker that has not started yet may still have seeds to crawl
+        for (int round = 0; round < 3; round++) {
+            assertFalse(coordinator.status(0, true, 0, 0));
+            assertFalse(coordinator.status(1, true, 0, 0));
+        }
+        assertFalse(coordinator.isDone());
+    }
+
+    @Test
+    public void doneOnceBudgetIsUsedAndEveryWorkerIsIdle() {
+        CrawlCoordinator coordinator = new CrawlCoordinator(10, 2);
+        assertEquals(10, coordinator.acquire(0, 10));
+
+        assertFalse(coordinator.status(1, true, 0, 0));
+        assertFalse(coordinator.status(0, false, 4, 0));
+        assertTrue(coordinator.status(0, true, 4, 0));
+
+        // every later report is told the crawl is done
+        assertTrue(coordinator.status(1, true, 0, 0));
+        assertTrue(coordinator.isDone());
+    }
+
+    @Test
+    public void doneOnceEveryWorkerConfirmsMatchingLinkCounts() {
+        CrawlCoordinator coordinator = new CrawlCoordinator(100, 2);
+
+        // worker 1 has not received the links worker 0 sent yet
+        assertFalse(coordinator.status(0, true, 5, 0));
+        assertFalse(coordinator.status(1, true, 0, 0));
+
+        // the counts match, but only become final once every worker reports them again
+        assertFalse(coordinator.status(1, true, 0, 5));
+        assertTrue(coordinator.status(0, true, 5, 0));
+    }
+
+    @Test
+    public void workingWorkerResetsTheCandidate() {
+        CrawlCoordinator coordinator = new CrawlCoordinator(100, 2);
+
+        assertFalse(coordinator.status(0, true, 0, 0));
+        assertFalse(coordinator.status(1, true, 0, 0));
+
+        // a grant means worker 1 is crawling again, so the earlier idle reports no longer count
+        assertEquals(10, coordinator.acquire(1, 10));
+        assertFalse(coordinator.status(0, true, 0, 0));
+
+        assertFalse(coordinator.status(1, true, 0, 0));
+        assertTrue(coordinator.status(0, true, 0, 0));
+    }
+
+    @Test
+    public void changedLinkCountsResetTheCandidate() {
+        CrawlCoordinator coordinator = new CrawlCoordinator(100, 2);
+
+        assertFalse(coordinator.status(0, true, 0, 0));
+        assertFalse(coordinator.status(1, true, 0, 0));
+
+        // worker 0 sent a batch between rounds, which worker 1 then received
+        assertFalse(coordinator.status(0, true, 2, 0));
+        assertFalse(coordinator.status(1, true, 0, 2));
+        assertTrue(coordinator.status(0, true, 2, 0));
+    }
+
+    @Test
+    public void servesWorkersUntilEveryWorkerIsToldTheCrawlIsDone() throws IOException {
+        CrawlCoordinator coordinator = new CrawlCoordinator(15, 2);
+        int port = freePort();
+        Thread server = new Thread(() -> {
+            try {
+                coordinator.serve(port);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        server.start();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (CrawlCoordinator.Client first = connect(port);
+                    CrawlCoordinator.Client second = connect(port)) {
+                assertEquals(10, first.acquire(0, 10));
+                assertEquals(5, second.acquire(1, 10));
+                second.release(2);
+                assertEquals(2, first.acquire(0, 10));
+
+                assertFalse(first.status(0, true, 1, 0));
+                assertTrue(second.status(1, true, 0, 1));
+                assertTrue(first.status(0, true, 1, 0));
+            }
+            server.join();
+        });
+        assertTrue(coordinator.isDone());
+    }
+
+    /**
+     * Finds a port nothing is listening on.
+     *
+     * @return the port
+     * @throws IOException if unable to open a socket
+     */
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Connects to a coordinator on this host, waiting for it to start
+     * listening.
+     *
+     * @param port the coordinator port
+     * @return the connection
+     * @throws InterruptedException if interrupted while waiting
+     */
+    static CrawlCoordinator.Client connect(int port) throws InterruptedException {
+        while (true) {
+            try {
+                return new CrawlCoordinator.Client("127.0.0.1", port);
+            } catch (IOException e) {
+                Thread.sleep(20);
+            }
+        }
+    }
+}
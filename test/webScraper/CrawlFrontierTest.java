@@ -0,0 +1,264 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link CrawlFrontier}.
+ */
+public class CrawlFrontierTest {
+    @TempDir
+    Path directory;
+
+    private static URI uri(String host, int page) {
+        return URI.create("https://" + host + "/recipe/" + page);
+    }
+
+    private static URI crawlNext(CrawlFrontier frontier) {
+        CrawlFrontier.Task task = frontier.poll();
+        frontier.done(task, true, 0, 1);
+        return task.uri();
+    }
+
+    @Test
+    public void crawlsDepthFirstWithinDomain() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.add(uri("a.com", 1), 0);
+        frontier.add(uri("a.com", 2), 1);
+        frontier.addLast(uri("a.com", 3), 1);
+
+        assertEquals(uri("a.com", 2), crawlNext(frontier));
+        assertEquals(uri("a.com", 1), crawlNext(frontier));
+        assertEquals(uri("a.com", 3), crawlNext(frontier));
+        assertNull(frontier.poll());
+        assertTrue(frontier.isEmpty());
+    }
+
+    @Test
+    public void waitingUriIsNotAddedAgain() {
+        CrawlFrontier frontier = new CrawlFrontier();
+
+        assertTrue(frontier.add(uri("a.com", 1), 0));
+        assertFalse(frontier.add(uri("a.com", 1), 2));
+        assertFalse(frontier.addLast(uri("a.com", 1), 2));
+
+        CrawlFrontier.Task task = frontier.poll();
+        assertEquals(0, task.depth());
+        assertTrue(frontier.isEmpty());
+
+        // once taken, it is up to the crawler not to add it again
+        assertTrue(frontier.add(uri("a.com", 1), 0));
+    }
+
+    @Test
+    public void dropsUrisDeeperThanDomainAllows() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.setLimits("A.com", new CrawlFrontier.Limits(1, Integer.MAX_VALUE, Long.MAX_VALUE, 1));
+
+        assertTrue(frontier.add(uri("a.com", 1), 1));
+        assertFalse(frontier.add(uri("a.com", 2), 2));
+        assertTrue(frontier.add(uri("b.com", 2), 2));
+    }
+
+    @Test
+    public void inFlightCountsEveryTakenTask() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.setWorkers(4);
+        CrawlFrontier.Task task = new CrawlFrontier.Task(uri("a.com", 1), 0);
+
+        // a URI queued again after it was taken is an equal task, and both count as in flight
+        frontier.restore(List.of(task), Map.of());
+        CrawlFrontier.Task first = frontier.poll();
+        frontier.add(task.uri(), task.depth());
+        CrawlFrontier.Task second = frontier.poll();
+        assertEquals(first, second);
+        assertEquals(2, frontier.inFlight());
+
+        frontier.done(second, true, 100, 1_000_000);
+        assertEquals(1, frontier.inFlight());
+        assertEquals(List.of(first), frontier.running());
+
+        frontier.done(first, true, 100, 1_000_000);
+        assertEquals(0, frontier.inFlight());
+    }
+
+    @Test
+    public void skipReleasesTaskWithoutUsage() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.add(uri("a.com", 1), 0);
+
+        CrawlFrontier.Task task = frontier.poll();
+        frontier.skip(task);
+
+        assertEquals(0, frontier.inFlight());
+        assertArrayEquals(new long[] { 0, 0 }, frontier.usage().get("a.com"));
+    }
+
+    @Test
+    public void domainPageBudgetCountsTasksInFlight() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.setWorkers(4);
+        frontier.setDefaultLimits(new CrawlFrontier.Limits(1, 2, Long.MAX_VALUE, Integer.MAX_VALUE));
+        for (int i = 0; i < 4; i++) {
+            frontier.add(uri("a.com", i), 0);
+        }
+
+        CrawlFrontier.Task first = frontier.poll();
+        CrawlFrontier.Task second = frontier.poll();
+        assertNull(frontier.poll());
+
+        // a failed page does not use the budget
+        frontier.done(first, false, 0, 1);
+        frontier.done(second, true, 10, 1);
+        CrawlFrontier.Task third = frontier.poll();
+        frontier.done(third, true, 10, 1);
+        assertNull(frontier.poll());
+        assertArrayEquals(new long[] { 2, 20 }, frontier.usage().get("a.com"));
+    }
+
+    @Test
+    public void domainHoldsAtMostItsShareOfWorkers() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.setWorkers(2);
+        for (int i = 0; i < 3; i++) {
+            frontier.add(uri("a.com", i), 0);
+            frontier.add(uri("b.com", i), 0);
+        }
+
+        CrawlFrontier.Task first = frontier.poll();
+        CrawlFrontier.Task second = frontier.poll();
+        assertFalse(first.uri().getHost().equals(second.uri().getHost()));
+        assertNull(frontier.poll());
+
+        frontier.done(first, true, 0, 1);
+        assertEquals(first.uri().getHost(), frontier.poll().uri().getHost());
+    }
+
+    @Test
+    public void heavierDomainIsServedMoreOften() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.setLimits("a.com", new CrawlFrontier.Limits(2, Integer.MAX_VALUE, Long.MAX_VALUE,
+                Integer.MAX_VALUE));
+        for (int i = 0; i < 30; i++) {
+            frontier.add(uri("a.com", i), 0);
+            frontier.add(uri("b.com", i), 0);
+        }
+
+        int a = 0;
+        for (int i = 0; i < 30; i++) {
+            CrawlFrontier.Task task = frontier.poll();
+            frontier.done(task, true, 0, 1);
+            if (task.uri().getHost().equals("a.com")) {
+                a++;
+            }
+        }
+        assertEquals(20, a);
+    }
+
+    @Test
+    public void urgentCrawlFavorsFastestDomain() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.add(uri("slow.com", 0), 0);
+        frontier.done(frontier.poll(), true, 0, 1_000_000_000);
+        frontier.add(uri("fast.com", 0), 0);
+        frontier.done(frontier.poll(), true, 0, 1_000_000);
+        for (int i = 1; i < 10; i++) {
+            frontier.add(uri("slow.com", i), 0);
+            frontier.add(uri("fast.com", i), 0);
+        }
+
+        // before the deadline nears, domains take turns
+        frontier.setUrgency(CrawlFrontier.URGENT - 0.1);
+        CrawlFrontier.Task first = frontier.poll();
+        frontier.done(first, true, 0, 1_000_000);
+        CrawlFrontier.Task second = frontier.poll();
+        frontier.done(second, true, 0, 1_000_000);
+        assertFalse(first.uri().getHost().equals(second.uri().getHost()));
+
+        frontier.setUrgency(CrawlFrontier.URGENT);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("fast.com", crawlNext(frontier).getHost());
+        }
+    }
+
+    @Test
+    public void urgentCrawlTriesUntimedDomainFirst() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.add(uri("timed.com", 1), 0);
+        frontier.add(uri("timed.com", 2), 0);
+        frontier.done(frontier.poll(), true, 0, 1_000);
+        frontier.add(uri("new.com", 1), 0);
+
+        frontier.setUrgency(1);
+        assertEquals("new.com", crawlNext(frontier).getHost());
+    }
+
+    @Test
+    public void priorityPicksHighestInWindow() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.setPriority(uri -> uri.getPath().endsWith("/2") ? 1 : 0);
+        for (int i = 1; i <= 3; i++) {
+            frontier.addLast(uri("a.com", i), 0);
+        }
+
+        assertEquals(uri("a.com", 2), crawlNext(frontier));
+        assertEquals(uri("a.com", 1), crawlNext(frontier));
+    }
+
+    @Test
+    public void snapshotRestoresRunningThenWaiting() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.add(uri("a.com", 2), 1);
+        frontier.add(uri("a.com", 1), 0);
+        CrawlFrontier.Task running = frontier.poll();
+        frontier.done(running, true, 50, 1);
+        frontier.add(uri("a.com", 3), 1);
+        CrawlFrontier.Task stillRunning = frontier.poll();
+
+        List<CrawlFrontier.Task> snapshot = frontier.snapshot();
+        assertEquals(List.of(stillRunning, new CrawlFrontier.Task(uri("a.com", 2), 1)), snapshot);
+
+        CrawlFrontier restored = new CrawlFrontier();
+        restored.restore(snapshot, frontier.usage());
+        assertArrayEquals(new long[] { 1, 50 }, restored.usage().get("a.com"));
+        assertEquals(stillRunning.uri(), crawlNext(restored));
+        assertEquals(uri("a.com", 2), crawlNext(restored));
+    }
+
+    @Test
+    public void readsLimitsWithDefaults() throws IOException {
+        Path file = directory.resolve("domains.txt");
+        Files.writeString(file, "# budgets\nWWW.Example.com weight=2 pages=5 depth=3\n\nother.com bytes=100\n");
+        CrawlFrontier.Limits defaults = new CrawlFrontier.Limits(1, 10, 1000, 8);
+
+        Map<String, CrawlFrontier.Limits> limits = CrawlFrontier.readLimits(file, defaults);
+
+        assertEquals(new CrawlFrontier.Limits(2, 5, 1000, 3), limits.get("www.example.com"));
+        assertEquals(new CrawlFrontier.Limits(1, 10, 100, 8), limits.get("other.com"));
+    }
+
+    @Test
+    public void rejectsInvalidLimits() throws IOException {
+        Path file = directory.resolve("domains.txt");
+
+        Files.writeString(file, "a.com speed=2\n");
+        assertThrows(IllegalArgumentException.class, () -> CrawlFrontier.readLimits(file, CrawlFrontier.Limits.NONE));
+
+        Files.writeString(file, "a.com weight=0\n");
+        assertThrows(IllegalArgumentException.class, () -> CrawlFrontier.readLimits(file, CrawlFrontier.Limits.NONE));
+    }
+}
@@ -0,0 +1,200 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests {@link CrawlService} and {@link CrawlJob} against a local server.
+ */
+public class CrawlServiceTest {
+    /** How long the server takes to answer, so requests overlap. */
+    private static final long LATENCY_MILLIS = 30;
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private ExecutorService handlers;
+
+    /** The number of requests being answered now, and the most ever at once. */
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger mostOpen = new AtomicInteger();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        // every page of a tree links to its two children, so a crawl always has pages to fetch in parallel,
+        // and to the same page of the other tree, which is out of scope
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        for (String tree : new String[] { "/a/", "/b/" }) {
+            String other = tree.equals("/a/") ? "/b/" : "/a/";
+            server.createContext(tree, exchange -> {
+                // only the wait is counted, as a fetch may end and free its connection before the handler does
+                int now = open.incrementAndGet();
+                mostOpen.accumulateAndGet(now, Math::max);
+                try {
+                    Thread.sleep(LATENCY_MILLIS);
+                    open.decrementAndGet();
+
+                    int id = Integer.parseInt(exchange.getRequestURI().getPath().substring(tree.length()));
+                    byte[] body = ("<html><div class=\"view3_top_tit\">" + tree + id + "</div><a href=\"" + tree
+                            + (2 * id) + "\">left</a><a href=\"" + tree + (2 * id + 1) + "\">right</a><a href=\""
+                            + other + id + "\">other</a></html>").getBytes(UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        handlers = Executors.newCachedThreadPool();
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    /**
+     * Describes a crawl of one tree of pages, following only links within it.
+     *
+     * @param tree       the path of the tree, such as {@code /a/}
+     * @param totalPages the total number of pages to crawl
+     * @param output     the file to write the index to, or {@code null}
+     * @return the spec
+     */
+    private CrawlJob.Spec spec(String tree, int totalPages, Path output) {
+        LinkFilter scope = new LinkFilter(List.of("include path " + tree));
+        return new CrawlJob.Spec(List.of(uri(tree + 1)), scope, totalPages, 4, output);
+    }
+
+    @Test
+    public void concurrentJobsStayWithinSharedConnectionCap() throws InterruptedException {
+        Path first = directory.resolve("a.json");
+        Path second = directory.resolve("b.json");
+
+        try (CrawlService service = new CrawlService(2, 0)) {
+            CrawlJob a = service.submit(spec("/a/", 30, first));
+            CrawlJob b = service.submit(spec("/b/", 30, second));
+
+            InvertedIndex aIndex = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> a.await());
+            InvertedIndex bIndex = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> b.await());
+
+            assertEquals(CrawlJob.Status.DONE, a.getStatus());
+            assertEquals(CrawlJob.Status.DONE, b.getStatus());
+            assertEquals(30, a.getPagesCrawled());
+            assertEquals(30, b.getPagesCrawled());
+            assertEquals(30, aIndex.getHtmlContentMap().size());
+            assertTrue(aIndex.getHtmlContentMap().keySet().stream().allMatch(key -> key.contains("/a/")));
+            assertTrue(bIndex.getHtmlContentMap().keySet().stream().allMatch(key -> key.contains("/b/")));
+        }
+
+        // eight fetchers between the two jobs, but never more than two connections open
+        assertEquals(2, mostOpen.get());
+    }
+
+    @Test
+    public void eachJobWritesItsOwnOutput() throws InterruptedException, IOException {
+        Path first = directory.resolve("a.json");
+        Path second = directory.resolve("b.json");
+
+        try (CrawlService service = new CrawlService(4, 0)) {
+            CrawlJob a = service.submit(spec("/a/", 10, first));
+            CrawlJob b = service.submit(spec("/b/", 5, second));
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                a.await();
+                b.await();
+            });
+        }
+
+        String aJson = Files.readString(first, UTF_8);
+        String bJson = Files.readString(second, UTF_8);
+        assertTrue(aJson.contains("\"" + uri("/a/1") + "\""), aJson);
+        assertFalse(aJson.contains("/b/"), aJson);
+        assertTrue(bJson.contains("\"" + uri("/b/1") + "\""), bJson);
+        assertFalse(bJson.contains("/a/"), bJson);
+
+        // a new page starts every entry, as the index layout puts each URL on its own line
+        assertEquals(10, aJson.lines().filter(line -> line.contains("\"" + uri("/a/"))).count());
+        assertEquals(5, bJson.lines().filter(line -> line.contains("\"" + uri("/b/"))).count());
+    }
+
+    @Test
+    public void reportsProgressAndStopsWhenCancelled() throws InterruptedException, IOException {
+        Path output = directory.resolve("a.json");
+
+        try (CrawlService service = new CrawlService(2, 0)) {
+            CrawlJob job = service.submit(spec("/a/", 100_000, output));
+            assertSame(job, service.getJob(job.getId()));
+            assertNull(service.getJob(job.getId() + 1));
+
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                while (job.getPagesCrawled() < 5) {
+                    Thread.sleep(10);
+                }
+            });
+            assertEquals(CrawlJob.Status.RUNNING, job.getStatus());
+            assertTrue(job.toString().startsWith("Job " + job.getId() + " RUNNING: "), job.toString());
+
+            job.cancel();
+            InvertedIndex index = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> job.await());
+
+            assertEquals(CrawlJob.Status.CANCELLED, job.getStatus());
+            int crawled = job.getPagesCrawled();
+            assertTrue(crawled >= 5 && crawled < 100_000, job.toString());
+            assertEquals(crawled, index.getHtmlContentMap().size());
+            assertEquals(crawled, job.getMetrics().get("pages.indexed"));
+        }
+
+        // the index built before the job was cancelled is still written
+        assertTrue(Files.readString(output, UTF_8).contains("\"" + uri("/a/1") + "\""));
+    }
+
+    @Test
+    public void listsJobsInOrderSubmitted() throws InterruptedException {
+        try (CrawlService service = new CrawlService(2, 0)) {
+            CrawlJob a = service.submit(spec("/a/", 3, null));
+            CrawlJob b = service.submit(spec("/b/", 3, null));
+
+            assertEquals(List.of(a, b), service.getJobs());
+            assertEquals(a.getId() + 1, b.getId());
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                a.await();
+                b.await();
+            });
+        }
+    }
+}
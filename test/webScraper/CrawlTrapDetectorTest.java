@@ -0,0 +1,165 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link CrawlTrapDetector}.
+ */
+public class CrawlTrapDetectorTest {
+    private final CrawlMetrics metrics = new CrawlMetrics();
+    private final CrawlTrapDetector traps = new CrawlTrapDetector(metrics);
+
+    private String strip(String uri) {
+        return traps.stripSessionIds(URI.create(uri)).toString();
+    }
+
+    private CrawlTrapDetector.Verdict check(String uri) {
+        return traps.check(URI.create(uri));
+    }
+
+    @Test
+    public void stripsSessionQueryParameters() {
+        assertEquals("https://example.com/recipe?id=1&page=2",
+                strip("https://example.com/recipe?PHPSESSID=abc&id=1&sid=9&page=2"));
+        assertEquals("https://example.com/recipe", strip("https://example.com/recipe?jsessionid=abc"));
+        assertEquals("https://example.com/a?x=1", strip("https://example.com/a?ASPSESSIONIDQQGGQGPG=x&x=1"));
+        assertEquals(3, metrics.get("trap.session_stripped"));
+    }
+
+    @Test
+    public void stripsSessionPathParameters() {
+        assertEquals("https://example.com/recipe/1/steps",
+                strip("https://example.com/recipe/1;jsessionid=ABC123/steps"));
+        assertEquals("https://example.com/a;v=2", strip("https://example.com/a;v=2"));
+    }
+
+    @Test
+    public void keepsUriWithoutSessionIds() {
+        URI uri = URI.create("https://example.com/recipe?id=1&sidebar=0");
+
+        assertSame(uri, traps.stripSessionIds(uri));
+        assertEquals(0, metrics.get("trap.session_stripped"));
+    }
+
+    @Test
+    public void quarantinesDeepPaths() {
+        traps.setMaxPathDepth(3);
+
+        assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://example.com/a/b/c"));
+        assertEquals(CrawlTrapDetector.Verdict.QUARANTINE, check("https://example.com/a/b/c/d"));
+        assertEquals(1, metrics.get("trap.path_depth"));
+    }
+
+    @Test
+    public void quarantinesRepeatedSegmentsAndTheirPattern() {
+        assertEquals(CrawlTrapDetector.Verdict.QUARANTINE, check("https://example.com/cal/2024/cal/1/cal/2"));
+        assertEquals(1, metrics.get("trap.repeated_segment"));
+
+        // the rest of the pattern is rejected without checking the path again
+        assertEquals(CrawlTrapDetector.Verdict.QUARANTINE, check("https://example.com/cal/2025/cal/7/cal/9"));
+        assertEquals(1, metrics.get("trap.quarantined_pattern"));
+        assertTrue(traps.getQuarantined().contains("example.com/cal/#/cal/#/cal/#"));
+    }
+
+    @Test
+    public void quarantinesLongUrls() {
+        traps.setMaxUrlLength(40);
+
+        assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://example.com/recipe"));
+        assertEquals(CrawlTrapDetector.Verdict.QUARANTINE, check("https://example.com/recipe?q=" + "x".repeat(20)));
+        assertEquals(1, metrics.get("trap.url_length"));
+    }
+
+    /**
+     * Records a crawled page.
+     *
+     * @param uri        the URI of the page
+     * @param newContent whether it had new content
+     * @param added      the links it added
+     */
+    private void record(String uri, boolean newContent, String... added) {
+        traps.recordPage(URI.create(uri), newContent, Arrays.stream(added).map(URI::create).toList());
+    }
+
+    @Test
+    public void deprioritizesThenQuarantinesUnproductivePatterns() {
+        traps.setPatternLimit(2);
+
+        // past the last page, each page only links to the next
+        for (int page = 1; page <= 2; page++) {
+            assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://example.com/list?page=" + page));
+            record("https://example.com/list?page=" + page, false, "https://example.com/list?page=" + (page + 1));
+        }
+        assertEquals(CrawlTrapDetector.Verdict.DEPRIORITIZE, check("https://example.com/list?page=3"));
+
+        // other patterns are unaffected
+        assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://example.com/list?sort=new"));
+
+        for (int page = 3; page <= 20; page++) {
+            record("https://example.com/list?page=" + page, false);
+        }
+        assertEquals(CrawlTrapDetector.Verdict.QUARANTINE, check("https://example.com/list?page=21"));
+        assertEquals(1, metrics.get("trap.pattern_explosion"));
+    }
+
+    @Test
+    public void paginationThatFindsOtherPagesIsAccepted() {
+        traps.setPatternLimit(2);
+
+        for (int page = 1; page <= 100; page++) {
+            record("https://example.com/list?page=" + page, false, "https://example.com/list?page=" + (page + 1),
+                    "https://example.com/recipe/" + page);
+        }
+        assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://example.com/list?page=101"));
+    }
+
+    @Test
+    public void unproductivePagesMustOutnumberProductiveOnes() {
+        traps.setPatternLimit(2);
+
+        for (int page = 1; page <= 5; page++) {
+            record("https://example.com/list?page=" + page, false, "https://example.com/recipe/" + page);
+        }
+        for (int page = 6; page <= 10; page++) {
+            record("https://example.com/list?page=" + page, false);
+        }
+        assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://example.com/list?page=11"));
+
+        record("https://example.com/list?page=11", false);
+        assertEquals(CrawlTrapDetector.Verdict.DEPRIORITIZE, check("https://example.com/list?page=12"));
+    }
+
+    @Test
+    public void largeRecipeCatalogIsNeverBlocked() {
+        // every recipe is new content, though late in the crawl its links are all to recipes already queued
+        for (int id = 1; id <= 200_000; id++) {
+            String uri = "https://www.10000recipe.com/recipe/" + id;
+            assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check(uri), uri);
+            record(uri, true, "https://www.10000recipe.com/recipe/" + (id + 1));
+        }
+        for (int id = 1; id <= 5_000; id++) {
+            record("https://www.10000recipe.com/recipe/" + (200_000 + id), id % 2 == 0);
+        }
+
+        assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://www.10000recipe.com/recipe/300000"));
+        assertEquals(0, metrics.get("trap.deprioritized"));
+        assertTrue(traps.getQuarantined().isEmpty());
+    }
+
+    @Test
+    public void patternsMaskDigitsAndQueryValues() {
+        traps.setPatternLimit(1);
+        record("https://example.com/recipe/123?page=1&sort=a", false);
+
+        assertEquals(CrawlTrapDetector.Verdict.DEPRIORITIZE, check("https://example.com/recipe/9?page=77&sort=b"));
+        assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://example.com/recipe/9?page=77"));
+        assertEquals(CrawlTrapDetector.Verdict.ACCEPT, check("https://other.com/recipe/9?page=77&sort=b"));
+    }
+}
@@ -0,0 +1,166 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests {@link DistributedCrawler}.
+ */
+public class DistributedCrawlerTest {
+    @Test
+    public void parsesForwardedLinkWithDepth() {
+        CrawlFrontier.Task link = DistributedCrawler.parseLink("3 https://example.com/recipe/1?page=2");
+
+        assertEquals(URI.create("https://example.com/recipe/1?page=2"), link.uri());
+        assertEquals(3, link.depth());
+    }
+
+    @Test
+    public void rejectsLinkWithoutDepth() {
+        assertNull(DistributedCrawler.parseLink("https://example.com/recipe/1"));
+        assertNull(DistributedCrawler.parseLink("x https://example.com/recipe/1"));
+    }
+
+    @Test
+    public void rejectsInvalidLink() {
+        assertNull(DistributedCrawler.parseLink("1 https://example.com/a b"));
+    }
+
+    @Test
+    public void parsesAddresses() {
+        assertEquals(2, DistributedCrawler.parseAddresses("localhost:9001, localhost:9002").size());
+        assertEquals(9002, DistributedCrawler.parseAddress(" localhost:9002").getPort());
+    }
+
+    /** The number of recipe pages on each host. */
+    private static final int PAGES = 10;
+
+    /**
+     * Finds a loopback address owned by a worker.
+     *
+     * @param ring   the ring of workers
+     * @param worker the worker
+     * @return a loopback address, as a host name
+     */
+    private static String loopbackOwnedBy(ConsistentHashRing ring, int worker) {
+        for (int i = 1; i < 255; i++) {
+            String host = "127.0.0." + i;
+            if (ring.owner(host) == worker) {
+                return host;
+            }
+        }
+        throw new IllegalStateException("No loopback address for worker " + worker);
+    }
+
+    /**
+     * Runs a worker, failing the test thread through an exception if it fails.
+     *
+     * @param crawler the worker
+     * @return the thread running it
+     */
+    private static Thread start(DistributedCrawler crawler) {
+        Thread thread = new Thread(() -> {
+            try {
+                crawler.crawl();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void workersCrawlTheirOwnHostsAndForwardTheRest() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("0.0.0.0", 0), 0);
+        int port = server.getAddress().getPort();
+
+        List<InetSocketAddress> peers = List.of(new InetSocketAddress("127.0.0.1", CrawlCoordinatorTest.freePort()),
+                new InetSocketAddress("127.0.0.1", CrawlCoordinatorTest.freePort()));
+        ConsistentHashRing ring = new ConsistentHashRing(peers.size());
+        String[] hosts = { loopbackOwnedBy(ring, 0) + ":" + port, loopbackOwnedBy(ring, 1) + ":" + port };
+
+        // every page links to the next page on its host and to the same page on the other host
+        server.createContext("/recipe/", exchange -> {
+            int id = Integer.parseInt(exchange.getRequestURI().getPath().substring("/recipe/".length()));
+            String host = exchange.getLocalAddress().getAddress().getHostAddress() + ":" + port;
+            String other = host.equals(hosts[0]) ? hosts[1] : hosts[0];
+            String next = id < PAGES ? "<a href=\"/recipe/" + (id + 1) + "\">next</a>" : "";
+            byte[] body = ("<html><div class=\"view3_top_tit\">" + host + " " + id + "</div>" + next
+                    + "<a href=\"http://" + other + "/recipe/" + id + "\">other</a></html>").getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        CrawlCoordinator coordinator = new CrawlCoordinator(1000, peers.size());
+        int coordinatorPort = CrawlCoordinatorTest.freePort();
+        Thread serving = new Thread(() -> {
+            try {
+                coordinator.serve(coordinatorPort);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serving.start();
+
+        List<InvertedIndex> indexes = new ArrayList<>();
+        List<DistributedCrawler> workers = new ArrayList<>();
+        for (int worker = 0; worker < peers.size(); worker++) {
+            InvertedIndex index = new InvertedIndex();
+            WebCrawler crawler = new WebCrawler(index, Integer.MAX_VALUE, new UrlCanonicalizer());
+            crawler.setThreads(2);
+            DistributedCrawler distributed = new DistributedCrawler(worker, peers,
+                    new InetSocketAddress("127.0.0.1", coordinatorPort), crawler);
+            distributed.addSeed(URI.create("http://" + hosts[0] + "/recipe/1"));
+            indexes.add(index);
+            workers.add(distributed);
+        }
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                CrawlCoordinatorTest.connect(coordinatorPort).close();
+
+                // worker 1 is not listening yet, so the first links sent to it must be sent again
+                Thread first = start(workers.get(0));
+                Thread.sleep(1000);
+                Thread second = start(workers.get(1));
+
+                first.join();
+                second.join();
+                serving.join();
+            });
+        } finally {
+            server.stop(0);
+        }
+
+        for (int worker = 0; worker < peers.size(); worker++) {
+            Set<String> expected = new HashSet<>();
+            for (int id = 1; id <= PAGES; id++) {
+                expected.add("http://" + hosts[worker] + "/recipe/" + id);
+            }
+            assertEquals(expected, indexes.get(worker).getHtmlContentMap().keySet());
+        }
+        assertTrue(coordinator.isDone());
+    }
+}
@@ -0,0 +1,47 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link DnsCache}.
+ */
+public class DnsCacheTest {
+    @Test
+    public void cachesAddressPerHostIgnoringCase() throws UnknownHostException {
+        DnsCache cache = new DnsCache();
+
+        InetAddress first = cache.resolve("localhost");
+        assertSame(first, cache.resolve("LocalHost"));
+        assertEquals(1, cache.size());
+
+        assertEquals(InetAddress.getByName("127.0.0.1"), cache.resolve("127.0.0.1"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void looksUpAgainAfterExpiry() throws UnknownHostException, InterruptedException {
+        DnsCache cache = new DnsCache(0);
+
+        InetAddress first = cache.resolve("localhost");
+        Thread.sleep(2);
+        InetAddress second = cache.resolve("localhost");
+
+        assertEquals(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void doesNotCacheFailedLookups() {
+        DnsCache cache = new DnsCache();
+
+        assertThrows(UnknownHostException.class, () -> cache.resolve("no-such-host.invalid"));
+        assertEquals(0, cache.size());
+    }
+}
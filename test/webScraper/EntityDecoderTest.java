@@ -0,0 +1,93 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link EntityDecoder} against {@link StringEscapeUtils#unescapeHtml4(String)}
+ * followed by the regex {@link HtmlCleaner#stripEntities(String)} used before.
+ */
+public class EntityDecoderTest {
+    /**
+     * Decodes text the way {@link HtmlCleaner#stripEntities(String)} used to.
+     *
+     * @param text the text
+     * @return the decoded text
+     */
+    private static String reference(String text) {
+        return StringEscapeUtils.unescapeHtml4(text).replaceAll("&[^;\\s]+;", "");
+    }
+
+    @Test
+    public void returnsTextWithoutEntitiesAsIs() {
+        String text = "김치찌개 1/4 cup";
+        assertSame(text, EntityDecoder.decode(text));
+    }
+
+    @Test
+    public void decodesNamedEntities() {
+        assertEquals("2010–2012", EntityDecoder.decode("2010&ndash;2012"));
+        assertEquals("Salt & \"pepper\" ½ ©", EntityDecoder.decode("Salt &amp; &quot;pepper&quot; &frac12; &copy;"));
+        assertEquals("ΘΩ ϑ", EntityDecoder.decode("&Theta;&Omega; &thetasym;"));
+    }
+
+    @Test
+    public void decodesNumericEntities() {
+        assertEquals("– – –", EntityDecoder.decode("&#8211; &#x2013; &#X2013;"));
+        assertEquals("😀", EntityDecoder.decode("&#x1F600;"));
+        assertEquals("a", EntityDecoder.decode("&#97;"));
+    }
+
+    @Test
+    public void removesUnrecognizedEntities() {
+        assertEquals(">x", EntityDecoder.decode("&gt;&dash;x"));
+        assertEquals("", EntityDecoder.decode("&#1114112;"));
+        assertEquals("", EntityDecoder.decode("&#99999999999;"));
+        assertEquals("1x", EntityDecoder.decode("1&#12ab;x"));
+        assertEquals(" ", EntityDecoder.decode("&#; &#x;"));
+    }
+
+    @Test
+    public void removesEntitiesMadeByDecoding() {
+        assertEquals("", EntityDecoder.decode("&amp;lt;"));
+        assertEquals("a", EntityDecoder.decode("&#38;bogus;a"));
+    }
+
+    @Test
+    public void keepsAmpersandsThatStartNoEntity() {
+        assertEquals("A & B", EntityDecoder.decode("A & B"));
+        assertEquals("&amp x; &; &", EntityDecoder.decode("&amp x; &; &"));
+    }
+
+    @Test
+    public void agreesWithReferenceOnRandomText() {
+        Random random = new Random(7);
+        String[] pieces = { "&", "amp;", "lt;", "#", "x", "X", "3", "8", "9", "A", "f", "g", ";", " ", "\n", "nbsp;",
+                "euro;", "hearts", "&amp;", "&#38;", "&#x1F600;", "a", "가", "\t", "&foo;", "&#;", "&#x;", "&sup2;",
+                "&Dagger;" };
+
+        for (int round = 0; round < 20_000; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(12); i > 0; i--) {
+                text.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertEquals(reference(text.toString()), EntityDecoder.decode(text.toString()), text.toString());
+        }
+    }
+
+    @Test
+    public void decodesLongTextRepeatedly() {
+        // longer than the buffer each thread keeps between calls
+        String text = "a &lt; b &unknown; ".repeat(10_000);
+        String expected = "a < b  ".repeat(10_000);
+
+        assertEquals(expected, EntityDecoder.decode(text));
+        assertEquals(expected, EntityDecoder.decode(text));
+        assertEquals("<", EntityDecoder.decode("&lt;"));
+    }
+}
@@ -0,0 +1,79 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ExtractionPattern} and {@link MatchBudget}.
+ */
+public class ExtractionPatternTest {
+    @Test
+    public void matchesSupportedAndUnsupportedRegexesAlike() {
+        String page = "<li>Rice 1 cup</li><li>Water 2 cups</li>";
+        for (String regex : new String[] { "<li>(\\w+) (\\d+) (.*?)</li>", "<li>(\\w+) (\\d{1,3}) (.*?)</li>" }) {
+            ExtractionPattern pattern = ExtractionPattern.compile(regex);
+            ExtractionPattern.Matcher matcher = pattern.matcher(page, new MatchBudget(1_000_000));
+
+            assertEquals(regex, pattern.toString());
+            assertTrue(matcher.matchAt(19), regex);
+            assertEquals("Water", page.substring(matcher.start(1), matcher.end(1)));
+            assertEquals("cups", page.substring(matcher.start(3), matcher.end(3)));
+            assertEquals(page.length(), matcher.end());
+            assertFalse(matcher.matchAt(1), regex);
+            assertEquals(-1, matcher.start(0));
+        }
+    }
+
+    @Test
+    public void rejectsInvalidRegexes() {
+        assertThrows(PatternSyntaxException.class, () -> ExtractionPattern.compile("(a"));
+    }
+
+    @Test
+    public void stopsBacktrackingOnceBudgetIsSpent() {
+        // \b is left to Pattern, which tries every pair of positions for the two lazy groups
+        ExtractionPattern pattern = ExtractionPattern.compile("<a.*?>(.*?)<b.*?>(.*?)<c\\b", Pattern.DOTALL);
+        String page = "<a><b>".repeat(20_000);
+        MatchBudget budget = MatchBudget.forPage(page.length());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertFalse(pattern.matcher(page, budget).matchAt(0));
+        });
+        assertTrue(budget.isExhausted());
+    }
+
+    @Test
+    public void budgetsFailEveryMatchOnceSpent() {
+        MatchBudget budget = new MatchBudget(10);
+
+        assertTrue(budget.spend(4));
+        assertTrue(budget.spend(6));
+        assertFalse(budget.isExhausted());
+        assertFalse(budget.spend(1));
+        assertTrue(budget.isExhausted());
+
+        ExtractionPattern pattern = ExtractionPattern.compile("a");
+        assertFalse(pattern.matcher("a", budget).matchAt(0));
+    }
+
+    @Test
+    public void pagesGetStepsInProportionToLength() {
+        MatchBudget small = MatchBudget.forPage(0);
+        assertTrue(small.spend(100_000));
+        assertFalse(small.spend(1));
+
+        MatchBudget large = MatchBudget.forPage(1_000_000);
+        assertTrue(large.spend(16_000_000));
+        assertTrue(large.spend(100_000));
+        assertFalse(large.spend(1));
+    }
+}
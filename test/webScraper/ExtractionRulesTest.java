@@ -0,0 +1,110 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ExtractionRules}.
+ */
+public class ExtractionRulesTest {
+    private static final URI BLOG = URI.create("https://www.example.com/soup");
+
+    private static final ExtractionRules RULES = new ExtractionRules(List.of(
+            "# rules for one blog",
+            "site *.example.com example.com",
+            "title      h1.entry-title",
+            "info       .meta  # numbers come from here",
+            "ingredient .wprm-recipe-ingredient-name",
+            "quantity   .wprm-recipe-ingredient-amount",
+            "step       #recipe .instruction",
+            "image      #recipe li img @src"));
+
+    private static final String PAGE = """
+            <html><head><title>ignored</title></head><body>
+            <h1 class="entry-title big">Tomato &amp; Egg   Soup</h1>
+            <p class="meta">Serves 2 people, ready in 15min</p>
+            <script>var x = '<span class="wprm-recipe-ingredient-name">no</span>';</script>
+            <ul>
+            <li><span class="wprm-recipe-ingredient-amount">2</span>
+                <span class="wprm-recipe-ingredient-name">tomatoes</span>
+            <li><span class="wprm-recipe-ingredient-amount">1 cup</span>
+                <span class="wprm-recipe-ingredient-name">water</span>
+            </ul>
+            <div class="instruction">Not inside the recipe</div>
+            <ol id="recipe">
+            <li><div class="x instruction">Chop   the tomatoes. <br>
+                Keep the juice.</div><img src="/1.jpg" alt="">
+            <li><div class="instruction"></div><img src="/2.jpg">
+            <li><div class="instruction">Boil <b>everything</b>.</div>
+            </ol>
+            </body></html>
+            """;
+
+    private static final Recipe EXPECTED = new Recipe("Tomato & Egg Soup", "2", "15min",
+            List.of("tomatoes 2", "water 1 cup"),
+            List.of(new Recipe.Step(1, "Chop the tomatoes.\nKeep the juice.", "/1.jpg"),
+                    new Recipe.Step(3, "Boil everything.", "")));
+
+    @Test
+    public void extractsWithSiteRules() {
+        assertEquals(EXPECTED, RULES.extract(PAGE, BLOG, MatchBudget.forPage(PAGE.length())));
+    }
+
+    @Test
+    public void extractsBytesLikeText() {
+        assertEquals(EXPECTED, RULES.extract(new Utf8Text(PAGE.getBytes(UTF_8)), BLOG, MatchBudget.forPage(0)));
+    }
+
+    @Test
+    public void matchesHostGlobs() {
+        MatchBudget budget = MatchBudget.forPage(PAGE.length());
+
+        assertEquals(EXPECTED, RULES.extract(PAGE, URI.create("https://example.com/soup"), budget));
+        assertEquals(RecipeExtractor.extract(PAGE), RULES.extract(PAGE, URI.create("https://other.com/"), budget));
+    }
+
+    @Test
+    public void explicitFieldsWinOverInfoNumbers() {
+        ExtractionRules rules = new ExtractionRules(List.of("site *", "info p", "time span.time"));
+        Recipe recipe = rules.extract("<p>4 servings, 1 hour</p><span class=\"time\">90 min</span>", BLOG,
+                MatchBudget.forPage(0));
+
+        assertEquals("4", recipe.servings());
+        assertEquals("90 min", recipe.time());
+    }
+
+    @Test
+    public void nestedMatchesAreAllKept() {
+        ExtractionRules rules = new ExtractionRules(List.of("site *", "step div.s"));
+        Recipe recipe = rules.extract("<div class=\"s\">a<div class=\"s\">b</div></div>", BLOG,
+                MatchBudget.forPage(0));
+
+        assertEquals(List.of("b", "ab"), recipe.steps().stream().map(Recipe.Step::description).toList());
+    }
+
+    @Test
+    public void commentsAreNotIds() {
+        ExtractionRules rules = new ExtractionRules(
+                List.of("# heading rules", "site * #", "title #main h1 # the heading"));
+        Recipe recipe = rules.extract("<h1>No</h1><div id=\"main\"><h1>Yes</h1></div>", BLOG, MatchBudget.forPage(0));
+
+        assertEquals("Yes", recipe.title());
+    }
+
+    @Test
+    public void rejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionRules(List.of("title h1")));
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionRules(List.of("site *", "author h1")));
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionRules(List.of("site *", "title")));
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionRules(List.of("site *", "title div..a")));
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionRules(List.of("site *", "title .a#")));
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionRules(List.of("site *", "image @src")));
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionRules(List.of("site *", "image img @")));
+    }
+}
@@ -0,0 +1,228 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests {@link HtmlFetcher#fetchBytes(URI, int, StreamingLinkExtractor, DnsCache)}
+ * against a local server.
+ */
+public class HtmlFetcherTest {
+    private static final Charset EUC_KR = Charset.forName("EUC-KR");
+
+    /** A page longer than one read buffer, with links on both sides of the middle. */
+    private static final String PAGE = "<html><a href=\"/김치\">a</a>" + "<p>찌개</p>".repeat(2000)
+            + "<a href=\"/last\">b</a></html>";
+
+    private HttpServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serve("/fixed", "text/html; charset=UTF-8", PAGE.getBytes(UTF_8), false);
+        serve("/chunked", "text/html", PAGE.getBytes(UTF_8), true);
+        serve("/korean", "text/html; charset=\"EUC-KR\"", PAGE.getBytes(EUC_KR), true);
+        serve("/unknown", "text/html; charset=x-no-such-charset", PAGE.getBytes(UTF_8), false);
+        serve("/plain", "text/plain", PAGE.getBytes(UTF_8), false);
+        server.createContext("/moved", exchange -> {
+            exchange.getResponseHeaders().set("Location", uri("/chunked").toString());
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void serve(String path, String type, byte[] body, boolean chunked) {
+        server.createContext(path, exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", type);
+            // a length of 0 makes the server send the body in chunks
+            exchange.sendResponseHeaders(200, chunked ? 0 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < body.length; i += 1000) {
+                    out.write(body, i, Math.min(1000, body.length - i));
+                    out.flush();
+                }
+            }
+        });
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    /**
+     * Fetches a page, collecting the links found while it arrives.
+     *
+     * @param uri   the page
+     * @param links the list to add the links to
+     * @return the page
+     */
+    private static byte[] fetch(URI uri, List<String> links) {
+        return HtmlFetcher.fetchBytes(uri, 1, new StreamingLinkExtractor(links::add), null);
+    }
+
+    @Test
+    public void fetchesFixedLengthBody() {
+        List<String> links = new ArrayList<>();
+        assertArrayEquals(PAGE.getBytes(UTF_8), fetch(uri("/fixed"), links));
+        assertEquals(List.of("/김치", "/last"), links);
+    }
+
+    @Test
+    public void decodesChunkedBody() {
+        List<String> links = new ArrayList<>();
+        assertArrayEquals(PAGE.getBytes(UTF_8), fetch(uri("/chunked"), links));
+        assertEquals(List.of("/김치", "/last"), links);
+    }
+
+    @Test
+    public void convertsOtherCharsetsToUtf8() {
+        List<String> links = new ArrayList<>();
+        assertArrayEquals(PAGE.getBytes(UTF_8), fetch(uri("/korean"), links));
+        assertEquals(List.of("/김치", "/last"), links);
+    }
+
+    @Test
+    public void followsRedirects() {
+        assertArrayEquals(PAGE.getBytes(UTF_8), fetch(uri("/moved"), new ArrayList<>()));
+    }
+
+    @Test
+    public void rejectsUnsupportedPages() {
+        List<String> links = new ArrayList<>();
+        assertNull(fetch(uri("/unknown"), links));
+        assertNull(fetch(uri("/plain"), links));
+        assertTrue(links.isEmpty());
+    }
+
+    @Test
+    public void rejectsInvalidChunks() throws IOException {
+        assertNull(fetchRaw("Transfer-Encoding: chunked\r\n\r\n5\r\n<html\r\nzz\r\n"));
+        assertNull(fetchRaw("Transfer-Encoding: chunked\r\n\r\n10\r\n<html>"));
+        assertNull(fetchRaw("Transfer-Encoding: gzip\r\n\r\n<html></html>"));
+        assertArrayEquals("<html></html>".getBytes(UTF_8), fetchRaw(
+                "Transfer-Encoding: Chunked\r\n\r\n6;x=1\r\n<html>\r\n7\r\n</html>\r\n0\r\nX-Trailer: 1\r\n\r\n"));
+    }
+
+    @Test
+    public void givesUpOnServerThatNeverAnswersAtDeadline() throws IOException {
+        // the connection is accepted by the backlog, but nothing is ever read or written
+        try (ServerSocket listener = new ServerSocket(0, 1, null)) {
+            URI uri = URI.create("http://localhost:" + listener.getLocalPort() + "/");
+            long start = System.currentTimeMillis();
+
+            assertNull(assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> HtmlFetcher.fetchBytes(uri, 0, null, null, start + 500)));
+            assertTrue(System.currentTimeMillis() - start < 5000);
+        }
+    }
+
+    @Test
+    public void givesUpOnBodyStillArrivingAtDeadline() throws IOException {
+        // each byte arrives well within the read timeout, so only the deadline stops the fetch
+        try (ServerSocket listener = new ServerSocket(0, 1, null)) {
+            Thread dripper = new Thread(() -> {
+                try (Socket socket = listener.accept()) {
+                    socket.getInputStream().read(new byte[4096]);
+                    OutputStream out = socket.getOutputStream();
+                    out.write("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\n\r\n<html>".getBytes(ISO_8859_1));
+                    while (true) {
+                        out.write(' ');
+                        out.flush();
+                        Thread.sleep(50);
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // the fetch gave up and closed the connection
+                }
+            });
+            dripper.start();
+
+            URI uri = URI.create("http://localhost:" + listener.getLocalPort() + "/");
+            long start = System.currentTimeMillis();
+            assertNull(assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> HtmlFetcher.fetchBytes(uri, 0, null, null, start + 500)));
+        }
+    }
+
+    /**
+     * Fetches a page from a server that answers once with the given headers and
+     * body after a status line and content type.
+     *
+     * @param response the rest of the response
+     * @return the fetched page
+     * @throws IOException if unable to listen
+     */
+    private static byte[] fetchRaw(String response) throws IOException {
+        try (ServerSocket listener = new ServerSocket(0, 1, null)) {
+            Thread responder = new Thread(() -> {
+                try (Socket socket = listener.accept()) {
+                    socket.getInputStream().read(new byte[4096]);
+                    socket.getOutputStream().write(("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\n" + response)
+                            .getBytes(ISO_8859_1));
+                } catch (IOException e) {
+                    // the fetch fails and the test checks for it
+                }
+            });
+            responder.start();
+            return HtmlFetcher.fetchBytes(URI.create("http://localhost:" + listener.getLocalPort() + "/"), 0, null,
+                    null);
+        }
+    }
+
+    @Test
+    public void readsCharsetParameter() {
+        Map<String, List<String>> headers = new HashMap<>();
+        assertEquals(UTF_8, HtmlFetcher.getCharset(headers));
+
+        headers.put("content-type", List.of("text/html"));
+        assertEquals(UTF_8, HtmlFetcher.getCharset(headers));
+
+        headers.put("content-type", List.of("text/html;Charset = 'x'; q=1"));
+        assertNull(HtmlFetcher.getCharset(headers));
+
+        headers.put("content-type", List.of("text/html; level=1; CHARSET=\"iso-8859-1\""));
+        assertEquals(ISO_8859_1, HtmlFetcher.getCharset(headers));
+    }
+
+    @Test
+    public void readsTransferEncoding() {
+        Map<String, List<String>> headers = new HashMap<>();
+        assertFalse(HtmlFetcher.isChunked(headers));
+
+        headers.put("transfer-encoding", List.of(" Chunked "));
+        assertTrue(HtmlFetcher.isChunked(headers));
+
+        headers.put("transfer-encoding", List.of("gzip, chunked"));
+        assertFalse(HtmlFetcher.isChunked(headers));
+    }
+}
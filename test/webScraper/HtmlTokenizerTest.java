@@ -0,0 +1,141 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link HtmlTokenizer} and {@link HtmlCleaner#stripHtml(String)}.
+ */
+public class HtmlTokenizerTest {
+    /**
+     * Records every event as a short string.
+     *
+     * @param html the page
+     * @return the events in order
+     */
+    private static List<String> events(String html) {
+        List<String> events = new ArrayList<>();
+        HtmlTokenizer.tokenize(html, new HtmlTokenizer.Handler() {
+            @Override
+            public void text(String page, int start, int end) {
+                events.add("text " + page.substring(start, end));
+            }
+
+            @Override
+            public void startTag(String name, String page, int start, int end) {
+                events.add("start " + name + " " + page.substring(start, end));
+            }
+
+            @Override
+            public void endTag(String name) {
+                events.add("end " + name);
+            }
+
+            @Override
+            public void comment(String page, int start, int end) {
+                events.add("comment " + page.substring(start, end));
+            }
+        });
+        return events;
+    }
+
+    /**
+     * Strips a page the way {@link HtmlCleaner#stripHtml(String)} did before it
+     * used the tokenizer.
+     *
+     * @param html the page
+     * @return the text of the page
+     */
+    private static String stripWithPatterns(String html) {
+        return HtmlCleaner.stripEntities(HtmlCleaner.stripTags(HtmlCleaner.stripBlockElements(html)));
+    }
+
+    @Test
+    public void reportsTextTagsAndComments() {
+        assertEquals(List.of("text A", "start b <B class=\"x\">", "text B", "end b", "comment  c ", "text C"),
+                events("A<B class=\"x\">B</ b><!-- c -->C"));
+    }
+
+    @Test
+    public void skipsWholeElements() {
+        assertEquals(List.of("text A", "text B"),
+                events("A<script type=\"x\">if (a < b) { x(); }</script>B"));
+        assertEquals(List.of("text A", "text B"), events("A<STYLE>p { }</ style >B"));
+    }
+
+    @Test
+    public void ignoresEndTagsInsideComments() {
+        assertEquals(List.of("text A", "text B"), events("A<script><!-- </script> --></script>B"));
+    }
+
+    @Test
+    public void keepsUnclosedMarkupAsText() {
+        assertEquals(List.of("text a < b ", "start c <c>"), events("a < b <c>"));
+        assertEquals(List.of("text A<!-- never closed"), events("A<!-- never closed"));
+        assertEquals(List.of("text A", "start script <script>", "text x()"), events("A<script>x()"));
+    }
+
+    @Test
+    public void declarationsHaveNoEvents() {
+        assertEquals(List.of("text A"), events("<!DOCTYPE html>A"));
+    }
+
+    @Test
+    public void readsAttributes() {
+        String tag = "<a HREF=\"/r/1\" data-x='y z' checked title=plain>";
+        int end = tag.length();
+
+        assertEquals("/r/1", HtmlTokenizer.attribute(tag, 0, end, "href"));
+        assertEquals("y z", HtmlTokenizer.attribute(tag, 0, end, "data-x"));
+        assertEquals("", HtmlTokenizer.attribute(tag, 0, end, "checked"));
+        assertEquals("plain", HtmlTokenizer.attribute(tag, 0, end, "title"));
+        assertNull(HtmlTokenizer.attribute(tag, 0, end, "rel"));
+    }
+
+    @Test
+    public void stripsLikeThePatterns() {
+        String html = "<html><head><title>T</title></head><body><!-- x --><p>Salt &amp; pepper</p>"
+                + "<noscript>no</noscript><svg><path/></svg>1 &lt; 2</body></html>";
+        assertEquals(stripWithPatterns(html), HtmlCleaner.stripHtml(html));
+        assertEquals("Salt & pepper1 < 2", HtmlCleaner.stripHtml(html));
+    }
+
+    @Test
+    public void stripsRandomPagesLikeThePatterns() {
+        Random random = new Random(7);
+        String[] pieces = { "word ", "a &amp; b", "&nbsp;", "x < y", "<p>", "</p>", "<div class=\"c\">", "</div>",
+                "<br/>", "<!-- note -->", "<!--\n<p>hidden</p>\n-->", "<script>if (a<b) {}</script>",
+                "<style>p > a {}</style>", "<iframe src=\"x\"></iframe>", "<HEAD><meta x></HEAD>",
+                "<a href=\"/r\">link</a>", "\n", "&#233;", "&bogus;" };
+
+        for (int page = 0; page < 500; page++) {
+            StringBuilder html = new StringBuilder();
+            for (int i = random.nextInt(30); i > 0; i--) {
+                html.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertEquals(stripWithPatterns(html.toString()), HtmlCleaner.stripHtml(html.toString()),
+                    html.toString());
+        }
+    }
+
+    @Test
+    public void unclosedMarkupStaysLinear() {
+        String comments = "<!--".repeat(100_000);
+        String scripts = "<script>".repeat(100_000);
+        String brackets = "<a".repeat(100_000);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertEquals(comments, HtmlCleaner.stripHtml(comments));
+            assertEquals("", HtmlCleaner.stripHtml(scripts));
+            assertEquals(brackets, HtmlCleaner.stripHtml(brackets));
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests {@link IdRangeCrawler} against a local server where only some IDs
+ * exist.
+ */
+public class IdRangeCrawlerTest {
+    private HttpServer server;
+    private Set<Long> existing;
+    private Set<Long> requested;
+    private InvertedIndex index;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        existing = ConcurrentHashMap.newKeySet();
+        requested = ConcurrentHashMap.newKeySet();
+        index = new InvertedIndex();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/recipe/", exchange -> {
+            long id = Long.parseLong(exchange.getRequestURI().getPath().substring("/recipe/".length()));
+            requested.add(id);
+
+            byte[] body = ("<html><title>Recipe " + id + "</title></html>").getBytes(UTF_8);
+            int status = existing.contains(id) ? 200 : 404;
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private IdRangeCrawler crawler() {
+        return new IdRangeCrawler("http://127.0.0.1:" + server.getAddress().getPort() + "/recipe/{id}", index);
+    }
+
+    private void addRange(long first, long last) {
+        for (long id = first; id <= last; id++) {
+            existing.add(id);
+        }
+    }
+
+    @Test
+    public void findsRunsAfterGapWithoutFetchingEveryId() {
+        addRange(1, 20);
+        addRange(300, 330);
+        IdRangeCrawler crawler = crawler();
+        crawler.setGapThreshold(5);
+
+        assertEquals(51, crawler.crawl(1, 400, 1000));
+        assertEquals(51, index.getHtmlContentMap().size());
+        assertTrue(requested.size() < 200, "fetched " + requested.size() + " IDs");
+        assertTrue(crawler.getMetrics().get("ids.gaps") > 0);
+    }
+
+    @Test
+    public void findsRunEndingAtLastId() {
+        addRange(95, 100);
+        IdRangeCrawler crawler = crawler();
+        crawler.setGapThreshold(3);
+
+        assertEquals(6, crawler.crawl(1, 100, 1000));
+    }
+
+    @Test
+    public void stopsAtTotalPages() {
+        addRange(1, 50);
+        IdRangeCrawler crawler = crawler();
+        crawler.setThreads(2);
+
+        assertEquals(10, crawler.crawl(1, 50, 10));
+        assertEquals(10, index.getHtmlContentMap().size());
+    }
+
+    @Test
+    public void rejectsTemplateWithoutPlaceholder() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new IdRangeCrawler("https://example.com/recipe/", new InvertedIndex()));
+    }
+}
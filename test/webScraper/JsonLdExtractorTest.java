@@ -0,0 +1,119 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link JsonLdExtractor}.
+ */
+public class JsonLdExtractorTest {
+    /**
+     * Wraps JSON-LD in a page.
+     *
+     * @param json the JSON-LD
+     * @return the page
+     */
+    private static String page(String json) {
+        return "<html><head><script src=\"a+b.js\"></script><script type=\"application/ld+json\">" + json
+                + "</script></head><body><p>1 + 1</p></body></html>";
+    }
+
+    private static List<String> descriptions(Recipe recipe) {
+        return recipe.steps().stream().map(Recipe.Step::description).toList();
+    }
+
+    @Test
+    public void extractsEveryField() {
+        String json = """
+                {"@context": "https://schema.org", "@type": "Recipe", "name": "Kimchi &amp; Tofu Stew",
+                 "recipeYield": ["4", "4 servings"], "prepTime": "PT10M", "totalTime": "PT40M",
+                 "recipeIngredient": ["1 cup <b>kimchi</b>", "", "200 g tofu"],
+                 "recipeInstructions": [
+                   {"@type": "HowToStep", "text": "Fry the kimchi.", "image": {"@type": "ImageObject",
+                    "url": " /1.jpg "}},
+                   {"@type": "HowToStep", "text": "  "},
+                   {"@type": "HowToStep", "name": "Add tofu.", "image": ["/3a.jpg", "/3b.jpg"]}]}
+                """;
+
+        assertEquals(new Recipe("Kimchi & Tofu Stew", "4", "PT40M", List.of("1 cup kimchi", "200 g tofu"),
+                List.of(new Recipe.Step(1, "Fry the kimchi.", "/1.jpg"), new Recipe.Step(2, "Add tofu.", "/3a.jpg"))),
+                JsonLdExtractor.extract(page(json)));
+    }
+
+    @Test
+    public void findsRecipeInGraphOrNestedObject() {
+        String graph = "{\"@graph\": [{\"@type\": \"WebPage\", \"name\": \"Page\"},"
+                + " {\"name\": \"Soup\", \"@type\": [\"Thing\", \"https://schema.org/Recipe\"]}]}";
+        assertEquals("Soup", JsonLdExtractor.extract(page(graph)).title());
+
+        String nested = "{\"@type\": \"WebPage\", \"mainEntity\": {\"@type\": \"schema:Recipe\", \"name\": \"Stew\"}}";
+        assertEquals("Stew", JsonLdExtractor.extract(page(nested)).title());
+
+        String array = "[{\"@type\": \"Organization\"}, {\"@type\": \"Recipe\", \"name\": \"Rice\"}]";
+        assertEquals("Rice", JsonLdExtractor.extract(page(array)).title());
+    }
+
+    @Test
+    public void readsInstructionsInEveryShape() {
+        String text = "{\"@type\": \"Recipe\", \"recipeInstructions\": \"Boil.\\nServe.\\n\"}";
+        assertEquals(List.of("Boil.", "Serve."), descriptions(JsonLdExtractor.extract(page(text))));
+
+        String sections = "{\"@type\": \"Recipe\", \"recipeInstructions\": [{\"@type\": \"HowToSection\","
+                + " \"name\": \"Sauce\", \"itemListElement\": [{\"text\": \"Mix.\"}, \"Taste.\"]},"
+                + " {\"@type\": \"HowToSection\", \"name\": \"Noodles\","
+                + " \"itemListElement\": [{\"text\": \"Cook.\"}]}]}";
+        assertEquals(List.of("Mix.", "Taste.", "Cook."), descriptions(JsonLdExtractor.extract(page(sections))));
+    }
+
+    @Test
+    public void fallsBackToCookTimeThenPrepTime() {
+        assertEquals("PT20M", JsonLdExtractor.extract(page(
+                "{\"@type\": \"Recipe\", \"prepTime\": \"PT5M\", \"cookTime\": \"PT20M\"}")).time());
+        assertEquals("PT5M", JsonLdExtractor.extract(page("{\"@type\": \"Recipe\", \"prepTime\": \"PT5M\"}")).time());
+    }
+
+    @Test
+    public void skipsMalformedScripts() {
+        String page = "<script type='application/ld+json'>{\"@type\": \"Recipe\", \"name\": }</script>"
+                + page("{\"@type\": \"Recipe\", \"name\": \"Second\"};");
+        assertEquals("Second", JsonLdExtractor.extract(page).title());
+    }
+
+    @Test
+    public void returnsNullWithoutRecipe() {
+        assertNull(JsonLdExtractor.extract("<html><p>a+b</p></html>"));
+        assertNull(JsonLdExtractor.extract(page("{\"@type\": \"Article\", \"name\": \"News\"}")));
+        assertNull(JsonLdExtractor.extract(page("{\"@type\": \"Recipes\", \"name\": \"Not quite\"}")));
+        assertNull(JsonLdExtractor.extract("<p>application/ld+json</p>"));
+        assertNull(JsonLdExtractor.extract("<scripts type=\"application/ld+json\">{\"@type\": \"Recipe\"}</scripts>"));
+    }
+
+    @Test
+    public void extractsBytesLikeText() {
+        String page = page("{\"@type\": \"Recipe\", \"name\": \"김치찌개\", \"recipeIngredient\": [\"김치 1/4포기\"],"
+                + " \"recipeInstructions\": [{\"text\": \"볶는다\", \"image\": \"/é.jpg\"}]}");
+
+        assertEquals(JsonLdExtractor.extract(page), JsonLdExtractor.extract(new Utf8Text(page.getBytes(UTF_8))));
+        assertEquals("김치찌개", JsonLdExtractor.extract(page).title());
+    }
+
+    @Test
+    public void deeplyNestedScriptFallsBackToMarkup() {
+        String deep = page("[".repeat(200_000));
+        assertNull(JsonLdExtractor.extract(deep));
+        assertNull(JsonLdExtractor.extract(new Utf8Text(deep.getBytes(UTF_8))));
+        assertEquals("Second", JsonLdExtractor.extract(deep + page("{\"@type\": \"Recipe\", \"name\": \"Second\"}"))
+                .title());
+
+        InvertedIndex index = new InvertedIndex();
+        URI uri = URI.create("https://example.com/recipe/1");
+        index.indexPage(deep.replace("<body>", "<body><div class=\"view3_top_tit\">Stew</div>"), uri);
+        assertEquals("Stew", ((Recipe) index.getHtmlContent(uri.toString())).title());
+    }
+}
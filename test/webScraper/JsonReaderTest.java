@@ -0,0 +1,128 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link JsonReader}.
+ */
+public class JsonReaderTest {
+    private static JsonReader reader(String json) {
+        return new JsonReader(json, 0, json.length());
+    }
+
+    /**
+     * Reads every token of a document as a short string.
+     *
+     * @param json the reader
+     * @return the tokens
+     */
+    private static List<String> tokens(JsonReader json) {
+        List<String> tokens = new ArrayList<>();
+        while (true) {
+            JsonReader.Token token = json.peek();
+            switch (token) {
+                case BEGIN_OBJECT -> json.beginObject();
+                case END_OBJECT -> json.endObject();
+                case BEGIN_ARRAY -> json.beginArray();
+                case END_ARRAY -> json.endArray();
+                case NAME -> {
+                    tokens.add("name " + json.nextName());
+                    continue;
+                }
+                case END -> {
+                    return tokens;
+                }
+                default -> {
+                    tokens.add(token + " " + json.nextString());
+                    continue;
+                }
+            }
+            tokens.add(token.toString());
+        }
+    }
+
+    @Test
+    public void readsEveryKindOfToken() {
+        JsonReader json = reader(" {\"a\": [1, -2.5e3, true, false, null, \"x\"], \"b\": {}, \"c\": []} ");
+
+        assertEquals(List.of("BEGIN_OBJECT", "name a", "BEGIN_ARRAY", "NUMBER 1", "NUMBER -2.5e3", "BOOLEAN true",
+                "BOOLEAN false", "NULL null", "STRING x", "END_ARRAY", "name b", "BEGIN_OBJECT", "END_OBJECT",
+                "name c", "BEGIN_ARRAY", "END_ARRAY", "END_OBJECT"), tokens(json));
+    }
+
+    @Test
+    public void decodesEscapes() {
+        JsonReader json = reader("[\"a\\\"b\\\\c\\/d\\n\\t\\u00e9\\uD83D\\uDE00\"]");
+        json.beginArray();
+        assertEquals("a\"b\\c/d\n\té😀", json.nextString());
+    }
+
+    @Test
+    public void nullHasNoText() {
+        JsonReader json = reader("null");
+        assertNull(json.nextString());
+        assertFalse(json.hasNext());
+    }
+
+    @Test
+    public void skipsNestedValues() {
+        JsonReader json = reader("{\"skip\": {\"a\": [1, {\"b\": \"}]\"}], \"c\": null}, \"keep\": \"yes\"}");
+        json.beginObject();
+        assertEquals("skip", json.nextName());
+        json.skipValue();
+        assertEquals("keep", json.nextName());
+        assertEquals("yes", json.nextString());
+        json.endObject();
+    }
+
+    @Test
+    public void readsPartOfText() {
+        String page = "<script>{\"name\": \"김치\"};</script>";
+        int start = page.indexOf('{');
+        int end = page.indexOf("</script>");
+
+        JsonReader json = new JsonReader(page, start, end);
+        assertEquals(List.of("BEGIN_OBJECT", "name name", "STRING 김치", "END_OBJECT"), tokens(json));
+    }
+
+    @Test
+    public void decodesUtf8Bytes() {
+        String page = "<script>[\"김치\\n찌개\", \"é\"]</script>";
+        byte[] bytes = page.getBytes(UTF_8);
+        Utf8Text text = new Utf8Text(bytes);
+
+        JsonReader json = new JsonReader(text, text.indexOf('[', 0), text.indexOf("</script>", 0));
+        json.beginArray();
+        assertEquals("김치\n찌개", json.nextString());
+        assertEquals("é", json.nextString());
+        json.endArray();
+    }
+
+    @Test
+    public void rejectsMalformedJson() {
+        for (String malformed : List.of("{\"a\" 1}", "{\"a\": 1 \"b\": 2}", "[1 2]", "{a: 1}", "[\"open",
+                "[tru]", "[1,", "{\"a\": \"\\u12G4\"}", "", "[,1]")) {
+            assertThrows(IllegalArgumentException.class, () -> tokens(reader(malformed)), malformed);
+        }
+    }
+
+    @Test
+    public void rejectsNestingPastMaximumDepth() {
+        String deepest = "[".repeat(JsonReader.MAX_DEPTH) + "]".repeat(JsonReader.MAX_DEPTH);
+        reader(deepest).skipValue();
+
+        String deeper = "[" + deepest + "]";
+        assertThrows(IllegalArgumentException.class, () -> reader(deeper).skipValue());
+        assertThrows(IllegalArgumentException.class, () -> tokens(reader(deeper)));
+        assertThrows(IllegalArgumentException.class, () -> reader("[".repeat(200_000)).skipValue());
+    }
+}
@@ -0,0 +1,145 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests how {@link JsonWriter} writes the entries of the index.
+ */
+public class JsonWriterTest {
+    private static final Recipe RECIPE = new Recipe("Kimchi Stew", "2 servings", "30 min",
+            List.of("kimchi 1 cup", "tofu 200 g"),
+            List.of(new Recipe.Step(1, "Fry.", "/1.jpg"), new Recipe.Step(3, "Simmer.", "")));
+
+    /**
+     * Writes an index the way {@link JsonWriter#writeObject(Map, java.nio.file.Path)}
+     * writes it to a file.
+     *
+     * @param index the index to write
+     * @return the JSON
+     * @throws IOException if an IO error occurs
+     */
+    private static String write(Map<String, ?> index) throws IOException {
+        StringWriter writer = new StringWriter();
+        JsonWriter.writeObject(index, writer, 1);
+        return writer.toString();
+    }
+
+    /**
+     * Reads the description of the only step of the only recipe in an index.
+     *
+     * @param json the index
+     * @return the description
+     */
+    private static String description(String json) {
+        JsonReader reader = new JsonReader(json, 0, json.length());
+        String description = null;
+        reader.beginObject();
+        reader.nextName();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("steps")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("description")) {
+                    description = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            reader.endArray();
+        }
+        reader.endObject();
+        reader.endObject();
+        return description;
+    }
+
+    @Test
+    public void writesRecipesInIndexLayout() throws IOException {
+        assertEquals("""
+                {
+                  "https://example.com/r/1": {
+                    "serving_size": "2 servings",
+                    "ingredients": [
+                        "kimchi 1 cup",
+                        "tofu 200 g"
+                      ],
+                    "time": "30 min",
+                    "title": "Kimchi Stew",
+                    "steps": [
+                        {
+                          "link": "/1.jpg",
+                          "description": "Fry.",
+                          "step": "Step 1"
+                        },
+                        {
+                          "link": "",
+                          "description": "Simmer.",
+                          "step": "Step 3"
+                        }
+                      ]
+                  }
+                }""", write(Map.of("https://example.com/r/1", RECIPE)));
+    }
+
+    @Test
+    public void writesMissingIngredientsAsOneEmptyString() throws IOException {
+        assertEquals("""
+                {
+                  "a": {
+                    "serving_size": "",
+                    "ingredients": [
+                        ""
+                      ],
+                    "time": "",
+                    "title": "",
+                    "steps": [
+                      ]
+                  }
+                }""", write(Map.of("a", new Recipe("", "", "", List.of(), List.of()))));
+    }
+
+    @Test
+    public void escapesQuotesBackslashesAndLineBreaks() throws IOException {
+        String text = "Boil \"water\"\nthen add salt\\pepper\t\u0001";
+        String json = write(Map.of("a", new Recipe(text, "", "", List.of(), List.of(new Recipe.Step(1, text, "")))));
+
+        assertTrue(json.contains("""
+                "title": "Boil \\"water\\"\\nthen add salt\\\\pepper\\t\\u0001","""), json);
+        assertEquals(text, description(json));
+    }
+
+    @Test
+    public void writesDuplicates() throws IOException {
+        Map<String, InvertedIndex.Entry> index = new LinkedHashMap<>();
+        index.put("https://example.com/r/2", new InvertedIndex.Duplicate("https://example.com/r/1"));
+
+        assertEquals("""
+                {
+                  "https://example.com/r/2": {
+                    "duplicate_of": "https://example.com/r/1"
+                  }
+                }""", write(index));
+    }
+
+    @Test
+    public void numbersStepsAndPairsImages() {
+        Recipe recipe = Recipe.of("T", "1", "2", List.of(), List.of("a", "", "c", "d"), List.of("/a", "/b", "/c"));
+
+        assertEquals(List.of(new Recipe.Step(1, "a", "/a"), new Recipe.Step(3, "c", "/c"), new Recipe.Step(4, "d", "")),
+                recipe.steps());
+    }
+}
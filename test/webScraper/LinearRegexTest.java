@@ -0,0 +1,234 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link LinearRegex} against {@link Pattern}.
+ */
+public class LinearRegexTest {
+    /** A budget no test runs out of. */
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * Returns the groups of a match at a position, as
+     * {@link java.util.regex.Matcher#lookingAt()} finds them.
+     *
+     * @param pattern  the pattern
+     * @param text     the text
+     * @param position the position
+     * @return the start and end of every group, or {@code null} if there is no
+     *         match
+     */
+    private static int[] expected(Pattern pattern, String text, int position) {
+        java.util.regex.Matcher matcher = pattern.matcher(text);
+        matcher.region(position, text.length());
+        if (!matcher.lookingAt()) {
+            return null;
+        }
+        int[] groups = new int[2 * (matcher.groupCount() + 1)];
+        for (int group = 0; group <= matcher.groupCount(); group++) {
+            groups[2 * group] = matcher.start(group);
+            groups[2 * group + 1] = matcher.end(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the groups of a match at a position, as {@link LinearRegex}
+     * finds them.
+     *
+     * @param matcher  the matcher
+     * @param groups   the number of groups, not counting the whole match
+     * @param position the position
+     * @return the start and end of every group, or {@code null} if there is no
+     *         match
+     */
+    private static int[] actual(ExtractionPattern.Matcher matcher, int groups, int position) {
+        if (!matcher.matchAt(position)) {
+            return null;
+        }
+        int[] found = new int[2 * (groups + 1)];
+        for (int group = 0; group <= groups; group++) {
+            found[2 * group] = matcher.start(group);
+            found[2 * group + 1] = matcher.end(group);
+        }
+        return found;
+    }
+
+    /**
+     * Checks that a regex matches like {@link Pattern} at every position of a
+     * text.
+     *
+     * @param regex the regex
+     * @param flags the flags
+     * @param text  the text
+     */
+    private static void assertMatchesLikePattern(String regex, int flags, String text) {
+        Pattern pattern = Pattern.compile(regex, flags);
+        int groups = pattern.matcher("").groupCount();
+        ExtractionPattern.Matcher matcher = new LinearRegex(regex, flags).matcher(text,
+                new MatchBudget(UNLIMITED));
+        for (int position = 0; position <= text.length(); position++) {
+            assertArrayEquals(expected(pattern, text, position), actual(matcher, groups, position),
+                    regex + " at " + position + " of " + text);
+        }
+    }
+
+    /**
+     * Makes a random regex of the supported syntax.
+     *
+     * @param random the source of randomness
+     * @param depth  how much deeper it may nest
+     * @return the regex
+     */
+    private static String randomRegex(Random random, int depth) {
+        StringBuilder regex = new StringBuilder();
+        int atoms = 1 + random.nextInt(4);
+        for (int i = 0; i < atoms; i++) {
+            String atom;
+            int kind = random.nextInt(depth > 0 ? 10 : 7);
+            atom = switch (kind) {
+                case 0, 1 -> String.valueOf("ab<>".charAt(random.nextInt(4)));
+                case 2 -> ".";
+                case 3 -> new String[] { "[ab]", "[^a]", "[a-c<]", "[^<>\\s]" }[random.nextInt(4)];
+                case 4 -> new String[] { "\\s", "\\S", "\\w", "\\W", "\\d", "\\<" }[random.nextInt(6)];
+                case 5, 6 -> "ab<>".substring(random.nextInt(2), 2 + random.nextInt(3));
+                case 7 -> "(" + randomRegex(random, depth - 1) + ")";
+                case 8 -> "(?:" + randomRegex(random, depth - 1) + ")";
+                default -> "(?:" + randomRegex(random, depth - 1) + "|" + randomRegex(random, depth - 1) + ")";
+            };
+            regex.append(atom);
+            if (random.nextInt(3) == 0) {
+                regex.append("*+?".charAt(random.nextInt(3)));
+                if (random.nextBoolean()) {
+                    regex.append('?');
+                }
+            }
+        }
+        if (depth > 0 && random.nextInt(4) == 0) {
+            regex.append('|').append(randomRegex(random, depth - 1));
+        }
+        return regex.toString();
+    }
+
+    @Test
+    public void findsGroupsOfExtractionPatterns() {
+        String page = "<h3>Kimchi <b>Stew</b></h3>\n<div class=\"x\">\n<span>30 min</span></div><h3>Rice</h3>";
+        assertMatchesLikePattern("<h3>(.*?)</h3>", 0, page);
+        assertMatchesLikePattern("<div class=\"(\\w+)\">(.*?)</div>", Pattern.DOTALL, page);
+        assertMatchesLikePattern("<span>([^<]*)</span>\\s*</div>", 0, page);
+        assertMatchesLikePattern("<(?:h3|span)>(.*)<", 0, page);
+    }
+
+    @Test
+    public void prefersFirstAlternativeAndGreedyOrLazyLengths() {
+        assertMatchesLikePattern("(a|ab)(c|bcd)(d*)", 0, "abcd");
+        assertMatchesLikePattern("(a*)(a*?)(a?)a", 0, "aaaa");
+        assertMatchesLikePattern("(a+?)(a*)b", 0, "aaab");
+        assertMatchesLikePattern("x(?:(a)|b)y", 0, "xay xby xy");
+    }
+
+    @Test
+    public void dotMatchesLineTerminatorsOnlyWithDotAll() {
+        String text = "<p>a\r\nb c</p>";
+        assertMatchesLikePattern("<p>(.*)</p>", 0, text);
+        assertMatchesLikePattern("<p>(.*)</p>", Pattern.DOTALL, text);
+        assertMatchesLikePattern("a.b", 0, "a\nb a\rb a\u0085b");
+    }
+
+    @Test
+    public void matchesSupplementaryCharacters() {
+        assertMatchesLikePattern("<(.)>(.*?)</.>", 0, "<🍜>noodles</🍜>");
+        assertMatchesLikePattern("[^a]+", 0, "🍜a🍜");
+    }
+
+    @Test
+    public void agreesWithPatternOnRandomRegexes() {
+        Random random = new Random(13);
+        int compiled = 0;
+        for (int i = 0; i < 3000; i++) {
+            String regex = randomRegex(random, 2);
+            LinearRegex linear;
+            try {
+                linear = new LinearRegex(regex, 0);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            assertEquals(regex, linear.toString());
+            compiled++;
+
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                text.append("ab<> \n1".charAt(random.nextInt(7)));
+            }
+            assertMatchesLikePattern(regex, random.nextBoolean() ? Pattern.DOTALL : 0, text.toString());
+        }
+        assertTrue(compiled > 1000, "compiled " + compiled);
+    }
+
+    @Test
+    public void matchesWithoutDfaAndWithLongMatches() {
+        // the DFA would need a state for every set of the last dozen characters
+        assertMatchesLikePattern("(?:a|b)*a(.)(?:a|b)(?:a|b)(?:a|b)(?:a|b)(?:a|b)(?:a|b)(?:a|b)(?:a|b)(?:a|b)b", 0,
+                "abbabababbbabbbaabababbbabababbbab");
+
+        // too long to mark every state at every position, so the groups are found by the NFA
+        String body = "x".repeat(100_000);
+        assertMatchesLikePattern("<a>(.*?)</a>(.?)", Pattern.DOTALL, "<a>" + body + "</a>!</a>");
+    }
+
+    @Test
+    public void rejectsUnsupportedSyntax() {
+        for (String regex : new String[] { "^a", "a$", "a{2}", "(?=a)", "(?i)a", "\\1", "(a)*", "(?:a?)*", "a**",
+                "a*+", "(a", "a)", "[a", "[]", "\\b", "[[a]]" }) {
+            assertThrows(IllegalArgumentException.class, () -> new LinearRegex(regex, 0), regex);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new LinearRegex("a", Pattern.CASE_INSENSITIVE));
+    }
+
+    @Test
+    public void takesStepsLinearInTheText() {
+        // a backtracking matcher tries every pair of positions for the two lazy groups
+        String regex = "<a.*?>(.*?)<b.*?>(.*?)<c";
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            text.append("<a><b>");
+        }
+
+        MatchBudget budget = new MatchBudget(64L * text.length());
+        ExtractionPattern.Matcher matcher = new LinearRegex(regex, Pattern.DOTALL).matcher(text, budget);
+        for (int position = 0; position < 10; position++) {
+            assertFalse(matcher.matchAt(position));
+        }
+        assertFalse(budget.isExhausted());
+
+        text.append("<c");
+        budget = new MatchBudget(64L * text.length());
+        matcher = new LinearRegex(regex, Pattern.DOTALL).matcher(text, budget);
+        assertTrue(matcher.matchAt(0));
+        assertEquals(text.length(), matcher.end());
+        assertFalse(budget.isExhausted());
+    }
+
+    @Test
+    public void failsOnceBudgetIsSpent() {
+        String text = "<a>" + "x".repeat(10_000) + "</a>";
+        MatchBudget budget = new MatchBudget(1_000);
+        ExtractionPattern.Matcher matcher = new LinearRegex("<a>(.*?)</a>", 0).matcher(text, budget);
+
+        assertFalse(matcher.matchAt(0));
+        assertEquals(-1, matcher.start(1));
+        assertTrue(budget.isExhausted());
+        assertFalse(matcher.matchAt(0));
+    }
+}
@@ -0,0 +1,102 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link LinkFilter}.
+ */
+public class LinkFilterTest {
+    private static final URI BASE = URI.create("https://www.example.com/recipe/list.html");
+
+    private static LinkFilter filter(String... rules) {
+        return new LinkFilter(List.of(rules));
+    }
+
+    @Test
+    public void defaultFollowsRecipeLinks() {
+        LinkFilter filter = LinkFilter.defaultFilter();
+
+        assertTrue(filter.accepts("https://other.com/recipe/1", BASE));
+        assertFalse(filter.accepts("https://other.com/about", BASE));
+    }
+
+    @Test
+    public void rejectsNonHttpSchemes() {
+        LinkFilter filter = filter();
+
+        assertTrue(filter.accepts("HTTPS://example.com/", BASE));
+        assertFalse(filter.accepts("mailto:cook@example.com", BASE));
+        assertFalse(filter.accepts("javascript:void(0)", BASE));
+    }
+
+    @Test
+    public void pathRulesMatchAbsoluteAndRelativeLinks() {
+        LinkFilter filter = filter("include path /recipe/");
+
+        assertTrue(filter.accepts("https://example.com/recipe/1", BASE));
+        assertTrue(filter.accepts("//cdn.example.com/recipe/1", BASE));
+        assertTrue(filter.accepts("/recipe/2", BASE));
+        assertTrue(filter.accepts("3.html", BASE));
+        assertFalse(filter.accepts("/about/recipe/", BASE));
+        assertFalse(filter.accepts("3.html", URI.create("https://www.example.com/about/")));
+    }
+
+    @Test
+    public void queryOnlyLinksMatchBasePath() {
+        LinkFilter filter = filter("include path /recipe/list");
+
+        assertTrue(filter.accepts("?page=2", BASE));
+        assertTrue(filter.accepts("#ingredients", BASE));
+        assertFalse(filter.accepts("?page=2", URI.create("https://www.example.com/recipe/")));
+    }
+
+    @Test
+    public void hostGlobsIgnoreCaseAndPorts() {
+        LinkFilter filter = filter("include host *.example.com");
+
+        assertTrue(filter.accepts("https://WWW.Example.com:8080/a", BASE));
+        assertTrue(filter.accepts("https://user@cdn.example.com/a", BASE));
+        assertTrue(filter.accepts("/relative", BASE));
+        assertFalse(filter.accepts("https://example.org/a", BASE));
+    }
+
+    @Test
+    public void excludeRulesWinOverIncludes() {
+        LinkFilter filter = filter("include contains /recipe", "exclude ext .jpg .PDF",
+                "exclude regex [?&]page=\\d{3,}");
+
+        assertTrue(filter.accepts("/recipe/1?page=12", BASE));
+        assertFalse(filter.accepts("/recipe/1.JPG", BASE));
+        assertFalse(filter.accepts("/recipe/card.pdf?download=1", BASE));
+        assertFalse(filter.accepts("/recipe/1?sort=new&page=123", BASE));
+    }
+
+    @Test
+    public void commentsAndBlankLinesAreIgnored() {
+        LinkFilter filter = filter("# only recipes", "", "include contains /recipe # inline comment");
+
+        assertTrue(filter.accepts("/recipe/1", BASE));
+        assertFalse(filter.accepts("/about", BASE));
+    }
+
+    @Test
+    public void rejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> filter("include /recipe"));
+        assertThrows(IllegalArgumentException.class, () -> filter("allow path /recipe"));
+        assertThrows(IllegalArgumentException.class, () -> filter("include suffix .html"));
+    }
+
+    @Test
+    public void globMatchesWholeRange() {
+        assertTrue(LinkFilter.globMatches("*.com", 0, "a.b.com", 0, 7));
+        assertTrue(LinkFilter.globMatches("a*c", 0, "xabcx", 1, 4));
+        assertFalse(LinkFilter.globMatches("a*c", 0, "xabcx", 1, 5));
+    }
+}
@@ -0,0 +1,218 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link LinkGraph}.
+ */
+public class LinkGraphTest {
+    @TempDir
+    Path directory;
+
+    private static URI page(int number) {
+        return URI.create("https://example.com/recipe/" + number);
+    }
+
+    @Test
+    public void givesIdsInOrderSeen() {
+        LinkGraph graph = new LinkGraph();
+
+        assertEquals(0, graph.id(page(5)));
+        assertEquals(1, graph.id(page(2)));
+        assertEquals(0, graph.id(page(5)));
+        assertEquals(page(2), graph.uri(1));
+        assertEquals(2, graph.size());
+    }
+
+    @Test
+    public void successorsAreSortedWithoutSelfLinksOrRepeats() {
+        LinkGraph graph = new LinkGraph();
+        for (int i = 0; i < 5; i++) {
+            graph.id(page(i));
+        }
+
+        graph.addPage(page(2), List.of(page(4), page(0), page(2), page(4), page(1)));
+
+        assertArrayEquals(new int[] { 0, 1, 4 }, graph.successors(2));
+        assertEquals(3, graph.edges());
+        assertArrayEquals(new int[0], graph.successors(0));
+    }
+
+    @Test
+    public void newLinksReplaceOldOnes() {
+        LinkGraph graph = new LinkGraph();
+        graph.addPage(page(0), List.of(page(1), page(2)));
+        graph.addPage(page(0), List.of(page(3)));
+
+        assertArrayEquals(new int[] { 3 }, graph.successors(0));
+        assertEquals(1, graph.edges());
+    }
+
+    @Test
+    public void decodesWhatItEncodes() {
+        Random random = new Random(42);
+        LinkGraph graph = new LinkGraph();
+        List<TreeSet<Integer>> expected = new ArrayList<>();
+        int nodes = 5000;
+        for (int i = 0; i < nodes; i++) {
+            graph.id(page(i));
+        }
+
+        for (int i = 0; i < 300; i++) {
+            int node = random.nextInt(nodes);
+            TreeSet<Integer> targets = new TreeSet<>();
+            List<URI> links = new ArrayList<>();
+            for (int j = random.nextInt(40); j > 0; j--) {
+                // mix nearby and distant links so gaps need one to three bytes
+                int target = random.nextBoolean() ? Math.floorMod(node + random.nextInt(20) - 10, nodes)
+                        : random.nextInt(nodes);
+                links.add(page(target));
+                if (target != node) {
+                    targets.add(target);
+                }
+            }
+            graph.addPage(page(node), links);
+            while (expected.size() <= node) {
+                expected.add(null);
+            }
+            expected.set(node, targets);
+        }
+
+        long edges = 0;
+        for (int node = 0; node < expected.size(); node++) {
+            if (expected.get(node) != null) {
+                int[] actual = expected.get(node).stream().mapToInt(Integer::intValue).toArray();
+                assertArrayEquals(actual, graph.successors(node), "node " + node);
+                edges += actual.length;
+            }
+        }
+        assertEquals(edges, graph.edges());
+    }
+
+    @Test
+    public void passesCashToLinkedPages() {
+        LinkGraph graph = new LinkGraph();
+        graph.addPage(page(0), List.of(page(1), page(2)));
+
+        assertEquals(0, graph.priority(page(0)), 1e-9);
+        assertEquals(1.5, graph.priority(page(1)), 1e-9);
+        assertEquals(1.5, graph.priority(page(2)), 1e-9);
+        assertEquals(0, graph.priority(page(9)), 1e-9);
+
+        graph.addPage(page(1), List.of(page(2)));
+        assertEquals(3, graph.priority(page(2)), 1e-9);
+
+        // page 0 banked 1 and page 1 banked 1.5
+        assertEquals(0.4, graph.importance(page(0)), 1e-9);
+        assertEquals(0.6, graph.importance(page(1)), 1e-9);
+        assertEquals(0, graph.importance(page(2)), 1e-9);
+    }
+
+    @Test
+    public void cashIsConservedAcrossACycle() {
+        LinkGraph graph = new LinkGraph();
+        for (int round = 0; round < 20; round++) {
+            graph.addPage(page(0), List.of(page(1), page(2)));
+            graph.addPage(page(1), List.of(page(2)));
+            graph.addPage(page(2), List.of(page(0)));
+        }
+
+        double cash = graph.priority(page(0)) + graph.priority(page(1)) + graph.priority(page(2));
+        assertEquals(3, cash, 1e-9);
+
+        // PageRank without damping is 0.4, 0.2 and 0.4
+        assertEquals(0.4, graph.importance(page(0)), 0.05);
+        assertEquals(0.2, graph.importance(page(1)), 0.05);
+        assertEquals(0.4, graph.importance(page(2)), 0.05);
+    }
+
+    @Test
+    public void writesWebGraphLayout() throws IOException {
+        LinkGraph graph = new LinkGraph();
+        graph.addPage(page(0), List.of(page(1), page(2)));
+        graph.addPage(page(2), List.of(page(0)));
+
+        graph.write(directory.resolve("links"));
+
+        assertEquals(List.of(page(0).toString(), page(1).toString(), page(2).toString()),
+                Files.readAllLines(directory.resolve("links.urls")));
+        assertEquals("nodes=3\narcs=3\nbytes=6\n", Files.readString(directory.resolve("links.properties")));
+
+        // 0 -> {1, 2}, 1 -> {}, 2 -> {0}
+        assertArrayEquals(new byte[] { 2, 2, 0, 0, 1, 3 }, Files.readAllBytes(directory.resolve("links.graph")));
+        assertArrayEquals(new byte[] { 3, 1, 2 }, Files.readAllBytes(directory.resolve("links.offsets")));
+        assertTrue(graph.bytes() >= 5);
+    }
+
+    @Test
+    public void looksUpFrontCodedUrisAcrossBlocks() throws IOException {
+        // URIs sharing long prefixes, shorter ones and non-ASCII ones, over many blocks and table resizes
+        List<URI> uris = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            uris.add(switch (i % 4) {
+                case 0 -> page(i);
+                case 1 -> page(i / 10);
+                case 2 -> URI.create("https://example.com/");
+                default -> URI.create("https://www.example.org/%EA%B9%80%EC%B9%98/" + i + "?q=" + (i * 7));
+            });
+        }
+
+        LinkGraph graph = new LinkGraph();
+        int[] ids = new int[uris.size()];
+        for (int i = 0; i < uris.size(); i++) {
+            ids[i] = graph.id(uris.get(i));
+        }
+
+        for (int i = 0; i < uris.size(); i++) {
+            assertEquals(ids[i], graph.id(uris.get(i)));
+            assertEquals(uris.get(i), graph.uri(ids[i]));
+        }
+        assertEquals(new HashSet<>(uris).size(), graph.size());
+        assertEquals(1.0, graph.priority(page(8)));
+        assertEquals(0.0, graph.priority(page(-1)));
+
+        graph.write(directory.resolve("many"));
+        List<String> lines = Files.readAllLines(directory.resolve("many.urls"));
+        assertEquals(graph.size(), lines.size());
+        for (int id = 0; id < graph.size(); id++) {
+            assertEquals(graph.uri(id).toString(), lines.get(id));
+        }
+    }
+
+    @Test
+    public void keepsLinksOfARecipeSiteInAFewBytesEach() {
+        // pages link mostly to recipes found around the same time, and to a few listing pages
+        Random random = new Random(1);
+        LinkGraph graph = new LinkGraph();
+        for (int page = 0; page < 20_000; page++) {
+            int number = 6_900_000 + page;
+            List<URI> links = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                links.add(URI.create("https://www.10000recipe.com/recipe/" + (number + random.nextInt(2000) - 500)));
+            }
+            for (int i = 0; i < 5; i++) {
+                links.add(URI.create("https://www.10000recipe.com/recipe/list.html?cat4=" + i));
+            }
+            graph.addPage(URI.create("https://www.10000recipe.com/recipe/" + number), links);
+        }
+
+        // everything, with room to grow, in under 8 bytes a link, or 800 MB for 100M links
+        assertTrue(graph.memory() < 8L * graph.edges(), graph.memory() + " bytes for " + graph.edges() + " links");
+        assertTrue(graph.bytes() < 2L * graph.edges());
+    }
+}
@@ -0,0 +1,112 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link NearDuplicateDetector}.
+ */
+public class NearDuplicateDetectorTest {
+    private static final String RECIPE = "Preheat the oven to 350 degrees. Whisk the flour, sugar, baking powder "
+            + "and salt in a large bowl. Beat the eggs with the milk and melted butter, then stir into the dry "
+            + "ingredients until just combined. Pour into the pan and bake for 25 minutes until golden.";
+
+    @Test
+    public void sameTextHasSameFingerprint() {
+        assertEquals(NearDuplicateDetector.fingerprint(RECIPE), NearDuplicateDetector.fingerprint(RECIPE));
+    }
+
+    @Test
+    public void slightlyChangedTextIsDuplicate() {
+        NearDuplicateDetector detector = new NearDuplicateDetector();
+        String print = RECIPE + " Print this recipe.";
+
+        assertNull(detector.addIfUnique("a", NearDuplicateDetector.fingerprint(RECIPE)));
+        assertEquals("a", detector.addIfUnique("b", NearDuplicateDetector.fingerprint(print)));
+        assertEquals(1, detector.size());
+    }
+
+    @Test
+    public void differentTextIsUnique() {
+        NearDuplicateDetector detector = new NearDuplicateDetector();
+        String other = "Bring a large pot of salted water to a boil. Cook the pasta until al dente, drain and "
+                + "toss with olive oil, garlic, chili flakes and grated parmesan before serving warm.";
+
+        assertNull(detector.addIfUnique("a", NearDuplicateDetector.fingerprint(RECIPE)));
+        assertNull(detector.addIfUnique("b", NearDuplicateDetector.fingerprint(other)));
+        assertEquals(2, detector.size());
+    }
+
+    @Test
+    public void distanceLimitIsInclusive() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(3);
+        long fingerprint = 0x0123456789abcdefL;
+        detector.addIfUnique("a", fingerprint);
+
+        // one differing bit in each of three bands
+        assertEquals("a", detector.addIfUnique("b", fingerprint ^ (1L | 1L << 20 | 1L << 40)));
+        assertNull(detector.addIfUnique("c", fingerprint ^ (1L | 1L << 20 | 1L << 40 | 1L << 60)));
+    }
+
+    @Test
+    public void zeroDistanceOnlyMatchesEqualFingerprints() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(0);
+        detector.addIfUnique("a", 42);
+
+        assertEquals("a", detector.addIfUnique("b", 42));
+        assertNull(detector.addIfUnique("c", 43));
+    }
+
+    @Test
+    public void matchesLinearScan() {
+        Random random = new Random(7);
+        for (int distance : new int[] { 0, 3, 6, 15 }) {
+            NearDuplicateDetector detector = new NearDuplicateDetector(distance);
+            List<Long> unique = new ArrayList<>();
+            List<Long> base = new ArrayList<>();
+
+            for (int i = 0; i < 2000; i++) {
+                long fingerprint;
+                if (base.isEmpty() || random.nextBoolean()) {
+                    fingerprint = random.nextLong();
+                    base.add(fingerprint);
+                } else {
+                    // a nearby variant of an earlier fingerprint
+                    fingerprint = base.get(random.nextInt(base.size()));
+                    for (int flips = random.nextInt(distance + 3); flips > 0; flips--) {
+                        fingerprint ^= 1L << random.nextInt(64);
+                    }
+                }
+
+                boolean expected = true;
+                for (long earlier : unique) {
+                    if (Long.bitCount(earlier ^ fingerprint) <= distance) {
+                        expected = false;
+                        break;
+                    }
+                }
+
+                String original = detector.addIfUnique("page" + i, fingerprint);
+                assertEquals(expected, original == null, "distance " + distance + ", page " + i);
+                if (expected) {
+                    unique.add(fingerprint);
+                }
+            }
+            assertEquals(unique.size(), detector.size());
+        }
+    }
+
+    @Test
+    public void rejectsDistanceOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector(-1));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector(16));
+        assertEquals(0, new NearDuplicateDetector(15).size());
+    }
+}
@@ -0,0 +1,78 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link PolitenessScheduler}.
+ */
+public class PolitenessSchedulerTest {
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    @Test
+    public void spacesRequestsToSameHost() throws InterruptedException {
+        PolitenessScheduler scheduler = new PolitenessScheduler(100);
+        long start = System.nanoTime();
+
+        scheduler.await("example.com");
+        scheduler.await("EXAMPLE.com");
+        scheduler.await("example.com");
+
+        assertTrue(millisSince(start) >= 200, "waited " + millisSince(start) + " ms");
+    }
+
+    @Test
+    public void otherHostsDoNotWait() throws InterruptedException {
+        PolitenessScheduler scheduler = new PolitenessScheduler(5000);
+        long start = System.nanoTime();
+
+        scheduler.await("a.com");
+        scheduler.await("b.com");
+        scheduler.await(null);
+
+        assertTrue(millisSince(start) < 2500, "waited " + millisSince(start) + " ms");
+    }
+
+    @Test
+    public void concurrentRequestsGetSeparateSlots() throws InterruptedException {
+        PolitenessScheduler scheduler = new PolitenessScheduler(50);
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    scheduler.await("example.com");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // the last of four requests gets the slot three delays after the first
+        assertTrue(millisSince(start) >= 150, "waited " + millisSince(start) + " ms");
+    }
+
+    @Test
+    public void zeroDelayNeverWaits() throws InterruptedException {
+        PolitenessScheduler scheduler = new PolitenessScheduler(0);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.await("example.com");
+        }
+
+        assertTrue(millisSince(start) < 1000);
+    }
+}
@@ -0,0 +1,110 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link RecipeExtractor}.
+ */
+public class RecipeExtractorTest {
+    /** A recipe page laid out like the crawled site's. */
+    private static final String PAGE = """
+            <html><head><title>x</title></head><body>
+            <img src="/logo.png">
+            <div class="view3_top_tit"> 김치찌개 </div>
+            <div class="view3_top_info"><span class="a"><img src="i.png">2인분</span> <span>30분 이내</span></div>
+            <div class="ingre_list_name"> <a href="/i/1">김치</a> </div> <span class="ingre_list_ea">1/4포기</span>
+            <div class="ingre_list_name"><a href="/i/2">돼지고기</a></div><span class="ingre_list_ea"> 200g </span>
+            <ul class="step_list st_thumb">
+            <li id="s1"><div class="step_list_num">1</div>
+            <div class="step_list_txt"><div class="step_list_txt_cont">Cut the <b>kimchi</b>.<br/>Then fry.</div></div>
+            <img src="/step1.jpg"></li>
+            <li><div class="step_list_num">2</div><div class="step_list_txt"><div class="step_list_txt_cont"></div>
+            </div><img src='/step2.jpg'></li>
+            <li><div class="step_list_num">3</div><div class="step_list_txt"><div class="step_list_txt_cont">
+            Simmer &amp; serve.</div></div></li>
+            </ul>
+            <div class="reply_mn_tab"><img src="/avatar.png">
+            <li><div class="step_list_num">9</div><div class="step_list_txt"><div class="step_list_txt_cont">
+            Not a step</div></div></li></div>
+            </body></html>
+            """;
+
+    private static final Recipe EXPECTED = new Recipe("김치찌개", "2인분", "30분", List.of("김치 1/4포기", "돼지고기 200g"),
+            List.of(new Recipe.Step(1, "Cut the kimchi.\nThen fry.", "/step1.jpg"),
+                    new Recipe.Step(3, "Simmer & serve.", "")));
+
+    @Test
+    public void extractsEveryField() {
+        assertEquals(EXPECTED, RecipeExtractor.extract(PAGE));
+    }
+
+    @Test
+    public void agreesWithHtmlCleaner() {
+        Recipe recipe = RecipeExtractor.extract(PAGE);
+
+        assertEquals(HtmlCleaner.extractTitle(PAGE), recipe.title());
+        assertEquals(HtmlCleaner.extractInfo(PAGE), recipe.servings() + " " + recipe.time());
+        assertEquals(HtmlCleaner.extractIngredients(PAGE), String.join("\n", recipe.ingredients()));
+    }
+
+    @Test
+    public void extractsBytesLikeText() {
+        assertEquals(EXPECTED, RecipeExtractor.extract(new Utf8Text(PAGE.getBytes(UTF_8))));
+    }
+
+    @Test
+    public void keepsAllStepsWithoutStepList() {
+        String page = PAGE.replace("step_list st_thumb", "steps");
+        Recipe recipe = RecipeExtractor.extract(page);
+
+        assertEquals(List.of(1, 3, 4), recipe.steps().stream().map(Recipe.Step::number).toList());
+        assertEquals("/logo.png", recipe.steps().get(0).image());
+        assertEquals("Not a step", recipe.steps().get(2).description());
+    }
+
+    @Test
+    public void writesMultiLineQuotedStepsAsValidJson() {
+        String page = PAGE.replace("Cut the <b>kimchi</b>.<br/>Then fry.", "Boil \"water\"<br/>then add salt");
+        Recipe recipe = RecipeExtractor.extract(page);
+        assertEquals("Boil \"water\"\nthen add salt", recipe.steps().get(0).description());
+
+        String json = JsonWriter.writeObject(Map.of("https://example.com/r/1", recipe));
+        assertTrue(json.contains("\"description\": \"Boil \\\"water\\\"\\nthen add salt\""), json);
+
+        JsonReader reader = new JsonReader(json, 0, json.length());
+        reader.skipValue();
+        assertEquals(JsonReader.Token.END, reader.peek());
+    }
+
+    @Test
+    public void emptyPageHasEmptyFields() {
+        assertEquals(new Recipe("", "", "", List.of(), List.of()), RecipeExtractor.extract("<p>nothing</p>"));
+    }
+
+    @Test
+    public void exhaustedBudgetLeavesFieldsOut() {
+        Recipe recipe = RecipeExtractor.extract(PAGE, new MatchBudget(10));
+        assertEquals(new Recipe("", "", "", List.of(), List.of()), recipe);
+    }
+
+    @Test
+    public void unclosedStepsStayWithinBudget() {
+        // every step number starts a lazy .*? with nothing to stop it
+        String page = "<li><div class=\"step_list_num\">1</div>".repeat(20_000);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            MatchBudget budget = MatchBudget.forPage(page.length());
+            Recipe recipe = RecipeExtractor.extract(page, budget);
+            assertTrue(recipe.steps().isEmpty());
+        });
+    }
+}
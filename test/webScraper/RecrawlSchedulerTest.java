@@ -0,0 +1,130 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link RecrawlScheduler}.
+ */
+public class RecrawlSchedulerTest {
+    private static final URI A = URI.create("https://example.com/recipe/a");
+    private static final URI B = URI.create("https://example.com/recipe/b");
+    private static final long DAY = RecrawlScheduler.INITIAL_INTERVAL;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void newPageIsDueAfterInitialInterval() {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+
+        assertTrue(scheduler.record(A, 1, 0));
+        assertEquals(List.of(), scheduler.due(10, DAY - 1));
+        assertEquals(List.of(A), scheduler.due(10, DAY));
+    }
+
+    @Test
+    public void recordReportsChanges() {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+        scheduler.record(A, 1, 0);
+
+        assertFalse(scheduler.record(A, 1, DAY));
+        assertTrue(scheduler.record(A, 2, 2 * DAY));
+    }
+
+    @Test
+    public void unchangedPageBacksOff() {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+        scheduler.record(A, 1, 0);
+        scheduler.record(A, 1, DAY);
+
+        // the interval doubles to two days
+        assertEquals(List.of(), scheduler.due(10, 2 * DAY));
+        assertEquals(List.of(A), scheduler.due(10, 3 * DAY));
+    }
+
+    @Test
+    public void intervalNeverExceedsMaximum() {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+        long now = 0;
+        scheduler.record(A, 1, now);
+        for (int i = 0; i < 20; i++) {
+            now += RecrawlScheduler.MAX_INTERVAL;
+            scheduler.record(A, 1, now);
+        }
+
+        assertEquals(List.of(A), scheduler.due(10, now + RecrawlScheduler.MAX_INTERVAL));
+    }
+
+    @Test
+    public void changedPageIsRevisitedSooner() {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+        scheduler.record(A, 1, 0);
+        scheduler.record(A, 2, DAY);
+
+        // the interval halves, but not below the minimum
+        assertEquals(List.of(A), scheduler.due(10, DAY + DAY / 2));
+        assertEquals(List.of(), scheduler.due(10, DAY + RecrawlScheduler.MIN_INTERVAL - 1));
+    }
+
+    @Test
+    public void dueListsPagesMostLikelyChangedFirst() {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+        scheduler.record(A, 1, 0);
+        scheduler.record(B, 1, 0);
+        for (int i = 1; i <= 4; i++) {
+            scheduler.record(A, i + 1, i * DAY);
+            scheduler.record(B, 1, i * DAY);
+        }
+
+        long now = 100 * DAY;
+        assertEquals(List.of(A, B), scheduler.due(10, now));
+        assertEquals(List.of(A), scheduler.due(1, now));
+    }
+
+    @Test
+    public void isUnchangedComparesLastModified() {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+        scheduler.record(A, 1, 1000);
+
+        assertTrue(scheduler.isUnchanged(A, 1000));
+        assertFalse(scheduler.isUnchanged(A, 1001));
+        assertTrue(scheduler.isUnchanged(A, -1));
+        assertFalse(scheduler.isUnchanged(B, -1));
+    }
+
+    @Test
+    public void writeThenReadKeepsSchedule() throws IOException {
+        RecrawlScheduler scheduler = new RecrawlScheduler();
+        scheduler.record(A, 1, 0);
+        scheduler.record(B, 1, DAY);
+
+        Path file = directory.resolve("schedule.bin");
+        scheduler.write(file);
+        RecrawlScheduler read = RecrawlScheduler.read(file);
+
+        assertEquals(2, read.size());
+        assertEquals(scheduler.due(10, 2 * DAY), read.due(10, 2 * DAY));
+    }
+
+    @Test
+    public void readMissingFileIsEmpty() throws IOException {
+        assertTrue(RecrawlScheduler.read(directory.resolve("missing.bin")).isEmpty());
+    }
+
+    @Test
+    public void hashDiffersForDifferentText() {
+        assertEquals(RecrawlScheduler.hash("pancakes"), RecrawlScheduler.hash("pancakes"));
+        assertNotEquals(RecrawlScheduler.hash("pancakes"), RecrawlScheduler.hash("waffles"));
+    }
+}
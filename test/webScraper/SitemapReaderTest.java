@@ -0,0 +1,112 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link SitemapReader}.
+ */
+public class SitemapReaderTest {
+    private static final String URLSET = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <urlset xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+              <url><loc> https://example.com/recipe/1 </loc><lastmod>2024-01-02</lastmod></url>
+              <url><loc>https://example.com/recipe/2</loc><priority>0.5</priority></url>
+            </urlset>
+            """;
+
+    private final SitemapReader reader = new SitemapReader();
+    private final List<URI> urls = new ArrayList<>();
+    private final List<Long> modified = new ArrayList<>();
+    private final List<URI> children = new ArrayList<>();
+
+    private int parse(byte[] sitemap) throws IOException {
+        return reader.parse(new ByteArrayInputStream(sitemap), (loc, lastModified) -> {
+            urls.add(loc);
+            modified.add(lastModified);
+        }, children);
+    }
+
+    @Test
+    public void parsesUrlsInOrder() throws IOException {
+        assertEquals(2, parse(URLSET.getBytes(UTF_8)));
+
+        assertEquals(List.of(URI.create("https://example.com/recipe/1"), URI.create("https://example.com/recipe/2")),
+                urls);
+        assertEquals(List.of(SitemapReader.parseLastModified("2024-01-02"), -1L), modified);
+        assertEquals(List.of(), children);
+    }
+
+    @Test
+    public void parsesGzippedSitemap() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(URLSET.getBytes(UTF_8));
+        }
+
+        assertEquals(2, parse(bytes.toByteArray()));
+    }
+
+    @Test
+    public void collectsSitemapsOfIndex() throws IOException {
+        String index = """
+                <sitemapindex xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+                  <sitemap><loc>https://example.com/sitemap-1.xml</loc><lastmod>2024-01-02</lastmod></sitemap>
+                  <sitemap><loc>https://example.com/sitemap-2.xml.gz</loc></sitemap>
+                </sitemapindex>
+                """;
+
+        assertEquals(0, parse(index.getBytes(UTF_8)));
+        assertEquals(List.of(URI.create("https://example.com/sitemap-1.xml"),
+                URI.create("https://example.com/sitemap-2.xml.gz")), children);
+    }
+
+    @Test
+    public void skipsInvalidLocations() throws IOException {
+        String sitemap = """
+                <urlset>
+                  <url><loc>https://example.com/a b</loc></url>
+                  <url><loc>https://example.com/ok</loc></url>
+                  <url><lastmod>2024-01-02</lastmod></url>
+                </urlset>
+                """;
+
+        assertEquals(1, parse(sitemap.getBytes(UTF_8)));
+        assertEquals(List.of(URI.create("https://example.com/ok")), urls);
+    }
+
+    @Test
+    public void rejectsMalformedXml() {
+        assertThrows(IOException.class, () -> parse("<urlset><url><loc>x</url>".getBytes(UTF_8)));
+    }
+
+    @Test
+    public void rejectsDoctype() {
+        String sitemap = """
+                <?xml version="1.0"?>
+                <!DOCTYPE urlset [<!ENTITY e SYSTEM "file:///etc/passwd">]>
+                <urlset><url><loc>&e;</loc></url></urlset>
+                """;
+
+        assertThrows(IOException.class, () -> parse(sitemap.getBytes(UTF_8)));
+    }
+
+    @Test
+    public void parsesLastModifiedFormats() {
+        assertEquals(1704153600000L, SitemapReader.parseLastModified("2024-01-02"));
+        assertEquals(1704157200000L, SitemapReader.parseLastModified("2024-01-02T01:00:00Z"));
+        assertEquals(1704157200000L, SitemapReader.parseLastModified("2024-01-02T02:00:00+01:00"));
+        assertEquals(-1, SitemapReader.parseLastModified("yesterday"));
+    }
+}
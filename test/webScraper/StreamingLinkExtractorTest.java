@@ -0,0 +1,109 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link StreamingLinkExtractor}.
+ */
+public class StreamingLinkExtractorTest {
+    private static final String[] FRAGMENTS = {
+            "<p>Mix well.</p>", "<a href=\"/recipe/1\">one</a>", "<A HREF = \"/recipe/2?x=1&amp;y=2\">two</A>",
+            "<a class=\"card\" href=\"https://example.com/레시피/3\" title=\"a > b\">", "<abbr title=\"x\">",
+            "<a>no link</a>", "<a href='/single'>", "<<a href=\"/double-open\">", "<img src=\"/a.jpg\">",
+            "text with < and > signs", "<a\nhref=\"/newline\"\n>", "<a href=\"\">empty</a>", "é ü 漢字 ",
+            "<a name=\"x\" href=\"/café\">", "<div data-x=\"<a href='/in-attr'>\">", "<!-- <a href=\"/c\"> -->" };
+
+    private static List<String> streamString(String html, int[] cuts) {
+        List<String> links = new ArrayList<>();
+        StreamingLinkExtractor extractor = new StreamingLinkExtractor(links::add);
+        int start = 0;
+        for (int cut : cuts) {
+            extractor.feed(html, start, cut);
+            start = cut;
+        }
+        extractor.feed(html, start, html.length());
+        return links;
+    }
+
+    private static List<String> streamBytes(byte[] html, int[] cuts) {
+        List<String> links = new ArrayList<>();
+        StreamingLinkExtractor extractor = new StreamingLinkExtractor(links::add);
+        int start = 0;
+        for (int cut : cuts) {
+            extractor.feed(html, start, cut);
+            start = cut;
+        }
+        extractor.feed(html, start, html.length);
+        return links;
+    }
+
+    private static int[] cuts(Random random, int length) {
+        return random.ints(random.nextInt(6), 0, length + 1).sorted().toArray();
+    }
+
+    @Test
+    public void findsLinksInPageOrder() {
+        String html = "<a href=\"/recipe/1\">1</a><p>x</p><a class=\"c\" href=\"/recipe/2\">2</a>";
+        List<String> links = new ArrayList<>();
+        StreamingLinkExtractor extractor = new StreamingLinkExtractor(links::add);
+
+        extractor.feed(html, 0, html.length());
+
+        assertEquals(List.of("/recipe/1", "/recipe/2"), links);
+        assertEquals(2, extractor.getCount());
+    }
+
+    @Test
+    public void findsLinkSplitAcrossPieces() {
+        String html = "<p><a href=\"/recipe/split\">x</a>";
+
+        for (int cut = 0; cut <= html.length(); cut++) {
+            assertEquals(List.of("/recipe/split"), streamString(html, new int[] { cut }), "cut at " + cut);
+        }
+    }
+
+    @Test
+    public void decodesUtf8LinksFromBytes() {
+        byte[] html = "<p>é</p><a href=\"/recette/crème-brûlée\">".getBytes(UTF_8);
+
+        for (int cut = 0; cut <= html.length; cut++) {
+            assertEquals(List.of("/recette/crème-brûlée"), streamBytes(html, new int[] { cut }), "cut at " + cut);
+        }
+    }
+
+    @Test
+    public void dropsOverlongTags() {
+        String html = "<a title=\"" + "x".repeat(10000) + " href=\"/lost\">" + "<a href=\"/kept\">";
+
+        assertEquals(List.of("/kept"), streamString(html, new int[0]));
+    }
+
+    @Test
+    public void matchesHtmlCleanerOnRandomPages() {
+        Random random = new Random(272);
+        for (int page = 0; page < 500; page++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = random.nextInt(30); i > 0; i--) {
+                sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String html = sb.toString();
+            byte[] bytes = html.getBytes(UTF_8);
+            List<String> expected = HtmlCleaner.extractHyperlinks(html);
+
+            assertEquals(expected, streamString(html, cuts(random, html.length())), html);
+            assertEquals(expected, streamBytes(bytes, cuts(random, bytes.length)), html);
+
+            List<String> links = new ArrayList<>();
+            Utf8Text text = new Utf8Text(bytes);
+            new StreamingLinkExtractor(links::add).feed(text, 0, text.length());
+            assertEquals(expected, links, html);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link UrlCanonicalizer}.
+ */
+public class UrlCanonicalizerTest {
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+
+    private String canonicalize(String uri) {
+        return canonicalizer.canonicalize(URI.create(uri)).toString();
+    }
+
+    @Test
+    public void lowercasesSchemeAndHost() {
+        assertEquals("https://www.example.com/Recipe/1", canonicalize("HTTPS://WWW.Example.COM/Recipe/1"));
+    }
+
+    @Test
+    public void dropsDefaultPortsOnly() {
+        assertEquals("http://example.com/", canonicalize("http://example.com:80/"));
+        assertEquals("https://example.com/", canonicalize("https://example.com:443/"));
+        assertEquals("http://example.com:8080/", canonicalize("http://example.com:8080/"));
+        assertEquals("https://example.com:80/", canonicalize("https://example.com:80/"));
+    }
+
+    @Test
+    public void dropsFragment() {
+        assertEquals("https://example.com/a", canonicalize("https://example.com/a#steps"));
+    }
+
+    @Test
+    public void resolvesDotSegmentsAndEmptySegments() {
+        assertEquals("https://example.com/a/c", canonicalize("https://example.com/a/./b/../c"));
+        assertEquals("https://example.com/a/b", canonicalize("https://example.com//a///b"));
+        assertEquals("https://example.com/", canonicalize("https://example.com/../.."));
+        assertEquals("https://example.com/a/", canonicalize("https://example.com/a/b/.."));
+    }
+
+    @Test
+    public void addsSlashForEmptyPath() {
+        assertEquals("https://example.com/", canonicalize("https://example.com"));
+    }
+
+    @Test
+    public void stripsTrackingParameters() {
+        assertEquals("https://example.com/r?id=1&page=2",
+                canonicalize("https://example.com/r?utm_source=x&id=1&fbclid=y&page=2&utm_medium"));
+        assertEquals("https://example.com/r", canonicalize("https://example.com/r?utm_campaign=a&gclid=b"));
+    }
+
+    @Test
+    public void keepsParametersThatOnlyStartLikeTrackingOnes() {
+        assertEquals("https://example.com/r?utm_sourced=1", canonicalize("https://example.com/r?utm_sourced=1"));
+    }
+
+    @Test
+    public void stripsConfiguredParameters() {
+        UrlCanonicalizer custom = new UrlCanonicalizer(List.of("session"));
+        assertEquals("https://example.com/?utm_source=a",
+                custom.canonicalize(URI.create("https://example.com/?session=1&utm_source=a")).toString());
+    }
+
+    @Test
+    public void returnsCanonicalUriUnchanged() {
+        URI uri = URI.create("https://example.com/recipe/1?id=2");
+        assertSame(uri, canonicalizer.canonicalize(uri));
+    }
+
+    @Test
+    public void leavesOtherSchemesUnchanged() {
+        URI mail = URI.create("mailto:Someone@Example.com");
+        assertSame(mail, canonicalizer.canonicalize(mail));
+        URI ftp = URI.create("FTP://Example.com/a/../b");
+        assertSame(ftp, canonicalizer.canonicalize(ftp));
+    }
+
+    @Test
+    public void makesSpellingsOfOnePageEqual() {
+        assertEquals(canonicalize("https://www.10000recipe.com/recipe/6903394"),
+                canonicalize("HTTPS://www.10000recipe.com:443/recipe/./6903394?utm_source=share#top"));
+    }
+}
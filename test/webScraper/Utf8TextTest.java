@@ -0,0 +1,104 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link Utf8Text}.
+ */
+public class Utf8TextTest {
+    private static final String PAGE = "<p class=\"a\">김치 &amp; 찌개</p><img src=\"/é.jpg\">";
+
+    @Test
+    public void readsOneBytePerCharacter() {
+        Utf8Text text = new Utf8Text(PAGE.getBytes(UTF_8));
+
+        assertEquals(PAGE.getBytes(UTF_8).length, text.length());
+        assertEquals('<', text.charAt(0));
+        assertEquals(0xea, text.charAt(13));
+        assertEquals((byte) 0xea, text.byteAt(13));
+    }
+
+    @Test
+    public void findsAsciiWhereTheDecodedPageHasIt() {
+        byte[] bytes = PAGE.getBytes(UTF_8);
+        Utf8Text text = new Utf8Text(bytes);
+
+        for (String needle : List.of("<", "&amp;", "</p>", "src=\"", "\">")) {
+            int i = text.indexOf(needle, 0);
+            assertEquals(PAGE.indexOf(needle), text.decode(0, i).length(), needle);
+            assertTrue(text.startsWith(needle, i));
+        }
+        assertEquals(-1, text.indexOf("<table", 0));
+        assertEquals(-1, text.indexOf('<', bytes.length));
+        assertFalse(text.startsWith("<p", -1));
+        assertFalse(text.startsWith("\">", bytes.length - 1));
+        assertEquals(3, text.indexOf("", 3));
+    }
+
+    @Test
+    public void decodesParts() {
+        Utf8Text text = new Utf8Text(PAGE.getBytes(UTF_8));
+        int start = text.indexOf('>', 0) + 1;
+        int end = text.indexOf("</p>", start);
+
+        assertEquals("김치 &amp; 찌개", text.decode(start, end));
+        assertEquals(PAGE, text.decode());
+    }
+
+    @Test
+    public void subSequenceSharesBytes() {
+        byte[] bytes = ("xx" + PAGE + "yy").getBytes(UTF_8);
+        Utf8Text text = new Utf8Text(bytes, 2, bytes.length - 4);
+        assertEquals(PAGE, text.decode());
+
+        Utf8Text tag = text.subSequence(text.indexOf("<img", 0), text.length());
+        assertEquals(0, tag.indexOf('<', 0));
+        assertEquals("<img src=\"/é.jpg\">", tag.decode());
+        assertEquals(5, tag.indexOf("src", 0));
+    }
+
+    @Test
+    public void wrapsBuffers() {
+        byte[] bytes = PAGE.getBytes(UTF_8);
+        assertEquals(PAGE, Utf8Text.of(ByteBuffer.wrap(bytes)).decode());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 1);
+        direct.put((byte) 'x').put(bytes).flip().position(1);
+        assertEquals(PAGE, Utf8Text.of(direct).decode());
+        assertEquals(1, direct.position());
+    }
+
+    @Test
+    public void findsLikeStringOnRandomText() {
+        Random random = new Random(3);
+        String[] pieces = { "<", ">", "a", "ab", "김", "é", "\"", " " };
+
+        for (int round = 0; round < 500; round++) {
+            StringBuilder page = new StringBuilder();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                page.append(pieces[random.nextInt(pieces.length)]);
+            }
+            Utf8Text text = new Utf8Text(page.toString().getBytes(UTF_8));
+
+            List<Integer> expected = new ArrayList<>();
+            List<Integer> actual = new ArrayList<>();
+            for (int i = page.indexOf("<a"); i >= 0; i = page.indexOf("<a", i + 1)) {
+                expected.add(i);
+            }
+            for (int i = text.indexOf("<a", 0); i >= 0; i = text.indexOf("<a", i + 1)) {
+                actual.add(text.decode(0, i).length());
+            }
+            assertEquals(expected, actual, page.toString());
+        }
+    }
+}
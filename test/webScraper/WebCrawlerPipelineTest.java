@@ -0,0 +1,198 @@
+package webScraper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the fetch and process stages of {@link WebCrawler} against a local
+ * server, with an index that fails on some pages.
+ */
+public class WebCrawlerPipelineTest {
+    /** The number of recipe pages the server has, each linking to the next. */
+    private static final int PAGES = 40;
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/recipe/", exchange -> {
+            int id = Integer.parseInt(exchange.getRequestURI().getPath().substring("/recipe/".length()));
+            String next = id < PAGES ? "<a href=\"/recipe/" + (id + 1) + "\">next</a>" : "";
+            byte[] body = ("<html><div class=\"view3_top_tit\">R" + id + "</div>" + next + "</html>").getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Creates an index that throws instead of indexing some pages.
+     *
+     * @param failing the ID of the page to fail on, or 0 to fail on every page
+     * @param failure the throwable to throw
+     * @return the index
+     */
+    private static InvertedIndex failingIndex(int failing, Supplier<? extends Throwable> failure) {
+        return new InvertedIndex() {
+            @Override
+            public boolean indexPage(Utf8Text html, URI uri) {
+                if (failing == 0 || uri.getPath().equals("/recipe/" + failing)) {
+                    throwUnchecked(failure.get());
+                }
+                return super.indexPage(html, uri);
+            }
+        };
+    }
+
+    /**
+     * Throws an unchecked throwable.
+     *
+     * @param throwable the throwable, a runtime exception or an error
+     */
+    private static void throwUnchecked(Throwable throwable) {
+        if (throwable instanceof Error error) {
+            throw error;
+        }
+        throw (RuntimeException) throwable;
+    }
+
+    /**
+     * Creates a crawler with two fetchers and one processor, seeded with the
+     * first page.
+     *
+     * @param index the index
+     * @return the crawler
+     */
+    private WebCrawler crawler(InvertedIndex index) {
+        WebCrawler crawler = new WebCrawler(index, 1000, new UrlCanonicalizer());
+        crawler.setThreads(2);
+        crawler.setPipeline(1, 1024);
+        crawler.addSeed(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/recipe/1"));
+        return crawler;
+    }
+
+    @Test
+    public void pageThatThrowsIsCountedAndCrawlContinues() {
+        InvertedIndex index = failingIndex(5, () -> new IllegalStateException("hostile page"));
+        WebCrawler crawler = crawler(index);
+
+        // the crawl follows links past the failing page, since they are found while it downloads
+        int crawled = assertTimeoutPreemptively(Duration.ofSeconds(20), () -> crawler.crawlBatch(1000));
+
+        assertEquals(PAGES - 1, crawled);
+        assertEquals(PAGES - 1, index.getHtmlContentMap().size());
+        assertEquals(1, crawler.getMetrics().get("pages.process_failed"));
+    }
+
+    @Test
+    public void stackOverflowIsCountedAndCrawlContinues() {
+        InvertedIndex index = failingIndex(3, StackOverflowError::new);
+        WebCrawler crawler = crawler(index);
+
+        int crawled = assertTimeoutPreemptively(Duration.ofSeconds(20), () -> crawler.crawlBatch(1000));
+
+        assertEquals(PAGES - 1, crawled);
+        assertEquals(1, crawler.getMetrics().get("pages.process_failed"));
+    }
+
+    @Test
+    public void fetchersStopOnceEveryProcessorHasDied() {
+        WebCrawler crawler = crawler(failingIndex(0, () -> new AssertionError("processor killed")));
+
+        int crawled = assertTimeoutPreemptively(Duration.ofSeconds(20), () -> crawler.crawlBatch(1000));
+
+        assertEquals(0, crawled);
+        assertTrue(crawler.getMetrics().get("pages.dropped") <= 2, crawler.getMetrics().toString());
+    }
+
+    @Test
+    public void pageFromServerThatNeverAnswersIsGivenUpOnAtDeadline() throws IOException {
+        try (ServerSocket silent = new ServerSocket(0, 1, null)) {
+            WebCrawler crawler = new WebCrawler(new InvertedIndex(), 1000, new UrlCanonicalizer());
+            crawler.setThreads(2);
+            crawler.addSeed(URI.create("http://127.0.0.1:" + silent.getLocalPort() + "/recipe/1"));
+            crawler.setTimeLimit(1000);
+
+            int crawled = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> crawler.crawlBatch(1000));
+
+            assertEquals(0, crawled);
+            assertEquals(1, crawler.getMetrics().get("pages.failed"));
+        }
+    }
+
+    @Test
+    public void checkpointCountsOnlyFinishedPages() throws IOException {
+        // the first checkpoint is taken while the fetchers still have pages running
+        List<CrawlCheckpoint.Update> updates = new ArrayList<>();
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory.resolve("first"), 5) {
+            @Override
+            public void save(CrawlCheckpoint.Update update) {
+                synchronized (updates) {
+                    updates.add(update);
+                }
+                super.save(update);
+            }
+        };
+        WebCrawler first = new WebCrawler(new InvertedIndex(), 10, new UrlCanonicalizer());
+        first.setThreads(2);
+        first.setPipeline(1, 1024);
+        first.setCheckpoint(checkpoint);
+        first.addSeed(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/recipe/1"));
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> first.crawlBatch(1000));
+
+        new CrawlCheckpoint(directory.resolve("saved"), 5).finish(updates.get(0));
+        CrawlCheckpoint.State state = CrawlCheckpoint.read(directory.resolve("saved"));
+
+        assertEquals(5, state.pagesCrawled());
+        assertEquals(5, state.visited().size());
+        assertEquals(5, state.index().size());
+        Set<URI> waiting = new HashSet<>();
+        for (CrawlFrontier.Task task : state.frontier()) {
+            waiting.add(task.uri());
+        }
+        assertTrue(waiting.stream().noneMatch(state.visited()::contains), state.toString());
+
+        // a page counted before the checkpoint but crawled again after it would leave the index a page short
+        InvertedIndex index = new InvertedIndex();
+        WebCrawler resumed = new WebCrawler(index, 20, new UrlCanonicalizer());
+        resumed.restore(state);
+        int crawled = assertTimeoutPreemptively(Duration.ofSeconds(20), () -> resumed.crawlBatch(1000));
+
+        assertEquals(15, crawled);
+        assertEquals(20, index.getHtmlContentMap().size());
+    }
+}
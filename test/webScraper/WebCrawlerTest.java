@@ -0,0 +1,49 @@
+package webScraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link WebCrawler} without fetching any pages.
+ */
+public class WebCrawlerTest {
+    private static WebCrawler crawler() {
+        WebCrawler crawler = new WebCrawler(new InvertedIndex(), 10, new UrlCanonicalizer());
+        crawler.addSeed(URI.create("http://127.0.0.1:9/recipe/1"));
+        return crawler;
+    }
+
+    @Test
+    public void stopsTakingPagesPastDeadline() {
+        WebCrawler crawler = crawler();
+        crawler.setTimeLimit(0);
+
+        assertEquals(0, crawler.crawlBatch(10));
+        assertTrue(crawler.hasPending());
+        assertEquals(1, crawler.getMetrics().get("deadline.reached"));
+    }
+
+    @Test
+    public void stopsTakingPagesPastDeadlineWithWorkers() {
+        WebCrawler crawler = crawler();
+        crawler.setThreads(4);
+        crawler.setTimeLimit(0);
+
+        assertEquals(0, crawler.crawlBatch(10));
+        assertTrue(crawler.hasPending());
+        assertEquals(1, crawler.getMetrics().get("deadline.reached"));
+    }
+
+    @Test
+    public void cancelledCrawlTakesNoPages() {
+        WebCrawler crawler = crawler();
+        crawler.cancel();
+
+        assertEquals(0, crawler.crawlBatch(10));
+        assertTrue(crawler.hasPending());
+    }
+}